@@ -0,0 +1,67 @@
+package com.luisnery.flashcard.app.flashCardApp.Benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.luisnery.flashcard.app.flashCardApp.Id.IdGenerator;
+import com.luisnery.flashcard.app.flashCardApp.Id.TimeOrderedUuidGenerator;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+import com.luisnery.flashcard.app.flashCardApp.Model.User;
+
+/**
+ * Builds the libraries the benchmarks run on. The text of every flashcard depends only on its
+ * position, so runs differ only in the IDs, which all have the same length.
+ */
+final class Fixtures {
+
+    private static final IdGenerator IDS = new TimeOrderedUuidGenerator(); // The default ID format
+
+    private Fixtures() {
+    }
+
+    /**
+     * Builds a set of flashcards with questions and answers of typical length.
+     *
+     * @param cards the number of flashcards.
+     * @return the set.
+     */
+    static FlashcardSet set(int cards) {
+        List<Flashcard> flashcards = new ArrayList<>(cards);
+        for (int i = 0; i < cards; i++) {
+            flashcards.add(new Flashcard("What is the meaning of term number " + i + "?",
+                    "Term number " + i + " is defined as the answer a student has to recall."));
+        }
+        FlashcardSet flashcardSet = new FlashcardSet("Benchmark set of " + cards + " cards", flashcards);
+        IDS.assignIds(flashcardSet); // As the stores do on creation
+        return flashcardSet;
+    }
+
+    /**
+     * Builds a user owning a single set.
+     *
+     * @param cards the number of flashcards in the set.
+     * @return the user.
+     */
+    static User user(int cards) {
+        User user = new User("benchmark-user", "benchmark@example.com", "Benchmark user");
+        user.setFlashcardSets(new ArrayList<>(List.of(set(cards))));
+        return user;
+    }
+
+    /**
+     * Builds a user owning many small sets.
+     *
+     * @param sets the number of sets.
+     * @return the user.
+     */
+    static User userWithSets(int sets) {
+        User user = new User("benchmark-user", "benchmark@example.com", "Benchmark user");
+        List<FlashcardSet> flashcardSets = new ArrayList<>(sets);
+        for (int i = 0; i < sets; i++) {
+            flashcardSets.add(set(10));
+        }
+        user.setFlashcardSets(flashcardSets);
+        return user;
+    }
+}
@@ -0,0 +1,89 @@
+package com.luisnery.flashcard.app.flashCardApp.Benchmark;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.luisnery.flashcard.app.flashCardApp.Id.IdGenerator;
+import com.luisnery.flashcard.app.flashCardApp.Id.ObjectIdGenerator;
+import com.luisnery.flashcard.app.flashCardApp.Id.RandomUuidGenerator;
+import com.luisnery.flashcard.app.flashCardApp.Id.TimeOrderedUuidGenerator;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+
+/**
+ * ID generation by each {@link IdGenerator} format, alone and on four threads sharing the
+ * generator (and, for random UUIDs, the SecureRandom behind UUID.randomUUID()), and construction
+ * of {@link Flashcard} and {@link FlashcardSet}, which no longer generates an ID. Run with
+ * -prof gc to see the allocation of each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class IdGenerationBenchmark {
+
+    private final IdGenerator randomUuids = new RandomUuidGenerator();
+    private final IdGenerator timeOrderedUuids = new TimeOrderedUuidGenerator();
+    private final IdGenerator objectIds = new ObjectIdGenerator();
+
+    @Benchmark
+    public String randomUuid() {
+        return randomUuids.newId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String randomUuidContended() {
+        return randomUuids.newId();
+    }
+
+    @Benchmark
+    public String timeOrderedUuid() {
+        return timeOrderedUuids.newId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String timeOrderedUuidContended() {
+        return timeOrderedUuids.newId();
+    }
+
+    @Benchmark
+    public String objectId() {
+        return objectIds.newId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String objectIdContended() {
+        return objectIds.newId();
+    }
+
+    @Benchmark
+    public Flashcard newFlashcard() {
+        return new Flashcard("Question", "Answer");
+    }
+
+    @Benchmark
+    public Flashcard newEmptyFlashcard() {
+        return new Flashcard(); // As created by Jackson and Spring Data before the stored ID is set
+    }
+
+    @Benchmark
+    public FlashcardSet newFlashcardSet() {
+        return new FlashcardSet("Title", new ArrayList<>());
+    }
+}
@@ -0,0 +1,66 @@
+package com.luisnery.flashcard.app.flashCardApp.Benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+
+/**
+ * Flashcard lookups by ID in a loaded set. The stream-filter scan is kept as the baseline for
+ * the indexed {@link FlashcardSet#findCard(String)}, measured both with a built index and right
+ * after loading, when the first lookup builds it. Every lookup targets the last flashcard, the
+ * worst case for a scan.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LookupBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    private int size; // Flashcards of the set
+
+    private FlashcardSet flashcardSet;
+    private List<Flashcard> flashcards;
+    private String flashcardId;
+
+    @Setup
+    public void setUp() {
+        flashcardSet = Fixtures.set(size);
+        flashcards = flashcardSet.getFlashcards();
+        flashcardId = flashcards.get(size - 1).getId();
+        flashcardSet.findCard(flashcardId); // Build the index
+    }
+
+    @Benchmark
+    public Flashcard findCardByStreamFilter() {
+        return flashcards.stream().filter(card -> card.getId().equals(flashcardId)).findFirst().orElse(null);
+    }
+
+    @Benchmark
+    public Flashcard findCardIndexed() {
+        return flashcardSet.findCard(flashcardId);
+    }
+
+    @Benchmark
+    public Flashcard findCardAfterLoad() {
+        flashcardSet.setFlashcards(new ArrayList<>(flashcards)); // Drops the index, as a fresh read from MongoDB
+        return flashcardSet.findCard(flashcardId);
+    }
+}
@@ -0,0 +1,73 @@
+package com.luisnery.flashcard.app.flashCardApp.Benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+import com.luisnery.flashcard.app.flashCardApp.Model.User;
+
+/**
+ * Jackson serialization of the response and request bodies of the API: a user with one set and
+ * the set alone, at 10, 1k and 100k flashcards. The object mapper is configured with Spring's
+ * defaults, as the one Spring Boot gives the controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class SerializationBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    private int cards;
+
+    private ObjectMapper objectMapper;
+    private User user;
+    private FlashcardSet flashcardSet;
+    private byte[] userJson;
+    private byte[] setJson;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        user = Fixtures.user(cards);
+        flashcardSet = user.getFlashcardSets().get(0);
+        userJson = objectMapper.writeValueAsBytes(user);
+        setJson = objectMapper.writeValueAsBytes(flashcardSet);
+    }
+
+    @Benchmark
+    public byte[] writeUser() throws IOException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] writeFlashcardSet() throws IOException {
+        return objectMapper.writeValueAsBytes(flashcardSet);
+    }
+
+    @Benchmark
+    public User readUser() throws IOException {
+        return objectMapper.readValue(userJson, User.class);
+    }
+
+    @Benchmark
+    public FlashcardSet readFlashcardSet() throws IOException {
+        return objectMapper.readValue(setJson, FlashcardSet.class);
+    }
+}
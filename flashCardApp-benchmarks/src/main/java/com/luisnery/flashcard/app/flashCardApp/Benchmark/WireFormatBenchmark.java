@@ -0,0 +1,80 @@
+package com.luisnery.flashcard.app.flashCardApp.Benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+import com.luisnery.flashcard.app.flashCardApp.Model.User;
+
+/**
+ * Encoding cost of the card-list and set-list responses in each wire format the API offers, with
+ * and without the gzip compression the server applies, at decks of 20, 200 and 2000 flashcards and
+ * at a library of that many ten-card sets. The bytes each combination puts on the wire are printed
+ * by {@link WireSizes}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class WireFormatBenchmark {
+
+    @Param({ "json", "smile", "cbor" })
+    private String format;
+
+    @Param({ "false", "true" })
+    private boolean gzip;
+
+    @Param({ "20", "200", "2000" })
+    private int size; // Flashcards of the deck and sets of the library
+
+    private ObjectMapper objectMapper;
+    private FlashcardSet flashcardSet;
+    private User library;
+
+    @Setup
+    public void setUp() {
+        objectMapper = WireSizes.mapper(format);
+        flashcardSet = Fixtures.set(size);
+        library = Fixtures.userWithSets(size);
+    }
+
+    @Benchmark
+    public byte[] writeFlashcards() throws IOException {
+        return encode(objectMapper, flashcardSet.getFlashcards(), gzip);
+    }
+
+    @Benchmark
+    public byte[] writeFlashcardSets() throws IOException {
+        return encode(objectMapper, library.getFlashcardSets(), gzip);
+    }
+
+    /**
+     * Encodes a body as the server writes it, through a gzip stream at the default level Tomcat and
+     * Reactor Netty use when compressing.
+     */
+    static byte[] encode(ObjectMapper objectMapper, Object body, boolean gzip) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8192);
+        try (OutputStream out = gzip ? new GZIPOutputStream(bytes, 8192) : bytes) {
+            objectMapper.writeValue(out, body);
+        }
+        return bytes.toByteArray();
+    }
+}
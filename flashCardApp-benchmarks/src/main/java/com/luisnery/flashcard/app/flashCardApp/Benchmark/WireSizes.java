@@ -0,0 +1,55 @@
+package com.luisnery.flashcard.app.flashCardApp.Benchmark;
+
+import java.io.IOException;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Prints the bytes the card-list and set-list responses put on the wire in each format, plain and
+ * gzipped, for the sizes of {@link WireFormatBenchmark}. Sizes are deterministic, so this runs once
+ * instead of under JMH:
+ *
+ * java -cp target/benchmarks.jar com.luisnery.flashcard.app.flashCardApp.Benchmark.WireSizes
+ */
+public final class WireSizes {
+
+    private static final String[] FORMATS = { "json", "smile", "cbor" };
+    private static final int[] SIZES = { 20, 200, 2000 };
+
+    private WireSizes() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.out.printf("%-10s %-6s %6s %12s %12s%n", "body", "format", "size", "plain", "gzip");
+        for (String body : new String[] { "flashcards", "sets" }) {
+            for (int size : SIZES) {
+                Object value = body.equals("flashcards") ? Fixtures.set(size).getFlashcards()
+                        : Fixtures.userWithSets(size).getFlashcardSets();
+                for (String format : FORMATS) {
+                    ObjectMapper objectMapper = mapper(format);
+                    System.out.printf("%-10s %-6s %6d %12d %12d%n", body, format, size,
+                            WireFormatBenchmark.encode(objectMapper, value, false).length,
+                            WireFormatBenchmark.encode(objectMapper, value, true).length);
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the object mapper of a format with Spring's defaults, as Spring Boot's message
+     * converters use.
+     *
+     * @param format json, smile or cbor.
+     * @return the object mapper.
+     */
+    static ObjectMapper mapper(String format) {
+        return switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+    }
+}
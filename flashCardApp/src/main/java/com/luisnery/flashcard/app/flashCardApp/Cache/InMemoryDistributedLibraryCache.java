@@ -0,0 +1,143 @@
+package com.luisnery.flashcard.app.flashCardApp.Cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * In-process stand-in for a distributed {@link LibraryCache} such as Redis or Memcached.
+ *
+ * Values are stored as serialized JSON and deserialized on every read, like a networked cache
+ * would, so callers get their own copies and serialization cost shows up in measurements.
+ * Entries are evicted least-recently-used beyond the size bound and expire after a TTL.
+ * Key generations live next to the entries, as a shared store would keep them in counters that
+ * every instance advances on eviction. Enabled with flashcards.cache.mode=distributed.
+ */
+@Component
+@ConditionalOnProperty(name = "flashcards.cache.mode", havingValue = "distributed")
+public class InMemoryDistributedLibraryCache implements LibraryCache {
+
+    private final ObjectMapper objectMapper;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    private final KeyGenerations generations = new KeyGenerations();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates the cache.
+     *
+     * @param objectMapper the mapper used to serialize cached values.
+     * @param maxSize      the maximum number of cached values.
+     * @param ttl          how long a value stays cached after it was written.
+     */
+    public InMemoryDistributedLibraryCache(ObjectMapper objectMapper,
+            @Value("${flashcards.cache.max-size:10000}") long maxSize,
+            @Value("${flashcards.cache.ttl:10m}") Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.ttlMillis = ttl.toMillis();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public <T> T get(String key, TypeReference<T> type) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        try {
+            return objectMapper.readValue(entry.value, type);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long generation(String key) {
+        return generations.get(key);
+    }
+
+    @Override
+    public boolean putIfUnchanged(String key, Object value, long generation) {
+        byte[] serialized;
+        try {
+            serialized = objectMapper.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        synchronized (entries) {
+            if (generations.get(key) != generation) {
+                return false; // Evicted while the value was loaded
+            }
+            entries.put(key, new Entry(serialized, System.currentTimeMillis() + ttlMillis));
+            return true;
+        }
+    }
+
+    @Override
+    public void evict(String key) {
+        synchronized (entries) {
+            generations.advance(key);
+            entries.remove(key);
+        }
+    }
+
+    @Override
+    public void evictByPrefix(String prefix) {
+        synchronized (entries) {
+            generations.advanceAll();
+            entries.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    @Override
+    public long hitCount() {
+        return hits.get();
+    }
+
+    @Override
+    public long missCount() {
+        return misses.get();
+    }
+
+    @Override
+    public long size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private static class Entry {
+        private final byte[] value;
+        private final long expiresAt;
+
+        Entry(byte[] value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.luisnery.flashcard.app.flashCardApp.Cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Eviction counters of cache keys, so a value loaded before an eviction is not cached after it.
+ *
+ * Keys are hashed onto a fixed number of stripes rather than tracked one by one, so evicted keys
+ * leave nothing behind. Two keys sharing a stripe only cost an occasional uncached load.
+ */
+final class KeyGenerations {
+
+    private static final int STRIPES = 1024; // Power of two, so a hash is masked onto a stripe
+
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    /**
+     * Gets the current generation of a key.
+     */
+    long get(String key) {
+        return generations.get(stripe(key));
+    }
+
+    /**
+     * Advances the generation of a key, before its value is removed.
+     */
+    void advance(String key) {
+        generations.incrementAndGet(stripe(key));
+    }
+
+    /**
+     * Advances the generation of every key, before values are removed by prefix.
+     */
+    void advanceAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+    }
+
+    private static int stripe(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
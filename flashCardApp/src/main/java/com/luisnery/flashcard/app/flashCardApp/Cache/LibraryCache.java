@@ -0,0 +1,85 @@
+package com.luisnery.flashcard.app.flashCardApp.Cache;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+
+/**
+ * Key-value cache for parts of users' flashcard libraries (set lists, single sets, summaries).
+ *
+ * The backend is chosen by the flashcards.cache.mode property: "local" keeps entries in an
+ * in-process Caffeine cache, "distributed" uses a shared store (an in-process stand-in here),
+ * "none" disables caching. Entries are bounded in number and expire after a fixed TTL.
+ *
+ * Values are loaded by reading the key's generation, loading, then caching the value only if the
+ * key was not evicted in the meantime. A load racing with a write therefore never puts the value
+ * read before the write back into the cache once the write has evicted it.
+ *
+ * @see com.luisnery.flashcard.app.flashCardApp.Repository.CachingFlashcardStore
+ */
+public interface LibraryCache {
+
+    /**
+     * Gets a cached value.
+     *
+     * @param key  the cache key.
+     * @param type the type of the cached value.
+     * @param <T>  the type of the cached value.
+     * @return the cached value, or null if it is absent or expired.
+     */
+    <T> T get(String key, TypeReference<T> type);
+
+    /**
+     * Gets the generation of a key, to read before loading the value to cache. Every eviction of
+     * the key advances it.
+     *
+     * @param key the cache key.
+     * @return the generation.
+     */
+    long generation(String key);
+
+    /**
+     * Caches a value, replacing any previous value of the key, unless the key was evicted since
+     * its generation was read.
+     *
+     * @param key        the cache key.
+     * @param value      the value to cache.
+     * @param generation the generation of the key read before the value was loaded.
+     * @return true if the value was cached.
+     */
+    boolean putIfUnchanged(String key, Object value, long generation);
+
+    /**
+     * Removes a cached value and advances the key's generation.
+     *
+     * @param key the cache key.
+     */
+    void evict(String key);
+
+    /**
+     * Removes every cached value whose key starts with the given prefix, advancing the
+     * generation of every key.
+     *
+     * @param prefix the key prefix.
+     */
+    void evictByPrefix(String prefix);
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     *
+     * @return the hit count.
+     */
+    long hitCount();
+
+    /**
+     * Gets the number of lookups that were not answered from the cache.
+     *
+     * @return the miss count.
+     */
+    long missCount();
+
+    /**
+     * Gets the approximate number of cached values.
+     *
+     * @return the number of entries.
+     */
+    long size();
+}
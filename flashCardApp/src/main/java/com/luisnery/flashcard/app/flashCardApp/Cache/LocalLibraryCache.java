@@ -0,0 +1,96 @@
+package com.luisnery.flashcard.app.flashCardApp.Cache;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * {@link LibraryCache} kept in this process with Caffeine, bounded by size and expiring after a TTL.
+ * This is the default cache mode. Cached objects are shared, so callers must not modify them.
+ *
+ * Evictions only reach the cache of this instance. A deployment running several instances must use
+ * the distributed mode, otherwise an instance keeps serving values another one changed until they
+ * expire.
+ */
+@Component
+@ConditionalOnProperty(name = "flashcards.cache.mode", havingValue = "local", matchIfMissing = true)
+public class LocalLibraryCache implements LibraryCache {
+
+    private final Cache<String, Object> cache;
+    private final KeyGenerations generations = new KeyGenerations();
+
+    /**
+     * Creates the cache.
+     *
+     * @param maxSize the maximum number of cached values.
+     * @param ttl     how long a value stays cached after it was written.
+     */
+    public LocalLibraryCache(@Value("${flashcards.cache.max-size:10000}") long maxSize,
+            @Value("${flashcards.cache.ttl:10m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, TypeReference<T> type) {
+        return (T) cache.getIfPresent(key);
+    }
+
+    @Override
+    public long generation(String key) {
+        return generations.get(key);
+    }
+
+    @Override
+    public boolean putIfUnchanged(String key, Object value, long generation) {
+        // Checked while holding the key, so an eviction of the key either precedes the check or removes the value
+        boolean[] cached = new boolean[1];
+        cache.asMap().compute(key, (k, previous) -> {
+            cached[0] = generations.get(k) == generation;
+            return cached[0] ? value : previous;
+        });
+        if (cached[0] && generations.get(key) != generation) {
+            // Evicted by prefix while the value was written, which may not have seen it
+            cache.asMap().remove(key, value);
+            return false;
+        }
+        return cached[0];
+    }
+
+    @Override
+    public void evict(String key) {
+        generations.advance(key);
+        cache.invalidate(key);
+    }
+
+    @Override
+    public void evictByPrefix(String prefix) {
+        generations.advanceAll();
+        cache.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    @Override
+    public long hitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    public long missCount() {
+        return cache.stats().missCount();
+    }
+
+    @Override
+    public long size() {
+        return cache.estimatedSize();
+    }
+}
@@ -1,66 +1,169 @@
 package com.luisnery.flashcard.app.flashCardApp.Controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.luisnery.flashcard.app.flashCardApp.Model.DueFlashcard;
 import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
 import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardBatch;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardBatchResult;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardOperation;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardOperationResult;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardImportResult;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSearchPage;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetFields;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetSummary;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetView;
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryChanges;
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryEvent;
+import com.luisnery.flashcard.app.flashCardApp.Model.ReviewEvent;
+import com.luisnery.flashcard.app.flashCardApp.Model.ReviewState;
 import com.luisnery.flashcard.app.flashCardApp.Model.User;
+import com.luisnery.flashcard.app.flashCardApp.Model.UserPage;
+import com.luisnery.flashcard.app.flashCardApp.Export.ExportFormat;
+import com.luisnery.flashcard.app.flashCardApp.Export.LibraryExporter;
+import com.luisnery.flashcard.app.flashCardApp.Firebase.AuthenticatedUser;
+import com.luisnery.flashcard.app.flashCardApp.Firebase.FirebaseTokenVerifier;
+import com.luisnery.flashcard.app.flashCardApp.Events.LibraryEventHub;
+import com.luisnery.flashcard.app.flashCardApp.Events.LibraryEventListener;
+import com.luisnery.flashcard.app.flashCardApp.Events.LibraryEventPublisher;
+import com.luisnery.flashcard.app.flashCardApp.Import.FlashcardImporter;
+import com.luisnery.flashcard.app.flashCardApp.Import.ImportFormat;
+import com.luisnery.flashcard.app.flashCardApp.Repository.FlashcardStore;
+import com.luisnery.flashcard.app.flashCardApp.Scheduling.ReviewEventQueue;
+import com.luisnery.flashcard.app.flashCardApp.Search.FlashcardSearchIndex;
+import com.luisnery.flashcard.app.flashCardApp.Sync.LibraryChangeLog;
+import com.luisnery.flashcard.app.flashCardApp.Sync.PendingChanges;
+import com.luisnery.flashcard.app.flashCardApp.Scheduling.Sm2Scheduler;
 import com.luisnery.flashcard.app.flashCardApp.Repository.UserRepository;
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseToken;
-import com.google.firebase.auth.FirebaseAuthException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api/users")
 public class UserController {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private FlashcardStore flashcardStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private FirebaseTokenVerifier tokenVerifier;
+
+    @Autowired
+    private FlashcardImporter flashcardImporter;
+
+    @Autowired
+    private LibraryExporter libraryExporter;
+
+    @Autowired
+    private Sm2Scheduler scheduler;
+
+    @Autowired
+    private ReviewEventQueue reviewEventQueue;
+
+    @Autowired
+    private FlashcardSearchIndex searchIndex;
+
+    @Autowired
+    private LibraryEventHub eventHub;
+
+    @Autowired
+    private LibraryEventPublisher eventPublisher;
+
+    @Autowired
+    private LibraryChangeLog changeLog;
+
+    private static final int MAX_PAGE_SIZE = 1000; // Upper bound for requested page sizes
+    private static final int STREAM_FLUSH_INTERVAL = 100; // Users written between flushes when streaming
+    private static final int MAX_REVIEW_BATCH = 1000; // Upper bound for review events per request
+    private static final int MAX_QUERY_LENGTH = 500; // Upper bound for search query characters
+    private static final int MAX_REVIEW_ATTEMPTS = 3; // Attempts to record a review that races with another
+    private static final int MAX_BATCH_OPERATIONS = 1000; // Upper bound for operations per batch
+    private static final int MAX_BATCH_ATTEMPTS = 3; // Attempts to apply a batch without expected versions that races with another
+    private static final String DEFAULT_SET_FIELDS = "id,title,cardCount,cards"; // Fields of a set read with its flashcards
+
     /**
      * Creates a new user or retrieves an existing one based on the Firebase UID.
      * Validates the Firebase token provided in the Authorization header to ensure
      * that the user is authenticated.
      *
-     * @param user  The user data to create or update.
-     * @param token The Firebase ID token from the Authorization header.
+     * @param user      The user data to create or update.
+     * @param principal The authenticated user resolved from the Authorization header.
      * @return A ResponseEntity containing the created/retrieved user or an error
      *         status.
      */
     @PostMapping("/create")
-    public ResponseEntity<User> createUser(@RequestBody User user, @RequestHeader("Authorization") String token) {
-        try {
-            // Extract the Firebase ID token from the Authorization header
-            String idToken = token.replace("Bearer ", "");
+    public ResponseEntity<User> createUser(@RequestBody User user, AuthenticatedUser principal) {
+        String uid = principal.getUid();
 
-            // Verify the ID token using Firebase Admin SDK
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
-            String uid = decodedToken.getUid(); // Extract UID from Firebase token
-
-            // Check if the user already exists in the database
-            Optional<User> existingUser = userRepository.findById(uid);
-            if (existingUser.isPresent()) {
-                return ResponseEntity.ok(existingUser.get()); // Return the existing user
-            } else {
-                // Create a new user with the Firebase UID
-                user.setId(uid);
-                User savedUser = userRepository.save(user);
-                return ResponseEntity.ok(savedUser);
+        // Check if the user already exists in the database
+        Optional<User> existingUser = userRepository.findById(uid);
+        if (existingUser.isPresent()) {
+            return ResponseEntity.ok(existingUser.get()); // Return the existing user
+        } else {
+            // Create a new user with the Firebase UID; versioned, so a concurrent creation cannot be overwritten
+            user.setId(uid);
+            List<FlashcardSet> flashcardSets = user.getFlashcardSets() != null ? user.getFlashcardSets() : List.of();
+            user.setFlashcardSets(new ArrayList<>()); // Added through the store, which knows where sets are kept
+            User created;
+            try {
+                created = userRepository.save(user);
+            } catch (DuplicateKeyException e) {
+                return userRepository.findById(uid).map(ResponseEntity::ok) // Created by a concurrent request
+                        .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT).build());
+            }
+            if (flashcardSets.isEmpty()) {
+                return ResponseEntity.ok(created);
+            }
+            try (PendingChanges changes = changeLog.begin(uid)) {
+                List<LibraryEvent> events = new ArrayList<>(flashcardSets.size());
+                for (FlashcardSet flashcardSet : flashcardSets) {
+                    FlashcardSet newSet = addFlashcardSet(uid, flashcardSet);
+                    if (newSet == null) {
+                        libraryChanged(changes, events);
+                        return ResponseEntity.status(HttpStatus.CONFLICT).build(); // Deleted by a concurrent request
+                    }
+                    created.getFlashcardSets().add(newSet);
+                    events.add(LibraryEvent.setCreated(newSet));
+                }
+                libraryChanged(changes, events);
+                return ResponseEntity.ok(created);
             }
-
-        } catch (FirebaseAuthException e) {
-            // If the token is invalid or expired, return a 401 Unauthorized response
-            return ResponseEntity.status(401).body(null);
-        } catch (Exception e) {
-            // Handle any other unexpected errors
-            return ResponseEntity.status(500).body(null);
         }
     }
 
@@ -68,37 +171,25 @@ public class UserController {
      * Adds a new flashcard set to a user. Validates the Firebase token provided in
      * the Authorization header.
      *
-     * @param firebaseId   The Firebase ID token from the Authorization header.
+     * @param principal    The authenticated user resolved from the Authorization header.
      * @param flashcardSet The flashcard set data to add.
      * @return A ResponseEntity containing the created flashcard set or an error
      *         status.
      */
     @PostMapping("/{userId}/flashcardSets/create")
-    public ResponseEntity<FlashcardSet> createFlashcardSet(@RequestHeader("Authorization") String firebaseId,
+    public ResponseEntity<FlashcardSet> createFlashcardSet(AuthenticatedUser principal,
             @RequestBody FlashcardSet flashcardSet) {
-        try {
-            // Validate Firebase token
-            String idToken = firebaseId.replace("Bearer ", "");
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
-            String uid = decodedToken.getUid();
-
-            // Check if the user exists
-            Optional<User> user = userRepository.findById(uid);
-            if (!user.isPresent()) {
+        String uid = principal.getUid();
+
+        // Store the set, no match means the user does not exist
+        try (PendingChanges changes = changeLog.begin(uid)) {
+            FlashcardSet newSet = addFlashcardSet(uid, flashcardSet);
+            if (newSet == null) {
                 return ResponseEntity.notFound().build(); // User not found
             }
-
-            // Create and add a new flashcard set
-            FlashcardSet newSet = new FlashcardSet();
-            newSet.setTitle(flashcardSet.getTitle());
-            newSet.setFlashcards(flashcardSet.getFlashcards());
-
-            user.get().getFlashcardSets().add(newSet);
-            userRepository.save(user.get());
+            libraryChanged(changes, LibraryEvent.setCreated(newSet));
 
             return ResponseEntity.ok(newSet); // Return the created flashcard set
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body(null);
         }
     }
 
@@ -106,63 +197,93 @@ public class UserController {
      * Adds a new flashcard to an existing flashcard set of a user. Validates the
      * Firebase token and checks if the flashcard set exists before adding.
      *
-     * @param firebaseId  The Firebase ID token from the Authorization header.
+     * @param principal   The authenticated user resolved from the Authorization header.
      * @param setId       The ID of the flashcard set to update.
      * @param newFlashcard The flashcard data to add.
+     * @param ifMatch     The ETag of the set the client last read, to add only if the set is unchanged.
      * @return A ResponseEntity containing the added flashcard or an error status.
      */
     @PostMapping("/{userId}/flashcardSets/{setId}/addFlashcard")
-    public ResponseEntity<Flashcard> addFlashcard(@RequestHeader("Authorization") String firebaseId,
-            @PathVariable("setId") String setId, @RequestBody Flashcard newFlashcard) {
-        try {
-            // Validate Firebase token
-            String idToken = firebaseId.replace("Bearer ", "");
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
-            String uid = decodedToken.getUid();
-
-            // Retrieve the user from the database
-            Optional<User> userOptional = userRepository.findById(uid);
-            if (!userOptional.isPresent()) {
-                return ResponseEntity.notFound().build(); // User not found
+    public ResponseEntity<Flashcard> addFlashcard(AuthenticatedUser principal,
+            @PathVariable("setId") String setId, @RequestBody Flashcard newFlashcard,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        String uid = principal.getUid();
+
+        // Store the new flashcard in the set, no match means the user or set does not exist
+        try (PendingChanges changes = changeLog.begin(uid)) {
+            if (!flashcardStore.addFlashcard(uid, setId, newFlashcard, expectedVersion(ifMatch))) {
+                return ResponseEntity.notFound().build(); // User or flashcard set not found
             }
-
-            User user = userOptional.get();
-
-            // Retrieve the flashcard set from the user's data
-            Optional<FlashcardSet> flashcardSetOptional = user.getFlashcardSets().stream()
-                    .filter(set -> set.getId().equals(setId)).findFirst();
-
-            if (!flashcardSetOptional.isPresent()) {
-                return ResponseEntity.notFound().build(); // Flashcard set not found
-            }
-
-            FlashcardSet flashcardSet = flashcardSetOptional.get();
-
-            // Add the new flashcard to the set
-            flashcardSet.getFlashcards().add(newFlashcard);
-
-            // Save the updated user data
-            userRepository.save(user);
+            searchIndex.index(uid, setId, List.of(newFlashcard));
+            libraryChanged(changes, LibraryEvent.cardAdded(setId, newFlashcard));
 
             return ResponseEntity.ok(newFlashcard); // Return the newly added flashcard
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).body(null); // Internal Server Error
         }
     }
 
 
  // Get all users
     /**
-     * Retrieves a list of all users in the database.
+     * Retrieves one page of users in ascending ID order, using keyset pagination on the ID.
+     * Pass the returned nextCursor back as the cursor parameter to fetch the following page.
      *
-     * @return A ResponseEntity containing a list of all users or an HTTP error status.
+     * @param limit  The maximum number of users to return, capped at 1000.
+     * @param cursor The opaque cursor returned with the previous page, or none for the first page.
+     * @return A ResponseEntity containing the page of users or an HTTP 400 status for an invalid cursor.
      */
     @GetMapping("/getAll")
-    public ResponseEntity<List<User>> getAllMessages() {
-        // Fetch all users from the repository
-        List<User> messages = userRepository.findAll();
-        return ResponseEntity.ok(messages); // Return HTTP 200 OK with the list of users
+    public ResponseEntity<UserPage> getAllMessages(@RequestParam(defaultValue = "100") int limit,
+            @RequestParam(required = false) String cursor) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        Limit pageSize = Limit.of(Math.min(limit, MAX_PAGE_SIZE));
+
+        List<User> users;
+        if (cursor == null || cursor.isEmpty()) {
+            users = userRepository.findAllByOrderByIdAsc(pageSize);
+        } else {
+            String afterId;
+            try {
+                afterId = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build(); // Malformed cursor
+            }
+            users = userRepository.findByIdGreaterThanOrderByIdAsc(afterId, pageSize);
+        }
+
+        // A full page may have a successor, so hand out a cursor pointing after its last user
+        String nextCursor = null;
+        if (users.size() == pageSize.max()) {
+            String lastId = users.get(users.size() - 1).getId();
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+        }
+        return ResponseEntity.ok(new UserPage(users, nextCursor)); // Return HTTP 200 OK with the page of users
+    }
+
+    // Stream all users
+    /**
+     * Streams every user as newline-delimited JSON, writing each user to the response as the
+     * Mongo cursor yields it instead of collecting the whole collection in memory.
+     *
+     * @return A ResponseEntity whose body writes one JSON user per line.
+     */
+    @GetMapping(value = "/getAll/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        StreamingResponseBody body = out -> {
+            try (Stream<User> users = userRepository.streamAllByOrderByIdAsc()) {
+                int written = 0;
+                for (User user : (Iterable<User>) users::iterator) {
+                    out.write(objectMapper.writeValueAsBytes(user));
+                    out.write('\n');
+                    if (++written % STREAM_FLUSH_INTERVAL == 0) {
+                        out.flush(); // Push completed lines to the client regularly
+                    }
+                }
+                out.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
     }
 
     // Get a user by ID
@@ -183,32 +304,20 @@ public class UserController {
     /**
      * Verifies the existence of a user in the database by validating their Firebase ID token.
      *
-     * @param token The Firebase ID token provided in the Authorization header.
+     * @param principal The authenticated user resolved from the Authorization header.
      * @return A ResponseEntity containing the user details if found, or an appropriate error status.
      */
     @GetMapping("/checkIfUserExists")
-    public ResponseEntity<User> checkIfUserExists(@RequestHeader("Authorization") String token) {
-        try {
-            // Extract and verify the Firebase ID token
-            String idToken = token.replace("Bearer ", "");
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
-            String uid = decodedToken.getUid(); // Extract UID from the token
+    public ResponseEntity<User> checkIfUserExists(AuthenticatedUser principal) {
+        String uid = principal.getUid();
 
-            // Check if the user exists in the database
-            Optional<User> userOptional = userRepository.findById(uid);
+        // Check if the user exists in the database
+        Optional<User> userOptional = userRepository.findById(uid);
 
-            if (userOptional.isPresent()) {
-                return ResponseEntity.ok(userOptional.get()); // Return user details if found
-            } else {
-                return ResponseEntity.notFound().build(); // Return 404 if the user is not found
-            }
-        } catch (FirebaseAuthException e) {
-            // Handle invalid or expired Firebase token
-            return ResponseEntity.status(401).body(null); // Return 401 Unauthorized
-        } catch (Exception e) {
-            // Handle any other errors
-            e.printStackTrace();
-            return ResponseEntity.status(500).body(null); // Return 500 Internal Server Error
+        if (userOptional.isPresent()) {
+            return ResponseEntity.ok(userOptional.get()); // Return user details if found
+        } else {
+            return ResponseEntity.notFound().build(); // Return 404 if the user is not found
         }
     }
 
@@ -216,122 +325,265 @@ public class UserController {
     /**
      * Retrieves all flashcard sets associated with a user. Validates the user's Firebase token.
      *
-     * @param firebaseId The Firebase ID token provided in the Authorization header.
-     * @return A ResponseEntity containing a list of flashcard sets or an appropriate error status.
+     * The ETag is derived from the IDs and versions of the sets, and a matching If-None-Match is
+     * answered with 304 from those alone, without loading any flashcard.
+     *
+     * @param principal   The authenticated user resolved from the Authorization header.
+     * @param ifNoneMatch The ETags of the copies the client holds, if any.
+     * @return A ResponseEntity containing a list of flashcard sets, an HTTP 304 status if the client's
+     *         copy is current, or an appropriate error status.
      */
     @GetMapping("/{userId}/flashcardSets")
-    public ResponseEntity<List<FlashcardSet>> getAllFlashcardSetsForUser(@RequestHeader("Authorization") String firebaseId) {
-        try {
-            // Validate Firebase token
-            String idToken = firebaseId.replace("Bearer ", "");
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
-            String uid = decodedToken.getUid(); // Extract UID from the token
-
-            // Find the user by UID
-            Optional<User> user = userRepository.findById(uid);
-
-            if (user.isPresent()) {
-                // Retrieve all flashcard sets associated with the user
-                List<FlashcardSet> flashcardSets = user.get().getFlashcardSets();
-                return ResponseEntity.ok(flashcardSets); // Return the list of flashcard sets
+    public ResponseEntity<List<FlashcardSet>> getAllFlashcardSetsForUser(AuthenticatedUser principal,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String uid = principal.getUid();
+
+        // Revalidate the client's copy from the set versions alone
+        if (ifNoneMatch != null) {
+            Optional<String> eTag = flashcardStore.findFlashcardSetVersions(uid).map(UserController::libraryETag);
+            if (eTag.isPresent() && matchesAny(ifNoneMatch, eTag.get())) {
+                return notModified(eTag.get());
+            }
+        }
+
+        // Retrieve all flashcard sets associated with the user
+        return flashcardStore.findFlashcardSets(uid)
+                .map(sets -> revalidated(libraryETag(versionsOf(sets))).body(sets)) // Return the list of flashcard sets
+                .orElseGet(() -> ResponseEntity.notFound().build()); // Return 404 if the user is not found
+    }
+
+    // Get the summaries of all sets of a user
+    /**
+     * Retrieves a summary (ID, title and card count) of every flashcard set of a user,
+     * without the flashcards themselves. Validates the user's Firebase token.
+     *
+     * @param principal  The authenticated user resolved from the Authorization header.
+     * @return A ResponseEntity containing the list of set summaries or an appropriate error status.
+     */
+    @GetMapping("/{userId}/flashcardSets/summaries")
+    public ResponseEntity<List<FlashcardSetSummary>> getFlashcardSetSummariesForUser(AuthenticatedUser principal) {
+        String uid = principal.getUid();
+
+        // Summarize the user's flashcard sets without loading any flashcard
+        return flashcardStore.findFlashcardSetSummaries(uid)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build()); // Return 404 if the user is not found
+    }
+
+    // Export the whole library of a user
+    /**
+     * Streams every flashcard set and flashcard of a user as NDJSON or CSV, one row per flashcard,
+     * without loading the library into memory. The body is gzip-compressed when the client
+     * accepts it. An interrupted export is resumed by passing the number of rows already
+     * received as the offset.
+     *
+     * @param principal      The authenticated user resolved from the Authorization header.
+     * @param format         The output format: ndjson (default) or csv.
+     * @param offset         The number of leading rows to skip, 0 for a full export.
+     * @param acceptEncoding The Accept-Encoding header of the request, if any.
+     * @return A ResponseEntity whose body writes the rows, an HTTP 400 status for an unknown format
+     *         or a negative offset, or an HTTP 404 status if the user is not found.
+     */
+    @GetMapping("/{userId}/export")
+    public ResponseEntity<StreamingResponseBody> exportLibrary(AuthenticatedUser principal,
+            @RequestParam(defaultValue = "ndjson") String format, @RequestParam(defaultValue = "0") long offset,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        String uid = principal.getUid();
+
+        Optional<ExportFormat> exportFormat = ExportFormat.fromName(format);
+        if (exportFormat.isEmpty() || offset < 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!userRepository.existsById(uid)) {
+            return ResponseEntity.notFound().build(); // Return 404 if the user is not found
+        }
+
+        boolean gzip = acceptsGzip(acceptEncoding);
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, true); // Flushes reach the client
+                libraryExporter.export(uid, offset, exportFormat.get(), compressed);
+                compressed.finish();
             } else {
-                return ResponseEntity.notFound().build(); // Return 404 if the user is not found
+                libraryExporter.export(uid, offset, exportFormat.get(), out);
             }
-        } catch (FirebaseAuthException e) {
-            // Handle invalid or expired Firebase token
-            return ResponseEntity.status(401).body(null); // Return 401 Unauthorized
-        } catch (Exception e) {
-            // Handle any other errors
-            return ResponseEntity.status(500).body(null); // Return 500 Internal Server Error
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(exportFormat.get().getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"flashcards." + exportFormat.get().getExtension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
         }
+        return response.body(body);
     }
 
     // Get a single FlashcardSet by ID of a User
     /**
      * Retrieves a specific flashcard set by its ID for a given user.
      * Validates the user's Firebase token and ensures the set belongs to the user.
+     * A matching If-None-Match is answered with 304 from the set's version, without loading its flashcards.
      *
-     * @param firebaseId The Firebase ID token provided in the Authorization header.
-     * @param setId      The ID of the flashcard set to retrieve.
-     * @return A ResponseEntity containing the flashcard set or an appropriate error status.
+     * @param principal   The authenticated user resolved from the Authorization header.
+     * @param setId       The ID of the flashcard set to retrieve.
+     * @param ifNoneMatch The ETags of the copies the client holds, if any.
+     * @return A ResponseEntity containing the flashcard set with its version as ETag, an HTTP 304 status
+     *         if the client's copy is current, or an appropriate error status.
      */
     @GetMapping("/{userId}/flashcardSets/{setId}")
-    public ResponseEntity<FlashcardSet> getFlashcardSetById(@RequestHeader("Authorization") String firebaseId,
-            @PathVariable("setId") String setId) {
-        try {
-            // Validate Firebase token
-            String idToken = firebaseId.replace("Bearer ", "");
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
-            String uid = decodedToken.getUid(); // Extract UID from the token
+    public ResponseEntity<FlashcardSet> getFlashcardSetById(AuthenticatedUser principal,
+            @PathVariable("setId") String setId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String uid = principal.getUid();
+
+        Optional<String> current = currentSetETag(uid, setId, ifNoneMatch);
+        if (current.isPresent()) {
+            return notModified(current.get());
+        }
 
-            // Find the user by UID
-            Optional<User> user = userRepository.findById(uid);
+        // Find the specific flashcard set by its ID
+        return flashcardStore.findFlashcardSet(uid, setId)
+                .map(UserController::withETag) // Return the flashcard set if found
+                .orElseGet(() -> ResponseEntity.notFound().build()); // Return 404 if the user or set is not found
+    }
 
-            if (user.isPresent()) {
-                // Find the specific flashcard set by its ID
-                FlashcardSet set = user.get().getFlashcardSets().stream()
-                        .filter(s -> s.getId().equals(setId)).findFirst().orElse(null);
 
-                if (set != null) {
-                    return ResponseEntity.ok(set); // Return the flashcard set if found
-                } else {
-                    return ResponseEntity.notFound().build(); // Return 404 if the set is not found
-                }
-            } else {
-                return ResponseEntity.notFound().build(); // Return 404 if the user is not found
-            }
-        } catch (Exception e) {
-            return ResponseEntity.notFound().build(); // Return 404 for any unexpected error
+    // Get a FlashcardSet with its flashcards, limited to selected fields
+    /**
+     * Retrieves the metadata and the flashcards of a set in one request, so a page showing a set
+     * needs a single token check, query and round trip. The fields parameter selects what is read,
+     * e.g. "id,title,cardCount" or "title,cards.id,cards.question", and the selection is pushed
+     * down to MongoDB as a projection. The set's version is the ETag, as for the set itself.
+     *
+     * @param principal   The authenticated user resolved from the Authorization header.
+     * @param setId       The ID of the flashcard set to retrieve.
+     * @param fields      The fields to return; the ID, title, card count and flashcards by default.
+     * @param ifNoneMatch The ETags of the copies the client holds, if any.
+     * @return A ResponseEntity containing the selected fields of the set, an HTTP 304 status if the
+     *         client's copy is current, an HTTP 400 status for an unknown field, or an HTTP 404 status
+     *         if the user or set is not found.
+     */
+    @GetMapping("/{userId}/flashcardSets/{setId}/withCards")
+    public ResponseEntity<FlashcardSetView> getFlashcardSetWithCards(AuthenticatedUser principal,
+            @PathVariable("setId") String setId, @RequestParam(defaultValue = DEFAULT_SET_FIELDS) String fields,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String uid = principal.getUid();
+
+        Optional<FlashcardSetFields> selection = FlashcardSetFields.parse(fields);
+        if (selection.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        Optional<String> current = currentSetETag(uid, setId, ifNoneMatch);
+        if (current.isPresent()) {
+            return notModified(current.get());
         }
-    }
 
+        return flashcardStore.findFlashcardSetView(uid, setId, selection.get())
+                .map(view -> revalidated(Long.toString(view.getVersion())).body(view))
+                .orElseGet(() -> ResponseEntity.notFound().build()); // User or flashcard set not found
+    }
 
  // Get all flashcards of a set of a single user
     /**
      * Retrieves all flashcards within a specific flashcard set for a given user.
      * Validates the user's Firebase token and ensures the set belongs to the user.
      *
-     * @param setId      The ID of the flashcard set to retrieve flashcards from.
-     * @param firebaseId The Firebase ID token provided in the Authorization header.
-     * @return A ResponseEntity containing the list of flashcards or an appropriate error status.
+     * The set's version is the ETag, and a matching If-None-Match is answered with 304 without
+     * loading the flashcards.
+     *
+     * @param setId       The ID of the flashcard set to retrieve flashcards from.
+     * @param principal   The authenticated user resolved from the Authorization header.
+     * @param ifNoneMatch The ETags of the copies the client holds, if any.
+     * @return A ResponseEntity containing the list of flashcards, an HTTP 304 status if the client's
+     *         copy is current, or an appropriate error status.
      */
     @GetMapping("/{userId}/flashcardSets/{setId}/flashcards")
     public ResponseEntity<List<Flashcard>> getAllFlashcardsOfASet(@PathVariable("setId") String setId,
-            @RequestHeader("Authorization") String firebaseId) {
-        try {
-            // Extract and validate the Firebase ID token
-            String idToken = firebaseId.replace("Bearer ", "");
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
-            String uid = decodedToken.getUid(); // Extract UID from the token
-
-            // Find the user by their UID
-            Optional<User> user = userRepository.findById(uid);
-
-            if (user.isPresent()) {
-                // Retrieve the list of flashcard sets
-                List<FlashcardSet> flashcardSets = user.get().getFlashcardSets();
-
-                if (flashcardSets != null && !flashcardSets.isEmpty()) {
-                    // Find the flashcard set by its ID
-                    FlashcardSet flashcardSet = flashcardSets.stream()
-                            .filter(set -> set.getId().equals(setId))
-                            .findFirst().orElse(null);
-
-                    if (flashcardSet != null) {
-                        // Return all flashcards within the set
-                        return ResponseEntity.ok(flashcardSet.getFlashcards());
-                    } else {
-                        return ResponseEntity.notFound().build(); // Flashcard set not found
-                    }
+            AuthenticatedUser principal,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String uid = principal.getUid();
+
+        Optional<String> current = currentSetETag(uid, setId, ifNoneMatch);
+        if (current.isPresent()) {
+            return notModified(current.get());
+        }
+
+        // Return all flashcards within the set, read with the set so the version matches them
+        return flashcardStore.findFlashcardSet(uid, setId)
+                .map(set -> revalidated(Long.toString(set.getVersion())).body(set.getFlashcards()))
+                .orElseGet(() -> ResponseEntity.notFound().build()); // User or flashcard set not found
+    }
+
+    // Stream the changes made to a user's library
+    /**
+     * Opens a Server-Sent Events stream of the changes made to the user's library from any device:
+     * sets created, renamed, changed in bulk or removed, and flashcards added, updated or removed.
+     * Each event's data is a JSON {@link LibraryEvent}; idle streams get a heartbeat comment.
+     * Streams end after flashcards.events.timeout or when the client falls behind. Events missed
+     * while disconnected are not replayed; clients get them from the changes endpoint, since the
+     * sequence of the last event they applied.
+     *
+     * @param principal The authenticated user resolved from the Authorization header.
+     * @return The event stream.
+     * @throws IOException if the stream cannot be opened.
+     */
+    @GetMapping(value = "/{userId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLibraryEvents(AuthenticatedUser principal) throws IOException {
+        SseEmitter emitter = new SseEmitter(eventHub.getTimeout().toMillis());
+        LibraryEventHub.Subscription subscription = eventHub.subscribe(principal.getUid(), new LibraryEventListener() {
+            @Override
+            public void onEvent(LibraryEvent event) throws IOException {
+                if (event.getType() == LibraryEvent.Type.HEARTBEAT) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
                 } else {
-                    return ResponseEntity.notFound().build(); // No flashcard sets found for the user
+                    emitter.send(SseEmitter.event().data(event, MediaType.APPLICATION_JSON));
                 }
-            } else {
-                return ResponseEntity.notFound().build(); // User not found
             }
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body(null); // Internal Server Error
+
+            @Override
+            public void onDropped() {
+                emitter.complete(); // The client reconnects and re-fetches
+            }
+        });
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        emitter.send(SseEmitter.event().comment("subscribed")); // Sends the headers right away
+        return emitter;
+    }
+
+    // Get the changes made to a user's library since the client's last sync
+    /**
+     * Retrieves the changes made to the user's library after a sequence number, so offline
+     * clients transfer what changed instead of the whole library. Changes are the events of the
+     * live stream, folded into one per set and flashcard, with removals as tombstones.
+     * Without since, only returns the latest sequence number: clients take it before downloading
+     * the library, then sync from it. Pass the returned next back as since while hasMore is true.
+     *
+     * @param principal The authenticated user resolved from the Authorization header.
+     * @param since     The sequence number of the last change the client applied, or none.
+     * @param limit     The maximum number of changes to read, capped at 1000.
+     * @return A ResponseEntity containing the page of changes, an HTTP 400 status for an invalid
+     *         sequence or limit, or an HTTP 410 status with the latest sequence number if the
+     *         changes are no longer known and the library has to be downloaded again.
+     */
+    @GetMapping("/{userId}/changes")
+    public ResponseEntity<LibraryChanges> getLibraryChanges(AuthenticatedUser principal,
+            @RequestParam(required = false) Long since, @RequestParam(defaultValue = "500") int limit) {
+        String uid = principal.getUid();
+
+        if ((since != null && since < 0) || limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        LibraryChanges changes = changeLog.changesSince(uid, since, Math.min(limit, MAX_PAGE_SIZE));
+        if (changes == null) {
+            // Expired or lost changes, the client downloads its library again and syncs from here
+            return ResponseEntity.status(HttpStatus.GONE).cacheControl(CacheControl.noStore())
+                    .body(new LibraryChanges(List.of(), changeLog.latestSequence(uid), false));
         }
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(changes);
     }
 
     // Update the title of a specific flashcard set
@@ -339,43 +591,31 @@ public class UserController {
      * Updates the title of a specific flashcard set for a given user.
      * Validates the user's Firebase token and ensures the set belongs to the user.
      *
-     * @param firebaseId        The Firebase ID token provided in the Authorization header.
+     * @param principal         The authenticated user resolved from the Authorization header.
      * @param setId             The ID of the flashcard set to update.
      * @param titleUpdateRequest A map containing the new title for the flashcard set.
+     * @param ifMatch           The ETag of the set the client last read, to update only if the set is unchanged.
      * @return A ResponseEntity containing the updated flashcard set or an appropriate error status.
      */
     @PutMapping("/{userId}/flashcardSets/{setId}/updateTitle")
-    public ResponseEntity<FlashcardSet> updateFlashcardSetTitle(@RequestHeader("Authorization") String firebaseId,
-            @PathVariable("setId") String setId, @RequestBody Map<String, String> titleUpdateRequest) {
-        try {
-            // Extract and validate the Firebase ID token
-            String idToken = firebaseId.replace("Bearer ", "");
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
-            String uid = decodedToken.getUid(); // Extract UID from the token
-
-            // Find the user by their UID
-            Optional<User> user = userRepository.findById(uid);
-
-            if (user.isPresent()) {
-                // Find the flashcard set by its ID
-                FlashcardSet set = user.get().getFlashcardSets().stream()
-                        .filter(s -> s.getId().equals(setId))
-                        .findFirst().orElse(null);
-
-                if (set != null && titleUpdateRequest.containsKey("title")) {
-                    // Update the title of the flashcard set
-                    set.setTitle(titleUpdateRequest.get("title"));
-                    userRepository.save(user.get()); // Save the updated user
-
-                    return ResponseEntity.ok(set); // Return the updated flashcard set
-                } else {
-                    return ResponseEntity.notFound().build(); // Flashcard set or title not found
-                }
-            } else {
-                return ResponseEntity.notFound().build(); // User not found
-            }
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body(null); // Internal Server Error
+    public ResponseEntity<FlashcardSet> updateFlashcardSetTitle(AuthenticatedUser principal,
+            @PathVariable("setId") String setId, @RequestBody Map<String, String> titleUpdateRequest,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        String uid = principal.getUid();
+
+        if (!titleUpdateRequest.containsKey("title")) {
+            return ResponseEntity.notFound().build(); // Title not found
+        }
+
+        // Update the title in place and return the updated flashcard set
+        try (PendingChanges changes = changeLog.begin(uid)) {
+            return flashcardStore.updateFlashcardSetTitle(uid, setId, titleUpdateRequest.get("title"),
+                            expectedVersion(ifMatch))
+                    .map(set -> {
+                        libraryChanged(changes, LibraryEvent.setRenamed(set));
+                        return withETag(set);
+                    })
+                    .orElseGet(() -> ResponseEntity.notFound().build()); // User or flashcard set not found
         }
     }
 
@@ -384,107 +624,318 @@ public class UserController {
      * Adds multiple flashcards to a specific flashcard set for a given user.
      * Validates the user's Firebase token and ensures the set belongs to the user.
      *
-     * @param firebaseId The Firebase ID token provided in the Authorization header.
+     * @param principal  The authenticated user resolved from the Authorization header.
      * @param setId      The ID of the flashcard set to add flashcards to.
      * @param flashcards A list of flashcards to add to the set.
+     * @param ifMatch    The ETag of the set the client last read, to add only if the set is unchanged.
      * @return A ResponseEntity containing the updated flashcard set or an appropriate error status.
      */
     @PutMapping("/{userId}/flashcardSets/{setId}/addFlashcards")
-    public ResponseEntity<FlashcardSet> addFlashcardsToSet(@RequestHeader("Authorization") String firebaseId,
-            @PathVariable("setId") String setId, @RequestBody List<Flashcard> flashcards) {
-        try {
-            // Extract and validate the Firebase ID token
-            String idToken = firebaseId.replace("Bearer ", "");
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
-            String uid = decodedToken.getUid(); // Extract UID from the token
-
-            // Find the user by their UID
-            Optional<User> user = userRepository.findById(uid);
-            if (!user.isPresent()) {
-                return ResponseEntity.notFound().build(); // User not found
-            }
-
-            // Find the flashcard set by its ID
-            FlashcardSet set = user.get().getFlashcardSets().stream()
-                    .filter(s -> s.getId().equals(setId))
-                    .findFirst().orElse(null);
+    public ResponseEntity<FlashcardSet> addFlashcardsToSet(AuthenticatedUser principal,
+            @PathVariable("setId") String setId, @RequestBody List<Flashcard> flashcards,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        String uid = principal.getUid();
+
+        // Store all new flashcards in the set and return the updated flashcard set
+        try (PendingChanges changes = changeLog.begin(uid)) {
+            return flashcardStore.addFlashcards(uid, setId, flashcards, expectedVersion(ifMatch))
+                    .map(set -> {
+                        searchIndex.index(uid, setId, flashcards);
+                        libraryChanged(changes, LibraryEvent.setChanged(setId, set.getVersion()));
+                        return withETag(set);
+                    })
+                    .orElseGet(() -> ResponseEntity.notFound().build()); // User or flashcard set not found
+        }
+    }
 
-            if (set == null) {
-                return ResponseEntity.notFound().build(); // Flashcard set not found
-            }
+    // Import a large deck into a flashcard set of a single user
+    /**
+     * Imports flashcards into a specific flashcard set from a JSON array, CSV or TSV body.
+     * The body is parsed incrementally and written in batches, so decks of any size can be imported.
+     * Rows without a question or answer are skipped and reported in the result.
+     *
+     * @param principal   The authenticated user resolved from the Authorization header.
+     * @param setId       The ID of the flashcard set to import flashcards into.
+     * @param contentType The Content-Type of the body: application/json, text/csv or text/tab-separated-values.
+     * @param body        The request body.
+     * @return A ResponseEntity containing the import result, with an HTTP 400 status if the body was
+     *         malformed (flashcards read before the error are kept), or an HTTP 404 status if the
+     *         user or set is not found.
+     * @throws IOException if the request body cannot be read.
+     */
+    @PostMapping(value = "/{userId}/flashcardSets/{setId}/import",
+            consumes = { MediaType.APPLICATION_JSON_VALUE, ImportFormat.CSV_VALUE, ImportFormat.TSV_VALUE })
+    public ResponseEntity<FlashcardImportResult> importFlashcards(AuthenticatedUser principal,
+            @PathVariable("setId") String setId, @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+        String uid = principal.getUid();
+
+        Optional<ImportFormat> format = ImportFormat.fromContentType(contentType);
+        if (format.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+        }
 
-            // Add all new flashcards to the set
-            set.getFlashcards().addAll(flashcards);
+        // Stream the body into the set batch by batch
+        try (PendingChanges changes = changeLog.begin(uid)) {
+            return flashcardImporter.importFlashcards(uid, setId, body, format.get())
+                    .map(result -> {
+                        if (result.getImported() > 0) {
+                            libraryChanged(changes, LibraryEvent.setChanged(setId, null));
+                        }
+                        return ResponseEntity.status(result.isComplete() ? HttpStatus.OK : HttpStatus.BAD_REQUEST)
+                                .body(result);
+                    })
+                    .orElseGet(() -> ResponseEntity.notFound().build()); // User or flashcard set not found
+        }
+    }
 
-            // Save the updated user with the modified flashcard set
-            userRepository.save(user.get());
+    // Apply many edits to the flashcard sets of a single user at once
+    /**
+     * Applies an ordered list of add, update, remove and retitle operations over one or more flashcard
+     * sets, all or nothing. Every operation is checked before any is written, and each one sees the
+     * sets as left by the previous ones. The optional versions map set IDs to the versions the client
+     * last read; without them a batch that races with another edit is retried on the new state.
+     *
+     * @param principal The authenticated user resolved from the Authorization header.
+     * @param batch     The operations and the expected set versions.
+     * @return A ResponseEntity containing the result of each operation and the new set versions: HTTP 200
+     *         if the batch was applied, HTTP 400 if an operation lacks a field or the batch is too large,
+     *         HTTP 404 if the user or a set or flashcard is not found, HTTP 412 if a set changed, or
+     *         HTTP 500 if the batch was only written up to the operation marked FAILED.
+     */
+    @PostMapping("/{userId}/flashcardSets/batch")
+    public ResponseEntity<FlashcardBatchResult> applyFlashcardBatch(AuthenticatedUser principal,
+            @RequestBody FlashcardBatch batch) {
+        String uid = principal.getUid();
+
+        List<FlashcardOperation> operations = batch.getOperations() != null ? batch.getOperations() : List.of();
+        Map<String, Long> versions = batch.getVersions() != null ? batch.getVersions() : Map.of();
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            return ResponseEntity.badRequest().build(); // Batch too large
+        }
+        List<FlashcardOperationResult> invalid = new ArrayList<>(operations.size());
+        boolean valid = true;
+        for (FlashcardOperation operation : operations) {
+            String reason = invalidOperation(operation);
+            invalid.add(reason != null ? FlashcardOperationResult.invalid(reason) : FlashcardOperationResult.skipped());
+            valid &= reason == null;
+        }
+        if (!valid) {
+            return ResponseEntity.badRequest().body(new FlashcardBatchResult(false, invalid, Map.of()));
+        }
 
-            return ResponseEntity.ok(set); // Return the updated flashcard set
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body(null); // Internal Server Error
+        // Without expected versions the client accepts any state, so a raced batch is applied again
+        try (PendingChanges changes = changeLog.begin(uid)) {
+            for (int attempt = 1; ; attempt++) {
+                Optional<FlashcardBatchResult> result;
+                try {
+                    result = flashcardStore.applyBatch(uid, operations, versions);
+                } catch (OptimisticLockingFailureException e) {
+                    if (!versions.isEmpty() || attempt == MAX_BATCH_ATTEMPTS) {
+                        throw e;
+                    }
+                    continue;
+                }
+                if (result.isEmpty()) {
+                    return ResponseEntity.notFound().build(); // User not found
+                }
+                if (result.get().isPartial()) {
+                    batchApplied(changes, operations, result.get()); // The written operations are changes too
+                    return ResponseEntity.internalServerError().body(result.get());
+                }
+                if (!result.get().isApplied()) {
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(result.get()); // Set or flashcard not found
+                }
+                batchApplied(changes, operations, result.get());
+                return ResponseEntity.ok(result.get());
+            }
         }
     }
 
-
  // Update the question and answer of a created flashcard
     /**
      * Updates the question and answer of a specific flashcard within a flashcard set.
      * Validates the user's Firebase token and ensures the flashcard belongs to the user.
      *
-     * @param firebaseId      The Firebase ID token provided in the Authorization header.
+     * @param principal       The authenticated user resolved from the Authorization header.
      * @param setId           The ID of the flashcard set containing the flashcard.
      * @param flashcardId     The ID of the flashcard to update.
      * @param updatedFlashcard The updated flashcard object containing the new question and answer.
+     * @param ifMatch         The ETag of the set the client last read, to update only if the set is unchanged.
      * @return A ResponseEntity containing the updated flashcard or an appropriate error status.
      */
     @PutMapping("/{userId}/flashcardSets/{setId}/flashcards/{flashcardId}/updateQuestionAndAnswer")
-    public ResponseEntity<Flashcard> updateFlashcard(@RequestHeader("Authorization") String firebaseId,
+    public ResponseEntity<Flashcard> updateFlashcard(AuthenticatedUser principal,
             @PathVariable("setId") String setId, @PathVariable("flashcardId") String flashcardId,
-            @RequestBody Flashcard updatedFlashcard) {
-        try {
-            // Validate Firebase token
-            String idToken = firebaseId.replace("Bearer ", "");
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
-            String uid = decodedToken.getUid();
-
-            // Find the user by their UID
-            Optional<User> userOptional = userRepository.findById(uid);
-            if (!userOptional.isPresent()) {
-                return ResponseEntity.notFound().build(); // User not found
+            @RequestBody Flashcard updatedFlashcard,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        String uid = principal.getUid();
+
+        // Update the flashcard details in place
+        try (PendingChanges changes = changeLog.begin(uid)) {
+            boolean updated = flashcardStore.updateFlashcard(uid, setId, flashcardId,
+                    updatedFlashcard.getQuestion(), updatedFlashcard.getAnswer(), expectedVersion(ifMatch));
+            if (!updated) {
+                return ResponseEntity.notFound().build(); // User, flashcard set or flashcard not found
             }
 
-            User user = userOptional.get();
-            Optional<FlashcardSet> flashcardSetOptional = user.getFlashcardSets().stream()
-                    .filter(set -> set.getId().equals(setId)).findFirst();
+            Flashcard flashcard = new Flashcard(updatedFlashcard.getQuestion(), updatedFlashcard.getAnswer());
+            flashcard.setId(flashcardId);
+            searchIndex.index(uid, setId, List.of(flashcard));
+            libraryChanged(changes, LibraryEvent.cardUpdated(setId, flashcard));
+            return ResponseEntity.ok(flashcard); // Return the updated flashcard
+        }
+    }
 
-            if (!flashcardSetOptional.isPresent()) {
-                return ResponseEntity.notFound().build(); // Flashcard set not found
-            }
+    // Record a review of a flashcard
+    /**
+     * Records the user's answer to a flashcard and schedules its next review with SM-2.
+     * Validates the user's Firebase token and ensures the flashcard belongs to the user.
+     *
+     * @param principal     The authenticated user resolved from the Authorization header.
+     * @param setId         The ID of the flashcard set containing the flashcard.
+     * @param flashcardId   The ID of the reviewed flashcard.
+     * @param reviewRequest A map containing the grade of the answer, from 0 (forgotten) to 5 (perfect).
+     * @return A ResponseEntity containing the flashcard with its new review state, an HTTP 400 status
+     *         for a missing or invalid grade, an HTTP 404 status if the flashcard is not found, or an
+     *         HTTP 412 status if concurrent reviews kept changing it.
+     */
+    @PostMapping("/{userId}/flashcardSets/{setId}/flashcards/{flashcardId}/review")
+    public ResponseEntity<Flashcard> reviewFlashcard(AuthenticatedUser principal,
+            @PathVariable("setId") String setId, @PathVariable("flashcardId") String flashcardId,
+            @RequestBody Map<String, Integer> reviewRequest) {
+        String uid = principal.getUid();
 
-            FlashcardSet flashcardSet = flashcardSetOptional.get();
+        Integer grade = reviewRequest.get("grade");
+        if (grade == null || grade < Sm2Scheduler.MIN_GRADE || grade > Sm2Scheduler.MAX_GRADE) {
+            return ResponseEntity.badRequest().build(); // Missing or invalid grade
+        }
 
-            // Find the flashcard within the set
-            Optional<Flashcard> flashcardOptional = flashcardSet.getFlashcards().stream()
-                    .filter(flashcard -> flashcard.getId().equals(flashcardId)).findFirst();
+        // Reviews commute, so a review that raced with another is recomputed from the new state
+        try (PendingChanges changes = changeLog.begin(uid)) {
+            for (int attempt = 1; ; attempt++) {
+                Optional<Flashcard> flashcard = flashcardStore.findFlashcard(uid, setId, flashcardId);
+                if (flashcard.isEmpty()) {
+                    return ResponseEntity.notFound().build(); // User, flashcard set or flashcard not found
+                }
 
-            if (!flashcardOptional.isPresent()) {
-                return ResponseEntity.notFound().build(); // Flashcard not found
+                // Schedule the next review from the current state and store it if that state is unchanged
+                ReviewState current = flashcard.get().getReview();
+                ReviewState review = scheduler.review(current, grade, Instant.now());
+                try {
+                    if (!flashcardStore.updateReviewState(uid, setId, flashcardId,
+                            current != null ? current.getLastReviewedAt() : null, review)) {
+                        return ResponseEntity.notFound().build(); // Removed in the meantime
+                    }
+                } catch (OptimisticLockingFailureException e) {
+                    if (attempt == MAX_REVIEW_ATTEMPTS) {
+                        throw e;
+                    }
+                    continue;
+                }
+                flashcard.get().setReview(review);
+                libraryChanged(changes, LibraryEvent.cardUpdated(setId, flashcard.get()));
+                return ResponseEntity.ok(flashcard.get());
             }
+        }
+    }
 
-            Flashcard flashcard = flashcardOptional.get();
+    // Submit a batch of answers given during a study session
+    /**
+     * Accepts a batch of review events and stores them for the background writer, which applies
+     * them to the flashcards' review state in bulk. Accepted events are stored before the response
+     * is sent, so they are applied even if this instance stops. Each event carries a client-generated
+     * eventId; resubmitting an event that was already accepted or applied has no effect. When the
+     * queue is full, the leading events that fit are accepted and the client should retry the rest later.
+     *
+     * @param principal The authenticated user resolved from the Authorization header.
+     * @param events    The review events, in the order they were answered.
+     * @return A ResponseEntity with the number of accepted and rejected events: HTTP 202 if all were
+     *         accepted, HTTP 429 with Retry-After if some were rejected, HTTP 503 with Retry-After if
+     *         the events could not be stored, or HTTP 400 for an invalid batch.
+     */
+    @PostMapping("/{userId}/reviews")
+    public ResponseEntity<Map<String, Integer>> submitReviews(AuthenticatedUser principal,
+            @RequestBody List<ReviewEvent> events) {
+        String uid = principal.getUid();
 
-            // Update the flashcard details
-            flashcard.setQuestion(updatedFlashcard.getQuestion());
-            flashcard.setAnswer(updatedFlashcard.getAnswer());
+        if (events.size() > MAX_REVIEW_BATCH) {
+            return ResponseEntity.badRequest().build(); // Batch too large
+        }
+        Instant now = Instant.now();
+        for (ReviewEvent event : events) {
+            if (event.getEventId() == null || event.getSetId() == null || event.getFlashcardId() == null
+                    || event.getGrade() < Sm2Scheduler.MIN_GRADE || event.getGrade() > Sm2Scheduler.MAX_GRADE) {
+                return ResponseEntity.badRequest().build(); // Incomplete event or invalid grade
+            }
+            if (event.getReviewedAt() == null || event.getReviewedAt().isAfter(now)) {
+                event.setReviewedAt(now);
+            }
+            event.setOwnerId(uid);
+        }
 
-            // Save the updated user
-            userRepository.save(user);
+        // Store the events and return, they are applied in the background
+        int accepted;
+        try {
+            accepted = reviewEventQueue.offer(events);
+        } catch (DataAccessException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+        }
+        Map<String, Integer> body = new LinkedHashMap<>();
+        body.put("accepted", accepted);
+        body.put("rejected", events.size() - accepted);
+        if (accepted < events.size()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(body);
+        }
+        return ResponseEntity.accepted().body(body);
+    }
 
-            return ResponseEntity.ok(flashcard); // Return the updated flashcard
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).body(null); // Internal Server Error
+    // Search the questions and answers of a user's flashcards
+    /**
+     * Searches the questions and answers of every flashcard of a user, most relevant first.
+     * Any of the words may match, "quoted phrases" must match and words prefixed with - exclude
+     * a flashcard. Each hit lists the ranges of its question and answer to highlight.
+     *
+     * @param principal The authenticated user resolved from the Authorization header.
+     * @param q         The search query.
+     * @param page      The zero-based page number.
+     * @param size      The number of hits per page, capped at 1000.
+     * @return A ResponseEntity containing the page of hits, or an HTTP 400 status for an empty or
+     *         overlong query or an invalid page.
+     */
+    @GetMapping("/{userId}/flashcards/search")
+    public ResponseEntity<FlashcardSearchPage> searchFlashcards(AuthenticatedUser principal,
+            @RequestParam String q, @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        String uid = principal.getUid();
+
+        if (q.isBlank() || q.length() > MAX_QUERY_LENGTH || page < 0 || size < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(searchIndex.search(uid, q, page, Math.min(size, MAX_PAGE_SIZE)));
+    }
+
+    // Get the flashcards due for review
+    /**
+     * Retrieves the flashcards of a user that are due for review, most overdue first and never
+     * reviewed flashcards before all others, optionally restricted to one flashcard set.
+     *
+     * @param principal The authenticated user resolved from the Authorization header.
+     * @param limit     The maximum number of flashcards to return, capped at 1000.
+     * @param setId     The ID of a flashcard set to study, or none to study all sets.
+     * @return A ResponseEntity containing the due flashcards with their set IDs, or an HTTP 400
+     *         status for an invalid limit.
+     */
+    @GetMapping("/{userId}/flashcards/due")
+    public ResponseEntity<List<DueFlashcard>> getDueFlashcards(AuthenticatedUser principal,
+            @RequestParam(defaultValue = "20") int limit, @RequestParam(required = false) String setId) {
+        String uid = principal.getUid();
+
+        if (limit < 1) {
+            return ResponseEntity.badRequest().build();
         }
+        return ResponseEntity.ok(flashcardStore.findDueFlashcards(uid, setId, Instant.now(),
+                Math.min(limit, MAX_PAGE_SIZE)));
     }
 
     // Delete a flashcard from a flashcard set
@@ -492,47 +943,27 @@ public class UserController {
      * Deletes a specific flashcard from a flashcard set for a given user.
      * Validates the user's Firebase token and ensures the flashcard belongs to the user.
      *
-     * @param firebaseId  The Firebase ID token provided in the Authorization header.
+     * @param principal   The authenticated user resolved from the Authorization header.
      * @param setId       The ID of the flashcard set containing the flashcard.
      * @param flashcardId The ID of the flashcard to delete.
+     * @param ifMatch     The ETag of the set the client last read, to delete only if the set is unchanged.
      * @return A ResponseEntity containing the updated flashcard set or an appropriate error status.
      */
     @DeleteMapping("/{userId}/flashcardSets/{setId}/flashcards/{flashcardId}/removeFlashcard")
-    public ResponseEntity<FlashcardSet> removeFlashcardFromSet(@RequestHeader("Authorization") String firebaseId,
-            @PathVariable("setId") String setId, @PathVariable("flashcardId") String flashcardId) {
-        try {
-            // Validate Firebase token
-            String idToken = firebaseId.replace("Bearer ", "");
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
-            String uid = decodedToken.getUid();
-
-            // Find the user by their UID
-            Optional<User> userOptional = userRepository.findById(uid);
-            if (!userOptional.isPresent()) {
-                return ResponseEntity.notFound().build(); // User not found
-            }
-            User user = userOptional.get();
-
-            // Find the flashcard set by its ID
-            FlashcardSet flashcardSet = user.getFlashcardSets().stream()
-                    .filter(set -> set.getId().equals(setId)).findFirst().orElse(null);
-
-            if (flashcardSet == null) {
-                return ResponseEntity.notFound().build(); // Flashcard set not found
-            }
-
-            // Remove the flashcard by its ID
-            boolean removed = flashcardSet.getFlashcards().removeIf(flashcard -> flashcard.getId().equals(flashcardId));
-
-            if (removed) {
-                userRepository.save(user); // Save the user after removal
-                return ResponseEntity.ok(flashcardSet); // Return the updated flashcard set
-            } else {
-                return ResponseEntity.notFound().build(); // Flashcard not found
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).body(null); // Internal Server Error
+    public ResponseEntity<FlashcardSet> removeFlashcardFromSet(AuthenticatedUser principal,
+            @PathVariable("setId") String setId, @PathVariable("flashcardId") String flashcardId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        String uid = principal.getUid();
+
+        // Remove the flashcard from the set and return the updated flashcard set
+        try (PendingChanges changes = changeLog.begin(uid)) {
+            return flashcardStore.removeFlashcard(uid, setId, flashcardId, expectedVersion(ifMatch))
+                    .map(set -> {
+                        searchIndex.remove(uid, setId, flashcardId);
+                        libraryChanged(changes, LibraryEvent.cardRemoved(set, flashcardId));
+                        return withETag(set);
+                    })
+                    .orElseGet(() -> ResponseEntity.notFound().build()); // User, flashcard set or flashcard not found
         }
     }
 
@@ -541,37 +972,26 @@ public class UserController {
      * Deletes a flashcard set for a user.
      * Validates the user's Firebase token and ensures the set belongs to the user.
      *
-     * @param firebaseId The Firebase ID token provided in the Authorization header.
+     * @param principal  The authenticated user resolved from the Authorization header.
      * @param setId      The ID of the flashcard set to delete.
+     * @param ifMatch    The ETag of the set the client last read, to delete only if the set is unchanged.
      * @return A ResponseEntity with no content upon successful deletion or an appropriate error status.
      */
     @DeleteMapping("/{userId}/flashcardSets/{setId}/removeFlashcardSet")
-    public ResponseEntity<Void> deleteFlashcardSet(@RequestHeader("Authorization") String firebaseId,
-            @PathVariable String userId, @PathVariable String setId) {
-        try {
-            // Validate Firebase token
-            String idToken = firebaseId.replace("Bearer ", "");
-            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(idToken);
-            String uid = decodedToken.getUid();
-
-            // Find the user by their UID
-            Optional<User> userOptional = userRepository.findById(uid);
-            if (!userOptional.isPresent()) {
-                return ResponseEntity.notFound().build(); // User not found
-            }
-
-            User user = userOptional.get();
-            boolean removed = user.getFlashcardSets().removeIf(set -> set.getId().equals(setId));
-
-            if (removed) {
-                userRepository.save(user); // Save the updated user
+    public ResponseEntity<Void> deleteFlashcardSet(AuthenticatedUser principal,
+            @PathVariable String userId, @PathVariable String setId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        String uid = principal.getUid();
+
+        // Remove the flashcard set and its flashcards
+        try (PendingChanges changes = changeLog.begin(uid)) {
+            if (flashcardStore.removeFlashcardSet(uid, setId, expectedVersion(ifMatch))) {
+                searchIndex.removeSet(uid, setId);
+                libraryChanged(changes, LibraryEvent.setRemoved(setId));
                 return ResponseEntity.noContent().build(); // Successfully deleted
             } else {
-                return ResponseEntity.notFound().build(); // Flashcard set not found
+                return ResponseEntity.notFound().build(); // User or flashcard set not found
             }
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).build(); // Internal Server Error
         }
     }
 
@@ -587,11 +1007,259 @@ public class UserController {
         Optional<User> user = userRepository.findById(id);
 
         if (user.isPresent()) {
-            userRepository.deleteById(id);
-            return ResponseEntity.ok(user.get()); // Return the deleted user
+            try (PendingChanges changes = changeLog.begin(id)) {
+                Set<String> setIds = flashcardStore.findFlashcardSetVersions(id).map(Map::keySet).orElse(Set.of());
+                userRepository.deleteById(id);
+                flashcardStore.removeLibrary(id); // Remove sets and flashcards stored outside the user
+                searchIndex.removeLibrary(id);
+                tokenVerifier.revokeUser(id); // Stop accepting cached tokens of the deleted user
+                libraryChanged(changes, setIds.stream().map(LibraryEvent::setRemoved).toList());
+                return ResponseEntity.ok(user.get()); // Return the deleted user
+            }
         } else {
             return ResponseEntity.notFound().build(); // User not found
         }
     }
 
+    /**
+     * Answers a conditional write whose If-Match no longer matches the set, or a review that kept
+     * racing with others, with HTTP 412 so the client re-reads the set instead of overwriting it.
+     *
+     * @param e the conflict.
+     * @return A ResponseEntity with an HTTP 412 status.
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Void> handleVersionConflict(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+
+    /**
+     * Wraps a flashcard set in a 200 response carrying its version as ETag.
+     */
+    private static ResponseEntity<FlashcardSet> withETag(FlashcardSet set) {
+        return revalidated(Long.toString(set.getVersion())).body(set);
+    }
+
+    /**
+     * Starts a 200 response with an ETag that clients may cache privately but must revalidate on every
+     * use, so browsers send If-None-Match on their own.
+     *
+     * The ETag is weak: the same version validates the JSON, Smile and CBOR bodies chosen by Accept,
+     * gzipped or not, and servers only compress responses without a strong ETag.
+     */
+    private static ResponseEntity.BodyBuilder revalidated(String eTag) {
+        return ResponseEntity.ok().eTag(weak(eTag)).cacheControl(CacheControl.noCache().cachePrivate())
+                .varyBy(HttpHeaders.ACCEPT);
+    }
+
+    private static <T> ResponseEntity<T> notModified(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(weak(eTag))
+                .cacheControl(CacheControl.noCache().cachePrivate()).varyBy(HttpHeaders.ACCEPT).build();
+    }
+
+    private static String weak(String eTag) {
+        return "W/\"" + eTag + "\"";
+    }
+
+    /**
+     * Stores a new flashcard set with the title and flashcards of the one sent and indexes its
+     * flashcards.
+     *
+     * @return the stored set, with its ID, or null if the user does not exist.
+     */
+    private FlashcardSet addFlashcardSet(String uid, FlashcardSet flashcardSet) {
+        FlashcardSet newSet = new FlashcardSet();
+        newSet.setTitle(flashcardSet.getTitle());
+        newSet.setFlashcards(flashcardSet.getFlashcards());
+        if (!flashcardStore.addFlashcardSet(uid, newSet)) {
+            return null;
+        }
+        if (newSet.getFlashcards() != null) {
+            searchIndex.index(uid, newSet.getId(), newSet.getFlashcards());
+        }
+        return newSet;
+    }
+
+    /**
+     * Records the change made by the request in the change log, then publishes it, with its
+     * sequence number, to the user's event streams.
+     */
+    private void libraryChanged(PendingChanges changes, LibraryEvent event) {
+        eventPublisher.publish(changes.getUid(), changes.record(event));
+    }
+
+    /**
+     * Records the changes made by the request in the change log at once, then publishes them in order.
+     */
+    private void libraryChanged(PendingChanges changes, List<LibraryEvent> events) {
+        changes.recordAll(events).forEach(event -> eventPublisher.publish(changes.getUid(), event));
+    }
+
+    /**
+     * Tells why a batch operation cannot be applied whatever the state of the sets.
+     *
+     * @return the missing fields, or null if the operation is complete.
+     */
+    private static String invalidOperation(FlashcardOperation operation) {
+        if (operation == null || operation.getType() == null || operation.getSetId() == null) {
+            return "type and setId are required";
+        }
+        return switch (operation.getType()) {
+            case ADD -> operation.getQuestion() == null || operation.getAnswer() == null
+                    ? "question and answer are required" : null;
+            case UPDATE -> operation.getFlashcardId() == null || operation.getQuestion() == null
+                    || operation.getAnswer() == null ? "flashcardId, question and answer are required" : null;
+            case REMOVE -> operation.getFlashcardId() == null ? "flashcardId is required" : null;
+            case RETITLE -> operation.getTitle() == null ? "title is required" : null;
+        };
+    }
+
+    /**
+     * Updates the search index and the change log after a batch was written: the added and updated
+     * flashcards left at the end of the batch are indexed per set, the removed ones are dropped with
+     * one delete, and every written operation becomes one library change.
+     */
+    private void batchApplied(PendingChanges changes, List<FlashcardOperation> operations,
+            FlashcardBatchResult result) {
+        String uid = changes.getUid();
+        Map<String, Map<String, Flashcard>> indexed = new LinkedHashMap<>(); // Flashcards by ID by set ID
+        Map<String, Set<String>> removed = new LinkedHashMap<>(); // Flashcard IDs by set ID
+        List<LibraryEvent> events = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            if (result.getResults().get(i).getStatus() != FlashcardOperationResult.Status.APPLIED) {
+                break; // Partially applied, the following operations were not written
+            }
+            FlashcardOperation operation = operations.get(i);
+            Flashcard flashcard = result.getResults().get(i).getFlashcard();
+            switch (operation.getType()) {
+                case ADD, UPDATE -> {
+                    indexed.computeIfAbsent(operation.getSetId(), id -> new LinkedHashMap<>())
+                            .put(flashcard.getId(), flashcard);
+                    events.add(operation.getType() == FlashcardOperation.Type.ADD
+                            ? LibraryEvent.cardAdded(operation.getSetId(), flashcard)
+                            : LibraryEvent.cardUpdated(operation.getSetId(), flashcard));
+                }
+                case REMOVE -> {
+                    Map<String, Flashcard> flashcards = indexed.get(operation.getSetId());
+                    if (flashcards != null) {
+                        flashcards.remove(operation.getFlashcardId()); // Added or updated earlier in the batch
+                    }
+                    removed.computeIfAbsent(operation.getSetId(), id -> new HashSet<>())
+                            .add(operation.getFlashcardId());
+                    events.add(LibraryEvent.cardRemoved(batchedSet(operation, result), operation.getFlashcardId()));
+                }
+                case RETITLE -> {
+                    FlashcardSet set = batchedSet(operation, result);
+                    set.setTitle(operation.getTitle());
+                    events.add(LibraryEvent.setRenamed(set));
+                }
+            }
+        }
+        indexed.forEach((setId, flashcards) -> searchIndex.index(uid, setId, flashcards.values()));
+        removed.forEach((setId, flashcardIds) -> searchIndex.remove(uid, setId, flashcardIds));
+        libraryChanged(changes, events);
+    }
+
+    /**
+     * Creates a set carrying only the ID and the version after a batch, for its library changes.
+     */
+    private static FlashcardSet batchedSet(FlashcardOperation operation, FlashcardBatchResult result) {
+        FlashcardSet set = new FlashcardSet();
+        set.setId(operation.getSetId());
+        set.setVersion(result.getVersions().get(operation.getSetId()));
+        return set;
+    }
+
+    /**
+     * Looks up the ETag of a set when an If-None-Match header lists it, using only the cached or
+     * projected set versions.
+     *
+     * @return the set's ETag if the client's copy is current, otherwise empty.
+     */
+    private Optional<String> currentSetETag(String uid, String setId, String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return Optional.empty();
+        }
+        return flashcardStore.findFlashcardSetVersions(uid)
+                .map(versions -> versions.get(setId))
+                .map(version -> Long.toString(version))
+                .filter(eTag -> matchesAny(ifNoneMatch, eTag));
+    }
+
+    /**
+     * Derives the ETag of a user's set list from the IDs and versions of the sets: adding, removing
+     * or changing any set changes it.
+     */
+    private static String libraryETag(Map<String, Long> versions) {
+        StringBuilder key = new StringBuilder();
+        versions.forEach((setId, version) -> key.append(setId).append(':').append(version).append(','));
+        return DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, Long> versionsOf(List<FlashcardSet> sets) {
+        Map<String, Long> versions = new LinkedHashMap<>();
+        for (FlashcardSet set : sets) {
+            versions.put(set.getId(), set.getVersion());
+        }
+        return versions;
+    }
+
+    /**
+     * Tells whether an If-None-Match header is * or lists the ETag, comparing weakly as GET requires.
+     */
+    private static boolean matchesAny(String ifNoneMatch, String eTag) {
+        String quoted = "\"" + eTag + "\"";
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(quoted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads the set version expected by an If-Match header: null without a header or for *,
+     * which any existing set matches. A weak ETag is read like a strong one, since it carries the
+     * same set version (see revalidated). A malformed or multiple-valued ETag cannot match a
+     * single set version and fails the precondition.
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Not an ETag handed out by this API
+            }
+        }
+        throw new OptimisticLockingFailureException("If-Match " + ifMatch + " does not name a set version");
+    }
+
+    /**
+     * Tells whether an Accept-Encoding header allows gzip, i.e. lists gzip or * without q=0.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equals("*")) {
+                boolean refused = parts.length > 1 && parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+                return !refused;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,104 @@
+package com.luisnery.flashcard.app.flashCardApp.Events;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryEvent;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+
+/**
+ * {@link LibraryEventPublisher} relaying events between instances through MongoDB, so a change
+ * made through one instance reaches the streams open on all of them.
+ *
+ * Publishing inserts the event into the libraryEvents collection. Every instance watches the
+ * collection's inserts with a change stream, which needs a replica set or sharded cluster, and
+ * hands them to its {@link LibraryEventHub}. Events are only relayed, not replayed: they expire
+ * after the retention period, and clients re-fetch after reconnecting.
+ * Enabled with flashcards.events.relay=change-stream.
+ */
+@Component
+@ConditionalOnProperty(name = "flashcards.events.relay", havingValue = "change-stream")
+public class ChangeStreamLibraryEventPublisher implements LibraryEventPublisher, SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeStreamLibraryEventPublisher.class);
+
+    private static final String COLLECTION = "libraryEvents";
+
+    private final MongoTemplate mongoTemplate;
+    private final LibraryEventHub hub;
+    private final Duration retention;
+    private final MessageListenerContainer container;
+
+    /**
+     * Creates the publisher.
+     *
+     * @param mongoTemplate the template used to insert and watch the events.
+     * @param hub           the hub of this instance's streams.
+     * @param retention     the time after which MongoDB deletes relayed events.
+     */
+    public ChangeStreamLibraryEventPublisher(MongoTemplate mongoTemplate, LibraryEventHub hub,
+            @Value("${flashcards.events.retention:1h}") Duration retention) {
+        this.mongoTemplate = mongoTemplate;
+        this.hub = hub;
+        this.retention = retention;
+        this.container = new DefaultMessageListenerContainer(mongoTemplate);
+    }
+
+    @Override
+    public void publish(String uid, LibraryEvent event) {
+        event.setOwnerId(uid);
+        event.setCreatedAt(Instant.now());
+        try {
+            mongoTemplate.insert(event, COLLECTION);
+        } catch (DataAccessException e) {
+            // The change itself is stored, only other devices miss the live update
+            log.warn("Could not relay a {} event of user {}", event.getType(), uid, e);
+        }
+    }
+
+    @Override
+    public void start() {
+        mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index("createdAt", Sort.Direction.ASC).expire(retention));
+        ChangeStreamRequest<LibraryEvent> request = ChangeStreamRequest.builder(this::relay)
+                .collection(COLLECTION)
+                .filter(Aggregation.newAggregation(Aggregation.match(Criteria.where("operationType").is("insert"))))
+                .build();
+        container.register(request, LibraryEvent.class);
+        container.start();
+    }
+
+    @Override
+    public void stop() {
+        container.stop();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return container.isRunning();
+    }
+
+    private void relay(Message<ChangeStreamDocument<Document>, LibraryEvent> message) {
+        LibraryEvent event = message.getBody();
+        if (event != null && event.getOwnerId() != null) {
+            hub.deliver(event.getOwnerId(), event);
+        }
+    }
+}
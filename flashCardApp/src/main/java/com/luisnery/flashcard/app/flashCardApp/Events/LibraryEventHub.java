@@ -0,0 +1,266 @@
+package com.luisnery.flashcard.app.flashCardApp.Events;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Fans library events out to the listeners subscribed to each user, in this process.
+ *
+ * An idle subscription is one small object in a per-user set: no thread, no buffer and no
+ * polling. Publishing to a user without subscribers is a single map lookup. Events are queued per
+ * listener and delivered by a small shared dispatcher pool, so a slow client never blocks the
+ * request that published the event or the other listeners. A listener with more than max-pending
+ * undelivered events is dropped, so its client reconnects and re-fetches instead of the hub
+ * buffering without bound. A single timer sends heartbeats to every listener.
+ *
+ * @see LibraryEventPublisher
+ */
+@Component
+public class LibraryEventHub implements SmartLifecycle, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(LibraryEventHub.class);
+
+    private final Map<String, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriptionCount = new AtomicInteger();
+    private final int dispatchThreads;
+    private final int maxPending;
+    private final Duration heartbeat;
+    private final Duration timeout;
+
+    private volatile ExecutorService dispatcher;
+    private ScheduledExecutorService timer;
+    private Counter dropped;
+
+    /**
+     * Creates the hub.
+     *
+     * @param dispatchThreads the number of threads delivering events.
+     * @param maxPending      the number of undelivered events after which a listener is dropped.
+     * @param heartbeat       the interval between heartbeats.
+     * @param timeout         the time after which the transports close a stream.
+     */
+    public LibraryEventHub(@Value("${flashcards.events.dispatch-threads:2}") int dispatchThreads,
+            @Value("${flashcards.events.max-pending:256}") int maxPending,
+            @Value("${flashcards.events.heartbeat:30s}") Duration heartbeat,
+            @Value("${flashcards.events.timeout:30m}") Duration timeout) {
+        this.dispatchThreads = dispatchThreads;
+        this.maxPending = maxPending;
+        this.heartbeat = heartbeat;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Subscribes a listener to the events of a user's library.
+     *
+     * @param uid      the user's ID.
+     * @param listener the listener.
+     * @return the subscription, to be closed when the stream ends.
+     */
+    public Subscription subscribe(String uid, LibraryEventListener listener) {
+        Subscription subscription = new Subscription(uid, listener);
+        subscriptions.compute(uid, (key, listeners) -> {
+            Set<Subscription> set = listeners != null ? listeners : ConcurrentHashMap.newKeySet();
+            set.add(subscription);
+            return set;
+        });
+        subscriptionCount.incrementAndGet();
+        return subscription;
+    }
+
+    /**
+     * Delivers an event to the listeners subscribed to a user in this process.
+     *
+     * @param uid   the user's ID.
+     * @param event the event.
+     */
+    public void deliver(String uid, LibraryEvent event) {
+        Set<Subscription> listeners = subscriptions.get(uid);
+        if (listeners != null) {
+            listeners.forEach(subscription -> subscription.offer(event));
+        }
+    }
+
+    /**
+     * Gets the time after which the transports close a stream, so clients reconnect, possibly to
+     * another instance.
+     *
+     * @return the stream timeout.
+     */
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Gets the number of undelivered events after which a listener is dropped.
+     *
+     * @return the bound.
+     */
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("flashcards.events.subscriptions", subscriptionCount, AtomicInteger::get)
+                .description("Open library event streams").register(registry);
+        dropped = Counter.builder("flashcards.events.dropped")
+                .description("Event streams closed for falling behind or failing").register(registry);
+    }
+
+    @Override
+    public synchronized void start() {
+        AtomicInteger threads = new AtomicInteger();
+        dispatcher = Executors.newFixedThreadPool(dispatchThreads, runnable -> {
+            Thread thread = new Thread(runnable, "library-event-dispatcher-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "library-event-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(this::sendHeartbeats, heartbeat.toMillis(), heartbeat.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        timer.shutdownNow();
+        dispatcher.shutdownNow();
+        dispatcher = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return dispatcher != null;
+    }
+
+    private void sendHeartbeats() {
+        subscriptions.values().forEach(listeners -> listeners.forEach(
+                subscription -> subscription.offer(LibraryEvent.HEARTBEAT)));
+    }
+
+    /**
+     * A listener's subscription to a user's events, with the events not delivered yet.
+     */
+    public final class Subscription implements AutoCloseable {
+
+        private final String uid;
+        private final LibraryEventListener listener;
+        private ArrayDeque<LibraryEvent> pending; // Guarded by this, null while nothing is pending
+        private boolean draining; // Guarded by this, true while a dispatcher thread delivers
+        private boolean closed; // Guarded by this
+
+        private Subscription(String uid, LibraryEventListener listener) {
+            this.uid = uid;
+            this.listener = listener;
+        }
+
+        /**
+         * Unsubscribes the listener. Undelivered events are discarded.
+         */
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending = null;
+            }
+            subscriptions.computeIfPresent(uid, (key, listeners) -> {
+                listeners.remove(this);
+                return listeners.isEmpty() ? null : listeners;
+            });
+            subscriptionCount.decrementAndGet();
+        }
+
+        private void offer(LibraryEvent event) {
+            ExecutorService executor = dispatcher;
+            boolean overflow = false;
+            synchronized (this) {
+                if (closed || executor == null) {
+                    return;
+                }
+                if (pending == null) {
+                    pending = new ArrayDeque<>(4);
+                }
+                if (pending.size() >= maxPending) {
+                    overflow = true;
+                } else {
+                    pending.add(event);
+                    if (draining) {
+                        return; // Picked up by the running delivery
+                    }
+                    draining = true;
+                }
+            }
+            if (overflow) {
+                drop(null);
+                return;
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                close(); // The hub is stopping
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                LibraryEvent event;
+                synchronized (this) {
+                    event = pending != null ? pending.poll() : null;
+                    if (event == null) {
+                        draining = false;
+                        pending = null; // Idle subscriptions hold no buffer
+                        return;
+                    }
+                }
+                try {
+                    listener.onEvent(event);
+                } catch (Exception e) {
+                    synchronized (this) {
+                        draining = false;
+                    }
+                    drop(e);
+                    return;
+                }
+            }
+        }
+
+        private void drop(Exception cause) {
+            if (cause != null) {
+                log.debug("Library event stream of user {} failed, unsubscribing", uid, cause);
+            }
+            close();
+            if (dropped != null) {
+                dropped.increment();
+            }
+            listener.onDropped();
+        }
+    }
+}
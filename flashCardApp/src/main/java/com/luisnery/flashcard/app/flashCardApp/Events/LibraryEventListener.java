@@ -0,0 +1,24 @@
+package com.luisnery.flashcard.app.flashCardApp.Events;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryEvent;
+
+/**
+ * Receiver of the events of one user's library, typically an open event stream.
+ * Events are delivered one at a time and in publication order, never on the publishing thread.
+ */
+public interface LibraryEventListener {
+
+    /**
+     * Receives an event, including heartbeats on idle streams.
+     *
+     * @param event the event.
+     * @throws Exception if the event cannot be delivered; the listener is then unsubscribed.
+     */
+    void onEvent(LibraryEvent event) throws Exception;
+
+    /**
+     * Called when the hub unsubscribes the listener because it fell too far behind or failed,
+     * so the stream can be closed and the client reconnect and re-fetch.
+     */
+    void onDropped();
+}
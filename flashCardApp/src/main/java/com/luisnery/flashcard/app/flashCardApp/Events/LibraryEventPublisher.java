@@ -0,0 +1,24 @@
+package com.luisnery.flashcard.app.flashCardApp.Events;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryEvent;
+
+/**
+ * Publishes the changes made to users' libraries to their open event streams.
+ *
+ * The relay is chosen by the flashcards.events.relay property: "local" (default) delivers to the
+ * streams open on this instance, "change-stream" relays events through a MongoDB change stream so
+ * streams open on every instance receive them (requires a replica set).
+ * Publishing never blocks on the delivery to the streams.
+ *
+ * @see LibraryEventHub
+ */
+public interface LibraryEventPublisher {
+
+    /**
+     * Publishes a change to a user's library.
+     *
+     * @param uid   the user's ID.
+     * @param event the change.
+     */
+    void publish(String uid, LibraryEvent event);
+}
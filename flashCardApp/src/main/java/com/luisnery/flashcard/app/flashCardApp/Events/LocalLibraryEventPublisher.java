@@ -0,0 +1,31 @@
+package com.luisnery.flashcard.app.flashCardApp.Events;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryEvent;
+
+/**
+ * {@link LibraryEventPublisher} delivering events to the streams open on this instance only.
+ * This is the default relay, sufficient when a single instance serves the API.
+ */
+@Component
+@ConditionalOnProperty(name = "flashcards.events.relay", havingValue = "local", matchIfMissing = true)
+public class LocalLibraryEventPublisher implements LibraryEventPublisher {
+
+    private final LibraryEventHub hub;
+
+    /**
+     * Creates the publisher.
+     *
+     * @param hub the hub of this instance's streams.
+     */
+    public LocalLibraryEventPublisher(LibraryEventHub hub) {
+        this.hub = hub;
+    }
+
+    @Override
+    public void publish(String uid, LibraryEvent event) {
+        hub.deliver(uid, event);
+    }
+}
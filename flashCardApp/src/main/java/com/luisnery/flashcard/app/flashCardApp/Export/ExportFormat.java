@@ -0,0 +1,54 @@
+package com.luisnery.flashcard.app.flashCardApp.Export;
+
+import java.util.Optional;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Output formats of the library export, selected by name with the format request parameter.
+ */
+public enum ExportFormat {
+    NDJSON(MediaType.parseMediaType("application/x-ndjson"), "ndjson"), // One JSON row per line
+    CSV(MediaType.parseMediaType("text/csv"), "csv"); // Header line, then one row per line
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ExportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    /**
+     * Gets the Content-Type of the format.
+     *
+     * @return the media type.
+     */
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Gets the file name extension of the format.
+     *
+     * @return the extension, without the dot.
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Finds a format by its name, ignoring case.
+     *
+     * @param name the format name, e.g. "ndjson" or "csv".
+     * @return the format, or an empty Optional if there is no format with that name.
+     */
+    public static Optional<ExportFormat> fromName(String name) {
+        for (ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+}
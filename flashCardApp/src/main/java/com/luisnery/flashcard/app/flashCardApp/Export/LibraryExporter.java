@@ -0,0 +1,87 @@
+package com.luisnery.flashcard.app.flashCardApp.Export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardExportRow;
+import com.luisnery.flashcard.app.flashCardApp.Repository.FlashcardStore;
+
+/**
+ * Writes a user's library to an output stream as NDJSON or CSV, one row per flashcard.
+ *
+ * Rows are written as the store's database cursors yield them, so memory use does not depend
+ * on the size of the library. Rows come in a stable order, which lets an interrupted export
+ * resume from the number of rows already received.
+ */
+@Component
+public class LibraryExporter {
+
+    private static final int FLUSH_INTERVAL = 500; // Rows written between flushes
+
+    private final FlashcardStore flashcardStore;
+    private final ObjectWriter jsonWriter;
+    private final ObjectWriter csvWriter;
+    private final byte[] csvHeader;
+
+    /**
+     * Creates the exporter.
+     *
+     * @param flashcardStore the store the library is read from.
+     * @param objectMapper   the application's JSON mapper.
+     */
+    public LibraryExporter(FlashcardStore flashcardStore, ObjectMapper objectMapper) {
+        this.flashcardStore = flashcardStore;
+        this.jsonWriter = objectMapper.writerFor(FlashcardExportRow.class);
+        CsvMapper csvMapper = new CsvMapper();
+        CsvSchema schema = csvMapper.schemaFor(FlashcardExportRow.class);
+        this.csvWriter = csvMapper.writer(schema);
+        this.csvHeader = (String.join(",", schema.getColumnNames()) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes the rows of a user's library, starting after the given number of rows.
+     * The CSV header is only written when starting from the first row.
+     *
+     * @param uid    the user's ID.
+     * @param offset the number of leading rows to skip.
+     * @param format the output format.
+     * @param out    the stream to write to; it is flushed but not closed.
+     * @throws IOException if writing fails, e.g. because the client disconnected.
+     */
+    public void export(String uid, long offset, ExportFormat format, OutputStream out) throws IOException {
+        if (format == ExportFormat.CSV && offset == 0) {
+            out.write(csvHeader);
+        }
+        long[] written = { 0 };
+        // forEach pushes rows through, so the cursor of a set is never buffered by the stream pipeline
+        try (Stream<FlashcardExportRow> rows = flashcardStore.streamLibrary(uid, offset)) {
+            rows.forEach(row -> {
+                try {
+                    if (format == ExportFormat.CSV) {
+                        out.write(csvWriter.writeValueAsBytes(row)); // Includes the line separator
+                    } else {
+                        out.write(jsonWriter.writeValueAsBytes(row));
+                        out.write('\n');
+                    }
+                    if (++written[0] % FLUSH_INTERVAL == 0) {
+                        out.flush(); // Push completed rows to the client regularly
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        out.flush();
+    }
+}
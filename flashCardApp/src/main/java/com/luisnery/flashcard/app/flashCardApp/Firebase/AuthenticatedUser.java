@@ -0,0 +1,48 @@
+package com.luisnery.flashcard.app.flashCardApp.Firebase;
+
+import com.google.firebase.auth.FirebaseToken;
+
+/**
+ * The user authenticated by the Firebase ID token of the current request.
+ * Controller methods declare a parameter of this type to require authentication;
+ * it is resolved by {@link FirebaseAuthenticationResolver} before the method is invoked.
+ */
+public class AuthenticatedUser {
+    private final FirebaseToken token; // The verified Firebase ID token
+
+    /**
+     * Creates the principal from a verified token.
+     *
+     * @param token the verified Firebase ID token.
+     */
+    public AuthenticatedUser(FirebaseToken token) {
+        this.token = token;
+    }
+
+    /**
+     * Gets the user's Firebase UID.
+     *
+     * @return the user's ID.
+     */
+    public String getUid() {
+        return token.getUid();
+    }
+
+    /**
+     * Gets the user's email address, if the token carries one.
+     *
+     * @return the user's email, or null.
+     */
+    public String getEmail() {
+        return token.getEmail();
+    }
+
+    /**
+     * Gets the verified Firebase ID token.
+     *
+     * @return the decoded token.
+     */
+    public FirebaseToken getToken() {
+        return token;
+    }
+}
@@ -0,0 +1,45 @@
+package com.luisnery.flashcard.app.flashCardApp.Firebase;
+
+import java.util.List;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.google.firebase.auth.FirebaseAuth;
+
+/**
+ * Registers the Firebase authentication resolver with Spring MVC, so controller methods
+ * can declare an {@link AuthenticatedUser} parameter instead of verifying tokens themselves.
+ */
+@Configuration
+public class FirebaseAuthConfiguration implements WebMvcConfigurer {
+
+    private final FirebaseAuthenticationResolver authenticationResolver;
+
+    /**
+     * Creates the configuration.
+     *
+     * @param authenticationResolver the resolver for {@link AuthenticatedUser} parameters.
+     */
+    public FirebaseAuthConfiguration(FirebaseAuthenticationResolver authenticationResolver) {
+        this.authenticationResolver = authenticationResolver;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(authenticationResolver);
+    }
+
+    /**
+     * Decodes ID tokens with the Firebase Admin SDK of the default Firebase app.
+     * Static, since this configuration itself depends on the verifier using the decoder.
+     *
+     * @return the decoder used by {@link FirebaseTokenVerifier}.
+     */
+    @Bean
+    public static FirebaseIdTokenDecoder firebaseIdTokenDecoder() {
+        return (idToken, checkRevoked) -> FirebaseAuth.getInstance().verifyIdToken(idToken, checkRevoked);
+    }
+}
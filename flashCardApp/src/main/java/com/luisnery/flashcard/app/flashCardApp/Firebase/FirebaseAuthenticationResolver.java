@@ -0,0 +1,67 @@
+package com.luisnery.flashcard.app.flashCardApp.Firebase;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.google.firebase.auth.FirebaseAuthException;
+
+/**
+ * Resolves {@link AuthenticatedUser} controller parameters from the "Authorization: Bearer" header.
+ *
+ * The token is verified once per request through {@link FirebaseTokenVerifier} and the result is
+ * kept as a request attribute. Requests with a missing, invalid, expired or revoked token are
+ * rejected with 401 before the controller method runs.
+ */
+@Component
+public class FirebaseAuthenticationResolver implements HandlerMethodArgumentResolver {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String PRINCIPAL_ATTRIBUTE = AuthenticatedUser.class.getName();
+
+    private final FirebaseTokenVerifier tokenVerifier;
+
+    /**
+     * Creates the resolver.
+     *
+     * @param tokenVerifier the verifier used to check Firebase ID tokens.
+     */
+    public FirebaseAuthenticationResolver(FirebaseTokenVerifier tokenVerifier) {
+        this.tokenVerifier = tokenVerifier;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return AuthenticatedUser.class.equals(parameter.getParameterType());
+    }
+
+    @Override
+    public AuthenticatedUser resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Object resolved = webRequest.getAttribute(PRINCIPAL_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (resolved instanceof AuthenticatedUser) {
+            return (AuthenticatedUser) resolved;
+        }
+
+        String header = webRequest.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Missing Firebase ID token");
+        }
+
+        AuthenticatedUser principal;
+        try {
+            principal = new AuthenticatedUser(tokenVerifier.verify(header.substring(BEARER_PREFIX.length())));
+        } catch (FirebaseAuthException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid Firebase ID token", e);
+        }
+        webRequest.setAttribute(PRINCIPAL_ATTRIBUTE, principal, RequestAttributes.SCOPE_REQUEST);
+        return principal;
+    }
+}
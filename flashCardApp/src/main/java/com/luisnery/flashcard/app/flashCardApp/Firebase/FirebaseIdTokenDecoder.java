@@ -0,0 +1,24 @@
+package com.luisnery.flashcard.app.flashCardApp.Firebase;
+
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+
+/**
+ * Checks the signature and claims of a Firebase ID token.
+ *
+ * The application uses the Firebase Admin SDK (see {@link FirebaseAuthConfiguration}), which may
+ * fetch Google's public keys over HTTP. Load tests replace it with a local stub.
+ */
+@FunctionalInterface
+public interface FirebaseIdTokenDecoder {
+
+    /**
+     * Verifies and decodes a Firebase ID token.
+     *
+     * @param idToken      the raw Firebase ID token.
+     * @param checkRevoked whether to also ask Firebase if the token was revoked.
+     * @return the decoded token.
+     * @throws FirebaseAuthException if the token is invalid, expired or revoked.
+     */
+    FirebaseToken decode(String idToken, boolean checkRevoked) throws FirebaseAuthException;
+}
@@ -0,0 +1,246 @@
+package com.luisnery.flashcard.app.flashCardApp.Firebase;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.google.firebase.ErrorCode;
+import com.google.firebase.auth.AuthErrorCode;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Verifies Firebase ID tokens and caches the verified result until the token expires.
+ *
+ * A token is verified by the Firebase Admin SDK once; repeated requests carrying the same
+ * token are answered from a bounded in-memory cache keyed by the token's SHA-256 hash, so
+ * raw tokens are never held as keys. Each entry is evicted at the token's "exp" claim.
+ *
+ * Revocation is respected through {@link #revokeUser(String)}: it drops the user's cached
+ * tokens and rejects any token of that user issued before the revocation, cached or not.
+ * Revocations are kept in memory, so they only apply to the instance that made them. Setting
+ * firebase.auth.check-revoked=true additionally asks Firebase on every cache miss and caps how long
+ * a token stays cached at firebase.auth.token-cache.revocation-ttl, so a token revoked elsewhere
+ * (by another instance or in the Firebase console) is rejected everywhere within that time.
+ *
+ * Concurrent requests carrying the same uncached token (e.g. the parallel calls of one page load)
+ * share a single verification: the first one decodes the token while the others wait for its
+ * result. No lock is held while decoding, so a decoder blocked on fetching Google's public keys
+ * never pins the carrier thread when requests run on virtual threads.
+ *
+ * Each decode is observed as firebase.token.decode (a timer and a trace span), and the token
+ * cache reports its size, hits and misses under cache.* with cache=firebaseTokens.
+ */
+@Component
+public class FirebaseTokenVerifier implements MeterBinder {
+
+    // Firebase ID tokens live for at most one hour, so revocations older than that are moot
+    private static final Duration MAX_TOKEN_LIFETIME = Duration.ofHours(1);
+
+    private final Cache<String, FirebaseToken> verifiedTokens;
+    private final Cache<String, Long> revokedBefore; // uid -> epoch second of the revocation
+    private final ConcurrentMap<String, CompletableFuture<FirebaseToken>> inFlight = new ConcurrentHashMap<>();
+    private final FirebaseIdTokenDecoder decoder;
+    private final ObservationRegistry observationRegistry;
+    private final boolean checkRevoked;
+
+    /**
+     * Creates the verifier.
+     *
+     * @param decoder             the decoder used on cache misses.
+     * @param observationRegistry the registry decodes are reported to.
+     * @param maxSize             the maximum number of verified tokens kept in the cache.
+     * @param checkRevoked        whether Firebase is asked for revocation status on every cache miss.
+     * @param revocationTtl       the longest time a token stays cached when revocation is checked.
+     */
+    public FirebaseTokenVerifier(FirebaseIdTokenDecoder decoder, ObservationRegistry observationRegistry,
+            @Value("${firebase.auth.token-cache.max-size:10000}") long maxSize,
+            @Value("${firebase.auth.check-revoked:false}") boolean checkRevoked,
+            @Value("${firebase.auth.token-cache.revocation-ttl:1m}") Duration revocationTtl) {
+        this.decoder = decoder;
+        this.observationRegistry = observationRegistry;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new UntilTokenExpiry(checkRevoked ? revocationTtl : MAX_TOKEN_LIFETIME))
+                .recordStats()
+                .build();
+        this.revokedBefore = Caffeine.newBuilder()
+                .expireAfterWrite(MAX_TOKEN_LIFETIME)
+                .build();
+        this.checkRevoked = checkRevoked;
+    }
+
+    /**
+     * Verifies a Firebase ID token, using the cached result when the token was verified before.
+     *
+     * @param idToken the raw Firebase ID token, without the "Bearer " prefix.
+     * @return the decoded token.
+     * @throws FirebaseAuthException if the token is invalid, expired or revoked.
+     */
+    public FirebaseToken verify(String idToken) throws FirebaseAuthException {
+        String key = hash(idToken);
+        FirebaseToken token = verifiedTokens.getIfPresent(key);
+        if (token == null) {
+            return verifyOnce(key, idToken);
+        }
+        if (expiresAt(token) <= Instant.now().getEpochSecond()) {
+            verifiedTokens.invalidate(key);
+            return verify(idToken); // Let Firebase report the expiry
+        }
+        try {
+            rejectIfRevoked(token);
+        } catch (FirebaseAuthException e) {
+            verifiedTokens.invalidate(key);
+            throw e;
+        }
+        return token;
+    }
+
+    /**
+     * Invalidates every cached token of a user and rejects all tokens issued to the user
+     * before now, on this instance only. Call this after revoking the user's refresh tokens or
+     * deleting the user.
+     *
+     * @param uid the user's ID.
+     */
+    public void revokeUser(String uid) {
+        revokedBefore.put(uid, Instant.now().getEpochSecond());
+        verifiedTokens.asMap().values().removeIf(token -> uid.equals(token.getUid()));
+    }
+
+    /**
+     * Gets the hit/miss statistics of the token cache.
+     *
+     * @return the cache statistics.
+     */
+    public CacheStats stats() {
+        return verifiedTokens.stats();
+    }
+
+    /**
+     * Gets the approximate number of verified tokens in the cache.
+     *
+     * @return the number of cached tokens.
+     */
+    public long cachedTokens() {
+        return verifiedTokens.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, verifiedTokens, "firebaseTokens");
+    }
+
+    /**
+     * Decodes an uncached token, or waits for the result if another request is already decoding it.
+     */
+    private FirebaseToken verifyOnce(String key, String idToken) throws FirebaseAuthException {
+        CompletableFuture<FirebaseToken> verification = new CompletableFuture<>();
+        CompletableFuture<FirebaseToken> running = inFlight.putIfAbsent(key, verification);
+        if (running != null) {
+            return await(running);
+        }
+        try {
+            FirebaseToken token = Observation.createNotStarted("firebase.token.decode", observationRegistry)
+                    .lowCardinalityKeyValue("check.revoked", Boolean.toString(checkRevoked))
+                    .observeChecked(() -> decoder.decode(idToken, checkRevoked));
+            rejectIfRevoked(token);
+            verifiedTokens.put(key, token);
+            verification.complete(token);
+            return token;
+        } catch (FirebaseAuthException | RuntimeException e) {
+            verification.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, verification);
+        }
+    }
+
+    private static FirebaseToken await(CompletableFuture<FirebaseToken> verification) throws FirebaseAuthException {
+        try {
+            return verification.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof FirebaseAuthException authException) {
+                throw authException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+
+    private void rejectIfRevoked(FirebaseToken token) throws FirebaseAuthException {
+        Long revokedAt = revokedBefore.getIfPresent(token.getUid());
+        if (revokedAt != null && claim(token, "iat") <= revokedAt) {
+            throw new FirebaseAuthException(ErrorCode.UNAUTHENTICATED, "Firebase ID token has been revoked",
+                    null, null, AuthErrorCode.REVOKED_ID_TOKEN);
+        }
+    }
+
+    private static long expiresAt(FirebaseToken token) {
+        return claim(token, "exp");
+    }
+
+    private static long claim(FirebaseToken token, String name) {
+        Object value = token.getClaims().get(name);
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static String hash(String idToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(idToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Expires each cached token at its own "exp" claim, or after a maximum time if sooner.
+     */
+    private static class UntilTokenExpiry implements Expiry<String, FirebaseToken> {
+
+        private final Duration maxTtl;
+
+        UntilTokenExpiry(Duration maxTtl) {
+            this.maxTtl = maxTtl;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, FirebaseToken token, long currentTime) {
+            long remaining = expiresAt(token) - Instant.now().getEpochSecond();
+            return Math.min(Duration.ofSeconds(Math.max(remaining, 0)).toNanos(), maxTtl.toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, FirebaseToken token, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, token, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, FirebaseToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.luisnery.flashcard.app.flashCardApp;
 
 import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -12,10 +16,15 @@ import com.luisnery.flashcard.app.flashCardApp.Firebase.FirebaseInitialization;
 /**
  * Entry point for the FlashCard App API application.
  * Handles initialization of Firebase and application configuration.
+ * Startup work that needs the database, such as creating indexes, runs asynchronously so an
+ * unreachable database does not delay startup.
  */
 @SpringBootApplication
+@EnableAsync(proxyTargetClass = true) // Class proxies, the @Async event listeners are not on interfaces
 public class FlashCardAppApiApplication {
 
+    private static final Logger log = LoggerFactory.getLogger(FlashCardAppApiApplication.class);
+
     /**
      * Main method to run the application.
      * Initializes Firebase and starts the Spring Boot application.
@@ -26,7 +35,7 @@ public class FlashCardAppApiApplication {
         try {
             FirebaseInitialization.initialize();
         } catch (IOException e) {
-            e.printStackTrace();
+            log.error("Firebase initialization failed, token verification will fail", e);
         }
         SpringApplication.run(FlashCardAppApiApplication.class, args);
     }
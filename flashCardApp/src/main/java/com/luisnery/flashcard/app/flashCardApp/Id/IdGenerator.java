@@ -0,0 +1,59 @@
+package com.luisnery.flashcard.app.flashCardApp.Id;
+
+import java.util.Collection;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+
+/**
+ * Generates the IDs of new flashcard sets and flashcards.
+ *
+ * IDs are assigned by the stores when a set or flashcard is created, never by the model
+ * constructors, so sets and flashcards read from MongoDB or request bodies cost no ID generation.
+ * The format is chosen by the flashcards.ids.format property: "uuid7" (the default) and "objectid"
+ * are time-ordered, so new IDs land at the end of the ID indexes, "uuid4" is random. All formats
+ * are stored as strings and can coexist in one library.
+ */
+public interface IdGenerator {
+
+    /**
+     * Generates a new ID.
+     *
+     * @return the ID.
+     */
+    String newId();
+
+    /**
+     * Assigns a new ID to a flashcard that has none.
+     *
+     * @param flashcard the flashcard.
+     */
+    default void assignId(Flashcard flashcard) {
+        if (flashcard.getId() == null) {
+            flashcard.setId(newId());
+        }
+    }
+
+    /**
+     * Assigns new IDs to the flashcards that have none.
+     *
+     * @param flashcards the flashcards.
+     */
+    default void assignIds(Collection<Flashcard> flashcards) {
+        if (flashcards != null) {
+            flashcards.forEach(this::assignId);
+        }
+    }
+
+    /**
+     * Assigns new IDs to a flashcard set and its flashcards, where they have none.
+     *
+     * @param flashcardSet the flashcard set.
+     */
+    default void assignIds(FlashcardSet flashcardSet) {
+        if (flashcardSet.getId() == null) {
+            flashcardSet.setId(newId());
+        }
+        assignIds(flashcardSet.getFlashcards());
+    }
+}
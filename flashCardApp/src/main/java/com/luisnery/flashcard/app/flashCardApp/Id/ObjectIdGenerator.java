@@ -0,0 +1,21 @@
+package com.luisnery.flashcard.app.flashCardApp.Id;
+
+import org.bson.types.ObjectId;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link IdGenerator} of MongoDB ObjectIds in their 24-character hex form: a seconds timestamp, a
+ * per-process random value and a counter, so IDs are time-ordered and shorter than UUIDs. They are
+ * stored as strings like the other formats, see {@link com.luisnery.flashcard.app.flashCardApp.Model.Flashcard}.
+ * Enabled with flashcards.ids.format=objectid.
+ */
+@Component
+@ConditionalOnProperty(name = "flashcards.ids.format", havingValue = "objectid")
+public class ObjectIdGenerator implements IdGenerator {
+
+    @Override
+    public String newId() {
+        return new ObjectId().toHexString();
+    }
+}
@@ -0,0 +1,21 @@
+package com.luisnery.flashcard.app.flashCardApp.Id;
+
+import java.util.UUID;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link IdGenerator} of random (version 4) UUIDs, the IDs the API generated before the format
+ * became configurable. Every ID draws from the shared SecureRandom and scatters inserts across the
+ * ID indexes. Enabled with flashcards.ids.format=uuid4.
+ */
+@Component
+@ConditionalOnProperty(name = "flashcards.ids.format", havingValue = "uuid4")
+public class RandomUuidGenerator implements IdGenerator {
+
+    @Override
+    public String newId() {
+        return UUID.randomUUID().toString();
+    }
+}
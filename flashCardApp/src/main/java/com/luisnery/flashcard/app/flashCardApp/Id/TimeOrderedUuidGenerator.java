@@ -0,0 +1,34 @@
+package com.luisnery.flashcard.app.flashCardApp.Id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link IdGenerator} of time-ordered (version 7, RFC 9562) UUIDs: a millisecond timestamp, a
+ * 12-bit counter ordering the IDs generated within the same millisecond, and 62 random bits.
+ * IDs of this instance are strictly increasing, and they keep the length and format of the
+ * random UUIDs clients already handle. This is the default ID format.
+ *
+ * The random bits come from ThreadLocalRandom rather than SecureRandom: IDs only have to be
+ * unique, every lookup is also scoped by the owner's ID.
+ */
+@Component
+@ConditionalOnProperty(name = "flashcards.ids.format", havingValue = "uuid7", matchIfMissing = true)
+public class TimeOrderedUuidGenerator implements IdGenerator {
+
+    // Timestamp and counter of the last ID, as millis << 12 | counter; a full counter carries into the millis
+    private final AtomicLong last = new AtomicLong();
+
+    @Override
+    public String newId() {
+        long now = System.currentTimeMillis() << 12;
+        long stamp = last.accumulateAndGet(now, (previous, current) -> Math.max(previous + 1, current));
+        long mostSigBits = (stamp >>> 12) << 16 | 0x7000L | (stamp & 0xFFFL); // Version 7
+        long leastSigBits = ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL | Long.MIN_VALUE; // Variant 10
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+}
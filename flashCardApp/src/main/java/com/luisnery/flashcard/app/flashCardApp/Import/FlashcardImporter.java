@@ -0,0 +1,245 @@
+package com.luisnery.flashcard.app.flashCardApp.Import;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardImportError;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardImportResult;
+import com.luisnery.flashcard.app.flashCardApp.Repository.FlashcardStore;
+import com.luisnery.flashcard.app.flashCardApp.Search.FlashcardSearchIndex;
+
+/**
+ * Imports flashcards into an existing flashcard set from a JSON, CSV or TSV stream.
+ *
+ * The input is read incrementally with Jackson's streaming parsers and written to the
+ * {@link FlashcardStore} in fixed-size batches, so only one batch of flashcards is held in
+ * memory however large the deck is. Invalid rows are skipped and reported; malformed input
+ * stops the import, keeping the batches already written.
+ */
+@Component
+public class FlashcardImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(FlashcardImporter.class);
+
+    private final FlashcardStore flashcardStore;
+    private final FlashcardSearchIndex searchIndex;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper;
+    private final int batchSize;
+    private final int maxErrors;
+
+    /**
+     * Creates the importer.
+     *
+     * @param flashcardStore the store the flashcards are written to.
+     * @param searchIndex    the search index the flashcards are added to.
+     * @param objectMapper   the application's JSON mapper.
+     * @param batchSize      the number of flashcards sent per bulk write.
+     * @param maxErrors      the maximum number of rejected rows listed in the result.
+     */
+    public FlashcardImporter(FlashcardStore flashcardStore, FlashcardSearchIndex searchIndex,
+            ObjectMapper objectMapper,
+            @Value("${flashcards.import.batch-size:1000}") int batchSize,
+            @Value("${flashcards.import.max-errors:100}") int maxErrors) {
+        this.flashcardStore = flashcardStore;
+        this.searchIndex = searchIndex;
+        this.objectMapper = objectMapper;
+        this.csvMapper = CsvMapper.builder()
+                .enable(CsvParser.Feature.WRAP_AS_ARRAY)
+                .enable(CsvParser.Feature.SKIP_EMPTY_LINES)
+                .build();
+        this.batchSize = batchSize;
+        this.maxErrors = maxErrors;
+    }
+
+    /**
+     * Imports flashcards into a flashcard set of a user.
+     *
+     * @param uid    the user's ID.
+     * @param setId  the ID of the flashcard set.
+     * @param in     the input to read; it is not closed.
+     * @param format the format of the input.
+     * @return the outcome of the import, or an empty Optional if the user or set was not found.
+     * @throws IOException if the input cannot be read.
+     */
+    public Optional<FlashcardImportResult> importFlashcards(String uid, String setId, InputStream in,
+            ImportFormat format) throws IOException {
+        Run run = new Run(uid, setId);
+        boolean complete = false;
+        try {
+            if (format == ImportFormat.JSON) {
+                readJson(in, run);
+            } else {
+                readDelimited(in, format, run);
+            }
+            complete = run.flush() && !run.aborted;
+        } catch (JsonProcessingException e) {
+            long row = e.getLocation() != null ? e.getLocation().getLineNr() : 0;
+            run.reject(row, "Malformed input: " + e.getOriginalMessage());
+            complete = false;
+            run.flush(); // Keep the valid rows read before the error
+        }
+
+        if (!run.setFound) {
+            return Optional.empty(); // User or flashcard set not found
+        }
+        if (run.setMissing) {
+            run.reject(0, "Flashcard set was removed during the import");
+        }
+        log.info("Imported {} flashcards into set {} of user {} in {} batches ({} rows rejected)",
+                run.imported, setId, uid, run.batches, run.failed);
+        return Optional.of(new FlashcardImportResult(run.imported, run.failed, run.batches, complete,
+                run.errors, run.failed > run.errors.size()));
+    }
+
+    /**
+     * Reads a JSON array of objects with question and answer fields, one element at a time.
+     */
+    private void readJson(InputStream in, Run run) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                run.reject(0, "Expected a JSON array of flashcards");
+                run.aborted = true;
+                return;
+            }
+            long row = 0;
+            JsonToken token;
+            while (run.accepting() && (token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                row++;
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    run.reject(row, "Expected an object with question and answer");
+                    continue;
+                }
+                JsonNode card = objectMapper.readTree(parser);
+                run.add(row, text(card.get("question")), text(card.get("answer")));
+            }
+        }
+    }
+
+    /**
+     * Reads question and answer columns from CSV or TSV, one row at a time.
+     * A first row reading "question" and "answer" is treated as a header and skipped.
+     */
+    private void readDelimited(InputStream in, ImportFormat format, Run run) throws IOException {
+        CsvSchema schema = format == ImportFormat.TSV
+                ? CsvSchema.emptySchema().withColumnSeparator('\t').withoutQuoteChar()
+                : CsvSchema.emptySchema();
+        try (MappingIterator<String[]> rows = csvMapper.readerFor(String[].class).with(schema)
+                .without(JsonParser.Feature.AUTO_CLOSE_SOURCE).readValues(in)) {
+            boolean first = true;
+            while (run.accepting() && rows.hasNextValue()) {
+                long line = rows.getCurrentLocation().getLineNr();
+                String[] columns = rows.nextValue();
+                if (first && columns.length >= 2 && "question".equalsIgnoreCase(columns[0].trim())
+                        && "answer".equalsIgnoreCase(columns[1].trim())) {
+                    first = false;
+                    continue; // Header row
+                }
+                first = false;
+                if (columns.length < 2) {
+                    run.reject(line, "Expected question and answer columns");
+                    continue;
+                }
+                run.add(line, columns[0], columns[1]);
+            }
+        }
+    }
+
+    private static String text(JsonNode node) {
+        return node != null && node.isValueNode() && !node.isNull() ? node.asText() : null;
+    }
+
+    /**
+     * State of one import: the pending batch, the counters and the listed errors.
+     */
+    private class Run {
+        private final String uid;
+        private final String setId;
+        private List<Flashcard> batch = new ArrayList<>();
+        private final List<FlashcardImportError> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+        private long batches;
+        private boolean setFound; // Set once the first write reached the set
+        private boolean setMissing;
+        private boolean aborted;
+
+        Run(String uid, String setId) {
+            this.uid = uid;
+            this.setId = setId;
+        }
+
+        boolean accepting() {
+            return !setMissing;
+        }
+
+        void add(long row, String question, String answer) {
+            if (question == null || question.isBlank()) {
+                reject(row, "Missing question");
+            } else if (answer == null || answer.isBlank()) {
+                reject(row, "Missing answer");
+            } else {
+                batch.add(new Flashcard(question, answer));
+                if (batch.size() >= batchSize) {
+                    flush();
+                }
+            }
+        }
+
+        void reject(long row, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new FlashcardImportError(row, message));
+            }
+        }
+
+        /**
+         * Writes the pending batch. The first call always reaches the store, even with an empty
+         * batch, so a missing set is detected for empty input too.
+         *
+         * @return false if the user or set no longer exists.
+         */
+        boolean flush() {
+            if (setMissing) {
+                return false;
+            }
+            if (batch.isEmpty() && setFound) {
+                return true;
+            }
+            if (!flashcardStore.appendFlashcards(uid, setId, batch)) {
+                setMissing = true;
+                return false;
+            }
+            setFound = true;
+            if (batch.isEmpty()) {
+                return true;
+            }
+            searchIndex.index(uid, setId, batch);
+            imported += batch.size();
+            batches++;
+            log.debug("Import into set {} of user {}: {} flashcards written", setId, uid, imported);
+            batch = new ArrayList<>(); // The store may keep references to the written flashcards
+            return true;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.luisnery.flashcard.app.flashCardApp.Import;
+
+import java.util.Optional;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Input formats accepted by the flashcard import, identified by the request's Content-Type.
+ */
+public enum ImportFormat {
+    JSON(MediaType.APPLICATION_JSON), // Array of {"question": ..., "answer": ...} objects
+    CSV(MediaType.parseMediaType(ImportFormat.CSV_VALUE)), // question,answer rows with optional header
+    TSV(MediaType.parseMediaType(ImportFormat.TSV_VALUE)); // Tab separated question and answer, unquoted
+
+    public static final String CSV_VALUE = "text/csv";
+    public static final String TSV_VALUE = "text/tab-separated-values";
+
+    private final MediaType mediaType;
+
+    ImportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Finds the format matching a Content-Type, ignoring parameters such as the charset.
+     *
+     * @param contentType the request's Content-Type.
+     * @return the format, or an empty Optional if the content type is not supported.
+     */
+    public static Optional<ImportFormat> fromContentType(MediaType contentType) {
+        for (ImportFormat format : values()) {
+            if (format.mediaType.equalsTypeAndSubtype(contentType)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+}
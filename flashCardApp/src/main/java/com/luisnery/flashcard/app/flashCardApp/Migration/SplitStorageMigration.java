@@ -0,0 +1,124 @@
+package com.luisnery.flashcard.app.flashCardApp.Migration;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+import com.luisnery.flashcard.app.flashCardApp.Model.User;
+import com.luisnery.flashcard.app.flashCardApp.Repository.SplitFlashcardStore;
+
+/**
+ * One-shot job copying the flashcard sets and flashcards embedded in the users collection
+ * into the flashcardSets and flashcards collections used by the split storage mode.
+ *
+ * Runs at startup when flashcards.storage.migrate=true. Users are streamed from a cursor one
+ * at a time and written with unordered bulk upserts, so the job can be re-run safely and its
+ * memory use does not depend on the size of the collection. The embedded copies are left in
+ * place so the embedded storage mode keeps working until the switch is made.
+ */
+@Component
+@ConditionalOnProperty(name = "flashcards.storage.migrate", havingValue = "true")
+public class SplitStorageMigration implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SplitStorageMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final int batchSize;
+
+    /**
+     * Creates the migration job.
+     *
+     * @param mongoTemplate the template used to read users and write the split collections.
+     * @param batchSize     the number of documents sent per bulk write.
+     */
+    public SplitStorageMigration(MongoTemplate mongoTemplate,
+            @Value("${flashcards.storage.migrate.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        SplitFlashcardStore.ensureIndexes(mongoTemplate);
+
+        Batch sets = new Batch(FlashcardSet.class);
+        Batch flashcards = new Batch(Flashcard.class);
+        long users = 0;
+
+        try (Stream<User> stream = mongoTemplate.stream(new Query(), User.class)) {
+            for (User user : (Iterable<User>) stream::iterator) {
+                List<FlashcardSet> userSets = user.getFlashcardSets();
+                for (int s = 0; userSets != null && s < userSets.size(); s++) {
+                    FlashcardSet set = userSets.get(s);
+                    List<Flashcard> setCards = set.getFlashcards();
+                    for (int c = 0; setCards != null && c < setCards.size(); c++) {
+                        Flashcard flashcard = setCards.get(c);
+                        flashcard.setOwnerId(user.getId());
+                        flashcard.setSetId(set.getId());
+                        flashcard.setPosition((long) c);
+                        flashcards.add(flashcard.getId(), flashcard);
+                    }
+                    set.setOwnerId(user.getId());
+                    set.setPosition((long) s);
+                    set.setFlashcards(null); // Flashcards are stored in their own collection
+                    sets.add(set.getId(), set);
+                }
+                users++;
+            }
+        }
+        sets.flush();
+        flashcards.flush();
+
+        log.info("Split storage migration copied {} sets and {} flashcards of {} users",
+                sets.written, flashcards.written, users);
+    }
+
+    /**
+     * Accumulates upserts for one collection and sends them in fixed-size bulk writes.
+     */
+    private class Batch {
+        private final Class<?> type;
+        private BulkOperations operations;
+        private int pending;
+        private long written;
+
+        Batch(Class<?> type) {
+            this.type = type;
+        }
+
+        void add(String id, Object document) {
+            if (operations == null) {
+                operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, type);
+            }
+            operations.replaceOne(Query.query(Criteria.where("_id").is(id)), document,
+                    FindAndReplaceOptions.options().upsert());
+            if (++pending >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (pending > 0) {
+                operations.execute();
+                written += pending;
+            }
+            operations = null;
+            pending = 0;
+        }
+    }
+}
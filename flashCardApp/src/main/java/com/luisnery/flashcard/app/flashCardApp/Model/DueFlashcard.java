@@ -0,0 +1,57 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+/**
+ * Represents a flashcard that is due for review, together with the ID of its set
+ * so the client can record the review.
+ */
+public class DueFlashcard {
+    private String setId; // ID of the flashcard set containing the flashcard
+    private Flashcard flashcard; // The due flashcard, including its review state
+
+    /**
+     * Parameterized constructor to create a due flashcard.
+     *
+     * @param setId     the ID of the flashcard set.
+     * @param flashcard the flashcard.
+     */
+    public DueFlashcard(String setId, Flashcard flashcard) {
+        this.setId = setId;
+        this.flashcard = flashcard;
+    }
+
+    /**
+     * Gets the ID of the flashcard set containing the flashcard.
+     *
+     * @return the flashcard set's ID.
+     */
+    public String getSetId() {
+        return setId;
+    }
+
+    /**
+     * Sets the ID of the flashcard set containing the flashcard.
+     *
+     * @param setId the flashcard set's ID.
+     */
+    public void setSetId(String setId) {
+        this.setId = setId;
+    }
+
+    /**
+     * Gets the due flashcard.
+     *
+     * @return the flashcard.
+     */
+    public Flashcard getFlashcard() {
+        return flashcard;
+    }
+
+    /**
+     * Sets the due flashcard.
+     *
+     * @param flashcard the flashcard.
+     */
+    public void setFlashcard(Flashcard flashcard) {
+        this.flashcard = flashcard;
+    }
+}
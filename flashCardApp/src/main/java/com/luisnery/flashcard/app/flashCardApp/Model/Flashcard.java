@@ -1,41 +1,53 @@
 package com.luisnery.flashcard.app.flashCardApp.Model;
 
-import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+import org.springframework.data.mongodb.core.mapping.MongoId;
 
-import java.util.UUID;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 /**
  * Represents a Flashcard entity stored in a MongoDB collection.
+ * Embedded in a FlashcardSet by default, or stored in the flashcards collection
+ * when the split storage mode is enabled.
+ * Null fields, e.g. the review state of a new flashcard or fields left out by a
+ * {@link FlashcardSetFields} selection, are left out of the JSON.
  */
-@Document
+@Document(collection = "flashcards")
+@CompoundIndex(name = "owner_set_position", def = "{'ownerId': 1, 'setId': 1, 'position': 1}")
+@CompoundIndex(name = "owner_due", def = "{'ownerId': 1, 'review.dueAt': 1}")
+@CompoundIndex(name = "owner_set_due", def = "{'ownerId': 1, 'setId': 1, 'review.dueAt': 1}")
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class Flashcard {
-    @Id
+    @MongoId(FieldType.STRING) // Kept a string even in ObjectId form, as raw queries compare IDs as strings
     private String id;  // Unique identifier for the flashcard
     private String question;  // The question text of the flashcard
     private String answer;    // The answer text of the flashcard
+    private ReviewState review; // Spaced-repetition state, null until the first review
+    @JsonIgnore
+    private String ownerId;   // Owning user's ID (split storage only)
+    @JsonIgnore
+    private String setId;     // Containing flashcard set's ID (split storage only)
+    @JsonIgnore
+    private Long position;    // Sort key within the set (split storage only)
 
     /**
-     * Default constructor.
-     * Automatically generates a unique ID if not already set.
+     * Default constructor, used by Spring Data and Jackson.
+     * Leaves the ID unset, it is read from the document or assigned on creation.
      */
     public Flashcard() {
-        if (this.id == null) {
-            this.id = UUID.randomUUID().toString(); // Generate a unique ID
-        }
     }
 
     /**
      * Parameterized constructor to create a flashcard with a specific question and answer.
-     * Automatically generates a unique ID if not already set.
+     * The ID is assigned by the store the flashcard is added to.
      *
      * @param question the question text of the flashcard.
      * @param answer   the answer text of the flashcard.
      */
     public Flashcard(String question, String answer) {
-        if (this.id == null) {
-            this.id = UUID.randomUUID().toString(); // Generate a unique ID
-        }
         this.question = question;
         this.answer = answer;
     }
@@ -93,4 +105,76 @@ public class Flashcard {
     public void setAnswer(String answer) {
         this.answer = answer;
     }
+
+    /**
+     * Gets the spaced-repetition state of the flashcard.
+     *
+     * @return the review state, or null if the flashcard was never reviewed.
+     */
+    public ReviewState getReview() {
+        return review;
+    }
+
+    /**
+     * Sets the spaced-repetition state of the flashcard.
+     *
+     * @param review the review state.
+     */
+    public void setReview(ReviewState review) {
+        this.review = review;
+    }
+
+    /**
+     * Gets the ID of the user owning the flashcard (split storage only).
+     *
+     * @return the owner's ID.
+     */
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * Sets the ID of the user owning the flashcard (split storage only).
+     *
+     * @param ownerId the owner's ID.
+     */
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    /**
+     * Gets the ID of the flashcard set containing the flashcard (split storage only).
+     *
+     * @return the flashcard set's ID.
+     */
+    public String getSetId() {
+        return setId;
+    }
+
+    /**
+     * Sets the ID of the flashcard set containing the flashcard (split storage only).
+     *
+     * @param setId the flashcard set's ID.
+     */
+    public void setSetId(String setId) {
+        this.setId = setId;
+    }
+
+    /**
+     * Gets the sort key of the flashcard within its set (split storage only).
+     *
+     * @return the position.
+     */
+    public Long getPosition() {
+        return position;
+    }
+
+    /**
+     * Sets the sort key of the flashcard within its set (split storage only).
+     *
+     * @param position the position.
+     */
+    public void setPosition(Long position) {
+        this.position = position;
+    }
 }
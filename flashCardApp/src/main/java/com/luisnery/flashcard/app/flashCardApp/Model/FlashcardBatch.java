@@ -0,0 +1,50 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents an ordered list of flashcard edits over one or more sets of a user, applied all or
+ * nothing. Versions optionally maps set IDs to the versions the client last read, the batch
+ * equivalent of If-Match on single edits.
+ */
+public class FlashcardBatch {
+    private List<FlashcardOperation> operations; // Edits, applied in order
+    private Map<String, Long> versions; // Expected version by set ID, for the sets the client read
+
+    /**
+     * Gets the edits of the batch.
+     *
+     * @return the list of operations.
+     */
+    public List<FlashcardOperation> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Sets the edits of the batch.
+     *
+     * @param operations the list of operations.
+     */
+    public void setOperations(List<FlashcardOperation> operations) {
+        this.operations = operations;
+    }
+
+    /**
+     * Gets the versions the sets must have for the batch to apply.
+     *
+     * @return the expected version by set ID, or null.
+     */
+    public Map<String, Long> getVersions() {
+        return versions;
+    }
+
+    /**
+     * Sets the versions the sets must have for the batch to apply.
+     *
+     * @param versions the expected version by set ID.
+     */
+    public void setVersions(Map<String, Long> versions) {
+        this.versions = versions;
+    }
+}
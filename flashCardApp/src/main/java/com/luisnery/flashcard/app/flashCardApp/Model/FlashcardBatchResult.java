@@ -0,0 +1,115 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the outcome of a flashcard batch: one result per operation, in order, and the new
+ * versions of the sets it changed. A batch that was not applied changed nothing, unless it is
+ * partial: then the operations before the FAILED one were written and the others were not.
+ */
+public class FlashcardBatchResult {
+    private boolean applied; // Whether the operations were written
+    private boolean partial; // Whether only the operations before the failed one were written
+    private List<FlashcardOperationResult> results; // Outcome of each operation, in order
+    private Map<String, Long> versions; // Version by set ID of the changed sets
+
+    /**
+     * Parameterized constructor to create the result of a batch written entirely or not at all.
+     *
+     * @param applied  whether the operations were written.
+     * @param results  the outcome of each operation, in order.
+     * @param versions the new version by set ID of the changed sets.
+     */
+    public FlashcardBatchResult(boolean applied, List<FlashcardOperationResult> results, Map<String, Long> versions) {
+        this(applied, false, results, versions);
+    }
+
+    /**
+     * Parameterized constructor to create a batch result.
+     *
+     * @param applied  whether the operations were written.
+     * @param partial  whether only the operations before the failed one were written.
+     * @param results  the outcome of each operation, in order.
+     * @param versions the new version by set ID of the changed sets.
+     */
+    public FlashcardBatchResult(boolean applied, boolean partial, List<FlashcardOperationResult> results,
+            Map<String, Long> versions) {
+        this.applied = applied;
+        this.partial = partial;
+        this.results = results;
+        this.versions = versions;
+    }
+
+    /**
+     * Tells whether the operations were written.
+     *
+     * @return true if the batch was applied.
+     */
+    public boolean isApplied() {
+        return applied;
+    }
+
+    /**
+     * Sets whether the operations were written.
+     *
+     * @param applied true if the batch was applied.
+     */
+    public void setApplied(boolean applied) {
+        this.applied = applied;
+    }
+
+    /**
+     * Tells whether only the operations before the failed one were written.
+     *
+     * @return true if the batch was partially applied.
+     */
+    public boolean isPartial() {
+        return partial;
+    }
+
+    /**
+     * Sets whether only the operations before the failed one were written.
+     *
+     * @param partial true if the batch was partially applied.
+     */
+    public void setPartial(boolean partial) {
+        this.partial = partial;
+    }
+
+    /**
+     * Gets the outcome of each operation, in order.
+     *
+     * @return the list of results.
+     */
+    public List<FlashcardOperationResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Sets the outcome of each operation, in order.
+     *
+     * @param results the list of results.
+     */
+    public void setResults(List<FlashcardOperationResult> results) {
+        this.results = results;
+    }
+
+    /**
+     * Gets the new versions of the changed sets, to send back as expected versions or If-Match.
+     *
+     * @return the version by set ID.
+     */
+    public Map<String, Long> getVersions() {
+        return versions;
+    }
+
+    /**
+     * Sets the new versions of the changed sets.
+     *
+     * @param versions the version by set ID.
+     */
+    public void setVersions(Map<String, Long> versions) {
+        this.versions = versions;
+    }
+}
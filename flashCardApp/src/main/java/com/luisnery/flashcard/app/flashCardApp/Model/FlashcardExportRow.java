@@ -0,0 +1,123 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+/**
+ * Represents one row of a library export: a flashcard together with the set it belongs to.
+ * For a set without flashcards, the flashcard fields are null.
+ */
+@JsonPropertyOrder({ "setId", "setTitle", "flashcardId", "question", "answer" })
+public class FlashcardExportRow {
+    private String setId; // ID of the flashcard set
+    private String setTitle; // Title of the flashcard set
+    private String flashcardId; // ID of the flashcard, or null for an empty set
+    private String question; // Question text of the flashcard
+    private String answer; // Answer text of the flashcard
+
+    /**
+     * Parameterized constructor to create an export row.
+     *
+     * @param setId       the ID of the flashcard set.
+     * @param setTitle    the title of the flashcard set.
+     * @param flashcardId the ID of the flashcard, or null for an empty set.
+     * @param question    the question text of the flashcard.
+     * @param answer      the answer text of the flashcard.
+     */
+    public FlashcardExportRow(String setId, String setTitle, String flashcardId, String question, String answer) {
+        this.setId = setId;
+        this.setTitle = setTitle;
+        this.flashcardId = flashcardId;
+        this.question = question;
+        this.answer = answer;
+    }
+
+    /**
+     * Gets the ID of the flashcard set.
+     *
+     * @return the flashcard set's ID.
+     */
+    public String getSetId() {
+        return setId;
+    }
+
+    /**
+     * Sets the ID of the flashcard set.
+     *
+     * @param setId the flashcard set's ID.
+     */
+    public void setSetId(String setId) {
+        this.setId = setId;
+    }
+
+    /**
+     * Gets the title of the flashcard set.
+     *
+     * @return the flashcard set's title.
+     */
+    public String getSetTitle() {
+        return setTitle;
+    }
+
+    /**
+     * Sets the title of the flashcard set.
+     *
+     * @param setTitle the flashcard set's title.
+     */
+    public void setSetTitle(String setTitle) {
+        this.setTitle = setTitle;
+    }
+
+    /**
+     * Gets the ID of the flashcard.
+     *
+     * @return the flashcard's ID, or null for an empty set.
+     */
+    public String getFlashcardId() {
+        return flashcardId;
+    }
+
+    /**
+     * Sets the ID of the flashcard.
+     *
+     * @param flashcardId the flashcard's ID, or null for an empty set.
+     */
+    public void setFlashcardId(String flashcardId) {
+        this.flashcardId = flashcardId;
+    }
+
+    /**
+     * Gets the question text of the flashcard.
+     *
+     * @return the question text.
+     */
+    public String getQuestion() {
+        return question;
+    }
+
+    /**
+     * Sets the question text of the flashcard.
+     *
+     * @param question the question text.
+     */
+    public void setQuestion(String question) {
+        this.question = question;
+    }
+
+    /**
+     * Gets the answer text of the flashcard.
+     *
+     * @return the answer text.
+     */
+    public String getAnswer() {
+        return answer;
+    }
+
+    /**
+     * Sets the answer text of the flashcard.
+     *
+     * @param answer the answer text.
+     */
+    public void setAnswer(String answer) {
+        this.answer = answer;
+    }
+}
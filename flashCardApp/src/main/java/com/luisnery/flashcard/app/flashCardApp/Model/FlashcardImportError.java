@@ -0,0 +1,56 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+/**
+ * Represents a row of a flashcard import that could not be imported.
+ */
+public class FlashcardImportError {
+    private long row; // 1-based element index (JSON) or line number (CSV/TSV, malformed input)
+    private String message; // Why the row was rejected
+
+    /**
+     * Parameterized constructor to create an import error.
+     *
+     * @param row     the row that was rejected.
+     * @param message the reason the row was rejected.
+     */
+    public FlashcardImportError(long row, String message) {
+        this.row = row;
+        this.message = message;
+    }
+
+    /**
+     * Gets the row that was rejected.
+     *
+     * @return the element index (JSON) or line number (CSV/TSV).
+     */
+    public long getRow() {
+        return row;
+    }
+
+    /**
+     * Sets the row that was rejected.
+     *
+     * @param row the element index (JSON) or line number (CSV/TSV).
+     */
+    public void setRow(long row) {
+        this.row = row;
+    }
+
+    /**
+     * Gets the reason the row was rejected.
+     *
+     * @return the error message.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Sets the reason the row was rejected.
+     *
+     * @param message the error message.
+     */
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
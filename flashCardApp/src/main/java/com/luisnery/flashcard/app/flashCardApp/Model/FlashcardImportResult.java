@@ -0,0 +1,144 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import java.util.List;
+
+/**
+ * Represents the outcome of a bulk flashcard import.
+ * An incomplete import keeps the flashcards written before it stopped.
+ */
+public class FlashcardImportResult {
+    private long imported; // Flashcards written to the set
+    private long failed; // Rows rejected
+    private long batches; // Bulk writes issued
+    private boolean complete; // False if the input could not be read to the end
+    private List<FlashcardImportError> errors; // Rejected rows, up to the configured maximum
+    private boolean errorsTruncated; // True if more rows were rejected than listed in errors
+
+    /**
+     * Parameterized constructor to create an import result.
+     *
+     * @param imported        the number of flashcards written.
+     * @param failed          the number of rejected rows.
+     * @param batches         the number of bulk writes issued.
+     * @param complete        whether the whole input was read.
+     * @param errors          the rejected rows, possibly truncated.
+     * @param errorsTruncated whether errors lists fewer rows than were rejected.
+     */
+    public FlashcardImportResult(long imported, long failed, long batches, boolean complete,
+            List<FlashcardImportError> errors, boolean errorsTruncated) {
+        this.imported = imported;
+        this.failed = failed;
+        this.batches = batches;
+        this.complete = complete;
+        this.errors = errors;
+        this.errorsTruncated = errorsTruncated;
+    }
+
+    /**
+     * Gets the number of flashcards written to the set.
+     *
+     * @return the number of imported flashcards.
+     */
+    public long getImported() {
+        return imported;
+    }
+
+    /**
+     * Sets the number of flashcards written to the set.
+     *
+     * @param imported the number of imported flashcards.
+     */
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    /**
+     * Gets the number of rejected rows.
+     *
+     * @return the number of failed rows.
+     */
+    public long getFailed() {
+        return failed;
+    }
+
+    /**
+     * Sets the number of rejected rows.
+     *
+     * @param failed the number of failed rows.
+     */
+    public void setFailed(long failed) {
+        this.failed = failed;
+    }
+
+    /**
+     * Gets the number of bulk writes issued.
+     *
+     * @return the number of batches.
+     */
+    public long getBatches() {
+        return batches;
+    }
+
+    /**
+     * Sets the number of bulk writes issued.
+     *
+     * @param batches the number of batches.
+     */
+    public void setBatches(long batches) {
+        this.batches = batches;
+    }
+
+    /**
+     * Tells whether the whole input was read.
+     *
+     * @return true if the import reached the end of the input.
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Sets whether the whole input was read.
+     *
+     * @param complete true if the import reached the end of the input.
+     */
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    /**
+     * Gets the rejected rows, up to the configured maximum.
+     *
+     * @return the list of import errors.
+     */
+    public List<FlashcardImportError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Sets the rejected rows.
+     *
+     * @param errors the list of import errors.
+     */
+    public void setErrors(List<FlashcardImportError> errors) {
+        this.errors = errors;
+    }
+
+    /**
+     * Tells whether more rows were rejected than are listed.
+     *
+     * @return true if the error list was truncated.
+     */
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    /**
+     * Sets whether more rows were rejected than are listed.
+     *
+     * @param errorsTruncated true if the error list was truncated.
+     */
+    public void setErrorsTruncated(boolean errorsTruncated) {
+        this.errorsTruncated = errorsTruncated;
+    }
+}
@@ -0,0 +1,133 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+/**
+ * Represents one edit of a flashcard batch: adding, updating or removing a flashcard of a set,
+ * or retitling a set. Only the fields of the operation's type are read.
+ */
+public class FlashcardOperation {
+
+    /**
+     * Kinds of operations, with the fields each one requires besides the setId.
+     */
+    public enum Type {
+        ADD, // question and answer
+        UPDATE, // flashcardId, question and answer
+        REMOVE, // flashcardId
+        RETITLE // title
+    }
+
+    private Type type; // Kind of operation
+    private String setId; // ID of the flashcard set the operation applies to
+    private String flashcardId; // ID of the updated or removed flashcard
+    private String question; // Question of the added or updated flashcard
+    private String answer; // Answer of the added or updated flashcard
+    private String title; // New title of the set
+
+    /**
+     * Gets the kind of operation.
+     *
+     * @return the type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Sets the kind of operation.
+     *
+     * @param type the type.
+     */
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * Gets the ID of the flashcard set the operation applies to.
+     *
+     * @return the set ID.
+     */
+    public String getSetId() {
+        return setId;
+    }
+
+    /**
+     * Sets the ID of the flashcard set the operation applies to.
+     *
+     * @param setId the set ID.
+     */
+    public void setSetId(String setId) {
+        this.setId = setId;
+    }
+
+    /**
+     * Gets the ID of the updated or removed flashcard.
+     *
+     * @return the flashcard ID.
+     */
+    public String getFlashcardId() {
+        return flashcardId;
+    }
+
+    /**
+     * Sets the ID of the updated or removed flashcard.
+     *
+     * @param flashcardId the flashcard ID.
+     */
+    public void setFlashcardId(String flashcardId) {
+        this.flashcardId = flashcardId;
+    }
+
+    /**
+     * Gets the question of the added or updated flashcard.
+     *
+     * @return the question.
+     */
+    public String getQuestion() {
+        return question;
+    }
+
+    /**
+     * Sets the question of the added or updated flashcard.
+     *
+     * @param question the question.
+     */
+    public void setQuestion(String question) {
+        this.question = question;
+    }
+
+    /**
+     * Gets the answer of the added or updated flashcard.
+     *
+     * @return the answer.
+     */
+    public String getAnswer() {
+        return answer;
+    }
+
+    /**
+     * Sets the answer of the added or updated flashcard.
+     *
+     * @param answer the answer.
+     */
+    public void setAnswer(String answer) {
+        this.answer = answer;
+    }
+
+    /**
+     * Gets the new title of the set.
+     *
+     * @return the title.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Sets the new title of the set.
+     *
+     * @param title the title.
+     */
+    public void setTitle(String title) {
+        this.title = title;
+    }
+}
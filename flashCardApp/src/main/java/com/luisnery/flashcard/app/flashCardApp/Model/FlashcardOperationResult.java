@@ -0,0 +1,139 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Represents the outcome of one operation of a flashcard batch. Null fields are left out of the JSON.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FlashcardOperationResult {
+
+    /**
+     * Outcomes of an operation. SKIPPED operations were valid but not applied because another
+     * operation of the batch failed. A FAILED operation could not be written after the operations
+     * before it were.
+     */
+    public enum Status {
+        APPLIED, INVALID, NOT_FOUND, SKIPPED, FAILED
+    }
+
+    private Status status; // Outcome of the operation
+    private Flashcard flashcard; // Added or updated flashcard, with its ID
+    private String message; // Why the operation failed
+
+    /**
+     * Parameterized constructor to create an operation result.
+     *
+     * @param status    the outcome of the operation.
+     * @param flashcard the added or updated flashcard, or null.
+     * @param message   the reason the operation failed, or null.
+     */
+    public FlashcardOperationResult(Status status, Flashcard flashcard, String message) {
+        this.status = status;
+        this.flashcard = flashcard;
+        this.message = message;
+    }
+
+    /**
+     * Creates the result of an applied operation.
+     *
+     * @param flashcard the added or updated flashcard, or null.
+     * @return the result.
+     */
+    public static FlashcardOperationResult applied(Flashcard flashcard) {
+        return new FlashcardOperationResult(Status.APPLIED, flashcard, null);
+    }
+
+    /**
+     * Creates the result of an operation lacking a field its type requires.
+     *
+     * @param message the missing fields.
+     * @return the result.
+     */
+    public static FlashcardOperationResult invalid(String message) {
+        return new FlashcardOperationResult(Status.INVALID, null, message);
+    }
+
+    /**
+     * Creates the result of an operation whose set or flashcard does not exist.
+     *
+     * @param message what was not found.
+     * @return the result.
+     */
+    public static FlashcardOperationResult notFound(String message) {
+        return new FlashcardOperationResult(Status.NOT_FOUND, null, message);
+    }
+
+    /**
+     * Creates the result of an operation whose write failed.
+     *
+     * @param message the reason of the failure.
+     * @return the result.
+     */
+    public static FlashcardOperationResult failed(String message) {
+        return new FlashcardOperationResult(Status.FAILED, null, message);
+    }
+
+    /**
+     * Creates the result of a valid operation that was not applied.
+     *
+     * @return the result.
+     */
+    public static FlashcardOperationResult skipped() {
+        return new FlashcardOperationResult(Status.SKIPPED, null, null);
+    }
+
+    /**
+     * Gets the outcome of the operation.
+     *
+     * @return the status.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * Sets the outcome of the operation.
+     *
+     * @param status the status.
+     */
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Gets the added or updated flashcard.
+     *
+     * @return the flashcard, or null.
+     */
+    public Flashcard getFlashcard() {
+        return flashcard;
+    }
+
+    /**
+     * Sets the added or updated flashcard.
+     *
+     * @param flashcard the flashcard.
+     */
+    public void setFlashcard(Flashcard flashcard) {
+        this.flashcard = flashcard;
+    }
+
+    /**
+     * Gets the reason the operation failed.
+     *
+     * @return the message, or null.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Sets the reason the operation failed.
+     *
+     * @param message the message.
+     */
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,174 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.TextScore;
+
+/**
+ * Represents the searchable copy of a flashcard in the flashcardSearch collection.
+ * Kept in the same shape for both storage modes. An entry is identified by its owner, set and
+ * flashcard IDs together, since clients may reuse a flashcard ID in another set or library.
+ *
+ * @see com.luisnery.flashcard.app.flashCardApp.Search.FlashcardSearchIndex
+ */
+@Document(collection = "flashcardSearch")
+public class FlashcardSearchEntry {
+    @Id
+    private String id;        // Generated ID of the entry
+    private String ownerId;   // Owning user's ID, the equality prefix of the text index
+    private String setId;     // Containing flashcard set's ID
+    private String flashcardId; // ID of the indexed flashcard
+    private String question;  // The question text of the flashcard
+    private String answer;    // The answer text of the flashcard
+    @TextScore
+    private Float score;      // Relevance of the entry to a text query, only set on search results
+
+    /**
+     * Default constructor.
+     */
+    public FlashcardSearchEntry() {
+    }
+
+    /**
+     * Parameterized constructor to create the search entry of a flashcard.
+     *
+     * @param ownerId     the owning user's ID.
+     * @param setId       the containing flashcard set's ID.
+     * @param flashcardId the flashcard's ID.
+     * @param question    the question text of the flashcard.
+     * @param answer      the answer text of the flashcard.
+     */
+    public FlashcardSearchEntry(String ownerId, String setId, String flashcardId, String question, String answer) {
+        this.ownerId = ownerId;
+        this.setId = setId;
+        this.flashcardId = flashcardId;
+        this.question = question;
+        this.answer = answer;
+    }
+
+    /**
+     * Gets the generated ID of the entry.
+     *
+     * @return the entry's ID.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the generated ID of the entry.
+     *
+     * @param id the entry's ID.
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the ID of the indexed flashcard.
+     *
+     * @return the flashcard's ID.
+     */
+    public String getFlashcardId() {
+        return flashcardId;
+    }
+
+    /**
+     * Sets the ID of the indexed flashcard.
+     *
+     * @param flashcardId the flashcard's ID.
+     */
+    public void setFlashcardId(String flashcardId) {
+        this.flashcardId = flashcardId;
+    }
+
+    /**
+     * Gets the ID of the user owning the flashcard.
+     *
+     * @return the owner's ID.
+     */
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * Sets the ID of the user owning the flashcard.
+     *
+     * @param ownerId the owner's ID.
+     */
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    /**
+     * Gets the ID of the flashcard set containing the flashcard.
+     *
+     * @return the flashcard set's ID.
+     */
+    public String getSetId() {
+        return setId;
+    }
+
+    /**
+     * Sets the ID of the flashcard set containing the flashcard.
+     *
+     * @param setId the flashcard set's ID.
+     */
+    public void setSetId(String setId) {
+        this.setId = setId;
+    }
+
+    /**
+     * Gets the question text of the flashcard.
+     *
+     * @return the question text.
+     */
+    public String getQuestion() {
+        return question;
+    }
+
+    /**
+     * Sets the question text of the flashcard.
+     *
+     * @param question the question text.
+     */
+    public void setQuestion(String question) {
+        this.question = question;
+    }
+
+    /**
+     * Gets the answer text of the flashcard.
+     *
+     * @return the answer text.
+     */
+    public String getAnswer() {
+        return answer;
+    }
+
+    /**
+     * Sets the answer text of the flashcard.
+     *
+     * @param answer the answer text.
+     */
+    public void setAnswer(String answer) {
+        this.answer = answer;
+    }
+
+    /**
+     * Gets the relevance of the entry to the text query it was found with.
+     *
+     * @return the text score, or null outside of search results.
+     */
+    public Float getScore() {
+        return score;
+    }
+
+    /**
+     * Sets the relevance of the entry to a text query.
+     *
+     * @param score the text score.
+     */
+    public void setScore(Float score) {
+        this.score = score;
+    }
+}
@@ -0,0 +1,101 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import java.util.List;
+
+/**
+ * Represents a flashcard found by a search, with the ID of its set, its relevance
+ * and the ranges of its question and answer that match the search terms.
+ */
+public class FlashcardSearchHit {
+    private String setId; // ID of the flashcard set containing the flashcard
+    private Flashcard flashcard; // The matching flashcard
+    private double score; // Relevance to the query, higher is better
+    private List<SearchMatch> matches; // Ranges of the question and answer to highlight
+
+    /**
+     * Parameterized constructor to create a search hit.
+     *
+     * @param setId     the ID of the flashcard set.
+     * @param flashcard the flashcard.
+     * @param score     the relevance to the query.
+     * @param matches   the ranges to highlight.
+     */
+    public FlashcardSearchHit(String setId, Flashcard flashcard, double score, List<SearchMatch> matches) {
+        this.setId = setId;
+        this.flashcard = flashcard;
+        this.score = score;
+        this.matches = matches;
+    }
+
+    /**
+     * Gets the ID of the flashcard set containing the flashcard.
+     *
+     * @return the flashcard set's ID.
+     */
+    public String getSetId() {
+        return setId;
+    }
+
+    /**
+     * Sets the ID of the flashcard set containing the flashcard.
+     *
+     * @param setId the flashcard set's ID.
+     */
+    public void setSetId(String setId) {
+        this.setId = setId;
+    }
+
+    /**
+     * Gets the matching flashcard.
+     *
+     * @return the flashcard.
+     */
+    public Flashcard getFlashcard() {
+        return flashcard;
+    }
+
+    /**
+     * Sets the matching flashcard.
+     *
+     * @param flashcard the flashcard.
+     */
+    public void setFlashcard(Flashcard flashcard) {
+        this.flashcard = flashcard;
+    }
+
+    /**
+     * Gets the relevance of the flashcard to the query.
+     *
+     * @return the score, higher is better.
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Sets the relevance of the flashcard to the query.
+     *
+     * @param score the score.
+     */
+    public void setScore(double score) {
+        this.score = score;
+    }
+
+    /**
+     * Gets the ranges of the question and answer that match the search terms.
+     *
+     * @return the matches, in field and then text order.
+     */
+    public List<SearchMatch> getMatches() {
+        return matches;
+    }
+
+    /**
+     * Sets the ranges of the question and answer that match the search terms.
+     *
+     * @param matches the matches.
+     */
+    public void setMatches(List<SearchMatch> matches) {
+        this.matches = matches;
+    }
+}
@@ -0,0 +1,79 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import java.util.List;
+
+/**
+ * Represents one page of search results, most relevant first.
+ */
+public class FlashcardSearchPage {
+    private List<FlashcardSearchHit> hits; // Hits of this page
+    private int page; // Zero-based number of this page
+    private boolean hasMore; // Whether a following page exists
+
+    /**
+     * Parameterized constructor to create a page of search results.
+     *
+     * @param hits    the hits of this page.
+     * @param page    the zero-based number of this page.
+     * @param hasMore whether a following page exists.
+     */
+    public FlashcardSearchPage(List<FlashcardSearchHit> hits, int page, boolean hasMore) {
+        this.hits = hits;
+        this.page = page;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Gets the hits of this page.
+     *
+     * @return the list of hits.
+     */
+    public List<FlashcardSearchHit> getHits() {
+        return hits;
+    }
+
+    /**
+     * Sets the hits of this page.
+     *
+     * @param hits the list of hits.
+     */
+    public void setHits(List<FlashcardSearchHit> hits) {
+        this.hits = hits;
+    }
+
+    /**
+     * Gets the zero-based number of this page.
+     *
+     * @return the page number.
+     */
+    public int getPage() {
+        return page;
+    }
+
+    /**
+     * Sets the zero-based number of this page.
+     *
+     * @param page the page number.
+     */
+    public void setPage(int page) {
+        this.page = page;
+    }
+
+    /**
+     * Tells whether a following page exists.
+     *
+     * @return true if more hits follow this page.
+     */
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Sets whether a following page exists.
+     *
+     * @param hasMore true if more hits follow this page.
+     */
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
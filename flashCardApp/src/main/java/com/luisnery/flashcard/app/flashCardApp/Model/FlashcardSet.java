@@ -1,42 +1,58 @@
 package com.luisnery.flashcard.app.flashCardApp.Model;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Map;
+import java.util.Objects;
 
-import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+import org.springframework.data.mongodb.core.mapping.MongoId;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 /**
  * Represents a Flashcard Set entity stored in a MongoDB collection.
+ * Embedded in a User by default, or stored in the flashcardSets collection
+ * (without its flashcards) when the split storage mode is enabled.
  */
-@Document
+@Document(collection = "flashcardSets")
+@CompoundIndex(name = "owner_position", def = "{'ownerId': 1, 'position': 1}")
 public class FlashcardSet {
-    @Id
+    @MongoId(FieldType.STRING) // Kept a string even in ObjectId form, as raw queries compare IDs as strings
     private String id; // Unique identifier for the flashcard set
     private String title; // Title of the flashcard set
     private List<Flashcard> flashcards; // List of flashcards in the set
+    private Long version; // Incremented by every change to the set, null for sets never changed since creation
+    @JsonIgnore
+    private String ownerId; // Owning user's ID (split storage only)
+    @JsonIgnore
+    private Long position; // Sort key among the user's sets (split storage only)
+    @Transient
+    @JsonIgnore
+    private Map<String, Flashcard> cardsById; // Lookup index over flashcards, built on first use
+    @Transient
+    @JsonIgnore
+    private int indexedCardCount; // Size of flashcards when cardsById was built
 
     /**
-     * Default constructor.
-     * Automatically generates a unique ID if not already set.
+     * Default constructor, used by Spring Data and Jackson.
+     * Leaves the ID unset, it is read from the document or assigned on creation.
      */
     public FlashcardSet() {
-        if (this.id == null) {
-            this.id = UUID.randomUUID().toString(); // Generate a unique ID
-        }
     }
 
     /**
      * Parameterized constructor to create a flashcard set with a specific title and list of flashcards.
-     * Automatically generates a unique ID if not already set.
+     * The ID is assigned by the store the flashcard set is added to.
      *
      * @param title      the title of the flashcard set.
      * @param flashcards the list of flashcards in the set.
      */
     public FlashcardSet(String title, List<Flashcard> flashcards) {
-        if (this.id == null) {
-            this.id = UUID.randomUUID().toString(); // Generate a unique ID
-        }
         this.title = title;
         this.flashcards = flashcards;
     }
@@ -77,6 +93,25 @@ public class FlashcardSet {
         this.title = title;
     }
 
+    /**
+     * Gets the version of the flashcard set, incremented by every change to its title or flashcards.
+     * Conditional writes compare it to the version the client last read.
+     *
+     * @return the version, 0 for a set that was never changed since its creation.
+     */
+    public long getVersion() {
+        return version != null ? version : 0;
+    }
+
+    /**
+     * Sets the version of the flashcard set.
+     *
+     * @param version the version.
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     /**
      * Gets the list of flashcards in the flashcard set.
      *
@@ -93,5 +128,107 @@ public class FlashcardSet {
      */
     public void setFlashcards(List<Flashcard> flashcards) {
         this.flashcards = flashcards;
+        this.cardsById = null; // Rebuilt on the next lookup
+    }
+
+    /**
+     * Adds a flashcard to the flashcard set.
+     *
+     * @param flashcard the flashcard to add.
+     */
+    public void addFlashcard(Flashcard flashcard) {
+        if (flashcards == null) {
+            flashcards = new ArrayList<>();
+        }
+        flashcards.add(flashcard);
+        if (cardsById != null && indexedCardCount == flashcards.size() - 1) {
+            cardsById.put(flashcard.getId(), flashcard);
+            indexedCardCount++;
+        }
+    }
+
+    /**
+     * Removes a flashcard from the flashcard set.
+     *
+     * @param flashcardId the ID of the flashcard.
+     * @return the removed flashcard, or null if the set has no flashcard with that ID.
+     */
+    public Flashcard removeFlashcard(String flashcardId) {
+        Flashcard flashcard = findCard(flashcardId);
+        if (flashcard != null) {
+            flashcards.remove(flashcard);
+            cardsById.remove(flashcardId);
+            indexedCardCount--;
+        }
+        return flashcard;
+    }
+
+    /**
+     * Finds a flashcard of the set by ID in constant time.
+     * The index is built on first use, e.g. after the set was loaded from MongoDB, and rebuilt
+     * whenever the list was changed without going through this class or a lookup misses, in case
+     * IDs were assigned after indexing.
+     *
+     * @param flashcardId the ID of the flashcard.
+     * @return the flashcard, or null if the set has no flashcard with that ID.
+     */
+    public Flashcard findCard(String flashcardId) {
+        if (flashcards == null) {
+            return null;
+        }
+        boolean fresh = cardsById == null || indexedCardCount != flashcards.size();
+        if (fresh) {
+            indexCards();
+        }
+        Flashcard flashcard = cardsById.get(flashcardId);
+        if (!fresh && (flashcard == null || !Objects.equals(flashcardId, flashcard.getId()))) {
+            indexCards(); // A flashcard's ID was assigned or changed since indexing
+            flashcard = cardsById.get(flashcardId);
+        }
+        return flashcard;
+    }
+
+    private void indexCards() {
+        cardsById = new HashMap<>();
+        for (Flashcard flashcard : flashcards) {
+            cardsById.putIfAbsent(flashcard.getId(), flashcard); // First one wins, like a linear scan
+        }
+        indexedCardCount = flashcards.size();
+    }
+
+    /**
+     * Gets the ID of the user owning the flashcard set (split storage only).
+     *
+     * @return the owner's ID.
+     */
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * Sets the ID of the user owning the flashcard set (split storage only).
+     *
+     * @param ownerId the owner's ID.
+     */
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    /**
+     * Gets the sort key of the flashcard set among the user's sets (split storage only).
+     *
+     * @return the position.
+     */
+    public Long getPosition() {
+        return position;
+    }
+
+    /**
+     * Sets the sort key of the flashcard set among the user's sets (split storage only).
+     *
+     * @param position the position.
+     */
+    public void setPosition(Long position) {
+        this.position = position;
     }
 }
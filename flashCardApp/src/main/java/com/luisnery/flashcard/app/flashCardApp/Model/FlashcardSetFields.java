@@ -0,0 +1,157 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Selection of the fields of a flashcard set to read, parsed from a fields request parameter
+ * such as "id,title,cardCount" or "title,cards.question,cards.answer".
+ *
+ * The set fields are id, title and cardCount. "cards" selects every field of the flashcards,
+ * while "cards.id", "cards.question", "cards.answer" and "cards.review" select one each.
+ * Stores push the selection down to MongoDB as a projection.
+ */
+public class FlashcardSetFields {
+
+    public static final String ID = "id";
+    public static final String TITLE = "title";
+    public static final String CARD_COUNT = "cardCount";
+    public static final String CARD_ID = "id";
+    public static final String QUESTION = "question";
+    public static final String ANSWER = "answer";
+    public static final String REVIEW = "review";
+
+    private static final List<String> SET_FIELDS = List.of(ID, TITLE, CARD_COUNT);
+    private static final List<String> CARD_FIELDS = List.of(CARD_ID, QUESTION, ANSWER, REVIEW);
+    private static final String CARDS = "cards";
+
+    /**
+     * Selects every field of the set and of its flashcards.
+     */
+    public static final FlashcardSetFields ALL = new FlashcardSetFields(Set.copyOf(SET_FIELDS), Set.copyOf(CARD_FIELDS));
+
+    private final Set<String> setFields; // Selected fields of the set
+    private final Set<String> cardFields; // Selected fields of each flashcard, empty if no flashcard is read
+
+    private FlashcardSetFields(Set<String> setFields, Set<String> cardFields) {
+        this.setFields = setFields;
+        this.cardFields = cardFields;
+    }
+
+    /**
+     * Parses a comma-separated list of fields.
+     *
+     * @param fields the fields, e.g. "id,title,cards.question".
+     * @return the selection, or an empty Optional if a field is unknown or none is given.
+     */
+    public static Optional<FlashcardSetFields> parse(String fields) {
+        Set<String> setFields = new LinkedHashSet<>();
+        Set<String> cardFields = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.equals(CARDS)) {
+                cardFields.addAll(CARD_FIELDS);
+            } else if (name.startsWith(CARDS + ".") && CARD_FIELDS.contains(name.substring(CARDS.length() + 1))) {
+                cardFields.add(name.substring(CARDS.length() + 1));
+            } else if (SET_FIELDS.contains(name)) {
+                setFields.add(name);
+            } else {
+                return Optional.empty(); // Unknown field
+            }
+        }
+        return Optional.of(new FlashcardSetFields(setFields, cardFields));
+    }
+
+    /**
+     * Tells whether a field of the set is selected.
+     *
+     * @param field one of {@link #ID}, {@link #TITLE} and {@link #CARD_COUNT}.
+     * @return true if the field is selected.
+     */
+    public boolean includes(String field) {
+        return setFields.contains(field);
+    }
+
+    /**
+     * Tells whether a field of the flashcards is selected.
+     *
+     * @param field one of {@link #CARD_ID}, {@link #QUESTION}, {@link #ANSWER} and {@link #REVIEW}.
+     * @return true if the field is selected.
+     */
+    public boolean includesCardField(String field) {
+        return cardFields.contains(field);
+    }
+
+    /**
+     * Tells whether the flashcards are read at all.
+     *
+     * @return true if at least one field of the flashcards is selected.
+     */
+    public boolean includesCards() {
+        return !cardFields.isEmpty();
+    }
+
+    /**
+     * Gets the selected fields of the flashcards.
+     *
+     * @return the field names, without the "cards." prefix.
+     */
+    public Set<String> getCardFields() {
+        return cardFields;
+    }
+
+    /**
+     * Copies the selected fields of a fully loaded set into a view.
+     *
+     * @param set the flashcard set, including its flashcards.
+     * @return the view of the set.
+     */
+    public FlashcardSetView select(FlashcardSet set) {
+        List<Flashcard> flashcards = set.getFlashcards() != null ? set.getFlashcards() : List.of();
+        FlashcardSetView view = new FlashcardSetView();
+        view.setVersion(set.getVersion());
+        if (includes(ID)) {
+            view.setId(set.getId());
+        }
+        if (includes(TITLE)) {
+            view.setTitle(set.getTitle());
+        }
+        if (includes(CARD_COUNT)) {
+            view.setCardCount(flashcards.size());
+        }
+        if (includesCards()) {
+            List<Flashcard> cards = new ArrayList<>(flashcards.size());
+            for (Flashcard flashcard : flashcards) {
+                cards.add(selectCard(flashcard));
+            }
+            view.setCards(cards);
+        }
+        return view;
+    }
+
+    /**
+     * Copies the selected fields of a flashcard.
+     *
+     * @param flashcard the flashcard, holding at least the selected fields.
+     * @return a flashcard holding only the selected fields.
+     */
+    public Flashcard selectCard(Flashcard flashcard) {
+        Flashcard card = new Flashcard();
+        if (includesCardField(CARD_ID)) {
+            card.setId(flashcard.getId());
+        }
+        if (includesCardField(QUESTION)) {
+            card.setQuestion(flashcard.getQuestion());
+        }
+        if (includesCardField(ANSWER)) {
+            card.setAnswer(flashcard.getAnswer());
+        }
+        if (includesCardField(REVIEW)) {
+            card.setReview(flashcard.getReview());
+        }
+        return card;
+    }
+}
@@ -0,0 +1,84 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+/**
+ * Lightweight view of a flashcard set used by list views.
+ * Holds the set's ID, title and number of flashcards, but not the flashcards themselves.
+ */
+public class FlashcardSetSummary {
+    private String id; // Unique identifier of the flashcard set
+    private String title; // Title of the flashcard set
+    private int cardCount; // Number of flashcards in the set
+
+    /**
+     * Default constructor.
+     */
+    public FlashcardSetSummary() {
+    }
+
+    /**
+     * Parameterized constructor to create a summary of a flashcard set.
+     *
+     * @param id        the ID of the flashcard set.
+     * @param title     the title of the flashcard set.
+     * @param cardCount the number of flashcards in the set.
+     */
+    public FlashcardSetSummary(String id, String title, int cardCount) {
+        this.id = id;
+        this.title = title;
+        this.cardCount = cardCount;
+    }
+
+    /**
+     * Gets the ID of the flashcard set.
+     *
+     * @return the flashcard set's ID.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the ID of the flashcard set.
+     *
+     * @param id the flashcard set's ID.
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the title of the flashcard set.
+     *
+     * @return the title of the flashcard set.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Sets the title of the flashcard set.
+     *
+     * @param title the title of the flashcard set.
+     */
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    /**
+     * Gets the number of flashcards in the flashcard set.
+     *
+     * @return the number of flashcards.
+     */
+    public int getCardCount() {
+        return cardCount;
+    }
+
+    /**
+     * Sets the number of flashcards in the flashcard set.
+     *
+     * @param cardCount the number of flashcards.
+     */
+    public void setCardCount(int cardCount) {
+        this.cardCount = cardCount;
+    }
+}
@@ -0,0 +1,110 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Represents the fields of a flashcard set selected by a {@link FlashcardSetFields}.
+ * Fields that were not selected are null and left out of the JSON.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FlashcardSetView {
+    private String id; // Unique identifier of the flashcard set
+    private String title; // Title of the flashcard set
+    private Integer cardCount; // Number of flashcards in the set
+    private List<Flashcard> cards; // Flashcards of the set, holding only the selected fields
+    @JsonIgnore
+    private long version; // Version of the set, always read so it can be sent as ETag
+
+    /**
+     * Gets the unique ID of the flashcard set.
+     *
+     * @return the flashcard set's ID, or null if not selected.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Sets the unique ID of the flashcard set.
+     *
+     * @param id the flashcard set's ID.
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Gets the title of the flashcard set.
+     *
+     * @return the title, or null if not selected.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Sets the title of the flashcard set.
+     *
+     * @param title the title.
+     */
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    /**
+     * Gets the number of flashcards in the set.
+     *
+     * @return the card count, or null if not selected.
+     */
+    public Integer getCardCount() {
+        return cardCount;
+    }
+
+    /**
+     * Sets the number of flashcards in the set.
+     *
+     * @param cardCount the card count.
+     */
+    public void setCardCount(Integer cardCount) {
+        this.cardCount = cardCount;
+    }
+
+    /**
+     * Gets the flashcards of the set.
+     *
+     * @return the flashcards, holding only the selected fields, or null if not selected.
+     */
+    public List<Flashcard> getCards() {
+        return cards;
+    }
+
+    /**
+     * Sets the flashcards of the set.
+     *
+     * @param cards the flashcards.
+     */
+    public void setCards(List<Flashcard> cards) {
+        this.cards = cards;
+    }
+
+    /**
+     * Gets the version of the flashcard set.
+     *
+     * @return the version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the flashcard set.
+     *
+     * @param version the version.
+     */
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,82 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import java.util.List;
+
+/**
+ * Represents one page of the changes made to a user's library after a sequence number, in the
+ * order they were made. Changes to the same set or flashcard are folded into one, carrying the
+ * latest state and the sequence of the latest change, and a removed set drops the earlier changes
+ * of its flashcards. After SET_CREATED or SET_CHANGED the set has to be re-fetched.
+ */
+public class LibraryChanges {
+    private List<LibraryEvent> changes; // Compacted changes of this page
+    private long next; // Sequence to pass as since to get the following changes
+    private boolean hasMore; // Whether more changes follow this page
+
+    /**
+     * Parameterized constructor to create a page of changes.
+     *
+     * @param changes the compacted changes of this page.
+     * @param next    the sequence of the last change of this page, or the one the page started after.
+     * @param hasMore whether more changes follow this page.
+     */
+    public LibraryChanges(List<LibraryEvent> changes, long next, boolean hasMore) {
+        this.changes = changes;
+        this.next = next;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Gets the compacted changes of this page.
+     *
+     * @return the list of changes.
+     */
+    public List<LibraryEvent> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Sets the compacted changes of this page.
+     *
+     * @param changes the list of changes.
+     */
+    public void setChanges(List<LibraryEvent> changes) {
+        this.changes = changes;
+    }
+
+    /**
+     * Gets the sequence to pass as since to get the following changes.
+     *
+     * @return the sequence number.
+     */
+    public long getNext() {
+        return next;
+    }
+
+    /**
+     * Sets the sequence to pass as since to get the following changes.
+     *
+     * @param next the sequence number.
+     */
+    public void setNext(long next) {
+        this.next = next;
+    }
+
+    /**
+     * Tells whether more changes follow this page.
+     *
+     * @return true if more changes follow this page.
+     */
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    /**
+     * Sets whether more changes follow this page.
+     *
+     * @param hasMore true if more changes follow this page.
+     */
+    public void setHasMore(boolean hasMore) {
+        this.hasMore = hasMore;
+    }
+}
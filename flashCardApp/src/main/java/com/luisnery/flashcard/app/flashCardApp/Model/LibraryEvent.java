@@ -0,0 +1,307 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A change to a user's library, pushed to the user's open event streams so other devices can
+ * apply it without re-fetching. Only the fields of the change are set, e.g. the flashcard of
+ * CARD_ADDED or the title of SET_RENAMED; null fields are left out of the JSON.
+ * The version is the set's version after the change, when the writer knows it. The sequence
+ * orders the changes of one user and is the cursor of the change log, so a client that applied
+ * an event can later sync the changes made after it.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class LibraryEvent {
+
+    /**
+     * Kinds of changes. SET_CHANGED stands for bulk changes, such as imports, after which the set
+     * has to be re-fetched.
+     */
+    public enum Type {
+        SET_CREATED, SET_RENAMED, SET_CHANGED, SET_REMOVED, CARD_ADDED, CARD_UPDATED, CARD_REMOVED, HEARTBEAT
+    }
+
+    /**
+     * Keep-alive sent on idle streams, so proxies keep them open and closed ones are detected.
+     */
+    public static final LibraryEvent HEARTBEAT = new LibraryEvent(Type.HEARTBEAT, null);
+
+    private Type type; // Kind of change
+    private String setId; // ID of the changed flashcard set
+    private String flashcardId; // ID of the changed flashcard, for card events
+    private String title; // Title of the set, for SET_CREATED and SET_RENAMED
+    private Flashcard flashcard; // Added or updated flashcard
+    private Long version; // Version of the set after the change, null if unknown
+    private Long sequence; // Position in the user's change log, null if the change was not logged
+    @JsonIgnore
+    private String ownerId; // Owning user's ID (change log and change stream relay only)
+    @JsonIgnore
+    private Instant createdAt; // Time the change was logged or published, expires stored events
+
+    /**
+     * Default constructor.
+     */
+    public LibraryEvent() {
+    }
+
+    private LibraryEvent(Type type, String setId) {
+        this.type = type;
+        this.setId = setId;
+    }
+
+    /**
+     * Creates the event of a new flashcard set.
+     *
+     * @param set the created set.
+     * @return the event.
+     */
+    public static LibraryEvent setCreated(FlashcardSet set) {
+        LibraryEvent event = new LibraryEvent(Type.SET_CREATED, set.getId());
+        event.title = set.getTitle();
+        event.version = set.getVersion();
+        return event;
+    }
+
+    /**
+     * Creates the event of a renamed flashcard set.
+     *
+     * @param set the set with its new title and version.
+     * @return the event.
+     */
+    public static LibraryEvent setRenamed(FlashcardSet set) {
+        LibraryEvent event = new LibraryEvent(Type.SET_RENAMED, set.getId());
+        event.title = set.getTitle();
+        event.version = set.getVersion();
+        return event;
+    }
+
+    /**
+     * Creates the event of a bulk change to a flashcard set.
+     *
+     * @param setId   the ID of the set.
+     * @param version the version of the set after the change, or null if unknown.
+     * @return the event.
+     */
+    public static LibraryEvent setChanged(String setId, Long version) {
+        LibraryEvent event = new LibraryEvent(Type.SET_CHANGED, setId);
+        event.version = version;
+        return event;
+    }
+
+    /**
+     * Creates the event of a removed flashcard set.
+     *
+     * @param setId the ID of the set.
+     * @return the event.
+     */
+    public static LibraryEvent setRemoved(String setId) {
+        return new LibraryEvent(Type.SET_REMOVED, setId);
+    }
+
+    /**
+     * Creates the event of a flashcard added to a set.
+     *
+     * @param setId     the ID of the set.
+     * @param flashcard the added flashcard.
+     * @return the event.
+     */
+    public static LibraryEvent cardAdded(String setId, Flashcard flashcard) {
+        LibraryEvent event = new LibraryEvent(Type.CARD_ADDED, setId);
+        event.flashcardId = flashcard.getId();
+        event.flashcard = flashcard;
+        return event;
+    }
+
+    /**
+     * Creates the event of a flashcard whose question and answer or review state were updated.
+     *
+     * @param setId     the ID of the set.
+     * @param flashcard the updated flashcard.
+     * @return the event.
+     */
+    public static LibraryEvent cardUpdated(String setId, Flashcard flashcard) {
+        LibraryEvent event = new LibraryEvent(Type.CARD_UPDATED, setId);
+        event.flashcardId = flashcard.getId();
+        event.flashcard = flashcard;
+        return event;
+    }
+
+    /**
+     * Creates the event of a flashcard removed from a set.
+     *
+     * @param set         the set after the removal.
+     * @param flashcardId the ID of the removed flashcard.
+     * @return the event.
+     */
+    public static LibraryEvent cardRemoved(FlashcardSet set, String flashcardId) {
+        LibraryEvent event = new LibraryEvent(Type.CARD_REMOVED, set.getId());
+        event.flashcardId = flashcardId;
+        event.version = set.getVersion();
+        return event;
+    }
+
+    /**
+     * Gets the kind of change.
+     *
+     * @return the type.
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Sets the kind of change.
+     *
+     * @param type the type.
+     */
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    /**
+     * Gets the ID of the changed flashcard set.
+     *
+     * @return the set's ID, null for heartbeats.
+     */
+    public String getSetId() {
+        return setId;
+    }
+
+    /**
+     * Sets the ID of the changed flashcard set.
+     *
+     * @param setId the set's ID.
+     */
+    public void setSetId(String setId) {
+        this.setId = setId;
+    }
+
+    /**
+     * Gets the ID of the changed flashcard.
+     *
+     * @return the flashcard's ID, null for set events.
+     */
+    public String getFlashcardId() {
+        return flashcardId;
+    }
+
+    /**
+     * Sets the ID of the changed flashcard.
+     *
+     * @param flashcardId the flashcard's ID.
+     */
+    public void setFlashcardId(String flashcardId) {
+        this.flashcardId = flashcardId;
+    }
+
+    /**
+     * Gets the title of the set.
+     *
+     * @return the title, null unless the set was created or renamed.
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Sets the title of the set.
+     *
+     * @param title the title.
+     */
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    /**
+     * Gets the added or updated flashcard.
+     *
+     * @return the flashcard, null for other events.
+     */
+    public Flashcard getFlashcard() {
+        return flashcard;
+    }
+
+    /**
+     * Sets the added or updated flashcard.
+     *
+     * @param flashcard the flashcard.
+     */
+    public void setFlashcard(Flashcard flashcard) {
+        this.flashcard = flashcard;
+    }
+
+    /**
+     * Gets the version of the set after the change.
+     *
+     * @return the version, or null if the writer did not know it.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the set after the change.
+     *
+     * @param version the version.
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    /**
+     * Gets the position of the change in the user's change log.
+     *
+     * @return the sequence number, or null if the change was not logged.
+     */
+    public Long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Sets the position of the change in the user's change log.
+     *
+     * @param sequence the sequence number.
+     */
+    public void setSequence(Long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * Gets the ID of the user owning the changed library (change log and change stream relay only).
+     *
+     * @return the owner's ID.
+     */
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * Sets the ID of the user owning the changed library (change log and change stream relay only).
+     *
+     * @param ownerId the owner's ID.
+     */
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+
+    /**
+     * Gets the time the change was logged or published (change log and change stream relay only).
+     *
+     * @return the time.
+     */
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Sets the time the change was logged or published (change log and change stream relay only).
+     *
+     * @param createdAt the time.
+     */
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,150 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import java.time.Instant;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Represents one answer given during a study session, submitted in batches and applied
+ * to the flashcard's review state in the background.
+ */
+public class ReviewEvent {
+    private String eventId; // Client-generated idempotency key, unique per answer
+    private String setId; // ID of the flashcard set containing the flashcard
+    private String flashcardId; // ID of the answered flashcard
+    private int grade; // Grade of the answer, from 0 (forgotten) to 5 (perfect)
+    private Instant reviewedAt; // Time of the answer, defaults to the time it was received
+    @JsonIgnore
+    private String ownerId; // Answering user's ID, taken from the authenticated user
+
+    /**
+     * Default constructor.
+     */
+    public ReviewEvent() {
+    }
+
+    /**
+     * Parameterized constructor to create a review event.
+     *
+     * @param eventId     the idempotency key of the event.
+     * @param setId       the ID of the flashcard set.
+     * @param flashcardId the ID of the flashcard.
+     * @param grade       the grade of the answer.
+     * @param reviewedAt  the time of the answer.
+     */
+    public ReviewEvent(String eventId, String setId, String flashcardId, int grade, Instant reviewedAt) {
+        this.eventId = eventId;
+        this.setId = setId;
+        this.flashcardId = flashcardId;
+        this.grade = grade;
+        this.reviewedAt = reviewedAt;
+    }
+
+    /**
+     * Gets the idempotency key of the event.
+     *
+     * @return the event ID.
+     */
+    public String getEventId() {
+        return eventId;
+    }
+
+    /**
+     * Sets the idempotency key of the event.
+     *
+     * @param eventId the event ID.
+     */
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    /**
+     * Gets the ID of the flashcard set containing the flashcard.
+     *
+     * @return the flashcard set's ID.
+     */
+    public String getSetId() {
+        return setId;
+    }
+
+    /**
+     * Sets the ID of the flashcard set containing the flashcard.
+     *
+     * @param setId the flashcard set's ID.
+     */
+    public void setSetId(String setId) {
+        this.setId = setId;
+    }
+
+    /**
+     * Gets the ID of the answered flashcard.
+     *
+     * @return the flashcard's ID.
+     */
+    public String getFlashcardId() {
+        return flashcardId;
+    }
+
+    /**
+     * Sets the ID of the answered flashcard.
+     *
+     * @param flashcardId the flashcard's ID.
+     */
+    public void setFlashcardId(String flashcardId) {
+        this.flashcardId = flashcardId;
+    }
+
+    /**
+     * Gets the grade of the answer.
+     *
+     * @return the grade, from 0 to 5.
+     */
+    public int getGrade() {
+        return grade;
+    }
+
+    /**
+     * Sets the grade of the answer.
+     *
+     * @param grade the grade, from 0 to 5.
+     */
+    public void setGrade(int grade) {
+        this.grade = grade;
+    }
+
+    /**
+     * Gets the time of the answer.
+     *
+     * @return the review time.
+     */
+    public Instant getReviewedAt() {
+        return reviewedAt;
+    }
+
+    /**
+     * Sets the time of the answer.
+     *
+     * @param reviewedAt the review time.
+     */
+    public void setReviewedAt(Instant reviewedAt) {
+        this.reviewedAt = reviewedAt;
+    }
+
+    /**
+     * Gets the ID of the answering user.
+     *
+     * @return the owner's ID.
+     */
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    /**
+     * Sets the ID of the answering user.
+     *
+     * @param ownerId the owner's ID.
+     */
+    public void setOwnerId(String ownerId) {
+        this.ownerId = ownerId;
+    }
+}
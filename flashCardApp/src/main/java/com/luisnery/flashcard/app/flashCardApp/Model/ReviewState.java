@@ -0,0 +1,174 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * Represents the spaced-repetition state of a flashcard, updated on every review.
+ * A flashcard that was never reviewed has no review state and is due immediately.
+ */
+public class ReviewState {
+    private double ease; // SM-2 easiness factor, at least 1.3
+    private int intervalDays; // Days between the last review and the next one
+    private int repetitions; // Successful reviews in a row
+    private int lapses; // Times the flashcard was forgotten after being learned
+    private Instant lastReviewedAt; // Time of the last review
+    private Instant dueAt; // Time the flashcard is due for its next review
+    @JsonIgnore
+    private List<String> recentEventIds = new ArrayList<>(); // Idempotency keys of the latest applied review events
+
+    /**
+     * Default constructor.
+     */
+    public ReviewState() {
+    }
+
+    /**
+     * Parameterized constructor to create a review state.
+     *
+     * @param ease           the easiness factor.
+     * @param intervalDays   the interval until the next review, in days.
+     * @param repetitions    the number of successful reviews in a row.
+     * @param lapses         the number of times the flashcard was forgotten.
+     * @param lastReviewedAt the time of the last review.
+     * @param dueAt          the time of the next review.
+     */
+    public ReviewState(double ease, int intervalDays, int repetitions, int lapses, Instant lastReviewedAt,
+            Instant dueAt) {
+        this.ease = ease;
+        this.intervalDays = intervalDays;
+        this.repetitions = repetitions;
+        this.lapses = lapses;
+        this.lastReviewedAt = lastReviewedAt;
+        this.dueAt = dueAt;
+    }
+
+    /**
+     * Gets the easiness factor.
+     *
+     * @return the ease.
+     */
+    public double getEase() {
+        return ease;
+    }
+
+    /**
+     * Sets the easiness factor.
+     *
+     * @param ease the ease.
+     */
+    public void setEase(double ease) {
+        this.ease = ease;
+    }
+
+    /**
+     * Gets the interval until the next review.
+     *
+     * @return the interval in days.
+     */
+    public int getIntervalDays() {
+        return intervalDays;
+    }
+
+    /**
+     * Sets the interval until the next review.
+     *
+     * @param intervalDays the interval in days.
+     */
+    public void setIntervalDays(int intervalDays) {
+        this.intervalDays = intervalDays;
+    }
+
+    /**
+     * Gets the number of successful reviews in a row.
+     *
+     * @return the repetitions.
+     */
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    /**
+     * Sets the number of successful reviews in a row.
+     *
+     * @param repetitions the repetitions.
+     */
+    public void setRepetitions(int repetitions) {
+        this.repetitions = repetitions;
+    }
+
+    /**
+     * Gets the number of times the flashcard was forgotten after being learned.
+     *
+     * @return the lapses.
+     */
+    public int getLapses() {
+        return lapses;
+    }
+
+    /**
+     * Sets the number of times the flashcard was forgotten after being learned.
+     *
+     * @param lapses the lapses.
+     */
+    public void setLapses(int lapses) {
+        this.lapses = lapses;
+    }
+
+    /**
+     * Gets the time of the last review.
+     *
+     * @return the last review time.
+     */
+    public Instant getLastReviewedAt() {
+        return lastReviewedAt;
+    }
+
+    /**
+     * Sets the time of the last review.
+     *
+     * @param lastReviewedAt the last review time.
+     */
+    public void setLastReviewedAt(Instant lastReviewedAt) {
+        this.lastReviewedAt = lastReviewedAt;
+    }
+
+    /**
+     * Gets the time the flashcard is due for its next review.
+     *
+     * @return the due time.
+     */
+    public Instant getDueAt() {
+        return dueAt;
+    }
+
+    /**
+     * Sets the time the flashcard is due for its next review.
+     *
+     * @param dueAt the due time.
+     */
+    public void setDueAt(Instant dueAt) {
+        this.dueAt = dueAt;
+    }
+
+    /**
+     * Gets the idempotency keys of the latest review events applied to the flashcard, oldest first.
+     *
+     * @return the recent event IDs.
+     */
+    public List<String> getRecentEventIds() {
+        return recentEventIds;
+    }
+
+    /**
+     * Sets the idempotency keys of the latest review events applied to the flashcard.
+     *
+     * @param recentEventIds the recent event IDs, oldest first.
+     */
+    public void setRecentEventIds(List<String> recentEventIds) {
+        this.recentEventIds = recentEventIds;
+    }
+}
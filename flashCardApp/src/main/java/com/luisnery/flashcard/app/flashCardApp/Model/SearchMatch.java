@@ -0,0 +1,78 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+/**
+ * Represents a highlighted range of a search hit: the characters [start, end) of the
+ * question or answer text that match a search term.
+ */
+public class SearchMatch {
+    private String field; // Matched field: "question" or "answer"
+    private int start;    // Index of the first matched character
+    private int end;      // Index after the last matched character
+
+    /**
+     * Parameterized constructor to create a match.
+     *
+     * @param field the matched field, "question" or "answer".
+     * @param start the index of the first matched character.
+     * @param end   the index after the last matched character.
+     */
+    public SearchMatch(String field, int start, int end) {
+        this.field = field;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Gets the matched field.
+     *
+     * @return "question" or "answer".
+     */
+    public String getField() {
+        return field;
+    }
+
+    /**
+     * Sets the matched field.
+     *
+     * @param field "question" or "answer".
+     */
+    public void setField(String field) {
+        this.field = field;
+    }
+
+    /**
+     * Gets the index of the first matched character.
+     *
+     * @return the start index.
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * Sets the index of the first matched character.
+     *
+     * @param start the start index.
+     */
+    public void setStart(int start) {
+        this.start = start;
+    }
+
+    /**
+     * Gets the index after the last matched character.
+     *
+     * @return the end index, exclusive.
+     */
+    public int getEnd() {
+        return end;
+    }
+
+    /**
+     * Sets the index after the last matched character.
+     *
+     * @param end the end index, exclusive.
+     */
+    public void setEnd(int end) {
+        this.end = end;
+    }
+}
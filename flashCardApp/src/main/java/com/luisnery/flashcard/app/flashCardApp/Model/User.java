@@ -1,8 +1,11 @@
 package com.luisnery.flashcard.app.flashCardApp.Model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,6 +20,9 @@ public class User {
     private String email; // User's email address
     private String displayName; // User-friendly display name (optional)
     private List<FlashcardSet> flashcardSets; // List of flashcard sets associated with the user
+    @Version
+    @JsonIgnore
+    private Long version; // Incremented by every write to the document, checked by whole-document saves
 
     /**
      * Default constructor.
@@ -42,6 +48,25 @@ public class User {
         this.flashcardSets = new ArrayList<>(); // Start with an empty list of flashcard sets
     }
 
+    /**
+     * Gets the version of the user document. A save of a stale copy fails with an
+     * OptimisticLockingFailureException instead of overwriting newer changes.
+     *
+     * @return the version, or null for a user that was never saved.
+     */
+    public Long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the user document.
+     *
+     * @param version the version.
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     /**
      * Gets the user's unique identifier (Firebase UID).
      *
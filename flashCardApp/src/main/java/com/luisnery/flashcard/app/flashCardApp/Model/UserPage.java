@@ -0,0 +1,59 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import java.util.List;
+
+/**
+ * Represents one page of users returned by keyset pagination.
+ * The next cursor is opaque to clients and is null on the last page.
+ */
+public class UserPage {
+    private List<User> users; // Users of this page, in ascending ID order
+    private String nextCursor; // Cursor to request the following page, or null if there is none
+
+    /**
+     * Parameterized constructor to create a page of users.
+     *
+     * @param users      the users of this page.
+     * @param nextCursor the cursor of the following page, or null if this is the last page.
+     */
+    public UserPage(List<User> users, String nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Gets the users of this page.
+     *
+     * @return the list of users.
+     */
+    public List<User> getUsers() {
+        return users;
+    }
+
+    /**
+     * Sets the users of this page.
+     *
+     * @param users the list of users.
+     */
+    public void setUsers(List<User> users) {
+        this.users = users;
+    }
+
+    /**
+     * Gets the cursor of the following page.
+     *
+     * @return the next cursor, or null if this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Sets the cursor of the following page.
+     *
+     * @param nextCursor the next cursor, or null if this is the last page.
+     */
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+}
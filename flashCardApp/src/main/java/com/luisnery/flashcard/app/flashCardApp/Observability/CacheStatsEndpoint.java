@@ -0,0 +1,81 @@
+package com.luisnery.flashcard.app.flashCardApp.Observability;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.luisnery.flashcard.app.flashCardApp.Cache.LibraryCache;
+import com.luisnery.flashcard.app.flashCardApp.Firebase.FirebaseTokenVerifier;
+
+/**
+ * Actuator endpoint reporting the hit/miss statistics of the application's caches at
+ * /actuator/cachestats/tokens and /actuator/cachestats/library. Served with the other actuator
+ * endpoints, so it is exposed and secured like them rather than through the public API.
+ */
+@Component
+@Endpoint(id = "cachestats")
+public class CacheStatsEndpoint {
+
+    private final FirebaseTokenVerifier tokenVerifier;
+    private final ObjectProvider<LibraryCache> libraryCache; // Absent when flashcards.cache.mode=none
+
+    /**
+     * Creates the endpoint.
+     *
+     * @param tokenVerifier the verifier holding the token cache.
+     * @param libraryCache  the library cache, if enabled.
+     */
+    public CacheStatsEndpoint(FirebaseTokenVerifier tokenVerifier, ObjectProvider<LibraryCache> libraryCache) {
+        this.tokenVerifier = tokenVerifier;
+        this.libraryCache = libraryCache;
+    }
+
+    /**
+     * Retrieves the statistics of one cache.
+     *
+     * @param cache "tokens" for the Firebase token verification cache or "library" for the
+     *              flashcard library cache.
+     * @return the cache size, hit and miss counts and hit ratio, or null (HTTP 404) for an unknown
+     *         or disabled cache.
+     */
+    @ReadOperation
+    public Map<String, Object> cacheStats(@Selector String cache) {
+        return switch (cache) {
+            case "tokens" -> tokenStats();
+            case "library" -> libraryStats();
+            default -> null;
+        };
+    }
+
+    private Map<String, Object> tokenStats() {
+        CacheStats stats = tokenVerifier.stats();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("size", tokenVerifier.cachedTokens());
+        body.put("hits", stats.hitCount());
+        body.put("misses", stats.missCount());
+        body.put("hitRatio", stats.hitRate());
+        body.put("evictions", stats.evictionCount());
+        return body;
+    }
+
+    private Map<String, Object> libraryStats() {
+        LibraryCache cache = libraryCache.getIfAvailable();
+        if (cache == null) {
+            return null; // Caching is disabled
+        }
+        long hits = cache.hitCount();
+        long misses = cache.missCount();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("size", cache.size());
+        body.put("hits", hits);
+        body.put("misses", misses);
+        body.put("hitRatio", hits + misses == 0 ? 1.0 : (double) hits / (hits + misses));
+        return body;
+    }
+}
@@ -0,0 +1,69 @@
+package com.luisnery.flashcard.app.flashCardApp.Observability;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.observability.ContextProviderFactory;
+import org.springframework.data.mongodb.observability.MongoObservationCommandListener;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Instruments the parts of a request that Spring Boot does not time on its own, so the latency
+ * of an endpoint (http.server.requests) can be split into its causes:
+ * <ul>
+ * <li>Firebase token decoding: firebase.token.decode, see {@link com.luisnery.flashcard.app.flashCardApp.Firebase.FirebaseTokenVerifier}</li>
+ * <li>MongoDB commands: spring.data.mongodb.command, per command and collection, each with a trace span</li>
+ * <li>Repository calls such as findById and save: spring.data.repository.invocations (auto-configured)</li>
+ * <li>JSON serialization of response bodies: http.server.json.write and http.server.json.size</li>
+ * <li>Payload sizes read from MongoDB: see {@link PayloadMetrics}</li>
+ * </ul>
+ */
+@Configuration
+public class ObservabilityConfiguration {
+
+    /**
+     * Observes every command of the synchronous and reactive MongoDB clients, recording a timer
+     * and a span that joins the trace of the request issuing it.
+     *
+     * @param observationRegistry the registry the observations are reported to.
+     * @return the customizer of the MongoDB client settings.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoObservation(ObservationRegistry observationRegistry) {
+        return settings -> settings
+                .addCommandListener(new MongoObservationCommandListener(observationRegistry))
+                .contextProvider(ContextProviderFactory.create(observationRegistry)); // Links commands to the current span
+    }
+
+    /**
+     * Passes the command events of the MongoDB clients to {@link PayloadMetrics}, when enabled, to
+     * measure the replies.
+     *
+     * @param payloadMetrics the payload metrics, absent when disabled.
+     * @return the customizer of the MongoDB client settings.
+     */
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoPayloadMetrics(ObjectProvider<PayloadMetrics> payloadMetrics) {
+        return settings -> payloadMetrics.ifAvailable(settings::addCommandListener);
+    }
+
+    /**
+     * Replaces Spring MVC's JSON converter with one that times serialization and measures the
+     * bytes written per response.
+     *
+     * @param objectMapper  the application's object mapper.
+     * @param meterRegistry the registry the timer and summary are registered with.
+     * @return the JSON converter.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        return new TimedJsonHttpMessageConverter(objectMapper, meterRegistry);
+    }
+}
@@ -0,0 +1,105 @@
+package com.luisnery.flashcard.app.flashCardApp.Observability;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Records the size of what the application reads from MongoDB, as histograms:
+ * <ul>
+ * <li>flashcards.mongo.reply.size: BSON bytes of each command reply, per command and collection.
+ * A find or getMore reply carries a whole batch of documents, projected reads only the projected
+ * fields, i.e. what was actually transferred.</li>
+ * <li>flashcards.set.cards: flashcards per set loaded with its flashcards, in the embedded storage
+ * mode, where the sets travel inside user documents.</li>
+ * </ul>
+ *
+ * Reply sizes come from the driver's command events (registered in {@link ObservabilityConfiguration}),
+ * whose replies are already raw BSON, so nothing is encoded again; disable both with
+ * flashcards.metrics.payload.enabled=false.
+ */
+@Component
+@ConditionalOnProperty(name = "flashcards.metrics.payload.enabled", havingValue = "true", matchIfMissing = true)
+public class PayloadMetrics extends AbstractMongoEventListener<Object> implements CommandListener {
+
+    private static final String NO_COLLECTION = "none";
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary cardsPerSet;
+    private final Map<Integer, String> collections = new ConcurrentHashMap<>(); // By request ID, until the reply
+
+    /**
+     * Creates the listener.
+     *
+     * @param meterRegistry the registry the summaries are registered with.
+     */
+    public PayloadMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.cardsPerSet = DistributionSummary.builder("flashcards.set.cards")
+                .description("Flashcards per set read from MongoDB")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        collections.put(event.getRequestId(), collection(event.getCommandName(), event.getCommand()));
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        String collection = collections.remove(event.getRequestId());
+        if (!(event.getResponse() instanceof RawBsonDocument reply)) {
+            return; // Redacted replies of security sensitive commands
+        }
+        DistributionSummary.builder("flashcards.mongo.reply.size")
+                .description("Size of command replies read from MongoDB")
+                .baseUnit("bytes")
+                .tag("command", event.getCommandName())
+                .tag("collection", collection == null ? NO_COLLECTION : collection)
+                .register(meterRegistry)
+                .record(reply.getByteBuffer().remaining());
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        collections.remove(event.getRequestId());
+    }
+
+    @Override
+    public void onAfterLoad(AfterLoadEvent<Object> event) {
+        Document document = event.getDocument();
+        if (document != null && document.get("flashcardSets") instanceof List<?> sets) {
+            for (Object set : sets) {
+                if (set instanceof Document setDocument && setDocument.get("flashcards") instanceof List<?> cards) {
+                    cardsPerSet.record(cards.size());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the collection a command runs on: the value of its name field, or of the collection
+     * field of a getMore.
+     */
+    private static String collection(String commandName, BsonDocument command) {
+        BsonValue value = command.get("getMore".equals(commandName) ? "collection" : commandName);
+        return value != null && value.isString() ? value.asString().getValue() : NO_COLLECTION;
+    }
+}
@@ -0,0 +1,100 @@
+package com.luisnery.flashcard.app.flashCardApp.Observability;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * JSON converter recording how long each response body takes to serialize and how many bytes it has.
+ *
+ * Both meters are tagged with the simple name of the serialized type (e.g. FlashcardSet, ArrayList),
+ * which keeps the number of series bounded. Serialization time includes writing to the response,
+ * so a slow client shows up here as well.
+ */
+public class TimedJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Creates the converter.
+     *
+     * @param objectMapper  the object mapper used for serialization.
+     * @param meterRegistry the registry the timer and summary are registered with.
+     */
+    public TimedJsonHttpMessageConverter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        super(objectMapper);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        String bodyType = object.getClass().getSimpleName();
+        CountingOutputMessage counted = new CountingOutputMessage(outputMessage);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            super.writeInternal(object, type, counted);
+        } finally {
+            sample.stop(Timer.builder("http.server.json.write")
+                    .description("Time spent serializing response bodies to JSON")
+                    .tag("type", bodyType)
+                    .register(meterRegistry));
+            DistributionSummary.builder("http.server.json.size")
+                    .description("Size of JSON response bodies")
+                    .baseUnit("bytes")
+                    .tag("type", bodyType)
+                    .register(meterRegistry)
+                    .record(counted.bytes);
+        }
+    }
+
+    /**
+     * Counts the bytes written to the body of a response.
+     */
+    private static class CountingOutputMessage implements HttpOutputMessage {
+        private final HttpOutputMessage delegate;
+        private OutputStream body;
+        private long bytes;
+
+        CountingOutputMessage(HttpOutputMessage delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public OutputStream getBody() throws IOException {
+            if (body == null) {
+                body = new FilterOutputStream(delegate.getBody()) {
+                    @Override
+                    public void write(int b) throws IOException {
+                        out.write(b);
+                        bytes++;
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                        bytes += len;
+                    }
+                };
+            }
+            return body;
+        }
+    }
+}
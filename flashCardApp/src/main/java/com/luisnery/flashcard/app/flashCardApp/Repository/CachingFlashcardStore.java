@@ -0,0 +1,282 @@
+package com.luisnery.flashcard.app.flashCardApp.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.luisnery.flashcard.app.flashCardApp.Cache.LibraryCache;
+import com.luisnery.flashcard.app.flashCardApp.Model.DueFlashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardBatchResult;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardExportRow;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardOperation;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetFields;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetSummary;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetView;
+import com.luisnery.flashcard.app.flashCardApp.Model.ReviewState;
+
+/**
+ * Read-through caching decorator for the active {@link FlashcardStore}.
+ *
+ * A user's set list, summaries and set versions are cached by uid, and single sets by uid and setId.
+ * Every mutation evicts exactly the entries it affects once it is written, and values are only
+ * cached if their key was not evicted while they were loaded, so a slow read never re-caches what a
+ * write replaced. Updated sets returned by mutations are not cached either: two writes of a set can
+ * evict in the opposite order they were written. A conditional write that conflicts evicts the set as
+ * well, so the client re-reading it after the 412 sees the current version. Disabled with
+ * flashcards.cache.mode=none.
+ */
+@Primary
+@Component
+@ConditionalOnExpression("'${flashcards.cache.mode:local}' != 'none'")
+public class CachingFlashcardStore implements FlashcardStore {
+
+    private static final TypeReference<List<FlashcardSet>> SET_LIST = new TypeReference<>() {};
+    private static final TypeReference<List<FlashcardSetSummary>> SUMMARY_LIST = new TypeReference<>() {};
+    private static final TypeReference<FlashcardSet> SET = new TypeReference<>() {};
+    private static final TypeReference<LinkedHashMap<String, Long>> VERSIONS = new TypeReference<>() {};
+
+    private final FlashcardStore delegate;
+    private final LibraryCache cache;
+
+    /**
+     * Creates the caching store.
+     *
+     * @param delegate the store holding the library.
+     * @param cache    the cache backend.
+     */
+    public CachingFlashcardStore(@Qualifier(BACKING_STORE) FlashcardStore delegate, LibraryCache cache) {
+        this.delegate = delegate;
+        this.cache = cache;
+    }
+
+    @Override
+    public Optional<List<FlashcardSet>> findFlashcardSets(String uid) {
+        return readThrough(setsKey(uid), SET_LIST, () -> delegate.findFlashcardSets(uid));
+    }
+
+    @Override
+    public Optional<List<FlashcardSetSummary>> findFlashcardSetSummaries(String uid) {
+        return readThrough(summariesKey(uid), SUMMARY_LIST, () -> delegate.findFlashcardSetSummaries(uid));
+    }
+
+    @Override
+    public Optional<Map<String, Long>> findFlashcardSetVersions(String uid) {
+        return readThrough(versionsKey(uid), VERSIONS,
+                () -> delegate.findFlashcardSetVersions(uid).map(LinkedHashMap::new)).map(versions -> versions);
+    }
+
+    @Override
+    public Optional<FlashcardSet> findFlashcardSet(String uid, String setId) {
+        return readThrough(setKey(uid, setId), SET, () -> delegate.findFlashcardSet(uid, setId));
+    }
+
+    @Override
+    public Optional<FlashcardSetView> findFlashcardSetView(String uid, String setId, FlashcardSetFields fields) {
+        // Serve the view from a cached set, but do not cache partial sets
+        FlashcardSet cached = cache.get(setKey(uid, setId), SET);
+        if (cached != null) {
+            return Optional.of(fields.select(cached));
+        }
+        return delegate.findFlashcardSetView(uid, setId, fields);
+    }
+
+    @Override
+    public Optional<List<Flashcard>> findFlashcards(String uid, String setId) {
+        return findFlashcardSet(uid, setId).map(FlashcardSet::getFlashcards);
+    }
+
+    @Override
+    public Optional<Flashcard> findFlashcard(String uid, String setId, String flashcardId) {
+        return delegate.findFlashcard(uid, setId, flashcardId);
+    }
+
+    @Override
+    public List<Flashcard> findFlashcardsById(String uid, Collection<String> flashcardIds) {
+        return delegate.findFlashcardsById(uid, flashcardIds);
+    }
+
+    @Override
+    public List<DueFlashcard> findDueFlashcards(String uid, String setId, Instant now, int limit) {
+        return delegate.findDueFlashcards(uid, setId, now, limit); // Depends on the time, so not cached
+    }
+
+    @Override
+    public Stream<FlashcardExportRow> streamLibrary(String uid, long offset) {
+        return delegate.streamLibrary(uid, offset); // Exports are read once, caching them would only evict hot entries
+    }
+
+    @Override
+    public boolean addFlashcardSet(String uid, FlashcardSet flashcardSet) {
+        boolean added = delegate.addFlashcardSet(uid, flashcardSet);
+        evictLists(uid);
+        return added;
+    }
+
+    @Override
+    public boolean addFlashcard(String uid, String setId, Flashcard flashcard, Long expectedVersion) {
+        boolean added = evictOnConflict(uid, setId,
+                () -> delegate.addFlashcard(uid, setId, flashcard, expectedVersion));
+        evictSet(uid, setId);
+        return added;
+    }
+
+    @Override
+    public Optional<FlashcardSet> addFlashcards(String uid, String setId, List<Flashcard> flashcards,
+            Long expectedVersion) {
+        return refreshSet(uid, setId, evictOnConflict(uid, setId,
+                () -> delegate.addFlashcards(uid, setId, flashcards, expectedVersion)));
+    }
+
+    @Override
+    public boolean appendFlashcards(String uid, String setId, List<Flashcard> flashcards) {
+        boolean added = delegate.appendFlashcards(uid, setId, flashcards);
+        evictSet(uid, setId);
+        return added;
+    }
+
+    @Override
+    public boolean updateFlashcard(String uid, String setId, String flashcardId, String question, String answer,
+            Long expectedVersion) {
+        boolean updated = evictOnConflict(uid, setId,
+                () -> delegate.updateFlashcard(uid, setId, flashcardId, question, answer, expectedVersion));
+        evictSet(uid, setId);
+        return updated;
+    }
+
+    @Override
+    public boolean updateReviewState(String uid, String setId, String flashcardId, Instant expectedReviewedAt,
+            ReviewState review) {
+        boolean updated = evictOnConflict(uid, setId,
+                () -> delegate.updateReviewState(uid, setId, flashcardId, expectedReviewedAt, review));
+        cache.evict(setKey(uid, setId)); // Review state is part of the set but not of the summaries
+        cache.evict(setsKey(uid));
+        cache.evict(versionsKey(uid));
+        return updated;
+    }
+
+    @Override
+    public void updateReviewStates(List<Flashcard> flashcards, Map<String, Instant> expectedReviewedAt) {
+        delegate.updateReviewStates(flashcards, expectedReviewedAt);
+        for (Flashcard flashcard : flashcards) {
+            cache.evict(setKey(flashcard.getOwnerId(), flashcard.getSetId()));
+            cache.evict(setsKey(flashcard.getOwnerId()));
+            cache.evict(versionsKey(flashcard.getOwnerId()));
+        }
+    }
+
+    @Override
+    public Optional<FlashcardSet> removeFlashcard(String uid, String setId, String flashcardId,
+            Long expectedVersion) {
+        return refreshSet(uid, setId, evictOnConflict(uid, setId,
+                () -> delegate.removeFlashcard(uid, setId, flashcardId, expectedVersion)));
+    }
+
+    @Override
+    public Optional<FlashcardSet> updateFlashcardSetTitle(String uid, String setId, String title,
+            Long expectedVersion) {
+        return refreshSet(uid, setId, evictOnConflict(uid, setId,
+                () -> delegate.updateFlashcardSetTitle(uid, setId, title, expectedVersion)));
+    }
+
+    @Override
+    public boolean removeFlashcardSet(String uid, String setId, Long expectedVersion) {
+        boolean removed = evictOnConflict(uid, setId,
+                () -> delegate.removeFlashcardSet(uid, setId, expectedVersion));
+        evictSet(uid, setId);
+        return removed;
+    }
+
+    @Override
+    public Optional<FlashcardBatchResult> applyBatch(String uid, List<FlashcardOperation> operations,
+            Map<String, Long> expectedVersions) {
+        try {
+            return delegate.applyBatch(uid, operations, expectedVersions);
+        } finally {
+            // Evicted whatever the outcome: a conflict means the cached copies are likely stale
+            operations.forEach(operation -> cache.evict(setKey(uid, operation.getSetId())));
+            evictLists(uid);
+        }
+    }
+
+    @Override
+    public void removeLibrary(String uid) {
+        delegate.removeLibrary(uid);
+        evictLists(uid);
+        cache.evictByPrefix(setKey(uid, ""));
+    }
+
+    /**
+     * Evicts the entries touched by a mutation of one set: the set itself and the user's lists.
+     */
+    private void evictSet(String uid, String setId) {
+        cache.evict(setKey(uid, setId));
+        evictLists(uid);
+    }
+
+    /**
+     * Runs a write, evicting the set if it fails on a version conflict: the cached copy is likely stale.
+     */
+    private <T> T evictOnConflict(String uid, String setId, Supplier<T> write) {
+        try {
+            return write.get();
+        } catch (OptimisticLockingFailureException e) {
+            evictSet(uid, setId);
+            throw e;
+        }
+    }
+
+    private void evictLists(String uid) {
+        cache.evict(setsKey(uid));
+        cache.evict(summariesKey(uid));
+        cache.evict(versionsKey(uid));
+    }
+
+    /**
+     * Evicts the set changed by a mutation and the user's lists, passing on the updated set.
+     */
+    private Optional<FlashcardSet> refreshSet(String uid, String setId, Optional<FlashcardSet> updated) {
+        evictSet(uid, setId);
+        return updated;
+    }
+
+    private <T> Optional<T> readThrough(String key, TypeReference<T> type, Supplier<Optional<T>> loader) {
+        T cached = cache.get(key, type);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long generation = cache.generation(key); // Read before loading, so a write evicting meanwhile wins
+        Optional<T> loaded = loader.get();
+        loaded.ifPresent(value -> cache.putIfUnchanged(key, value, generation));
+        return loaded;
+    }
+
+    private static String setsKey(String uid) {
+        return "sets:" + uid;
+    }
+
+    private static String summariesKey(String uid) {
+        return "summaries:" + uid;
+    }
+
+    private static String versionsKey(String uid) {
+        return "versions:" + uid;
+    }
+
+    private static String setKey(String uid, String setId) {
+        return "set:" + uid + ":" + setId;
+    }
+}
@@ -0,0 +1,179 @@
+package com.luisnery.flashcard.app.flashCardApp.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.luisnery.flashcard.app.flashCardApp.Id.IdGenerator;
+import com.luisnery.flashcard.app.flashCardApp.Model.DueFlashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardBatchResult;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardExportRow;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardOperation;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetFields;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetSummary;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetView;
+import com.luisnery.flashcard.app.flashCardApp.Model.ReviewState;
+
+/**
+ * {@link FlashcardStore} that keeps flashcard sets and flashcards embedded in the User document.
+ * This is the default storage mode.
+ */
+@Component(FlashcardStore.BACKING_STORE)
+@ConditionalOnProperty(name = "flashcards.storage.mode", havingValue = "embedded", matchIfMissing = true)
+public class EmbeddedFlashcardStore implements FlashcardStore {
+
+    private final UserRepository userRepository;
+    private final IdGenerator idGenerator;
+
+    /**
+     * Creates the store on top of the user repository.
+     *
+     * @param userRepository the repository holding the embedded library.
+     * @param idGenerator    the generator of the IDs of new sets and flashcards.
+     */
+    public EmbeddedFlashcardStore(UserRepository userRepository, IdGenerator idGenerator) {
+        this.userRepository = userRepository;
+        this.idGenerator = idGenerator;
+    }
+
+    @Override
+    public Optional<List<FlashcardSet>> findFlashcardSets(String uid) {
+        return userRepository.findFlashcardSets(uid);
+    }
+
+    @Override
+    public Optional<List<FlashcardSetSummary>> findFlashcardSetSummaries(String uid) {
+        return userRepository.findFlashcardSetSummaries(uid);
+    }
+
+    @Override
+    public Optional<Map<String, Long>> findFlashcardSetVersions(String uid) {
+        return userRepository.findFlashcardSetVersions(uid);
+    }
+
+    @Override
+    public Optional<FlashcardSetView> findFlashcardSetView(String uid, String setId, FlashcardSetFields fields) {
+        return userRepository.findFlashcardSetView(uid, setId, fields);
+    }
+
+    @Override
+    public Optional<FlashcardSet> findFlashcardSet(String uid, String setId) {
+        return userRepository.findFlashcardSet(uid, setId);
+    }
+
+    @Override
+    public Optional<List<Flashcard>> findFlashcards(String uid, String setId) {
+        return findFlashcardSet(uid, setId).map(FlashcardSet::getFlashcards);
+    }
+
+    @Override
+    public Optional<Flashcard> findFlashcard(String uid, String setId, String flashcardId) {
+        return userRepository.findFlashcard(uid, setId, flashcardId);
+    }
+
+    @Override
+    public List<Flashcard> findFlashcardsById(String uid, Collection<String> flashcardIds) {
+        return userRepository.findFlashcardsById(uid, flashcardIds);
+    }
+
+    @Override
+    public List<DueFlashcard> findDueFlashcards(String uid, String setId, Instant now, int limit) {
+        return userRepository.findDueFlashcards(uid, setId, now, limit);
+    }
+
+    @Override
+    public Stream<FlashcardExportRow> streamLibrary(String uid, long offset) {
+        return userRepository.streamLibrary(uid, offset);
+    }
+
+    @Override
+    public boolean addFlashcardSet(String uid, FlashcardSet flashcardSet) {
+        idGenerator.assignIds(flashcardSet);
+        return userRepository.pushFlashcardSet(uid, flashcardSet);
+    }
+
+    @Override
+    public boolean addFlashcard(String uid, String setId, Flashcard flashcard, Long expectedVersion) {
+        idGenerator.assignId(flashcard);
+        return userRepository.pushFlashcard(uid, setId, flashcard, expectedVersion);
+    }
+
+    @Override
+    public Optional<FlashcardSet> addFlashcards(String uid, String setId, List<Flashcard> flashcards,
+            Long expectedVersion) {
+        idGenerator.assignIds(flashcards);
+        return userRepository.pushFlashcards(uid, setId, flashcards, expectedVersion);
+    }
+
+    @Override
+    public boolean appendFlashcards(String uid, String setId, List<Flashcard> flashcards) {
+        idGenerator.assignIds(flashcards);
+        return userRepository.pushFlashcardBatch(uid, setId, flashcards);
+    }
+
+    @Override
+    public boolean updateFlashcard(String uid, String setId, String flashcardId, String question, String answer,
+            Long expectedVersion) {
+        return userRepository.setFlashcardContent(uid, setId, flashcardId, question, answer, expectedVersion);
+    }
+
+    @Override
+    public boolean updateReviewState(String uid, String setId, String flashcardId, Instant expectedReviewedAt,
+            ReviewState review) {
+        return userRepository.setReviewState(uid, setId, flashcardId, expectedReviewedAt, review);
+    }
+
+    @Override
+    public void updateReviewStates(List<Flashcard> flashcards, Map<String, Instant> expectedReviewedAt) {
+        userRepository.setReviewStates(flashcards, expectedReviewedAt);
+    }
+
+    @Override
+    public Optional<FlashcardSet> removeFlashcard(String uid, String setId, String flashcardId,
+            Long expectedVersion) {
+        return userRepository.pullFlashcard(uid, setId, flashcardId, expectedVersion);
+    }
+
+    @Override
+    public Optional<FlashcardSet> updateFlashcardSetTitle(String uid, String setId, String title,
+            Long expectedVersion) {
+        return userRepository.setFlashcardSetTitle(uid, setId, title, expectedVersion);
+    }
+
+    @Override
+    public boolean removeFlashcardSet(String uid, String setId, Long expectedVersion) {
+        return userRepository.pullFlashcardSet(uid, setId, expectedVersion);
+    }
+
+    @Override
+    public Optional<FlashcardBatchResult> applyBatch(String uid, List<FlashcardOperation> operations,
+            Map<String, Long> expectedVersions) {
+        Set<String> setIds = new LinkedHashSet<>();
+        operations.forEach(operation -> setIds.add(operation.getSetId()));
+        Optional<List<FlashcardSet>> sets = userRepository.findFlashcardSets(uid, setIds);
+        if (sets.isEmpty()) {
+            return Optional.empty(); // User not found
+        }
+        // All sets live in the user document, so the whole batch is one atomic update
+        FlashcardBatchPlan plan = new FlashcardBatchPlan(sets.get(), operations, expectedVersions, idGenerator);
+        if (!plan.isComplete() || plan.getChangedSets().isEmpty()) {
+            return Optional.of(plan.toResult(Map.of()));
+        }
+        return userRepository.replaceFlashcardSets(uid, plan.getChangedSets()).map(plan::toResult); // Empty if the user was removed
+    }
+
+    @Override
+    public void removeLibrary(String uid) {
+        // The library is deleted together with the User document
+    }
+}
@@ -0,0 +1,156 @@
+package com.luisnery.flashcard.app.flashCardApp.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.luisnery.flashcard.app.flashCardApp.Id.IdGenerator;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardBatchResult;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardOperation;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardOperationResult;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+
+/**
+ * Applies the operations of a flashcard batch, in order, to the sets as read from a store, so the
+ * whole batch is checked before any of it is written. Each operation sees the sets as left by the
+ * previous ones. If one refers to a set or flashcard that does not exist, the batch is incomplete
+ * and the store writes nothing.
+ *
+ * The sets only need to hold the flashcards the batch updates or removes, unless the store writes
+ * back whole flashcard lists.
+ */
+final class FlashcardBatchPlan {
+
+    private final Map<String, FlashcardSet> sets = new LinkedHashMap<>();
+    private final Map<String, FlashcardSet> changedSets = new LinkedHashMap<>();
+    private final List<FlashcardOperationResult> results = new ArrayList<>();
+    private boolean complete = true;
+
+    /**
+     * Checks the batch against the sets, applying it to them.
+     *
+     * @param current          the sets the operations refer to, as read.
+     * @param operations       the operations, with the fields their types require.
+     * @param expectedVersions the version each listed set must have.
+     * @param idGenerator      the generator of the IDs of added flashcards.
+     * @throws OptimisticLockingFailureException if a set does not have its expected version.
+     */
+    FlashcardBatchPlan(Collection<FlashcardSet> current, List<FlashcardOperation> operations,
+            Map<String, Long> expectedVersions, IdGenerator idGenerator) {
+        for (FlashcardSet set : current) {
+            Long expected = expectedVersions.get(set.getId());
+            if (expected != null && expected != set.getVersion()) {
+                throw new OptimisticLockingFailureException("Flashcard set " + set.getId()
+                        + " does not have version " + expected);
+            }
+            sets.put(set.getId(), set);
+        }
+        for (FlashcardOperation operation : operations) {
+            results.add(apply(operation, idGenerator));
+        }
+        if (!complete) {
+            // Nothing is written, so the operations that would have applied are skipped
+            results.replaceAll(result -> result.getStatus() == FlashcardOperationResult.Status.APPLIED
+                    ? FlashcardOperationResult.skipped() : result);
+            changedSets.clear();
+        }
+    }
+
+    /**
+     * Tells whether every operation applies, so the batch can be written.
+     */
+    boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Gets the outcome of each operation, in order.
+     */
+    List<FlashcardOperationResult> getResults() {
+        return results;
+    }
+
+    /**
+     * Gets the sets changed by the batch, with their title and flashcards after it and the
+     * version they were read with.
+     */
+    Collection<FlashcardSet> getChangedSets() {
+        return changedSets.values();
+    }
+
+    /**
+     * Creates the result of the batch, written entirely if it is complete.
+     *
+     * @param versions the versions of the changed sets once written, as returned by the store.
+     */
+    FlashcardBatchResult toResult(Map<String, Long> versions) {
+        return new FlashcardBatchResult(complete, results, versions);
+    }
+
+    /**
+     * Creates the result of a batch whose operations were written up to one that failed.
+     *
+     * @param failed   the index of the operation that failed.
+     * @param message  the reason of the failure.
+     * @param versions the versions of the changed sets once written, as returned by the store.
+     */
+    FlashcardBatchResult toPartialResult(int failed, String message, Map<String, Long> versions) {
+        List<FlashcardOperationResult> partial = new ArrayList<>(results.subList(0, failed));
+        partial.add(FlashcardOperationResult.failed(message));
+        while (partial.size() < results.size()) {
+            partial.add(FlashcardOperationResult.skipped());
+        }
+        return new FlashcardBatchResult(false, true, partial, versions);
+    }
+
+    private FlashcardOperationResult apply(FlashcardOperation operation, IdGenerator idGenerator) {
+        FlashcardSet set = sets.get(operation.getSetId());
+        if (set == null) {
+            return notFound("Flashcard set " + operation.getSetId() + " not found");
+        }
+        switch (operation.getType()) {
+            case ADD -> {
+                Flashcard flashcard = new Flashcard(operation.getQuestion(), operation.getAnswer());
+                idGenerator.assignId(flashcard);
+                set.addFlashcard(flashcard);
+                changedSets.put(set.getId(), set);
+                return FlashcardOperationResult.applied(flashcard);
+            }
+            case UPDATE -> {
+                Flashcard flashcard = set.findCard(operation.getFlashcardId());
+                if (flashcard == null) {
+                    return notFound("Flashcard " + operation.getFlashcardId() + " not found");
+                }
+                flashcard.setQuestion(operation.getQuestion()); // The review state is kept
+                flashcard.setAnswer(operation.getAnswer());
+                changedSets.put(set.getId(), set);
+                Flashcard updated = new Flashcard(operation.getQuestion(), operation.getAnswer());
+                updated.setId(flashcard.getId()); // A copy, as later operations may change the flashcard again
+                return FlashcardOperationResult.applied(updated);
+            }
+            case REMOVE -> {
+                if (set.removeFlashcard(operation.getFlashcardId()) == null) {
+                    return notFound("Flashcard " + operation.getFlashcardId() + " not found");
+                }
+                changedSets.put(set.getId(), set);
+                return FlashcardOperationResult.applied(null);
+            }
+            case RETITLE -> {
+                set.setTitle(operation.getTitle());
+                changedSets.put(set.getId(), set);
+                return FlashcardOperationResult.applied(null);
+            }
+            default -> throw new IllegalArgumentException("Unknown operation " + operation.getType());
+        }
+    }
+
+    private FlashcardOperationResult notFound(String message) {
+        complete = false;
+        return FlashcardOperationResult.notFound(message);
+    }
+}
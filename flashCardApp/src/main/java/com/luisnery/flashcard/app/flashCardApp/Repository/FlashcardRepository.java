@@ -0,0 +1,71 @@
+package com.luisnery.flashcard.app.flashCardApp.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+
+/**
+ * Provides data access for the flashcards collection used by the split storage mode.
+ * Each document is a single flashcard, keyed by its owner's ID and its set's ID.
+ *
+ * @see com.luisnery.flashcard.app.flashCardApp.Repository.SplitFlashcardStore
+ * @see com.luisnery.flashcard.app.flashCardApp.Model.Flashcard
+ */
+public interface FlashcardRepository extends MongoRepository<Flashcard, String> {
+
+    /**
+     * Finds all flashcards of a user in creation order.
+     *
+     * @param ownerId the user's ID.
+     * @return the user's flashcards across all sets.
+     */
+    List<Flashcard> findByOwnerIdOrderByPositionAsc(String ownerId);
+
+    /**
+     * Finds the flashcards of one flashcard set in creation order.
+     *
+     * @param ownerId the user's ID.
+     * @param setId   the ID of the flashcard set.
+     * @return the flashcards of the set.
+     */
+    List<Flashcard> findByOwnerIdAndSetIdOrderByPositionAsc(String ownerId, String setId);
+
+    /**
+     * Finds a flashcard if it belongs to the given user and set.
+     *
+     * @param id      the ID of the flashcard.
+     * @param ownerId the user's ID.
+     * @param setId   the ID of the flashcard set.
+     * @return the flashcard, or an empty Optional if it was not found.
+     */
+    Optional<Flashcard> findByIdAndOwnerIdAndSetId(String id, String ownerId, String setId);
+
+    /**
+     * Deletes a flashcard if it belongs to the given user and set.
+     *
+     * @param id      the ID of the flashcard.
+     * @param ownerId the user's ID.
+     * @param setId   the ID of the flashcard set.
+     * @return the number of deleted flashcards.
+     */
+    long deleteByIdAndOwnerIdAndSetId(String id, String ownerId, String setId);
+
+    /**
+     * Deletes all flashcards of a flashcard set.
+     *
+     * @param ownerId the user's ID.
+     * @param setId   the ID of the flashcard set.
+     * @return the number of deleted flashcards.
+     */
+    long deleteByOwnerIdAndSetId(String ownerId, String setId);
+
+    /**
+     * Deletes all flashcards of a user.
+     *
+     * @param ownerId the user's ID.
+     * @return the number of deleted flashcards.
+     */
+    long deleteByOwnerId(String ownerId);
+}
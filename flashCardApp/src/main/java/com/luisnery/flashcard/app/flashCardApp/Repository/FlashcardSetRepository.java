@@ -0,0 +1,60 @@
+package com.luisnery.flashcard.app.flashCardApp.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+
+/**
+ * Provides data access for the flashcardSets collection used by the split storage mode.
+ * Each document is a flashcard set without its flashcards, keyed by its owner's ID.
+ *
+ * @see com.luisnery.flashcard.app.flashCardApp.Repository.SplitFlashcardStore
+ * @see com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet
+ */
+public interface FlashcardSetRepository extends MongoRepository<FlashcardSet, String> {
+
+    /**
+     * Finds all flashcard sets of a user in creation order.
+     *
+     * @param ownerId the user's ID.
+     * @return the user's flashcard sets.
+     */
+    List<FlashcardSet> findByOwnerIdOrderByPositionAsc(String ownerId);
+
+    /**
+     * Finds a flashcard set by its ID, if it belongs to the given user.
+     *
+     * @param id      the ID of the flashcard set.
+     * @param ownerId the user's ID.
+     * @return the flashcard set, or an empty Optional if it does not belong to the user.
+     */
+    Optional<FlashcardSet> findByIdAndOwnerId(String id, String ownerId);
+
+    /**
+     * Checks whether a flashcard set exists and belongs to the given user.
+     *
+     * @param id      the ID of the flashcard set.
+     * @param ownerId the user's ID.
+     * @return true if the set exists for the user.
+     */
+    boolean existsByIdAndOwnerId(String id, String ownerId);
+
+    /**
+     * Deletes a flashcard set if it belongs to the given user.
+     *
+     * @param id      the ID of the flashcard set.
+     * @param ownerId the user's ID.
+     * @return the number of deleted sets.
+     */
+    long deleteByIdAndOwnerId(String id, String ownerId);
+
+    /**
+     * Deletes all flashcard sets of a user.
+     *
+     * @param ownerId the user's ID.
+     * @return the number of deleted sets.
+     */
+    long deleteByOwnerId(String ownerId);
+}
@@ -0,0 +1,285 @@
+package com.luisnery.flashcard.app.flashCardApp.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.DueFlashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardBatchResult;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardExportRow;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardOperation;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetFields;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetSummary;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetView;
+import com.luisnery.flashcard.app.flashCardApp.Model.ReviewState;
+
+/**
+ * Storage-independent access to a user's flashcard library.
+ *
+ * The active implementation is chosen by the flashcards.storage.mode property:
+ * "embedded" (default) keeps sets and flashcards inside the User document,
+ * "split" keeps them in their own flashcardSets and flashcards collections.
+ *
+ * Methods return false or an empty Optional when the user, set or flashcard does not exist.
+ * Every write increments the version of the affected sets. Writes given an expected version
+ * compare and set it, throwing an OptimisticLockingFailureException if the set has changed.
+ * Added sets and flashcards without an ID get one from the
+ * {@link com.luisnery.flashcard.app.flashCardApp.Id.IdGenerator} before they are stored.
+ * Unless flashcards.cache.mode=none, the active store is wrapped by {@link CachingFlashcardStore}.
+ *
+ * @see com.luisnery.flashcard.app.flashCardApp.Repository.EmbeddedFlashcardStore
+ * @see com.luisnery.flashcard.app.flashCardApp.Repository.SplitFlashcardStore
+ */
+public interface FlashcardStore {
+
+    /**
+     * Bean name of the store that actually holds the library, as opposed to decorators around it.
+     */
+    String BACKING_STORE = "backingFlashcardStore";
+
+    /**
+     * Finds all flashcard sets of a user, including their flashcards.
+     *
+     * @param uid the user's ID.
+     * @return the user's flashcard sets, or an empty Optional if the user was not found.
+     */
+    Optional<List<FlashcardSet>> findFlashcardSets(String uid);
+
+    /**
+     * Summarizes the flashcard sets of a user (ID, title and card count) without loading flashcards.
+     *
+     * @param uid the user's ID.
+     * @return the summaries, or an empty Optional if the user was not found.
+     */
+    Optional<List<FlashcardSetSummary>> findFlashcardSetSummaries(String uid);
+
+    /**
+     * Finds the version of every flashcard set of a user without loading titles or flashcards,
+     * so a client's cached copy can be validated cheaply.
+     *
+     * @param uid the user's ID.
+     * @return the versions by set ID, in set order, or an empty Optional if the user was not found.
+     */
+    Optional<Map<String, Long>> findFlashcardSetVersions(String uid);
+
+    /**
+     * Reads selected fields of a single flashcard set of a user, together with its version.
+     * Only the selected fields are read from the database.
+     *
+     * @param uid    the user's ID.
+     * @param setId  the ID of the flashcard set.
+     * @param fields the fields to read.
+     * @return the selected fields of the set, or an empty Optional if the user or set was not found.
+     */
+    Optional<FlashcardSetView> findFlashcardSetView(String uid, String setId, FlashcardSetFields fields);
+
+    /**
+     * Finds a single flashcard set of a user, including its flashcards.
+     *
+     * @param uid   the user's ID.
+     * @param setId the ID of the flashcard set.
+     * @return the flashcard set, or an empty Optional if the user or set was not found.
+     */
+    Optional<FlashcardSet> findFlashcardSet(String uid, String setId);
+
+    /**
+     * Finds the flashcards of a single flashcard set of a user.
+     *
+     * @param uid   the user's ID.
+     * @param setId the ID of the flashcard set.
+     * @return the flashcards, or an empty Optional if the user or set was not found.
+     */
+    Optional<List<Flashcard>> findFlashcards(String uid, String setId);
+
+    /**
+     * Finds a single flashcard of a flashcard set of a user.
+     *
+     * @param uid         the user's ID.
+     * @param setId       the ID of the flashcard set.
+     * @param flashcardId the ID of the flashcard.
+     * @return the flashcard, or an empty Optional if the user, set or flashcard was not found.
+     */
+    Optional<Flashcard> findFlashcard(String uid, String setId, String flashcardId);
+
+    /**
+     * Finds flashcards of a user by ID across all sets, with their ownerId and setId filled in.
+     *
+     * @param uid          the user's ID.
+     * @param flashcardIds the IDs of the flashcards.
+     * @return the flashcards that were found, in no particular order.
+     */
+    List<Flashcard> findFlashcardsById(String uid, Collection<String> flashcardIds);
+
+    /**
+     * Finds the flashcards of a user that are due for review, most overdue first.
+     * Flashcards that were never reviewed are due and come first.
+     *
+     * @param uid   the user's ID.
+     * @param setId the ID of a flashcard set to restrict the search to, or null for all sets.
+     * @param now   the time the flashcards must be due by.
+     * @param limit the maximum number of flashcards to return.
+     * @return the due flashcards, empty if the user or set was not found.
+     */
+    List<DueFlashcard> findDueFlashcards(String uid, String setId, Instant now, int limit);
+
+    /**
+     * Streams a user's library as one row per flashcard, in set order and then card order.
+     * A set without flashcards yields a single row without flashcard fields.
+     * The stream reads from a database cursor and must be closed.
+     *
+     * @param uid    the user's ID.
+     * @param offset the number of leading rows to skip, used to resume an interrupted export.
+     * @return the rows, empty if the user was not found.
+     */
+    Stream<FlashcardExportRow> streamLibrary(String uid, long offset);
+
+    /**
+     * Adds a flashcard set, and any flashcards it already holds, to a user.
+     *
+     * @param uid          the user's ID.
+     * @param flashcardSet the flashcard set to add.
+     * @return true if the user exists and the set was added.
+     */
+    boolean addFlashcardSet(String uid, FlashcardSet flashcardSet);
+
+    /**
+     * Adds a flashcard to a flashcard set of a user.
+     *
+     * @param uid       the user's ID.
+     * @param setId     the ID of the flashcard set.
+     * @param flashcard the flashcard to add.
+     * @param expectedVersion the version the set must have, or null to write unconditionally.
+     * @return true if the user and set exist and the flashcard was added.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the set has another version.
+     */
+    boolean addFlashcard(String uid, String setId, Flashcard flashcard, Long expectedVersion);
+
+    /**
+     * Adds several flashcards to a flashcard set of a user.
+     *
+     * @param uid        the user's ID.
+     * @param setId      the ID of the flashcard set.
+     * @param flashcards the flashcards to add.
+     * @param expectedVersion the version the set must have, or null to write unconditionally.
+     * @return the updated flashcard set, or an empty Optional if the user or set was not found.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the set has another version.
+     */
+    Optional<FlashcardSet> addFlashcards(String uid, String setId, List<Flashcard> flashcards, Long expectedVersion);
+
+    /**
+     * Appends a batch of flashcards to a flashcard set without reading the set back.
+     * Used by bulk imports, which write one batch at a time.
+     *
+     * @param uid        the user's ID.
+     * @param setId      the ID of the flashcard set.
+     * @param flashcards the flashcards to add, possibly none.
+     * @return true if the user and set exist and the flashcards were added.
+     */
+    boolean appendFlashcards(String uid, String setId, List<Flashcard> flashcards);
+
+    /**
+     * Replaces the question and answer of a flashcard.
+     *
+     * @param uid         the user's ID.
+     * @param setId       the ID of the flashcard set.
+     * @param flashcardId the ID of the flashcard.
+     * @param question    the new question text.
+     * @param answer      the new answer text.
+     * @param expectedVersion the version the set must have, or null to write unconditionally.
+     * @return true if the user, set and flashcard exist.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the set has another version.
+     */
+    boolean updateFlashcard(String uid, String setId, String flashcardId, String question, String answer,
+            Long expectedVersion);
+
+    /**
+     * Replaces the spaced-repetition state of a flashcard, provided it is still the state
+     * the new one was computed from.
+     *
+     * @param uid                the user's ID.
+     * @param setId              the ID of the flashcard set.
+     * @param flashcardId        the ID of the flashcard.
+     * @param expectedReviewedAt the last review time of the current state, null if never reviewed.
+     * @param review             the new review state.
+     * @return true if the user, set and flashcard exist.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the flashcard was reviewed in the meantime.
+     */
+    boolean updateReviewState(String uid, String setId, String flashcardId, Instant expectedReviewedAt,
+            ReviewState review);
+
+    /**
+     * Replaces the spaced-repetition state of many flashcards, possibly of different users,
+     * with one bulk write. Each flashcard is only written if its state is still the one the new
+     * state was computed from; a caller re-reads the flashcards to learn which ones were reviewed
+     * in the meantime.
+     *
+     * @param flashcards         the flashcards with their ownerId, setId and new review state.
+     * @param expectedReviewedAt the last review time of each flashcard's current state by
+     *                           flashcard ID, no entry or null if never reviewed.
+     */
+    void updateReviewStates(List<Flashcard> flashcards, Map<String, Instant> expectedReviewedAt);
+
+    /**
+     * Removes a flashcard from a flashcard set.
+     *
+     * @param uid         the user's ID.
+     * @param setId       the ID of the flashcard set.
+     * @param flashcardId the ID of the flashcard.
+     * @param expectedVersion the version the set must have, or null to write unconditionally.
+     * @return the updated flashcard set, or an empty Optional if the user, set or flashcard was not found.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the set has another version.
+     */
+    Optional<FlashcardSet> removeFlashcard(String uid, String setId, String flashcardId, Long expectedVersion);
+
+    /**
+     * Replaces the title of a flashcard set.
+     *
+     * @param uid   the user's ID.
+     * @param setId the ID of the flashcard set.
+     * @param title the new title.
+     * @param expectedVersion the version the set must have, or null to write unconditionally.
+     * @return the updated flashcard set, or an empty Optional if the user or set was not found.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the set has another version.
+     */
+    Optional<FlashcardSet> updateFlashcardSetTitle(String uid, String setId, String title, Long expectedVersion);
+
+    /**
+     * Removes a flashcard set and its flashcards.
+     *
+     * @param uid   the user's ID.
+     * @param setId the ID of the flashcard set.
+     * @param expectedVersion the version the set must have, or null to write unconditionally.
+     * @return true if the set existed and was removed.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the set has another version.
+     */
+    boolean removeFlashcardSet(String uid, String setId, Long expectedVersion);
+
+    /**
+     * Applies an ordered batch of flashcard edits over one or more sets of a user, all or none.
+     * Each operation sees the sets as left by the previous ones; if one refers to a set or
+     * flashcard that does not exist, nothing is written. A store that cannot write the batch
+     * atomically reports a write failing part way with a partial result.
+     *
+     * @param uid              the user's ID.
+     * @param operations       the operations, with the fields their types require.
+     * @param expectedVersions the version each listed set must have; other sets are written if unchanged since read.
+     * @return the outcome of each operation and the new versions of the changed sets, or an empty
+     *         Optional if the user was not found.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if a set has another version
+     *         than expected or changed while the batch was applied.
+     */
+    Optional<FlashcardBatchResult> applyBatch(String uid, List<FlashcardOperation> operations,
+            Map<String, Long> expectedVersions);
+
+    /**
+     * Removes every flashcard set and flashcard owned by a user.
+     *
+     * @param uid the user's ID.
+     */
+    void removeLibrary(String uid);
+}
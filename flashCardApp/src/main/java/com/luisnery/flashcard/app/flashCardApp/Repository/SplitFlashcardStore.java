@@ -0,0 +1,682 @@
+package com.luisnery.flashcard.app.flashCardApp.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.luisnery.flashcard.app.flashCardApp.Id.IdGenerator;
+import com.luisnery.flashcard.app.flashCardApp.Model.DueFlashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardBatchResult;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardExportRow;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardOperation;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetFields;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetSummary;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetView;
+import com.luisnery.flashcard.app.flashCardApp.Model.ReviewState;
+
+/**
+ * {@link FlashcardStore} that keeps flashcard sets and flashcards in their own collections,
+ * keyed by ownerId and setId, so reading one set only touches that set's documents.
+ * Enabled with flashcards.storage.mode=split.
+ *
+ * A set's version lives in its flashcardSets document and is incremented after each write to
+ * its flashcards. A conditional write first claims the expected version with a compare-and-set
+ * increment, so of two writers holding the same version only one proceeds.
+ *
+ * A batch spanning several documents is written in a transaction when
+ * flashcards.storage.transactions is enabled, which requires a replica set. Otherwise the claims of
+ * a batch that cannot claim every set are given back, and a batch whose write fails part way
+ * reports which operations were written.
+ *
+ * @see com.luisnery.flashcard.app.flashCardApp.Migration.SplitStorageMigration
+ */
+@Component(FlashcardStore.BACKING_STORE)
+@ConditionalOnProperty(name = "flashcards.storage.mode", havingValue = "split")
+public class SplitFlashcardStore implements FlashcardStore {
+
+    private final UserRepository userRepository;
+    private final FlashcardSetRepository flashcardSetRepository;
+    private final FlashcardRepository flashcardRepository;
+    private final MongoTemplate mongoTemplate;
+    private final IdGenerator idGenerator;
+    private final TransactionTemplate transactions; // Null unless batches are written in transactions
+
+    // Last position handed out, kept ahead of the clock so positions are unique within this instance
+    private final AtomicLong lastPosition = new AtomicLong();
+
+    /**
+     * Creates the store on top of the split collections.
+     *
+     * @param userRepository         the repository used to check that a user exists.
+     * @param flashcardSetRepository the repository for the flashcardSets collection.
+     * @param flashcardRepository    the repository for the flashcards collection.
+     * @param mongoTemplate          the template used for in-place updates.
+     * @param idGenerator            the generator of the IDs of new sets and flashcards.
+     * @param transactional          whether batches are written in transactions.
+     */
+    public SplitFlashcardStore(UserRepository userRepository, FlashcardSetRepository flashcardSetRepository,
+            FlashcardRepository flashcardRepository, MongoTemplate mongoTemplate, IdGenerator idGenerator,
+            @Value("${flashcards.storage.transactions:false}") boolean transactional) {
+        this.userRepository = userRepository;
+        this.flashcardSetRepository = flashcardSetRepository;
+        this.flashcardRepository = flashcardRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.idGenerator = idGenerator;
+        this.transactions = transactional
+                ? new TransactionTemplate(new MongoTransactionManager(mongoTemplate.getMongoDatabaseFactory()))
+                : null;
+    }
+
+    /**
+     * Creates the compound indexes of the split collections once the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        ensureIndexes(mongoTemplate);
+    }
+
+    /**
+     * Creates the indexes declared on {@link FlashcardSet} and {@link Flashcard} in their collections.
+     * Indexes resolved for the flashcards embedded in a set (e.g. flashcards.ownerId) are skipped.
+     *
+     * @param mongoTemplate the template to create the indexes with.
+     */
+    public static void ensureIndexes(MongoTemplate mongoTemplate) {
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> type : List.of(FlashcardSet.class, Flashcard.class)) {
+            IndexOperations indexOps = mongoTemplate.indexOps(type);
+            for (IndexDefinition index : resolver.resolveIndexFor(type)) {
+                if (index.getIndexKeys().keySet().stream().noneMatch(key -> key.startsWith("flashcards."))) {
+                    indexOps.ensureIndex(index);
+                }
+            }
+        }
+    }
+
+    @Override
+    public Optional<List<FlashcardSet>> findFlashcardSets(String uid) {
+        if (!userRepository.existsById(uid)) {
+            return Optional.empty(); // User not found
+        }
+        Map<String, FlashcardSet> setsById = new LinkedHashMap<>();
+        for (FlashcardSet set : flashcardSetRepository.findByOwnerIdOrderByPositionAsc(uid)) {
+            set.setFlashcards(new ArrayList<>());
+            setsById.put(set.getId(), set);
+        }
+        for (Flashcard flashcard : flashcardRepository.findByOwnerIdOrderByPositionAsc(uid)) {
+            FlashcardSet set = setsById.get(flashcard.getSetId());
+            if (set != null) {
+                set.addFlashcard(flashcard);
+            }
+        }
+        return Optional.of(new ArrayList<>(setsById.values()));
+    }
+
+    @Override
+    public Optional<List<FlashcardSetSummary>> findFlashcardSetSummaries(String uid) {
+        if (!userRepository.existsById(uid)) {
+            return Optional.empty(); // User not found
+        }
+        Map<String, Integer> counts = countFlashcardsBySet(uid);
+        List<FlashcardSetSummary> summaries = new ArrayList<>();
+        for (FlashcardSet set : flashcardSetRepository.findByOwnerIdOrderByPositionAsc(uid)) {
+            summaries.add(new FlashcardSetSummary(set.getId(), set.getTitle(), counts.getOrDefault(set.getId(), 0)));
+        }
+        return Optional.of(summaries);
+    }
+
+    @Override
+    public Optional<Map<String, Long>> findFlashcardSetVersions(String uid) {
+        Query query = Query.query(Criteria.where("ownerId").is(uid)).with(Sort.by("position"));
+        query.fields().include("_id").include("version");
+        Map<String, Long> versions = new LinkedHashMap<>();
+        for (FlashcardSet set : mongoTemplate.find(query, FlashcardSet.class)) {
+            versions.put(set.getId(), set.getVersion());
+        }
+        if (versions.isEmpty() && !userRepository.existsById(uid)) {
+            return Optional.empty(); // User not found
+        }
+        return Optional.of(versions);
+    }
+
+    @Override
+    public Optional<FlashcardSetView> findFlashcardSetView(String uid, String setId, FlashcardSetFields fields) {
+        Query setQuery = Query.query(Criteria.where("_id").is(setId).and("ownerId").is(uid));
+        setQuery.fields().include("_id").include("version");
+        if (fields.includes(FlashcardSetFields.TITLE)) {
+            setQuery.fields().include("title");
+        }
+        FlashcardSet set = mongoTemplate.findOne(setQuery, FlashcardSet.class);
+        if (set == null) {
+            return Optional.empty(); // User or flashcard set not found
+        }
+
+        FlashcardSetView view = new FlashcardSetView();
+        view.setVersion(set.getVersion());
+        if (fields.includes(FlashcardSetFields.ID)) {
+            view.setId(set.getId());
+        }
+        view.setTitle(set.getTitle());
+        Query cardQuery = Query.query(Criteria.where("ownerId").is(uid).and("setId").is(setId));
+        if (fields.includesCards()) {
+            cardQuery.with(Sort.by("position")).fields().include(fields.getCardFields().stream()
+                    .map(field -> field.equals(FlashcardSetFields.CARD_ID) ? "_id" : field).toArray(String[]::new));
+            List<Flashcard> cards = new ArrayList<>();
+            for (Flashcard flashcard : mongoTemplate.find(cardQuery, Flashcard.class)) {
+                cards.add(fields.selectCard(flashcard));
+            }
+            view.setCards(cards);
+            if (fields.includes(FlashcardSetFields.CARD_COUNT)) {
+                view.setCardCount(cards.size());
+            }
+        } else if (fields.includes(FlashcardSetFields.CARD_COUNT)) {
+            view.setCardCount((int) mongoTemplate.count(cardQuery, Flashcard.class)); // Served by owner_set_position
+        }
+        return Optional.of(view);
+    }
+
+    @Override
+    public Optional<FlashcardSet> findFlashcardSet(String uid, String setId) {
+        return flashcardSetRepository.findByIdAndOwnerId(setId, uid).map(set -> {
+            set.setFlashcards(flashcardRepository.findByOwnerIdAndSetIdOrderByPositionAsc(uid, setId));
+            return set;
+        });
+    }
+
+    @Override
+    public Optional<List<Flashcard>> findFlashcards(String uid, String setId) {
+        if (!flashcardSetRepository.existsByIdAndOwnerId(setId, uid)) {
+            return Optional.empty(); // User or flashcard set not found
+        }
+        return Optional.of(flashcardRepository.findByOwnerIdAndSetIdOrderByPositionAsc(uid, setId));
+    }
+
+    @Override
+    public Optional<Flashcard> findFlashcard(String uid, String setId, String flashcardId) {
+        return flashcardRepository.findByIdAndOwnerIdAndSetId(flashcardId, uid, setId);
+    }
+
+    @Override
+    public List<Flashcard> findFlashcardsById(String uid, Collection<String> flashcardIds) {
+        return mongoTemplate.find(Query.query(Criteria.where("ownerId").is(uid).and("_id").in(flashcardIds)),
+                Flashcard.class);
+    }
+
+    @Override
+    public List<DueFlashcard> findDueFlashcards(String uid, String setId, Instant now, int limit) {
+        // Served by the owner_due or owner_set_due index; never reviewed flashcards sort first
+        Criteria criteria = Criteria.where("ownerId").is(uid);
+        if (setId != null) {
+            criteria = criteria.and("setId").is(setId);
+        }
+        Query query = Query.query(criteria.and("review.dueAt").not().gt(now))
+                .with(Sort.by("review.dueAt")).limit(limit);
+        List<DueFlashcard> due = new ArrayList<>();
+        for (Flashcard flashcard : mongoTemplate.find(query, Flashcard.class)) {
+            due.add(new DueFlashcard(flashcard.getSetId(), flashcard));
+        }
+        return due;
+    }
+
+    @Override
+    public Stream<FlashcardExportRow> streamLibrary(String uid, long offset) {
+        // Skip whole sets using their card counts, so only the first exported set needs a cursor skip
+        Map<String, Integer> counts = countFlashcardsBySet(uid);
+        List<FlashcardSet> sets = new ArrayList<>();
+        List<Long> skips = new ArrayList<>();
+        long remaining = offset;
+        for (FlashcardSet set : flashcardSetRepository.findByOwnerIdOrderByPositionAsc(uid)) {
+            long rows = Math.max(counts.getOrDefault(set.getId(), 0), 1); // An empty set still yields one row
+            if (remaining >= rows) {
+                remaining -= rows;
+                continue;
+            }
+            sets.add(set);
+            skips.add(remaining);
+            remaining = 0;
+        }
+
+        return IntStream.range(0, sets.size()).boxed().flatMap(i -> {
+            FlashcardSet set = sets.get(i);
+            if (counts.getOrDefault(set.getId(), 0) == 0) {
+                return Stream.of(new FlashcardExportRow(set.getId(), set.getTitle(), null, null, null));
+            }
+            Query query = Query.query(Criteria.where("ownerId").is(uid).and("setId").is(set.getId()))
+                    .with(Sort.by("position")).skip(skips.get(i));
+            return mongoTemplate.stream(query, Flashcard.class).map(flashcard -> new FlashcardExportRow(set.getId(),
+                    set.getTitle(), flashcard.getId(), flashcard.getQuestion(), flashcard.getAnswer()));
+        });
+    }
+
+    @Override
+    public boolean addFlashcardSet(String uid, FlashcardSet flashcardSet) {
+        if (!userRepository.existsById(uid)) {
+            return false; // User not found
+        }
+        idGenerator.assignIds(flashcardSet);
+        List<Flashcard> flashcards = flashcardSet.getFlashcards() != null
+                ? flashcardSet.getFlashcards() : new ArrayList<>();
+        flashcardSet.setOwnerId(uid);
+        flashcardSet.setPosition(reservePositions(1));
+        flashcardSet.setFlashcards(null); // Flashcards are stored in their own collection
+        flashcardSetRepository.insert(flashcardSet);
+        insertFlashcards(uid, flashcardSet.getId(), flashcards);
+        flashcardSet.setFlashcards(flashcards);
+        return true;
+    }
+
+    @Override
+    public boolean addFlashcard(String uid, String setId, Flashcard flashcard, Long expectedVersion) {
+        if (!claimSet(uid, setId, expectedVersion)) {
+            return false; // User or flashcard set not found
+        }
+        insertFlashcards(uid, setId, List.of(flashcard));
+        incrementVersion(uid, setId);
+        return true;
+    }
+
+    @Override
+    public Optional<FlashcardSet> addFlashcards(String uid, String setId, List<Flashcard> flashcards,
+            Long expectedVersion) {
+        if (!claimSet(uid, setId, expectedVersion)) {
+            return Optional.empty(); // User or flashcard set not found
+        }
+        insertFlashcards(uid, setId, flashcards);
+        incrementVersion(uid, setId);
+        return findFlashcardSet(uid, setId);
+    }
+
+    @Override
+    public boolean appendFlashcards(String uid, String setId, List<Flashcard> flashcards) {
+        if (!flashcardSetRepository.existsByIdAndOwnerId(setId, uid)) {
+            return false; // User or flashcard set not found
+        }
+        if (flashcards.isEmpty()) {
+            return true;
+        }
+        long position = reservePositions(flashcards.size());
+        for (Flashcard flashcard : flashcards) {
+            idGenerator.assignId(flashcard);
+            flashcard.setOwnerId(uid);
+            flashcard.setSetId(setId);
+            flashcard.setPosition(position++);
+        }
+        // Unordered, since the positions already fix the order of the batch
+        mongoTemplate.bulkOps(BulkMode.UNORDERED, Flashcard.class).insert(flashcards).execute();
+        incrementVersion(uid, setId);
+        return true;
+    }
+
+    @Override
+    public boolean updateFlashcard(String uid, String setId, String flashcardId, String question, String answer,
+            Long expectedVersion) {
+        if (expectedVersion != null && !claimSet(uid, setId, expectedVersion)) {
+            return false; // User or flashcard set not found
+        }
+        Query query = Query.query(Criteria.where("_id").is(flashcardId).and("ownerId").is(uid).and("setId").is(setId));
+        Update update = new Update().set("question", question).set("answer", answer);
+        if (mongoTemplate.updateFirst(query, update, Flashcard.class).getMatchedCount() == 0) {
+            return false; // User, flashcard set or flashcard not found
+        }
+        incrementVersion(uid, setId);
+        return true;
+    }
+
+    @Override
+    public boolean updateReviewState(String uid, String setId, String flashcardId, Instant expectedReviewedAt,
+            ReviewState review) {
+        Criteria card = Criteria.where("_id").is(flashcardId).and("ownerId").is(uid).and("setId").is(setId);
+        Query query = Query.query(new Criteria().andOperator(card,
+                Criteria.where("review.lastReviewedAt").is(expectedReviewedAt))); // null also matches no review
+        if (mongoTemplate.updateFirst(query, Update.update("review", review), Flashcard.class).getMatchedCount() == 0) {
+            if (mongoTemplate.exists(Query.query(card), Flashcard.class)) {
+                throw new OptimisticLockingFailureException("Flashcard " + flashcardId + " was reviewed concurrently");
+            }
+            return false; // User, flashcard set or flashcard not found
+        }
+        incrementVersion(uid, setId);
+        return true;
+    }
+
+    @Override
+    public void updateReviewStates(List<Flashcard> flashcards, Map<String, Instant> expectedReviewedAt) {
+        if (flashcards.isEmpty()) {
+            return;
+        }
+        BulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, Flashcard.class);
+        List<Criteria> written = new ArrayList<>(flashcards.size());
+        for (Flashcard flashcard : flashcards) {
+            Query query = Query.query(Criteria.where("_id").is(flashcard.getId()).and("ownerId").is(flashcard.getOwnerId())
+                    .and("review.lastReviewedAt").is(expectedReviewedAt.get(flashcard.getId()))); // null also matches no review
+            operations.updateOne(query, Update.update("review", flashcard.getReview()));
+            written.add(Criteria.where("_id").is(flashcard.getId()).and("ownerId").is(flashcard.getOwnerId())
+                    .and("review").is(flashcard.getReview()));
+        }
+        operations.execute();
+
+        // The bulk result only counts matches overall, so the flashcards holding the new states are
+        // read back: a set whose flashcards were all reviewed concurrently or removed keeps its version
+        Query holding = Query.query(new Criteria().orOperator(written));
+        holding.fields().include("ownerId").include("setId");
+        Set<List<String>> sets = new LinkedHashSet<>();
+        for (Flashcard flashcard : mongoTemplate.find(holding, Flashcard.class)) {
+            sets.add(List.of(flashcard.getOwnerId(), flashcard.getSetId()));
+        }
+        if (sets.isEmpty()) {
+            return;
+        }
+        BulkOperations versions = mongoTemplate.bulkOps(BulkMode.UNORDERED, FlashcardSet.class);
+        for (List<String> set : sets) {
+            versions.updateOne(setQuery(set.get(0), set.get(1), null), new Update().inc("version", 1));
+        }
+        versions.execute();
+    }
+
+    @Override
+    public Optional<FlashcardSet> removeFlashcard(String uid, String setId, String flashcardId,
+            Long expectedVersion) {
+        if (expectedVersion != null && !claimSet(uid, setId, expectedVersion)) {
+            return Optional.empty(); // User or flashcard set not found
+        }
+        if (flashcardRepository.deleteByIdAndOwnerIdAndSetId(flashcardId, uid, setId) == 0) {
+            return Optional.empty(); // User, flashcard set or flashcard not found
+        }
+        incrementVersion(uid, setId);
+        return findFlashcardSet(uid, setId);
+    }
+
+    @Override
+    public Optional<FlashcardSet> updateFlashcardSetTitle(String uid, String setId, String title,
+            Long expectedVersion) {
+        Update update = Update.update("title", title).inc("version", 1);
+        if (mongoTemplate.updateFirst(setQuery(uid, setId, expectedVersion), update, FlashcardSet.class)
+                .getMatchedCount() == 0) {
+            checkConflict(uid, setId, expectedVersion);
+            return Optional.empty(); // User or flashcard set not found
+        }
+        return findFlashcardSet(uid, setId);
+    }
+
+    @Override
+    public boolean removeFlashcardSet(String uid, String setId, Long expectedVersion) {
+        if (mongoTemplate.remove(setQuery(uid, setId, expectedVersion), FlashcardSet.class).getDeletedCount() == 0) {
+            checkConflict(uid, setId, expectedVersion);
+            return false; // User or flashcard set not found
+        }
+        flashcardRepository.deleteByOwnerIdAndSetId(uid, setId);
+        return true;
+    }
+
+    @Override
+    public Optional<FlashcardBatchResult> applyBatch(String uid, List<FlashcardOperation> operations,
+            Map<String, Long> expectedVersions) {
+        Set<String> setIds = new LinkedHashSet<>();
+        Set<String> flashcardIds = new LinkedHashSet<>();
+        for (FlashcardOperation operation : operations) {
+            setIds.add(operation.getSetId());
+            if (operation.getFlashcardId() != null) {
+                flashcardIds.add(operation.getFlashcardId());
+            }
+        }
+        List<FlashcardSet> sets = mongoTemplate.find(
+                Query.query(Criteria.where("_id").in(setIds).and("ownerId").is(uid)), FlashcardSet.class);
+        if (sets.isEmpty() && !userRepository.existsById(uid)) {
+            return Optional.empty(); // User not found
+        }
+
+        // Only the flashcards the batch updates or removes are read
+        Map<String, FlashcardSet> setsById = new HashMap<>();
+        sets.forEach(set -> setsById.put(set.getId(), set));
+        if (!flashcardIds.isEmpty()) {
+            for (Flashcard flashcard : findFlashcardsById(uid, flashcardIds)) {
+                FlashcardSet set = setsById.get(flashcard.getSetId());
+                if (set != null) {
+                    set.addFlashcard(flashcard);
+                }
+            }
+        }
+        FlashcardBatchPlan plan = new FlashcardBatchPlan(sets, operations, expectedVersions, idGenerator);
+        if (!plan.isComplete() || plan.getChangedSets().isEmpty()) {
+            return Optional.of(plan.toResult(Map.of()));
+        }
+        if (transactions != null) {
+            return Optional.of(transactions.execute(status -> writeBatch(uid, operations, plan)));
+        }
+        return Optional.of(writeBatch(uid, operations, plan));
+    }
+
+    @Override
+    public void removeLibrary(String uid) {
+        flashcardSetRepository.deleteByOwnerId(uid);
+        flashcardRepository.deleteByOwnerId(uid);
+    }
+
+    /**
+     * Claims every changed set at its read version, writes the flashcards with one ordered bulk
+     * write, then increments the sets' versions again and sets their titles.
+     *
+     * @return the batch result, partial if the bulk write failed after some of its writes.
+     * @throws OptimisticLockingFailureException if a set changed or was removed since it was read.
+     */
+    private FlashcardBatchResult writeBatch(String uid, List<FlashcardOperation> operations, FlashcardBatchPlan plan) {
+        List<FlashcardSet> claimed = new ArrayList<>();
+        try {
+            for (FlashcardSet set : plan.getChangedSets()) {
+                if (!claimSet(uid, set.getId(), set.getVersion())) {
+                    throw new OptimisticLockingFailureException("Flashcard set " + set.getId()
+                            + " was removed concurrently");
+                }
+                claimed.add(set);
+            }
+        } catch (OptimisticLockingFailureException e) {
+            releaseSets(uid, claimed); // Nothing was written, the sets keep the versions clients hold
+            throw e;
+        }
+
+        BulkOperations flashcards = mongoTemplate.bulkOps(BulkMode.ORDERED, Flashcard.class);
+        List<Integer> writes = new ArrayList<>(operations.size()); // Index of the operation of each write
+        long position = reservePositions((int) operations.stream()
+                .filter(operation -> operation.getType() == FlashcardOperation.Type.ADD).count());
+        for (int i = 0; i < operations.size(); i++) {
+            FlashcardOperation operation = operations.get(i);
+            if (operation.getType() == FlashcardOperation.Type.RETITLE) {
+                continue; // Written with the set's version
+            }
+            Query card = Query.query(Criteria.where("_id").is(operation.getFlashcardId()).and("ownerId").is(uid));
+            switch (operation.getType()) {
+                case ADD -> {
+                    Flashcard flashcard = plan.getResults().get(i).getFlashcard();
+                    flashcard.setOwnerId(uid);
+                    flashcard.setSetId(operation.getSetId());
+                    flashcard.setPosition(position++);
+                    flashcards.insert(flashcard);
+                }
+                case UPDATE -> flashcards.updateOne(card,
+                        new Update().set("question", operation.getQuestion()).set("answer", operation.getAnswer()));
+                case REMOVE -> flashcards.remove(card);
+                default -> throw new IllegalArgumentException("Unknown operation " + operation.getType());
+            }
+            writes.add(i);
+        }
+        int failed = operations.size();
+        String failure = null;
+        if (!writes.isEmpty()) {
+            try {
+                flashcards.execute();
+            } catch (BulkOperationException e) {
+                if (transactions != null) {
+                    throw e; // Rolled back with the transaction
+                }
+                // Ordered, so the writes before the first error were applied and the others not attempted
+                failed = writes.get(e.getErrors().get(0).getIndex());
+                failure = e.getErrors().get(0).getMessage();
+            }
+        }
+        Map<String, Long> versions = finishSets(uid, operations.subList(0, failed), plan.getChangedSets());
+        return failure == null ? plan.toResult(versions) : plan.toPartialResult(failed, failure, versions);
+    }
+
+    /**
+     * Increments the version of each changed set again, setting the title of the last written
+     * retitle operation of the set.
+     *
+     * @return the version each set was left with by set ID; sets removed in the meantime are absent.
+     */
+    private Map<String, Long> finishSets(String uid, List<FlashcardOperation> written, Collection<FlashcardSet> sets) {
+        Map<String, String> titles = new HashMap<>();
+        for (FlashcardOperation operation : written) {
+            if (operation.getType() == FlashcardOperation.Type.RETITLE) {
+                titles.put(operation.getSetId(), operation.getTitle());
+            }
+        }
+        Map<String, Long> versions = new LinkedHashMap<>();
+        for (FlashcardSet set : sets) {
+            Update update = new Update().inc("version", 1);
+            if (titles.containsKey(set.getId())) {
+                update.set("title", titles.get(set.getId()));
+            }
+            Query query = setQuery(uid, set.getId(), null);
+            query.fields().include("version");
+            FlashcardSet updated = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().returnNew(true), FlashcardSet.class);
+            if (updated != null) {
+                versions.put(set.getId(), updated.getVersion());
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Gives back the versions claimed by a batch that could not claim all its sets. A set written
+     * since it was claimed keeps its version.
+     */
+    private void releaseSets(String uid, List<FlashcardSet> claimed) {
+        for (FlashcardSet set : claimed) {
+            mongoTemplate.updateFirst(setQuery(uid, set.getId(), set.getVersion() + 1),
+                    new Update().inc("version", -1), FlashcardSet.class);
+        }
+    }
+
+    private void insertFlashcards(String uid, String setId, List<Flashcard> flashcards) {
+        if (flashcards.isEmpty()) {
+            return;
+        }
+        long position = reservePositions(flashcards.size());
+        for (Flashcard flashcard : flashcards) {
+            idGenerator.assignId(flashcard);
+            flashcard.setOwnerId(uid);
+            flashcard.setSetId(setId);
+            flashcard.setPosition(position++);
+        }
+        flashcardRepository.insert(flashcards);
+    }
+
+    /**
+     * Checks that a set exists and, given an expected version, claims it by incrementing the
+     * version only if it still matches. The write that follows increments it again, so readers
+     * never pair the final version with the content from before the write.
+     *
+     * @return false if the user or set does not exist.
+     * @throws OptimisticLockingFailureException if the set has another version.
+     */
+    private boolean claimSet(String uid, String setId, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return flashcardSetRepository.existsByIdAndOwnerId(setId, uid);
+        }
+        Query query = setQuery(uid, setId, expectedVersion);
+        if (mongoTemplate.updateFirst(query, new Update().inc("version", 1), FlashcardSet.class).getMatchedCount() > 0) {
+            return true;
+        }
+        checkConflict(uid, setId, expectedVersion);
+        return false;
+    }
+
+    private void incrementVersion(String uid, String setId) {
+        mongoTemplate.updateFirst(setQuery(uid, setId, null), new Update().inc("version", 1), FlashcardSet.class);
+    }
+
+    private void checkConflict(String uid, String setId, Long expectedVersion) {
+        if (expectedVersion != null && flashcardSetRepository.existsByIdAndOwnerId(setId, uid)) {
+            throw new OptimisticLockingFailureException("Flashcard set " + setId + " does not have version "
+                    + expectedVersion);
+        }
+    }
+
+    /**
+     * Matches a set of a user, optionally only with the given version. Sets never changed since
+     * their creation have no version field and match 0.
+     */
+    private static Query setQuery(String uid, String setId, Long expectedVersion) {
+        Criteria criteria = Criteria.where("_id").is(setId).and("ownerId").is(uid);
+        if (expectedVersion != null) {
+            criteria = expectedVersion == 0 ? criteria.and("version").in(0, null)
+                    : criteria.and("version").is(expectedVersion);
+        }
+        return Query.query(criteria);
+    }
+
+    /**
+     * Counts the flashcards of each of a user's sets on the server, using the (ownerId, setId) index prefix.
+     *
+     * @param uid the user's ID.
+     * @return the number of flashcards by set ID; sets without flashcards are absent.
+     */
+    private Map<String, Integer> countFlashcardsBySet(String uid) {
+        Aggregation countBySet = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("ownerId").is(uid)),
+                Aggregation.group("setId").count().as("count"));
+        Map<String, Integer> counts = new HashMap<>();
+        for (Document count : mongoTemplate.aggregate(countBySet, Flashcard.class, Document.class)) {
+            counts.put(count.getString("_id"), count.getInteger("count"));
+        }
+        return counts;
+    }
+
+    /**
+     * Reserves a block of increasing positions derived from the current time,
+     * so sets and flashcards keep their creation order across instances.
+     *
+     * @param count the number of positions to reserve.
+     * @return the first reserved position.
+     */
+    private long reservePositions(int count) {
+        long floor = System.currentTimeMillis() * 1000;
+        long last = lastPosition.updateAndGet(previous -> Math.max(previous, floor) + count);
+        return last - count + 1;
+    }
+}
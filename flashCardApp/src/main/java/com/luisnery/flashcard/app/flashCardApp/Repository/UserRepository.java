@@ -1,5 +1,9 @@
 package com.luisnery.flashcard.app.flashCardApp.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import com.luisnery.flashcard.app.flashCardApp.Model.User;
 
@@ -8,10 +12,36 @@ import com.luisnery.flashcard.app.flashCardApp.Model.User;
  * This repository interface is automatically implemented by Spring Data MongoDB at runtime.
  *
  * Extends MongoRepository to gain access to predefined methods such as save, findById, deleteById, etc.
+ * Extends UserRepositoryCustom for in-place updates of embedded flashcard sets and flashcards.
  *
  * @see org.springframework.data.mongodb.repository.MongoRepository
+ * @see com.luisnery.flashcard.app.flashCardApp.Repository.UserRepositoryCustom
  * @see com.luisnery.flashcard.app.flashCardApp.Model.User
  */
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
+
+    /**
+     * Finds the first users in ascending ID order.
+     *
+     * @param limit the maximum number of users to return.
+     * @return the first page of users.
+     */
+    List<User> findAllByOrderByIdAsc(Limit limit);
+
+    /**
+     * Finds the users whose ID comes after the given one, in ascending ID order (keyset pagination).
+     *
+     * @param id    the ID of the last user of the previous page.
+     * @param limit the maximum number of users to return.
+     * @return the next page of users.
+     */
+    List<User> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
 
+    /**
+     * Streams all users in ascending ID order from a Mongo cursor.
+     * The returned stream must be closed to release the cursor.
+     *
+     * @return a stream over all users.
+     */
+    Stream<User> streamAllByOrderByIdAsc();
 }
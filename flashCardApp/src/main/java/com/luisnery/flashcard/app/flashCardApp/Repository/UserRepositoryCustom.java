@@ -0,0 +1,265 @@
+package com.luisnery.flashcard.app.flashCardApp.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.DueFlashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardExportRow;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetFields;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetSummary;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetView;
+import com.luisnery.flashcard.app.flashCardApp.Model.ReviewState;
+
+/**
+ * Custom repository fragment for the User collection that reads and mutates embedded
+ * flashcard sets and flashcards without materializing the whole User document.
+ *
+ * Reads use projections so only the requested part of the library is transferred.
+ * Writes issue a single targeted $push, $pull or $set against the matching user
+ * document. Methods return false or an empty Optional when the user, set or flashcard
+ * did not match, which callers map to a 404 response.
+ *
+ * Every write also increments the version of the user and of the affected set in the same
+ * update. Writes given an expected set version only apply while the set still has it, and
+ * otherwise throw an OptimisticLockingFailureException, which callers map to a 412 response.
+ *
+ * @see com.luisnery.flashcard.app.flashCardApp.Repository.UserRepositoryCustomImpl
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Finds the flashcard sets of a user, without the user's other fields.
+     *
+     * @param uid the user's ID.
+     * @return the user's flashcard sets, or an empty Optional if the user was not found.
+     */
+    Optional<List<FlashcardSet>> findFlashcardSets(String uid);
+
+    /**
+     * Finds some flashcard sets of a user, including their flashcards, without transferring the others.
+     *
+     * @param uid    the user's ID.
+     * @param setIds the IDs of the flashcard sets.
+     * @return the sets found among the requested ones, or an empty Optional if the user was not found.
+     */
+    Optional<List<FlashcardSet>> findFlashcardSets(String uid, Collection<String> setIds);
+
+    /**
+     * Finds a single flashcard set of a user using an $elemMatch projection.
+     *
+     * @param uid   the user's ID.
+     * @param setId the ID of the flashcard set.
+     * @return the flashcard set, or an empty Optional if the user or set was not found.
+     */
+    Optional<FlashcardSet> findFlashcardSet(String uid, String setId);
+
+    /**
+     * Finds the version of each flashcard set of a user, projecting the sets down to their ID and version.
+     *
+     * @param uid the user's ID.
+     * @return the versions by set ID, in set order, or an empty Optional if the user was not found.
+     */
+    Optional<Map<String, Long>> findFlashcardSetVersions(String uid);
+
+    /**
+     * Reads selected fields of a single embedded flashcard set, together with its version.
+     * The set is picked and projected down to those fields on the server, so neither the
+     * other sets nor the unselected fields of the flashcards are transferred.
+     *
+     * @param uid    the user's ID.
+     * @param setId  the ID of the flashcard set.
+     * @param fields the fields to read.
+     * @return the selected fields of the set, or an empty Optional if the user or set was not found.
+     */
+    Optional<FlashcardSetView> findFlashcardSetView(String uid, String setId, FlashcardSetFields fields);
+
+    /**
+     * Summarizes the flashcard sets of a user (ID, title and card count) without
+     * transferring any flashcard.
+     *
+     * @param uid the user's ID.
+     * @return the summaries, or an empty Optional if the user was not found.
+     */
+    Optional<List<FlashcardSetSummary>> findFlashcardSetSummaries(String uid);
+
+    /**
+     * Finds a single flashcard of the user by unwinding the embedded arrays on the server,
+     * so neither the rest of the library nor the rest of the set is transferred.
+     *
+     * @param uid         the user's ID.
+     * @param setId       the ID of the flashcard set.
+     * @param flashcardId the ID of the flashcard.
+     * @return the flashcard, or an empty Optional if the user, set or flashcard was not found.
+     */
+    Optional<Flashcard> findFlashcard(String uid, String setId, String flashcardId);
+
+    /**
+     * Finds flashcards of the user by ID across all sets, with their ownerId and setId filled in.
+     *
+     * @param uid          the user's ID.
+     * @param flashcardIds the IDs of the flashcards.
+     * @return the flashcards that were found.
+     */
+    List<Flashcard> findFlashcardsById(String uid, Collection<String> flashcardIds);
+
+    /**
+     * Finds the user's flashcards that are due for review, most overdue first. The embedded
+     * flashcards are filtered and sorted on the server with a bounded top-N sort, so only the
+     * returned flashcards are transferred.
+     *
+     * @param uid   the user's ID.
+     * @param setId the ID of a flashcard set to restrict the search to, or null for all sets.
+     * @param now   the time the flashcards must be due by.
+     * @param limit the maximum number of flashcards to return.
+     * @return the due flashcards.
+     */
+    List<DueFlashcard> findDueFlashcards(String uid, String setId, Instant now, int limit);
+
+    /**
+     * Streams the user's library as one row per flashcard by unwinding the embedded arrays
+     * on the server. A set without flashcards yields a single row without flashcard fields.
+     *
+     * @param uid    the user's ID.
+     * @param offset the number of leading rows to skip.
+     * @return the rows, read from an aggregation cursor; the stream must be closed.
+     */
+    Stream<FlashcardExportRow> streamLibrary(String uid, long offset);
+
+    /**
+     * Appends a flashcard set to the user's list of flashcard sets.
+     *
+     * @param uid          the user's ID.
+     * @param flashcardSet the flashcard set to add.
+     * @return true if the user exists and the set was added.
+     */
+    boolean pushFlashcardSet(String uid, FlashcardSet flashcardSet);
+
+    /**
+     * Appends a flashcard to an existing flashcard set of the user.
+     *
+     * @param uid       the user's ID.
+     * @param setId     the ID of the flashcard set.
+     * @param flashcard the flashcard to add.
+     * @param expectedVersion the version the set must have, or null to write unconditionally.
+     * @return true if the user and the flashcard set exist and the flashcard was added.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the set has another version.
+     */
+    boolean pushFlashcard(String uid, String setId, Flashcard flashcard, Long expectedVersion);
+
+    /**
+     * Appends several flashcards to an existing flashcard set of the user.
+     *
+     * @param uid        the user's ID.
+     * @param setId      the ID of the flashcard set.
+     * @param flashcards the flashcards to add.
+     * @param expectedVersion the version the set must have, or null to write unconditionally.
+     * @return the updated flashcard set, or an empty Optional if the user or set was not found.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the set has another version.
+     */
+    Optional<FlashcardSet> pushFlashcards(String uid, String setId, List<Flashcard> flashcards,
+            Long expectedVersion);
+
+    /**
+     * Appends several flashcards to an existing flashcard set of the user without returning the set.
+     *
+     * @param uid        the user's ID.
+     * @param setId      the ID of the flashcard set.
+     * @param flashcards the flashcards to add, possibly none.
+     * @return true if the user and the flashcard set exist.
+     */
+    boolean pushFlashcardBatch(String uid, String setId, List<Flashcard> flashcards);
+
+    /**
+     * Replaces the question and answer of a flashcard within a flashcard set of the user.
+     *
+     * @param uid         the user's ID.
+     * @param setId       the ID of the flashcard set.
+     * @param flashcardId the ID of the flashcard.
+     * @param question    the new question text.
+     * @param answer      the new answer text.
+     * @param expectedVersion the version the set must have, or null to write unconditionally.
+     * @return true if the user, set and flashcard exist.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the set has another version.
+     */
+    boolean setFlashcardContent(String uid, String setId, String flashcardId, String question, String answer,
+            Long expectedVersion);
+
+    /**
+     * Replaces the spaced-repetition state of a flashcard within a flashcard set of the user,
+     * provided it is still the state the new one was computed from.
+     *
+     * @param uid                the user's ID.
+     * @param setId              the ID of the flashcard set.
+     * @param flashcardId        the ID of the flashcard.
+     * @param expectedReviewedAt the last review time of the current state, null if never reviewed.
+     * @param review             the new review state.
+     * @return true if the user, set and flashcard exist.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the flashcard was reviewed in the meantime.
+     */
+    boolean setReviewState(String uid, String setId, String flashcardId, Instant expectedReviewedAt,
+            ReviewState review);
+
+    /**
+     * Replaces the spaced-repetition state of many flashcards with one unordered bulk write,
+     * issuing a single update per set that addresses each flashcard with array filters.
+     * A flashcard whose last review time is no longer the expected one is left unchanged, and
+     * the versions of a set and its user only change if one of its flashcards was written.
+     *
+     * @param flashcards         the flashcards with their ownerId, setId and new review state.
+     * @param expectedReviewedAt the last review time of each flashcard's current state by
+     *                           flashcard ID, no entry or null if never reviewed.
+     */
+    void setReviewStates(List<Flashcard> flashcards, Map<String, Instant> expectedReviewedAt);
+
+    /**
+     * Removes a flashcard from a flashcard set of the user.
+     *
+     * @param uid         the user's ID.
+     * @param setId       the ID of the flashcard set.
+     * @param flashcardId the ID of the flashcard to remove.
+     * @param expectedVersion the version the set must have, or null to write unconditionally.
+     * @return the updated flashcard set, or an empty Optional if the user, set or flashcard was not found.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the set has another version.
+     */
+    Optional<FlashcardSet> pullFlashcard(String uid, String setId, String flashcardId, Long expectedVersion);
+
+    /**
+     * Replaces the title of a flashcard set of the user.
+     *
+     * @param uid   the user's ID.
+     * @param setId the ID of the flashcard set.
+     * @param title the new title.
+     * @param expectedVersion the version the set must have, or null to write unconditionally.
+     * @return the updated flashcard set, or an empty Optional if the user or set was not found.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the set has another version.
+     */
+    Optional<FlashcardSet> setFlashcardSetTitle(String uid, String setId, String title, Long expectedVersion);
+
+    /**
+     * Removes a flashcard set from the user.
+     *
+     * @param uid   the user's ID.
+     * @param setId the ID of the flashcard set to remove.
+     * @param expectedVersion the version the set must have, or null to write unconditionally.
+     * @return true if the user and the flashcard set existed and the set was removed.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the set has another version.
+     */
+    boolean pullFlashcardSet(String uid, String setId, Long expectedVersion);
+
+    /**
+     * Replaces the title and flashcards of several flashcard sets of the user with one update,
+     * provided each set still has the version it was read with.
+     *
+     * @param uid  the user's ID.
+     * @param sets the sets, with their new title and flashcards and the version they were read with.
+     * @return the new version of each replaced set by set ID, or an empty Optional if the user was not found.
+     * @throws org.springframework.dao.OptimisticLockingFailureException if a set has another version or no longer exists.
+     */
+    Optional<Map<String, Long>> replaceFlashcardSets(String uid, Collection<FlashcardSet> sets);
+}
@@ -0,0 +1,514 @@
+package com.luisnery.flashcard.app.flashCardApp.Repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.DueFlashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardExportRow;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetFields;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetSummary;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSetView;
+import com.luisnery.flashcard.app.flashCardApp.Model.ReviewState;
+import com.luisnery.flashcard.app.flashCardApp.Model.User;
+import com.mongodb.client.result.UpdateResult;
+
+/**
+ * MongoTemplate based implementation of {@link UserRepositoryCustom}.
+ * Picked up by Spring Data as a fragment of {@link UserRepository}.
+ *
+ * Embedded sets and flashcards are addressed with the filtered positional operator
+ * (flashcardSets.$[s].flashcards.$[c]), so every mutation is one round trip and
+ * concurrent edits to different elements of the same user no longer overwrite each other.
+ * Reads project the user document down to the requested set or to set summaries.
+ */
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    static final String SETS = "flashcardSets";
+    static final String SET_CARDS = "flashcardSets.$[s].flashcards";
+    static final String UNWOUND_CARD = "flashcardSets.flashcards"; // A flashcard after unwinding both arrays
+    private static final String SET_VERSION = "flashcardSets.$[s].version";
+    static final String USER_VERSION = "version";
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Creates the fragment on top of the application's MongoTemplate.
+     *
+     * @param mongoTemplate the template used to issue updates.
+     */
+    public UserRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<List<FlashcardSet>> findFlashcardSets(String uid) {
+        Query query = userQuery(uid);
+        query.fields().include(SETS);
+        return Optional.ofNullable(mongoTemplate.findOne(query, User.class)).map(User::getFlashcardSets);
+    }
+
+    @Override
+    public Optional<Map<String, Long>> findFlashcardSetVersions(String uid) {
+        Query query = userQuery(uid);
+        query.fields().include(SETS + "._id").include(SETS + ".version");
+        return Optional.ofNullable(mongoTemplate.findOne(query, User.class)).map(user -> {
+            Map<String, Long> versions = new LinkedHashMap<>();
+            for (FlashcardSet set : user.getFlashcardSets() != null ? user.getFlashcardSets() : List.<FlashcardSet>of()) {
+                versions.put(set.getId(), set.getVersion());
+            }
+            return versions;
+        });
+    }
+
+    @Override
+    public Optional<List<FlashcardSet>> findFlashcardSets(String uid, Collection<String> setIds) {
+        // Filter the sets on the server, so only the requested ones are transferred
+        Document requested = new Document("$in", List.of("$$s._id", new Document("$literal", List.copyOf(setIds))));
+        Document sets = new Document("$filter", new Document("input", new Document("$ifNull", List.of("$" + SETS, List.of())))
+                .append("as", "s").append("cond", requested));
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("_id").is(uid)),
+                context -> new Document("$project", new Document(SETS, sets)));
+        User user = mongoTemplate.aggregate(aggregation, User.class, User.class).getUniqueMappedResult();
+        return Optional.ofNullable(user).map(found -> found.getFlashcardSets() != null
+                ? found.getFlashcardSets() : new ArrayList<>());
+    }
+
+    @Override
+    public Optional<FlashcardSet> findFlashcardSet(String uid, String setId) {
+        Query query = setQuery(uid, setId);
+        query.fields().elemMatch(SETS, Criteria.where("_id").is(setId));
+        return firstSet(mongoTemplate.findOne(query, User.class));
+    }
+
+    @Override
+    public Optional<FlashcardSetView> findFlashcardSetView(String uid, String setId, FlashcardSetFields fields) {
+        // Pick the set out of the array, then keep only the selected fields of it and of its flashcards
+        Document matchesSet = new Document("$eq", List.of("$$s._id", new Document("$literal", setId)));
+        Document set = new Document("$arrayElemAt", List.of(new Document("$filter",
+                new Document("input", "$" + SETS).append("as", "s").append("cond", matchesSet)), 0));
+        Document cards = new Document("$ifNull", List.of("$set.flashcards", List.of()));
+        Document view = new Document("_id", 0).append("version", "$set.version");
+        if (fields.includes(FlashcardSetFields.ID)) {
+            view.append("id", "$set._id");
+        }
+        if (fields.includes(FlashcardSetFields.TITLE)) {
+            view.append("title", "$set.title");
+        }
+        if (fields.includes(FlashcardSetFields.CARD_COUNT)) {
+            view.append("cardCount", new Document("$size", cards));
+        }
+        if (fields.includesCards()) {
+            Document card = new Document();
+            for (String field : fields.getCardFields()) {
+                String name = field.equals(FlashcardSetFields.CARD_ID) ? "_id" : field;
+                card.append(name, "$$c." + name);
+            }
+            view.append("cards", new Document("$map", new Document("input", cards).append("as", "c").append("in", card)));
+        }
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("_id").is(uid).and(SETS + "._id").is(setId)),
+                context -> new Document("$project", new Document("_id", 0).append("set", set)),
+                context -> new Document("$project", view));
+
+        Document result = mongoTemplate.aggregate(aggregation, User.class, Document.class).getUniqueMappedResult();
+        if (result == null) {
+            return Optional.empty(); // User or flashcard set not found
+        }
+        FlashcardSetView setView = new FlashcardSetView();
+        setView.setVersion(result.get("version") instanceof Number version ? version.longValue() : 0);
+        setView.setId(result.getString("id"));
+        setView.setTitle(result.getString("title"));
+        setView.setCardCount(result.getInteger("cardCount"));
+        if (fields.includesCards()) {
+            List<Flashcard> selected = new ArrayList<>();
+            for (Document card : result.getList("cards", Document.class)) {
+                selected.add(fields.selectCard(mongoTemplate.getConverter().read(Flashcard.class, card)));
+            }
+            setView.setCards(selected);
+        }
+        return Optional.of(setView);
+    }
+
+    @Override
+    public Optional<List<FlashcardSetSummary>> findFlashcardSetSummaries(String uid) {
+        // Map each embedded set to {_id, title, cardCount} on the server, so flashcards never leave Mongo
+        Document cardCount = new Document("$size", new Document("$ifNull", List.of("$$s.flashcards", List.of())));
+        Document summary = new Document("_id", "$$s._id").append("title", "$$s.title").append("cardCount", cardCount);
+        Document map = new Document("$map", new Document("input", new Document("$ifNull", List.of("$" + SETS, List.of())))
+                .append("as", "s").append("in", summary));
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("_id").is(uid)),
+                context -> new Document("$project", new Document("_id", 0).append("summaries", map)));
+
+        Document result = mongoTemplate.aggregate(aggregation, User.class, Document.class).getUniqueMappedResult();
+        if (result == null) {
+            return Optional.empty(); // User not found
+        }
+        List<FlashcardSetSummary> summaries = new ArrayList<>();
+        for (Document set : result.getList("summaries", Document.class)) {
+            summaries.add(new FlashcardSetSummary(set.getString("_id"), set.getString("title"),
+                    set.getInteger("cardCount", 0)));
+        }
+        return Optional.of(summaries);
+    }
+
+    @Override
+    public Optional<Flashcard> findFlashcard(String uid, String setId, String flashcardId) {
+        List<AggregationOperation> stages = unwindFlashcards(uid, setId);
+        stages.add(Aggregation.match(Criteria.where(UNWOUND_CARD + "._id").is(flashcardId)));
+        stages.add(Aggregation.replaceRoot(UNWOUND_CARD));
+        return Optional.ofNullable(mongoTemplate.aggregate(Aggregation.newAggregation(stages), User.class,
+                Flashcard.class).getUniqueMappedResult());
+    }
+
+    @Override
+    public List<Flashcard> findFlashcardsById(String uid, Collection<String> flashcardIds) {
+        List<AggregationOperation> stages = unwindFlashcards(uid, null);
+        stages.add(Aggregation.match(Criteria.where(UNWOUND_CARD + "._id").in(flashcardIds)));
+        stages.add(context -> new Document("$project", new Document("_id", 0)
+                .append("setId", "$flashcardSets._id").append("flashcard", "$" + UNWOUND_CARD)));
+
+        List<Flashcard> flashcards = new ArrayList<>();
+        for (Document document : mongoTemplate.aggregate(Aggregation.newAggregation(stages), User.class,
+                Document.class)) {
+            Flashcard flashcard = mongoTemplate.getConverter().read(Flashcard.class,
+                    document.get("flashcard", Document.class));
+            flashcard.setOwnerId(uid);
+            flashcard.setSetId(document.getString("setId"));
+            flashcards.add(flashcard);
+        }
+        return flashcards;
+    }
+
+    @Override
+    public List<DueFlashcard> findDueFlashcards(String uid, String setId, Instant now, int limit) {
+        // Never reviewed flashcards have no due time, which sorts before any date
+        String dueAt = UNWOUND_CARD + ".review.dueAt";
+        List<AggregationOperation> stages = unwindFlashcards(uid, setId);
+        stages.add(Aggregation.match(Criteria.where(dueAt).not().gt(now)));
+        stages.add(Aggregation.sort(Sort.by(dueAt)));
+        stages.add(Aggregation.limit(limit)); // Coalesced with the sort into a top-N sort
+        stages.add(context -> new Document("$project", new Document("_id", 0)
+                .append("setId", "$flashcardSets._id").append("flashcard", "$" + UNWOUND_CARD)));
+
+        List<DueFlashcard> due = new ArrayList<>();
+        for (Document document : mongoTemplate.aggregate(Aggregation.newAggregation(stages), User.class,
+                Document.class)) {
+            Flashcard flashcard = mongoTemplate.getConverter().read(Flashcard.class,
+                    document.get("flashcard", Document.class));
+            due.add(new DueFlashcard(document.getString("setId"), flashcard));
+        }
+        return due;
+    }
+
+    @Override
+    public Stream<FlashcardExportRow> streamLibrary(String uid, long offset) {
+        // Unwind sets, then flashcards (keeping empty sets), so each cursor document is one row
+        Document unwindSets = new Document("$unwind", "$" + SETS);
+        Document unwindCards = new Document("$unwind", new Document("path", "$flashcardSets.flashcards")
+                .append("preserveNullAndEmptyArrays", true));
+        Document row = new Document("_id", 0)
+                .append("setId", "$flashcardSets._id")
+                .append("setTitle", "$flashcardSets.title")
+                .append("flashcardId", "$flashcardSets.flashcards._id")
+                .append("question", "$flashcardSets.flashcards.question")
+                .append("answer", "$flashcardSets.flashcards.answer");
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(Aggregation.match(Criteria.where("_id").is(uid)));
+        stages.add(context -> unwindSets);
+        stages.add(context -> unwindCards);
+        stages.add(context -> new Document("$project", row));
+        if (offset > 0) {
+            stages.add(Aggregation.skip(offset));
+        }
+
+        return mongoTemplate.aggregateStream(Aggregation.newAggregation(stages), User.class, Document.class)
+                .map(document -> new FlashcardExportRow(document.getString("setId"), document.getString("setTitle"),
+                        document.getString("flashcardId"), document.getString("question"),
+                        document.getString("answer")));
+    }
+
+    @Override
+    public boolean pushFlashcardSet(String uid, FlashcardSet flashcardSet) {
+        if (flashcardSet.getFlashcards() == null) {
+            flashcardSet.setFlashcards(new ArrayList<>()); // Later $push operations need an array
+        }
+        Update update = new Update().push(SETS, flashcardSet).inc(USER_VERSION, 1);
+        UpdateResult result = mongoTemplate.updateFirst(userQuery(uid), update, User.class);
+        return result.getMatchedCount() > 0;
+    }
+
+    @Override
+    public boolean pushFlashcard(String uid, String setId, Flashcard flashcard, Long expectedVersion) {
+        Update update = setUpdate(setId).push(SET_CARDS, flashcard);
+        UpdateResult result = mongoTemplate.updateFirst(setQuery(uid, setId, expectedVersion), update, User.class);
+        return matched(result, setQuery(uid, setId, null), expectedVersion);
+    }
+
+    @Override
+    public Optional<FlashcardSet> pushFlashcards(String uid, String setId, List<Flashcard> flashcards,
+            Long expectedVersion) {
+        Update update = setUpdate(setId);
+        update.push(SET_CARDS).each(flashcards.toArray());
+        return modifyAndReturnSet(setQuery(uid, setId, expectedVersion), update, setId,
+                setQuery(uid, setId, null), expectedVersion);
+    }
+
+    @Override
+    public boolean pushFlashcardBatch(String uid, String setId, List<Flashcard> flashcards) {
+        Update update = setUpdate(setId);
+        update.push(SET_CARDS).each(flashcards.toArray());
+        UpdateResult result = mongoTemplate.updateFirst(setQuery(uid, setId, null), update, User.class);
+        return result.getMatchedCount() > 0;
+    }
+
+    @Override
+    public boolean setFlashcardContent(String uid, String setId, String flashcardId, String question,
+            String answer, Long expectedVersion) {
+        Update update = setUpdate(setId)
+                .set(SET_CARDS + ".$[c].question", question)
+                .set(SET_CARDS + ".$[c].answer", answer)
+                .filterArray(Criteria.where("c._id").is(flashcardId));
+        Query query = cardQuery(uid, setId, flashcardId, expectedVersion, null);
+        UpdateResult result = mongoTemplate.updateFirst(query, update, User.class);
+        return matched(result, cardQuery(uid, setId, flashcardId, null, null), expectedVersion);
+    }
+
+    @Override
+    public boolean setReviewState(String uid, String setId, String flashcardId, Instant expectedReviewedAt,
+            ReviewState review) {
+        Update update = setUpdate(setId)
+                .set(SET_CARDS + ".$[c].review", review)
+                .filterArray(Criteria.where("c._id").is(flashcardId));
+        Criteria current = Criteria.where("review.lastReviewedAt").is(expectedReviewedAt); // null also matches no review
+        Query query = cardQuery(uid, setId, flashcardId, null, current);
+        UpdateResult result = mongoTemplate.updateFirst(query, update, User.class);
+        if (result.getMatchedCount() == 0 && mongoTemplate.exists(cardQuery(uid, setId, flashcardId, null, null),
+                User.class)) {
+            throw new OptimisticLockingFailureException("Flashcard " + flashcardId + " was reviewed concurrently");
+        }
+        return result.getMatchedCount() > 0;
+    }
+
+    @Override
+    public void setReviewStates(List<Flashcard> flashcards, Map<String, Instant> expectedReviewedAt) {
+        Map<List<String>, List<Flashcard>> bySet = new LinkedHashMap<>(); // Flashcards by (user ID, set ID)
+        for (Flashcard flashcard : flashcards) {
+            bySet.computeIfAbsent(List.of(flashcard.getOwnerId(), flashcard.getSetId()), set -> new ArrayList<>())
+                    .add(flashcard);
+        }
+        if (bySet.isEmpty()) {
+            return;
+        }
+
+        // One update per set, each flashcard addressed by its own array filter identifier. The set is
+        // only matched while one of its flashcards is still in the expected state, so the versions of
+        // a set whose flashcards were all reviewed concurrently or removed are left unchanged.
+        BulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, User.class);
+        for (Map.Entry<List<String>, List<Flashcard>> set : bySet.entrySet()) {
+            Update update = setUpdate(set.getKey().get(1));
+            List<Criteria> expected = new ArrayList<>();
+            int c = 0;
+            for (Flashcard flashcard : set.getValue()) {
+                Instant reviewedAt = expectedReviewedAt.get(flashcard.getId()); // null also matches no review
+                update.set(SET_CARDS + ".$[c" + c + "].review", flashcard.getReview());
+                update.filterArray(Criteria.where("c" + c + "._id").is(flashcard.getId())
+                        .and("c" + c + ".review.lastReviewedAt").is(reviewedAt));
+                expected.add(Criteria.where("_id").is(flashcard.getId()).and("review.lastReviewedAt").is(reviewedAt));
+                c++;
+            }
+            Criteria unchanged = Criteria.where("_id").is(set.getKey().get(1))
+                    .and("flashcards").elemMatch(new Criteria().orOperator(expected));
+            operations.updateOne(Query.query(Criteria.where("_id").is(set.getKey().get(0)).and(SETS)
+                    .elemMatch(unchanged)), update);
+        }
+        operations.execute();
+    }
+
+    @Override
+    public Optional<FlashcardSet> pullFlashcard(String uid, String setId, String flashcardId,
+            Long expectedVersion) {
+        Update update = setUpdate(setId).pull(SET_CARDS, new Document("_id", flashcardId));
+        return modifyAndReturnSet(cardQuery(uid, setId, flashcardId, expectedVersion, null), update, setId,
+                cardQuery(uid, setId, flashcardId, null, null), expectedVersion);
+    }
+
+    @Override
+    public Optional<FlashcardSet> setFlashcardSetTitle(String uid, String setId, String title,
+            Long expectedVersion) {
+        Update update = setUpdate(setId).set("flashcardSets.$[s].title", title);
+        return modifyAndReturnSet(setQuery(uid, setId, expectedVersion), update, setId,
+                setQuery(uid, setId, null), expectedVersion);
+    }
+
+    @Override
+    public boolean pullFlashcardSet(String uid, String setId, Long expectedVersion) {
+        Update update = new Update().pull(SETS, new Document("_id", setId)).inc(USER_VERSION, 1);
+        UpdateResult result = mongoTemplate.updateFirst(setQuery(uid, setId, expectedVersion), update, User.class);
+        return matched(result, setQuery(uid, setId, null), expectedVersion);
+    }
+
+    @Override
+    public Optional<Map<String, Long>> replaceFlashcardSets(String uid, Collection<FlashcardSet> sets) {
+        // One array filter identifier per set; the update only matches while every set has its read version
+        List<Criteria> current = new ArrayList<>();
+        Update update = new Update().inc(USER_VERSION, 1);
+        int s = 0;
+        for (FlashcardSet set : sets) {
+            current.add(Criteria.where(SETS).elemMatch(withVersion(Criteria.where("_id").is(set.getId()), set.getVersion())));
+            String path = "flashcardSets.$[s" + s + "]";
+            update.set(path + ".title", set.getTitle())
+                    .set(path + ".flashcards", set.getFlashcards() != null ? set.getFlashcards() : List.of())
+                    .inc(path + ".version", 1)
+                    .filterArray(Criteria.where("s" + s + "._id").is(set.getId()));
+            s++;
+        }
+        Query query = Query.query(Criteria.where("_id").is(uid).andOperator(current));
+        query.fields().include(SETS + "._id").include(SETS + ".version"); // Only the new versions are returned
+        User updated = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                User.class);
+        if (updated != null) {
+            Set<String> replaced = sets.stream().map(FlashcardSet::getId).collect(Collectors.toSet());
+            Map<String, Long> versions = new LinkedHashMap<>();
+            for (FlashcardSet set : updated.getFlashcardSets()) {
+                if (replaced.contains(set.getId())) {
+                    versions.put(set.getId(), set.getVersion());
+                }
+            }
+            return Optional.of(versions);
+        }
+        if (mongoTemplate.exists(userQuery(uid), User.class)) {
+            throw new OptimisticLockingFailureException("Flashcard sets of user " + uid + " changed concurrently");
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Applies the update and returns only the affected flashcard set from the post-image,
+     * projected with $elemMatch so the rest of the user's library is never transferred.
+     * A conditional update that matched nothing is a conflict if the target exists without the condition.
+     */
+    private Optional<FlashcardSet> modifyAndReturnSet(Query query, Update update, String setId, Query target,
+            Long expectedVersion) {
+        query.fields().elemMatch(SETS, Criteria.where("_id").is(setId));
+        User updated = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+                User.class);
+        if (updated == null) {
+            checkConflict(target, expectedVersion);
+        }
+        return firstSet(updated);
+    }
+
+    /**
+     * Tells whether an update matched its target, throwing if a conditional update missed an existing target.
+     */
+    private boolean matched(UpdateResult result, Query target, Long expectedVersion) {
+        if (result.getMatchedCount() > 0) {
+            return true;
+        }
+        checkConflict(target, expectedVersion);
+        return false;
+    }
+
+    private void checkConflict(Query target, Long expectedVersion) {
+        if (expectedVersion != null && mongoTemplate.exists(target, User.class)) {
+            throw new OptimisticLockingFailureException("Flashcard set does not have version " + expectedVersion);
+        }
+    }
+
+    /**
+     * Starts an update of one set that increments the versions of the set and of its user.
+     */
+    static Update setUpdate(String setId) {
+        return new Update().inc(SET_VERSION, 1).inc(USER_VERSION, 1).filterArray(setFilter(setId));
+    }
+
+    /**
+     * Starts a pipeline yielding one document per flashcard of the user, optionally of one set only.
+     */
+    static List<AggregationOperation> unwindFlashcards(String uid, String setId) {
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(Aggregation.match(Criteria.where("_id").is(uid)));
+        stages.add(Aggregation.unwind(SETS));
+        if (setId != null) {
+            stages.add(Aggregation.match(Criteria.where("flashcardSets._id").is(setId)));
+        }
+        stages.add(Aggregation.unwind(UNWOUND_CARD));
+        return stages;
+    }
+
+    static Optional<FlashcardSet> firstSet(User projected) {
+        if (projected == null || projected.getFlashcardSets() == null || projected.getFlashcardSets().isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(projected.getFlashcardSets().get(0));
+    }
+
+    static Query userQuery(String uid) {
+        return Query.query(Criteria.where("_id").is(uid));
+    }
+
+    private static Query setQuery(String uid, String setId) {
+        return Query.query(Criteria.where("_id").is(uid).and("flashcardSets._id").is(setId));
+    }
+
+    static Query setQuery(String uid, String setId, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return setQuery(uid, setId);
+        }
+        return Query.query(Criteria.where("_id").is(uid).and(SETS)
+                .elemMatch(withVersion(Criteria.where("_id").is(setId), expectedVersion)));
+    }
+
+    /**
+     * Matches a user holding the flashcard in the set, optionally with a set version and a condition on the flashcard.
+     */
+    static Query cardQuery(String uid, String setId, String flashcardId, Long expectedVersion,
+            Criteria card) {
+        Criteria set = withVersion(Criteria.where("_id").is(setId), expectedVersion);
+        if (card == null) {
+            set = set.and("flashcards._id").is(flashcardId);
+        } else {
+            set = set.and("flashcards").elemMatch(Criteria.where("_id").is(flashcardId).andOperator(card));
+        }
+        return Query.query(Criteria.where("_id").is(uid).and(SETS).elemMatch(set));
+    }
+
+    /**
+     * Adds a version condition; sets never changed since their creation have no version field and match 0.
+     */
+    private static Criteria withVersion(Criteria set, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return set;
+        }
+        return expectedVersion == 0 ? set.and("version").in(0, null) : set.and("version").is(expectedVersion);
+    }
+
+    private static Criteria setFilter(String setId) {
+        return Criteria.where("s._id").is(setId);
+    }
+}
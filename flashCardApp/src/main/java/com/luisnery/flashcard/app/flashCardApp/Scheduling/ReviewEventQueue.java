@@ -0,0 +1,233 @@
+package com.luisnery.flashcard.app.flashCardApp.Scheduling;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.ReviewEvent;
+
+/**
+ * Durable inbox between the review endpoint and the {@link ReviewEventWriter}, kept in the
+ * reviewEvents collection so an acknowledged event survives a crash of the instance.
+ *
+ * Events are stored under their owner and eventId, so a resubmitted event is stored once. Offering
+ * never waits for the writer: when the inbox holds queue-capacity events, the remaining events are
+ * refused and the client is expected to retry them later, which applies backpressure while the
+ * writer catches up.
+ *
+ * The writer claims events for a lease, so an event claimed by an instance that died is claimed
+ * again once the lease expires. Each claim counts as an attempt; a failed event is retried after
+ * an exponentially growing delay, and after max-attempts it is moved to the reviewEventsFailed
+ * collection instead of blocking the inbox.
+ */
+@Component
+public class ReviewEventQueue {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewEventQueue.class);
+
+    private static final String EVENTS = "reviewEvents";
+    private static final String FAILED_EVENTS = "reviewEventsFailed";
+    private static final int DUPLICATE_KEY = 11000; // Event stored by an earlier submission
+    private static final int MAX_BACKOFF_DOUBLINGS = 10; // Longest delay is retry-delay * 1024
+
+    private final MongoTemplate mongoTemplate;
+    private final int capacity;
+    private final Duration retryDelay;
+    private final int maxAttempts;
+
+    /**
+     * Creates the queue.
+     *
+     * @param mongoTemplate the template used to store the events.
+     * @param capacity      the maximum number of stored events.
+     * @param retryDelay    the delay before an event that failed once is retried, doubled after each failure.
+     * @param maxAttempts   the number of attempts after which a failing event is set aside.
+     */
+    public ReviewEventQueue(MongoTemplate mongoTemplate,
+            @Value("${flashcards.reviews.queue-capacity:10000}") int capacity,
+            @Value("${flashcards.reviews.retry-delay:1s}") Duration retryDelay,
+            @Value("${flashcards.reviews.max-attempts:5}") int maxAttempts) {
+        this.mongoTemplate = mongoTemplate;
+        this.capacity = capacity;
+        this.retryDelay = retryDelay;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Creates the index the writer claims events with in the background once the application is
+     * up. Without it claims scan the inbox, so an unreachable database does not stop the application.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexesOnStartup() {
+        try {
+            mongoTemplate.indexOps(EVENTS).ensureIndex(new Index("availableAt", Sort.Direction.ASC)
+                    .named("available"));
+        } catch (DataAccessException e) {
+            log.warn("Could not create the review event index, it is created on the next startup", e);
+        }
+    }
+
+    /**
+     * Stores events in order, stopping at the first event that does not fit. Returns once the
+     * accepted events are written, so they are applied even if this instance stops.
+     *
+     * @param events the events to store, with their owner.
+     * @return the number of leading events that were accepted.
+     * @throws DataAccessException if the events could not be stored.
+     */
+    public int offer(List<ReviewEvent> events) {
+        long free = capacity - mongoTemplate.estimatedCount(EVENTS);
+        int accepted = (int) Math.max(0, Math.min(events.size(), free)); // Full, the client retries the rest
+        if (accepted == 0) {
+            return 0;
+        }
+        Date now = new Date();
+        List<Document> documents = new ArrayList<>(accepted);
+        for (ReviewEvent event : events.subList(0, accepted)) {
+            documents.add(new Document("_id", id(event.getOwnerId(), event.getEventId()))
+                    .append("setId", event.getSetId())
+                    .append("flashcardId", event.getFlashcardId())
+                    .append("grade", event.getGrade())
+                    .append("reviewedAt", Date.from(event.getReviewedAt()))
+                    .append("availableAt", now)
+                    .append("attempts", 0));
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EVENTS).insert(documents).execute();
+        } catch (BulkOperationException e) {
+            if (e.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                throw e;
+            }
+        }
+        return accepted;
+    }
+
+    /**
+     * Gets the number of stored events, estimated from the collection's metadata.
+     *
+     * @return the queue size.
+     */
+    public long size() {
+        return mongoTemplate.estimatedCount(EVENTS);
+    }
+
+    /**
+     * Claims the events available the longest, so no other writer takes them before the lease expires.
+     *
+     * @param max   the maximum number of events to claim.
+     * @param lease how long the events are reserved for this writer.
+     * @return the claimed events, in the order they became available.
+     */
+    List<ReviewEvent> claim(int max, Duration lease) {
+        Date now = new Date();
+        Query available = Query.query(Criteria.where("availableAt").lte(now)).with(Sort.by("availableAt")).limit(max);
+        available.fields().include("_id");
+        List<Object> ids = mongoTemplate.find(available, Document.class, EVENTS).stream()
+                .map(document -> document.get("_id")).toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        ObjectId claim = new ObjectId();
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(ids).and("availableAt").lte(now)),
+                new Update().set("availableAt", Date.from(now.toInstant().plus(lease))).set("claim", claim)
+                        .inc("attempts", 1),
+                EVENTS);
+        return mongoTemplate.find(Query.query(Criteria.where("claim").is(claim)).with(Sort.by("availableAt")),
+                Document.class, EVENTS).stream().map(ReviewEventQueue::toEvent).toList();
+    }
+
+    /**
+     * Removes events that were applied, or that no longer apply to any flashcard.
+     *
+     * @param events the claimed events.
+     */
+    void complete(List<ReviewEvent> events) {
+        if (!events.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids(events))), EVENTS);
+        }
+    }
+
+    /**
+     * Makes claimed events available again after a delay growing with their attempts, moving
+     * those that used up their attempts to the failed events.
+     *
+     * @param events the claimed events.
+     */
+    void retry(List<ReviewEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Instant now = Instant.now();
+        List<Document> failed = new ArrayList<>();
+        BulkOperations retries = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, EVENTS);
+        boolean retried = false;
+        for (Document document : mongoTemplate.find(Query.query(Criteria.where("_id").in(ids(events))),
+                Document.class, EVENTS)) {
+            int attempts = document.getInteger("attempts", 0);
+            if (attempts >= maxAttempts) {
+                failed.add(document.append("failedAt", Date.from(now)));
+                continue;
+            }
+            Duration delay = retryDelay.multipliedBy(1L << Math.min(attempts - 1, MAX_BACKOFF_DOUBLINGS));
+            retries.updateOne(Query.query(Criteria.where("_id").is(document.get("_id"))),
+                    new Update().set("availableAt", Date.from(now.plus(delay))).unset("claim"));
+            retried = true;
+        }
+        if (retried) {
+            retries.execute();
+        }
+        if (!failed.isEmpty()) {
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FAILED_EVENTS).insert(failed).execute();
+            } catch (BulkOperationException e) {
+                if (e.getErrors().stream().anyMatch(error -> error.getCode() != DUPLICATE_KEY)) {
+                    throw e;
+                }
+            }
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(failed.stream()
+                    .map(document -> document.get("_id")).toList())), EVENTS);
+            log.warn("Set aside {} review events that failed {} times in {}", failed.size(), maxAttempts,
+                    FAILED_EVENTS);
+        }
+    }
+
+    private static List<Document> ids(List<ReviewEvent> events) {
+        return events.stream().map(event -> id(event.getOwnerId(), event.getEventId())).toList();
+    }
+
+    private static Document id(String uid, String eventId) {
+        return new Document("ownerId", uid).append("eventId", eventId); // Always in this order, to match
+    }
+
+    private static ReviewEvent toEvent(Document document) {
+        Document id = document.get("_id", Document.class);
+        ReviewEvent event = new ReviewEvent(id.getString("eventId"), document.getString("setId"),
+                document.getString("flashcardId"), document.getInteger("grade"),
+                document.getDate("reviewedAt").toInstant());
+        event.setOwnerId(id.getString("ownerId"));
+        return event;
+    }
+}
@@ -0,0 +1,266 @@
+package com.luisnery.flashcard.app.flashCardApp.Scheduling;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.luisnery.flashcard.app.flashCardApp.Events.LibraryEventPublisher;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryEvent;
+import com.luisnery.flashcard.app.flashCardApp.Model.ReviewEvent;
+import com.luisnery.flashcard.app.flashCardApp.Model.ReviewState;
+import com.luisnery.flashcard.app.flashCardApp.Repository.FlashcardStore;
+import com.luisnery.flashcard.app.flashCardApp.Sync.LibraryChangeLog;
+import com.luisnery.flashcard.app.flashCardApp.Sync.PendingChanges;
+
+/**
+ * Background writer applying stored review events to the flashcards' review state.
+ *
+ * Every flush-interval, or right away while a full batch keeps arriving, the writer claims up to
+ * flush-size events from the {@link ReviewEventQueue}. A flush reads the affected flashcards once
+ * per user, applies all of a flashcard's events in answer order with the {@link Sm2Scheduler}, and
+ * stores the results with one bulk write, however many answers were given.
+ *
+ * The write only replaces a review state that is still the one read, so a flashcard reviewed in
+ * the meantime keeps its state; the flashcards are read again to find out which were written, and
+ * the events of the others are retried. Written flashcards are recorded in the change log and
+ * published like any other change. Events are only removed from the queue once applied, so
+ * delivery is at-least-once; replays are harmless because the IDs of the latest events applied
+ * to a flashcard are stored with its review state and events already recorded there are skipped.
+ */
+@Component
+public class ReviewEventWriter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ReviewEventWriter.class);
+
+    private static final int RECENT_EVENT_IDS = 32; // Idempotency keys kept per flashcard
+
+    private final ReviewEventQueue queue;
+    private final FlashcardStore flashcardStore;
+    private final Sm2Scheduler scheduler;
+    private final LibraryChangeLog changeLog;
+    private final LibraryEventPublisher eventPublisher;
+    private final int flushSize;
+    private final Duration flushInterval;
+    private final Duration lease;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * Creates the writer.
+     *
+     * @param queue          the queue the events are taken from.
+     * @param flashcardStore the store holding the flashcards.
+     * @param scheduler      the scheduler computing the review states.
+     * @param changeLog      the change log the reviewed flashcards are recorded in.
+     * @param eventPublisher the publisher notifying the users' devices.
+     * @param flushSize      the maximum number of events applied at once.
+     * @param flushInterval  the longest time events wait before being applied.
+     * @param lease          how long claimed events are reserved for this writer.
+     */
+    public ReviewEventWriter(ReviewEventQueue queue, FlashcardStore flashcardStore, Sm2Scheduler scheduler,
+            LibraryChangeLog changeLog, LibraryEventPublisher eventPublisher,
+            @Value("${flashcards.reviews.flush-size:500}") int flushSize,
+            @Value("${flashcards.reviews.flush-interval:1s}") Duration flushInterval,
+            @Value("${flashcards.reviews.lease:1m}") Duration lease) {
+        this.queue = queue;
+        this.flashcardStore = flashcardStore;
+        this.scheduler = scheduler;
+        this.changeLog = changeLog;
+        this.eventPublisher = eventPublisher;
+        this.flushSize = flushSize;
+        this.flushInterval = flushInterval;
+        this.lease = lease;
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        thread = new Thread(this::run, "review-event-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false; // Not interrupted, the driver would abandon a write in progress
+        LockSupport.unpark(thread);
+        try {
+            thread.join(lease.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096; // Stop after the web server, once no more events arrive
+    }
+
+    private void run() {
+        while (running) {
+            List<ReviewEvent> claimed;
+            try {
+                claimed = queue.claim(flushSize, lease);
+            } catch (RuntimeException e) {
+                log.warn("Claiming review events failed, retrying", e);
+                claimed = List.of();
+            }
+            if (!claimed.isEmpty()) {
+                flushQuietly(claimed);
+            }
+            if (claimed.size() < flushSize) {
+                LockSupport.parkNanos(flushInterval.toNanos()); // Queue drained, wait for more events
+            }
+        }
+        // Shutdown: events still stored are applied by the next writer to claim them
+    }
+
+    /**
+     * Flushes claimed events, handing them back to the queue for a later attempt if the flush failed.
+     */
+    private void flushQuietly(List<ReviewEvent> claimed) {
+        try {
+            flush(claimed);
+        } catch (RuntimeException e) {
+            log.warn("Writing {} review events failed, retrying", claimed.size(), e);
+            try {
+                queue.retry(claimed);
+            } catch (RuntimeException retryFailure) {
+                log.warn("Could not release {} review events, they are retried once their lease expires",
+                        claimed.size(), retryFailure);
+            }
+        }
+    }
+
+    /**
+     * Applies the events to the review state of their flashcards, writes all changed flashcards at
+     * once and completes or retries each event.
+     */
+    void flush(List<ReviewEvent> events) {
+        Map<String, List<ReviewEvent>> byUser = new LinkedHashMap<>();
+        for (ReviewEvent event : events) {
+            byUser.computeIfAbsent(event.getOwnerId(), uid -> new ArrayList<>()).add(event);
+        }
+
+        List<Flashcard> changed = new ArrayList<>();
+        Map<String, Instant> expectedReviewedAt = new HashMap<>(); // Null values for flashcards never reviewed
+        Map<String, List<ReviewEvent>> appliedEvents = new HashMap<>(); // By flashcard ID, in answer order
+        Map<String, List<Flashcard>> changedByUser = new LinkedHashMap<>();
+        List<ReviewEvent> completed = new ArrayList<>();
+        for (Map.Entry<String, List<ReviewEvent>> user : byUser.entrySet()) {
+            List<ReviewEvent> userEvents = user.getValue();
+            userEvents.sort(Comparator.comparing(ReviewEvent::getReviewedAt)); // Stable, keeps arrival order on ties
+
+            LinkedHashSet<String> flashcardIds = new LinkedHashSet<>();
+            userEvents.forEach(event -> flashcardIds.add(event.getFlashcardId()));
+            Map<String, Flashcard> flashcards = new HashMap<>();
+            for (Flashcard flashcard : flashcardStore.findFlashcardsById(user.getKey(), flashcardIds)) {
+                flashcards.put(flashcard.getId(), flashcard);
+            }
+
+            LinkedHashMap<String, Flashcard> userChanged = new LinkedHashMap<>();
+            for (ReviewEvent event : userEvents) {
+                Flashcard flashcard = flashcards.get(event.getFlashcardId());
+                if (flashcard == null || !flashcard.getSetId().equals(event.getSetId())) {
+                    completed.add(event); // Flashcard removed or moved since the answer, nothing to schedule
+                    continue;
+                }
+                ReviewState current = flashcard.getReview();
+                if (current != null && current.getRecentEventIds() != null
+                        && current.getRecentEventIds().contains(event.getEventId())) {
+                    completed.add(event); // Already applied by an earlier delivery
+                    continue;
+                }
+                if (!userChanged.containsKey(flashcard.getId())) {
+                    expectedReviewedAt.put(flashcard.getId(), current == null ? null : current.getLastReviewedAt());
+                }
+                ReviewState next = scheduler.review(current, event.getGrade(), event.getReviewedAt());
+                List<String> recent = next.getRecentEventIds();
+                recent.add(event.getEventId());
+                if (recent.size() > RECENT_EVENT_IDS) {
+                    recent.subList(0, recent.size() - RECENT_EVENT_IDS).clear();
+                }
+                flashcard.setReview(next);
+                userChanged.put(flashcard.getId(), flashcard);
+                appliedEvents.computeIfAbsent(flashcard.getId(), id -> new ArrayList<>()).add(event);
+            }
+            if (!userChanged.isEmpty()) {
+                changed.addAll(userChanged.values());
+                changedByUser.put(user.getKey(), new ArrayList<>(userChanged.values()));
+            }
+        }
+
+        if (changed.isEmpty()) {
+            queue.complete(completed);
+            return;
+        }
+        Map<String, PendingChanges> pending = begin(changedByUser.keySet());
+        // From here on a failure leaves the changes open, so a write that happened is detected as a lost change
+        flashcardStore.updateReviewStates(changed, expectedReviewedAt);
+
+        List<ReviewEvent> conflicted = new ArrayList<>();
+        for (Map.Entry<String, List<Flashcard>> user : changedByUser.entrySet()) {
+            List<String> flashcardIds = user.getValue().stream().map(Flashcard::getId).toList();
+            List<LibraryEvent> reviewed = new ArrayList<>();
+            for (Flashcard stored : flashcardStore.findFlashcardsById(user.getKey(), flashcardIds)) {
+                List<ReviewEvent> cardEvents = appliedEvents.get(stored.getId());
+                String lastEventId = cardEvents.get(cardEvents.size() - 1).getEventId();
+                ReviewState review = stored.getReview();
+                if (review != null && review.getRecentEventIds() != null
+                        && review.getRecentEventIds().contains(lastEventId)) {
+                    completed.addAll(cardEvents);
+                    reviewed.add(LibraryEvent.cardUpdated(stored.getSetId(), stored));
+                } else {
+                    conflicted.addAll(cardEvents); // Reviewed in the meantime, applied again on the new state
+                }
+                appliedEvents.remove(stored.getId());
+            }
+            PendingChanges changes = pending.get(user.getKey());
+            changes.recordAll(reviewed).forEach(event -> eventPublisher.publish(changes.getUid(), event));
+        }
+        appliedEvents.values().forEach(completed::addAll); // Flashcards removed since they were read
+
+        queue.retry(conflicted);
+        queue.complete(completed);
+        log.debug("Applied {} of {} review events to {} flashcards, {} to retry", completed.size(), events.size(),
+                changed.size(), conflicted.size());
+    }
+
+    /**
+     * Opens the changes of each user before their flashcards are written, closing those already
+     * opened if one cannot be.
+     */
+    private Map<String, PendingChanges> begin(Collection<String> uids) {
+        Map<String, PendingChanges> pending = new HashMap<>();
+        try {
+            for (String uid : uids) {
+                pending.put(uid, changeLog.begin(uid));
+            }
+        } catch (RuntimeException e) {
+            pending.values().forEach(PendingChanges::close);
+            throw e;
+        }
+        return pending;
+    }
+}
@@ -0,0 +1,75 @@
+package com.luisnery.flashcard.app.flashCardApp.Scheduling;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+
+import org.springframework.stereotype.Component;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.ReviewState;
+
+/**
+ * Computes the next review of a flashcard with the SM-2 algorithm.
+ *
+ * Each answer is graded from 0 (complete blackout) to 5 (perfect recall). A grade of 3 or
+ * more counts as recalled: the interval grows from 1 to 6 days and is then multiplied by the
+ * ease. A lower grade starts the flashcard over with a 1 day interval. The ease moves with
+ * every grade and never drops below 1.3.
+ */
+@Component
+public class Sm2Scheduler {
+
+    public static final int MIN_GRADE = 0;
+    public static final int MAX_GRADE = 5;
+
+    private static final double INITIAL_EASE = 2.5;
+    private static final double MIN_EASE = 1.3;
+    private static final int PASSING_GRADE = 3;
+
+    /**
+     * Computes the review state after answering a flashcard.
+     *
+     * @param current the current review state, or null if the flashcard was never reviewed.
+     * @param grade   the grade of the answer, from 0 to 5.
+     * @param now     the time of the review.
+     * @return the new review state.
+     * @throws IllegalArgumentException if the grade is out of range.
+     */
+    public ReviewState review(ReviewState current, int grade, Instant now) {
+        if (grade < MIN_GRADE || grade > MAX_GRADE) {
+            throw new IllegalArgumentException("Grade must be between " + MIN_GRADE + " and " + MAX_GRADE);
+        }
+        double ease = current != null ? current.getEase() : INITIAL_EASE;
+        int interval = current != null ? current.getIntervalDays() : 0;
+        int repetitions = current != null ? current.getRepetitions() : 0;
+        int lapses = current != null ? current.getLapses() : 0;
+
+        if (grade >= PASSING_GRADE) {
+            if (repetitions == 0) {
+                interval = 1;
+            } else if (repetitions == 1) {
+                interval = 6;
+            } else {
+                interval = (int) Math.round(interval * ease);
+            }
+            repetitions++;
+        } else {
+            if (repetitions > 0) {
+                lapses++; // Forgotten after having been recalled
+            }
+            repetitions = 0;
+            interval = 1;
+        }
+        int miss = MAX_GRADE - grade;
+        ease = Math.max(MIN_EASE, ease + 0.1 - miss * (0.08 + miss * 0.02));
+
+        Instant reviewedAt = now.truncatedTo(ChronoUnit.MILLIS); // MongoDB stores milliseconds
+        ReviewState next = new ReviewState(ease, interval, repetitions, lapses, reviewedAt,
+                reviewedAt.plus(Duration.ofDays(interval)));
+        if (current != null && current.getRecentEventIds() != null) {
+            next.setRecentEventIds(new ArrayList<>(current.getRecentEventIds()));
+        }
+        return next;
+    }
+}
@@ -0,0 +1,272 @@
+package com.luisnery.flashcard.app.flashCardApp.Search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.TextCriteria;
+import org.springframework.data.mongodb.core.query.TextQuery;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSearchEntry;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSearchHit;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSearchPage;
+import com.luisnery.flashcard.app.flashCardApp.Model.SearchMatch;
+
+/**
+ * Full-text index over the questions and answers of every user's flashcards.
+ *
+ * Flashcards are copied into the flashcardSearch collection, which carries a MongoDB text
+ * index prefixed by ownerId, so a search only scans the inverted index entries of one user.
+ * The copy is independent of the storage mode and is kept up to date by the paths that add,
+ * update and remove flashcards. Index writes that fail are logged rather than failing the
+ * request; {@link SearchIndexRebuild} repairs the index from the library.
+ */
+@Component
+public class FlashcardSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(FlashcardSearchIndex.class);
+
+    private static final int QUESTION_WEIGHT = 3; // A term in the question counts three times one in the answer
+    private static final Pattern QUERY_TOKEN = Pattern.compile("(-?)(\"[^\"]*\"?|[^\\s\"]+)");
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private final MongoTemplate mongoTemplate;
+    private final String language;
+
+    /**
+     * Creates the index.
+     *
+     * @param mongoTemplate the template used to read and write the flashcardSearch collection.
+     * @param language      the default language of the text index, used for stemming and stop words.
+     */
+    public FlashcardSearchIndex(MongoTemplate mongoTemplate,
+            @Value("${flashcards.search.language:english}") String language) {
+        this.mongoTemplate = mongoTemplate;
+        this.language = language;
+    }
+
+    /**
+     * Creates the indexes in the background once the application is up. Searches fail until the
+     * text index exists, but flashcards can still be managed, so an unreachable database does not
+     * stop the application.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexesOnStartup() {
+        try {
+            createIndexes();
+        } catch (DataAccessException e) {
+            log.warn("Could not create the search indexes, they are created on the next startup", e);
+        }
+    }
+
+    /**
+     * Creates the text index and the unique (ownerId, setId, flashcardId) index of the
+     * flashcardSearch collection. The latter identifies the entries written by {@link #write}
+     * and serves the removals of a set's entries.
+     */
+    public void createIndexes() {
+        // Spring's TextIndexDefinition cannot put an equality field before the text fields
+        IndexDefinition text = new IndexDefinition() {
+            @Override
+            public Document getIndexKeys() {
+                return new Document("ownerId", 1).append("question", "text").append("answer", "text");
+            }
+
+            @Override
+            public Document getIndexOptions() {
+                return new Document("name", "owner_text")
+                        .append("weights", new Document("question", QUESTION_WEIGHT).append("answer", 1))
+                        .append("default_language", language);
+            }
+        };
+        mongoTemplate.indexOps(FlashcardSearchEntry.class).ensureIndex(text);
+        mongoTemplate.indexOps(FlashcardSearchEntry.class).ensureIndex(
+                new Index().on("ownerId", Sort.Direction.ASC).on("setId", Sort.Direction.ASC)
+                        .on("flashcardId", Sort.Direction.ASC).unique().named("owner_set_card"));
+    }
+
+    /**
+     * Searches the questions and answers of a user's flashcards, most relevant first.
+     * The query follows MongoDB text search syntax: any of the words matches, "quoted phrases"
+     * must all appear and words prefixed with - must not appear.
+     *
+     * @param uid   the user's ID.
+     * @param query the search query.
+     * @param page  the zero-based page number.
+     * @param size  the number of hits per page.
+     * @return the requested page of hits.
+     */
+    public FlashcardSearchPage search(String uid, String query, int page, int size) {
+        Query textQuery = TextQuery.queryText(TextCriteria.forLanguage(language).matching(query))
+                .sortByScore()
+                .addCriteria(Criteria.where("ownerId").is(uid))
+                .with(Sort.by("_id")) // Stable order among equal scores, so pages do not overlap
+                .skip((long) page * size)
+                .limit(size + 1); // One extra hit tells whether another page follows
+
+        List<FlashcardSearchEntry> entries = mongoTemplate.find(textQuery, FlashcardSearchEntry.class);
+        boolean hasMore = entries.size() > size;
+        List<String> terms = highlightTerms(query);
+        List<FlashcardSearchHit> hits = new ArrayList<>();
+        for (FlashcardSearchEntry entry : entries.subList(0, Math.min(size, entries.size()))) {
+            Flashcard flashcard = new Flashcard(entry.getQuestion(), entry.getAnswer());
+            flashcard.setId(entry.getFlashcardId());
+            List<SearchMatch> matches = new ArrayList<>();
+            addMatches(matches, "question", entry.getQuestion(), terms);
+            addMatches(matches, "answer", entry.getAnswer(), terms);
+            hits.add(new FlashcardSearchHit(entry.getSetId(), flashcard,
+                    entry.getScore() != null ? entry.getScore() : 0, matches));
+        }
+        return new FlashcardSearchPage(hits, page, hasMore);
+    }
+
+    /**
+     * Adds or replaces the entries of flashcards of a set.
+     *
+     * @param uid        the user's ID.
+     * @param setId      the ID of the flashcard set.
+     * @param flashcards the flashcards to index.
+     */
+    public void index(String uid, String setId, Collection<Flashcard> flashcards) {
+        List<FlashcardSearchEntry> entries = new ArrayList<>(flashcards.size());
+        for (Flashcard flashcard : flashcards) {
+            entries.add(new FlashcardSearchEntry(uid, setId, flashcard.getId(), flashcard.getQuestion(),
+                    flashcard.getAnswer()));
+        }
+        try {
+            write(entries);
+        } catch (DataAccessException e) {
+            log.warn("Could not index {} flashcards of set {} of user {}", entries.size(), setId, uid, e);
+        }
+    }
+
+    /**
+     * Removes the entry of a flashcard.
+     *
+     * @param uid         the user's ID.
+     * @param setId       the ID of the flashcard set.
+     * @param flashcardId the ID of the flashcard.
+     */
+    public void remove(String uid, String setId, String flashcardId) {
+        removeMatching(Criteria.where("ownerId").is(uid).and("setId").is(setId).and("flashcardId").is(flashcardId),
+                uid);
+    }
+
+    /**
+     * Removes the entries of several flashcards of a set with one delete.
+     *
+     * @param uid          the user's ID.
+     * @param setId        the ID of the flashcard set.
+     * @param flashcardIds the IDs of the flashcards, possibly none.
+     */
+    public void remove(String uid, String setId, Collection<String> flashcardIds) {
+        if (!flashcardIds.isEmpty()) {
+            removeMatching(Criteria.where("ownerId").is(uid).and("setId").is(setId).and("flashcardId")
+                    .in(flashcardIds), uid);
+        }
+    }
+
+    /**
+     * Removes the entries of every flashcard of a set.
+     *
+     * @param uid   the user's ID.
+     * @param setId the ID of the flashcard set.
+     */
+    public void removeSet(String uid, String setId) {
+        removeMatching(Criteria.where("ownerId").is(uid).and("setId").is(setId), uid);
+    }
+
+    /**
+     * Removes the entries of every flashcard of a user.
+     *
+     * @param uid the user's ID.
+     */
+    public void removeLibrary(String uid) {
+        removeMatching(Criteria.where("ownerId").is(uid), uid);
+    }
+
+    /**
+     * Upserts entries with one unordered bulk write, matching each by its owner, set and flashcard
+     * IDs so an entry never replaces one of another set or user.
+     *
+     * @param entries the entries to write, possibly none.
+     */
+    void write(List<FlashcardSearchEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        BulkOperations operations = mongoTemplate.bulkOps(BulkMode.UNORDERED, FlashcardSearchEntry.class);
+        for (FlashcardSearchEntry entry : entries) {
+            Query key = Query.query(Criteria.where("ownerId").is(entry.getOwnerId()).and("setId")
+                    .is(entry.getSetId()).and("flashcardId").is(entry.getFlashcardId()));
+            operations.replaceOne(key, entry, FindAndReplaceOptions.options().upsert());
+        }
+        operations.execute();
+    }
+
+    private void removeMatching(Criteria criteria, String uid) {
+        try {
+            mongoTemplate.remove(Query.query(criteria), FlashcardSearchEntry.class);
+        } catch (DataAccessException e) {
+            log.warn("Could not remove search entries of user {}", uid, e);
+        }
+    }
+
+    /**
+     * Extracts the lower-cased words to highlight from a query, leaving out negated words and phrases.
+     */
+    static List<String> highlightTerms(String query) {
+        List<String> terms = new ArrayList<>();
+        Matcher token = QUERY_TOKEN.matcher(query);
+        while (token.find()) {
+            if (!token.group(1).isEmpty()) {
+                continue; // Negated, so it does not appear in any hit
+            }
+            Matcher word = WORD.matcher(token.group(2));
+            while (word.find()) {
+                terms.add(word.group().toLowerCase(Locale.ROOT));
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Adds the words of a text that begin with a search term. Words matched only through
+     * stemming (e.g. "ran" for "run") count towards the score but are not highlighted.
+     */
+    static void addMatches(List<SearchMatch> matches, String field, String text, List<String> terms) {
+        if (text == null || terms.isEmpty()) {
+            return;
+        }
+        Matcher word = WORD.matcher(text);
+        while (word.find()) {
+            String lower = word.group().toLowerCase(Locale.ROOT);
+            if (terms.stream().anyMatch(lower::startsWith)) {
+                matches.add(new SearchMatch(field, word.start(), word.end()));
+            }
+        }
+    }
+}
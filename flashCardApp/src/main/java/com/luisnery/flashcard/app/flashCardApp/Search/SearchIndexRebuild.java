@@ -0,0 +1,95 @@
+package com.luisnery.flashcard.app.flashCardApp.Search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardExportRow;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSearchEntry;
+import com.luisnery.flashcard.app.flashCardApp.Model.User;
+import com.luisnery.flashcard.app.flashCardApp.Repository.FlashcardStore;
+
+/**
+ * One-shot job rebuilding the search index from every user's library.
+ *
+ * Runs at startup when flashcards.search.rebuild=true, e.g. to index the flashcards created
+ * before search was introduced or to repair index writes that failed. Each library is read
+ * from the active {@link FlashcardStore}'s cursor and written in fixed-size bulk upserts after
+ * the user's previous entries are dropped, so the job works in both storage modes.
+ */
+@Component
+@ConditionalOnProperty(name = "flashcards.search.rebuild", havingValue = "true")
+public class SearchIndexRebuild implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchIndexRebuild.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final FlashcardStore flashcardStore;
+    private final FlashcardSearchIndex searchIndex;
+    private final int batchSize;
+
+    /**
+     * Creates the rebuild job.
+     *
+     * @param mongoTemplate  the template used to list the users.
+     * @param flashcardStore the store the libraries are read from.
+     * @param searchIndex    the index to rebuild.
+     * @param batchSize      the number of entries sent per bulk write.
+     */
+    public SearchIndexRebuild(MongoTemplate mongoTemplate, FlashcardStore flashcardStore,
+            FlashcardSearchIndex searchIndex, @Value("${flashcards.search.rebuild.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.flashcardStore = flashcardStore;
+        this.searchIndex = searchIndex;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        searchIndex.createIndexes();
+
+        Query userIds = new Query();
+        userIds.fields().include("_id"); // The libraries are read through the store
+        long users = 0;
+        long indexed = 0;
+        try (Stream<User> stream = mongoTemplate.stream(userIds, User.class)) {
+            for (User user : (Iterable<User>) stream::iterator) {
+                searchIndex.removeLibrary(user.getId());
+                indexed += rebuild(user.getId());
+                users++;
+            }
+        }
+        log.info("Search index rebuild indexed {} flashcards of {} users", indexed, users);
+    }
+
+    private long rebuild(String uid) {
+        List<FlashcardSearchEntry> batch = new ArrayList<>();
+        long indexed = 0;
+        try (Stream<FlashcardExportRow> rows = flashcardStore.streamLibrary(uid, 0)) {
+            for (FlashcardExportRow row : (Iterable<FlashcardExportRow>) rows::iterator) {
+                if (row.getFlashcardId() == null) {
+                    continue; // Empty set
+                }
+                batch.add(new FlashcardSearchEntry(uid, row.getSetId(), row.getFlashcardId(), row.getQuestion(),
+                        row.getAnswer()));
+                if (batch.size() >= batchSize) {
+                    searchIndex.write(batch);
+                    indexed += batch.size();
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+        searchIndex.write(batch);
+        return indexed + batch.size();
+    }
+}
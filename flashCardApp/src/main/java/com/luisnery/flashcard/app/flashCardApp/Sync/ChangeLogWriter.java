@@ -0,0 +1,172 @@
+package com.luisnery.flashcard.app.flashCardApp.Sync;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryEvent;
+
+/**
+ * Background writer inserting numbered change log entries, so a request only waits for the
+ * numbers of its changes, not for their entries.
+ *
+ * Entries are inserted in unordered batches. Entries already inserted by an earlier attempt are
+ * skipped, and a failed batch is retried with exponential backoff. Entries still failing after the
+ * last attempt, or that find the queue full, are dropped: their numbers stay missing, which sends
+ * the user's devices back to a full download once the settle period has passed. Entries still
+ * queued are written on shutdown.
+ */
+@Component
+public class ChangeLogWriter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeLogWriter.class);
+
+    private static final int BATCH_SIZE = 500; // Entries per insert
+    private static final int MAX_ATTEMPTS = 5; // Inserts of an entry before it is dropped
+    private static final Duration FIRST_BACKOFF = Duration.ofMillis(100); // Doubled after each failure
+    private static final int DUPLICATE_KEY = 11000; // Entry inserted by an earlier attempt
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(100); // Longest wait before noticing a stop
+
+    private final MongoTemplate mongoTemplate;
+    private final BlockingQueue<LibraryEvent> queue;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    /**
+     * Creates the writer.
+     *
+     * @param mongoTemplate the template used to insert the entries.
+     * @param capacity      the number of entries that may wait to be inserted.
+     */
+    public ChangeLogWriter(MongoTemplate mongoTemplate,
+            @Value("${flashcards.sync.queue-capacity:10000}") int capacity) {
+        this.mongoTemplate = mongoTemplate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Queues numbered entries of one user for insertion.
+     *
+     * @param uid     the user's ID.
+     * @param entries the entries.
+     */
+    void write(String uid, List<LibraryEvent> entries) {
+        int dropped = 0;
+        for (LibraryEvent entry : entries) {
+            if (!queue.offer(entry)) {
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            log.warn("Change log queue full, dropped {} changes of user {}", dropped, uid);
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        thread = new Thread(this::run, "change-log-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false; // Not interrupted, the driver would abandon an insert in progress
+        try {
+            thread.join(Duration.ofSeconds(10).toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192; // Stop after the review writer, which records changes too
+    }
+
+    private void run() {
+        List<LibraryEvent> batch = new ArrayList<>(BATCH_SIZE);
+        while (running) {
+            LibraryEvent first;
+            try {
+                first = queue.poll(POLL_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (first == null) {
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, BATCH_SIZE - 1);
+            insert(batch);
+            batch.clear();
+        }
+        // Shutdown: write everything still queued
+        while (queue.drainTo(batch, BATCH_SIZE) > 0) {
+            insert(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Inserts entries, retrying those that failed for another reason than having been inserted before.
+     */
+    void insert(List<LibraryEvent> entries) {
+        List<LibraryEvent> remaining = entries;
+        for (int attempt = 1; ; attempt++) {
+            DataAccessException failure;
+            try {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LibraryEvent.class,
+                        LibraryChangeLog.CHANGES).insert(remaining).execute();
+                return;
+            } catch (BulkOperationException e) {
+                List<LibraryEvent> attempted = remaining;
+                remaining = e.getErrors().stream()
+                        .filter(error -> error.getCode() != DUPLICATE_KEY)
+                        .map(error -> attempted.get(error.getIndex()))
+                        .toList();
+                if (remaining.isEmpty()) {
+                    return;
+                }
+                failure = e;
+            } catch (DataAccessException e) {
+                failure = e;
+            }
+            if (attempt == MAX_ATTEMPTS) {
+                log.warn("Dropped {} change log entries after {} attempts, their users' devices download "
+                        + "their libraries again", remaining.size(), attempt, failure);
+                return;
+            }
+            sleepQuietly(FIRST_BACKOFF.multipliedBy(1L << (attempt - 1)));
+        }
+    }
+
+    private static void sleepQuietly(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.luisnery.flashcard.app.flashCardApp.Sync;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryChanges;
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryEvent;
+
+/**
+ * Log of the changes made to each user's library, numbered by a per-user sequence, from which
+ * offline clients fetch only what changed since their last sync instead of the whole library.
+ *
+ * A request changing a library opens {@link PendingChanges} before writing it, which adds a
+ * ticket to the user's counter in librarySequences, and records its changes afterwards, which
+ * takes the next numbers of the counter and removes the ticket in the same update. The
+ * {@link ChangeLogWriter} then inserts the numbered {@link LibraryEvent}s into the libraryChanges
+ * collection in the background, so a change costs two round trips of the request. Entries expire
+ * after the retention period.
+ *
+ * A change is never lost silently. Numbers are taken after the library is written, so a client
+ * taking the latest number before downloading its library misses nothing. A ticket still open
+ * after the pending timeout belongs to a request that died before recording its change, and is
+ * replaced by a number without an entry. A client whose cursor points before the oldest entry, or
+ * at a missing number, is told to download its library again.
+ *
+ * Entries may be inserted out of order. A page therefore ends before a missing number, unless the
+ * entry after it is older than the settle period, in which case the missing change is considered
+ * lost.
+ *
+ * Counters and entries are single documents, rather than written in a multi-document transaction
+ * or derived from a change stream, so the log works on a standalone MongoDB server.
+ */
+@Component
+public class LibraryChangeLog {
+
+    private static final Logger log = LoggerFactory.getLogger(LibraryChangeLog.class);
+
+    static final String CHANGES = "libraryChanges";
+    private static final String SEQUENCES = "librarySequences";
+
+    private final MongoTemplate mongoTemplate;
+    private final ChangeLogWriter writer;
+    private final Duration retention;
+    private final Duration settle;
+    private final Duration pendingTimeout;
+
+    /**
+     * Creates the change log.
+     *
+     * @param mongoTemplate  the template used to read and write the log.
+     * @param writer         the writer inserting the numbered entries.
+     * @param retention      the time after which MongoDB deletes logged changes.
+     * @param settle         the time after which a change missing from the log is considered lost.
+     * @param pendingTimeout the time after which a change begun but not recorded is considered lost.
+     */
+    public LibraryChangeLog(MongoTemplate mongoTemplate, ChangeLogWriter writer,
+            @Value("${flashcards.sync.retention:30d}") Duration retention,
+            @Value("${flashcards.sync.settle:10s}") Duration settle,
+            @Value("${flashcards.sync.pending-timeout:5m}") Duration pendingTimeout) {
+        this.mongoTemplate = mongoTemplate;
+        this.writer = writer;
+        this.retention = retention;
+        this.settle = settle;
+        this.pendingTimeout = pendingTimeout;
+    }
+
+    /**
+     * Creates the indexes in the background once the application is up. Without them syncs scan
+     * the log and nothing expires, but changes are still recorded, so an unreachable database does
+     * not stop the application.
+     */
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexesOnStartup() {
+        try {
+            mongoTemplate.indexOps(CHANGES).ensureIndex(new Index().on("ownerId", Sort.Direction.ASC)
+                    .on("sequence", Sort.Direction.ASC).unique().named("owner_sequence"));
+            mongoTemplate.indexOps(CHANGES).ensureIndex(
+                    new Index("createdAt", Sort.Direction.ASC).expire(retention).named("expiry"));
+        } catch (DataAccessException e) {
+            log.warn("Could not create the change log indexes, they are created on the next startup", e);
+        }
+    }
+
+    /**
+     * Opens the changes a request is about to make to a user's library, before writing it. Fails
+     * if the ticket cannot be stored, so a library is never changed without a trace in the log.
+     *
+     * @param uid the user's ID.
+     * @return the pending changes, to record or close once the library is written.
+     */
+    public PendingChanges begin(String uid) {
+        ObjectId ticket = new ObjectId();
+        mongoTemplate.upsert(byId(uid),
+                new Update().push("pending", new Document("_id", ticket).append("at", new Date())), SEQUENCES);
+        return new PendingChanges(this, uid, ticket);
+    }
+
+    /**
+     * Numbers the changes of a request and closes its ticket with a single counter update, then
+     * queues the entries for insertion. A change that cannot be numbered is logged rather than
+     * failing the request, since the library itself changed; its ticket stays open, so the change
+     * is detected as lost after the pending timeout.
+     */
+    List<LibraryEvent> recordAll(String uid, ObjectId ticket, List<LibraryEvent> events) {
+        if (events.isEmpty()) {
+            release(uid, ticket);
+            return events;
+        }
+        try {
+            Document counter = mongoTemplate.findAndModify(byId(uid),
+                    new Update().inc("sequence", (long) events.size()).pull("pending", new Document("_id", ticket))
+                            .currentDate("updatedAt"),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), Document.class, SEQUENCES);
+            long sequence = counter.getLong("sequence") - events.size();
+            Instant now = Instant.now();
+            for (LibraryEvent event : events) {
+                event.setSequence(++sequence);
+                event.setOwnerId(uid);
+                event.setCreatedAt(now);
+            }
+            writer.write(uid, events);
+        } catch (DataAccessException e) {
+            log.warn("Could not record {} changes of user {}", events.size(), uid, e);
+        }
+        return events;
+    }
+
+    /**
+     * Closes the ticket of a request that did not change the library. A ticket that cannot be
+     * closed times out, and only costs the user's devices a full download.
+     */
+    void release(String uid, ObjectId ticket) {
+        try {
+            mongoTemplate.updateFirst(byId(uid), new Update().pull("pending", new Document("_id", ticket)),
+                    SEQUENCES);
+        } catch (DataAccessException e) {
+            log.warn("Could not close a pending change of user {}", uid, e);
+        }
+    }
+
+    /**
+     * Gets the sequence number of a user's latest change, the cursor of a client about to
+     * download the whole library.
+     *
+     * @param uid the user's ID.
+     * @return the latest sequence number, 0 if nothing was recorded.
+     */
+    public long latestSequence(String uid) {
+        return sequence(counter(uid));
+    }
+
+    /**
+     * Gets one page of the changes made to a user's library after a sequence number.
+     *
+     * @param uid   the user's ID.
+     * @param since the sequence number of the last change the client applied, or null to only get
+     *              the latest sequence number.
+     * @param limit the maximum number of logged changes to read.
+     * @return the page of compacted changes, or null if the changes after since are no longer
+     *         known and the client has to download its library again.
+     */
+    public LibraryChanges changesSince(String uid, Long since, int limit) {
+        if (since == null) {
+            return new LibraryChanges(List.of(), latestSequence(uid), false);
+        }
+        Query query = Query.query(Criteria.where("ownerId").is(uid).and("sequence").gt(since))
+                .with(Sort.by("sequence"))
+                .limit(limit + 1); // One extra entry tells whether another page follows
+        List<LibraryEvent> entries = mongoTemplate.find(query, LibraryEvent.class, CHANGES);
+        if (entries.isEmpty()) {
+            return isCurrent(uid, since) ? new LibraryChanges(List.of(), since, false) : null;
+        }
+
+        Instant settled = Instant.now().minus(settle);
+        List<LibraryEvent> page = new ArrayList<>();
+        long next = since;
+        boolean hasMore = false;
+        for (LibraryEvent entry : entries) {
+            if (entry.getSequence() <= next) {
+                continue; // Inserted twice, by an attempt that failed after writing it
+            }
+            if (page.size() == limit) {
+                hasMore = true;
+                break;
+            }
+            if (entry.getSequence() != next + 1) {
+                boolean lost = entry.getCreatedAt() == null || entry.getCreatedAt().isBefore(settled);
+                if (lost && page.isEmpty()) {
+                    return null; // Expired or never recorded
+                }
+                hasMore = lost; // A change still being written is picked up by the next sync
+                break;
+            }
+            page.add(entry);
+            next = entry.getSequence();
+        }
+        return new LibraryChanges(compact(page), next, hasMore);
+    }
+
+    /**
+     * Tells whether a cursor with no logged change after it is up to date, rather than pointing
+     * at changes that expired, were lost or belong to another database.
+     */
+    private boolean isCurrent(String uid, long since) {
+        Document counter = counter(uid);
+        long latest = sequence(counter);
+        if (since >= latest) {
+            return since == latest;
+        }
+        // Changes after since were numbered but are missing: only recent ones may still be written
+        Date updatedAt = counter.getDate("updatedAt");
+        return updatedAt != null && updatedAt.toInstant().isAfter(Instant.now().minus(settle));
+    }
+
+    /**
+     * Reads a user's counter, first replacing the tickets of changes begun longer than the pending
+     * timeout ago by one missing number: the devices that synced before these changes see a gap
+     * and download their library again, those that downloaded it since then skip the gap.
+     */
+    private Document counter(String uid) {
+        Document counter = mongoTemplate.findById(uid, Document.class, SEQUENCES);
+        Date abandoned = Date.from(Instant.now().minus(pendingTimeout));
+        if (counter == null || counter.getList("pending", Document.class, List.of()).stream()
+                .noneMatch(ticket -> ticket.getDate("at").before(abandoned))) {
+            return counter;
+        }
+        Document settled = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(uid).and("pending.at").lt(abandoned)),
+                new Update().inc("sequence", 1L).pull("pending", new Document("at", new Document("$lt", abandoned)))
+                        .currentDate("updatedAt"),
+                FindAndModifyOptions.options().returnNew(true), Document.class, SEQUENCES);
+        if (settled == null) {
+            return mongoTemplate.findById(uid, Document.class, SEQUENCES); // Replaced by a concurrent read
+        }
+        log.warn("A change to the library of user {} was never recorded, its devices download the library again",
+                uid);
+        return settled;
+    }
+
+    private static long sequence(Document counter) {
+        return counter != null ? counter.get("sequence", 0L) : 0;
+    }
+
+    private static Query byId(String uid) {
+        return Query.query(Criteria.where("_id").is(uid));
+    }
+
+    /**
+     * Folds the changes of a page, in order, into one change per set and flashcard, each at the
+     * position of its first change so sets still precede their flashcards.
+     */
+    private static List<LibraryEvent> compact(List<LibraryEvent> entries) {
+        Map<String, LibraryEvent> changes = new LinkedHashMap<>();
+        for (LibraryEvent entry : entries) {
+            if (entry.getType() == LibraryEvent.Type.SET_REMOVED) {
+                changes.values().removeIf(change -> change.getSetId().equals(entry.getSetId()));
+                changes.put(entry.getSetId(), entry);
+                continue;
+            }
+            String key = entry.getFlashcardId() == null ? entry.getSetId()
+                    : entry.getSetId() + '/' + entry.getFlashcardId();
+            changes.merge(key, entry, LibraryChangeLog::fold);
+        }
+        return new ArrayList<>(changes.values());
+    }
+
+    /**
+     * Folds a later change of a set or flashcard into an earlier one. The result keeps the
+     * strongest kind, so a client still learns that a set or flashcard is new or has to be
+     * re-fetched, with the latest title, flashcard and version.
+     */
+    private static LibraryEvent fold(LibraryEvent earlier, LibraryEvent later) {
+        if (later.getType() == LibraryEvent.Type.CARD_REMOVED) {
+            return later; // IDs are never reused, so nothing follows a removal
+        }
+        if (earlier.getType() == LibraryEvent.Type.CARD_ADDED
+                || earlier.getType() == LibraryEvent.Type.SET_CREATED
+                || (earlier.getType() == LibraryEvent.Type.SET_CHANGED
+                        && later.getType() == LibraryEvent.Type.SET_RENAMED)) {
+            later.setType(earlier.getType());
+        }
+        if (later.getTitle() == null) {
+            later.setTitle(earlier.getTitle());
+        }
+        return later;
+    }
+}
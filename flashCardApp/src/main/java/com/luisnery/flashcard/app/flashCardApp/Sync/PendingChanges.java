@@ -0,0 +1,77 @@
+package com.luisnery.flashcard.app.flashCardApp.Sync;
+
+import java.util.List;
+
+import org.bson.types.ObjectId;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryEvent;
+
+/**
+ * Changes to a user's library that a request is about to make, opened with
+ * {@link LibraryChangeLog#begin(String)} before the library is written and closed once the
+ * changes are recorded or turned out not to happen.
+ *
+ * While open, the user's counter holds a ticket of the request. A ticket that is never closed,
+ * because the instance died between writing the library and recording the change, is eventually
+ * turned into a missing sequence number, so the change is detected as lost instead of silently
+ * skipped.
+ */
+public final class PendingChanges implements AutoCloseable {
+
+    private final LibraryChangeLog changeLog;
+    private final String uid;
+    private final ObjectId ticket;
+    private boolean closed;
+
+    PendingChanges(LibraryChangeLog changeLog, String uid, ObjectId ticket) {
+        this.changeLog = changeLog;
+        this.uid = uid;
+        this.ticket = ticket;
+    }
+
+    /**
+     * Gets the ID of the user whose library changes.
+     *
+     * @return the user's ID.
+     */
+    public String getUid() {
+        return uid;
+    }
+
+    /**
+     * Records the change made by the request and closes it.
+     *
+     * @param event the change.
+     * @return the change, with its sequence number if it was recorded.
+     */
+    public LibraryEvent record(LibraryEvent event) {
+        return recordAll(List.of(event)).get(0);
+    }
+
+    /**
+     * Records the changes made by the request, giving them consecutive sequence numbers in order,
+     * and closes it.
+     *
+     * @param events the changes, possibly none.
+     * @return the changes, with their sequence numbers if they were recorded.
+     * @throws IllegalStateException if the changes were already recorded.
+     */
+    public List<LibraryEvent> recordAll(List<LibraryEvent> events) {
+        if (closed) {
+            throw new IllegalStateException("Changes of user " + uid + " already recorded");
+        }
+        closed = true;
+        return changeLog.recordAll(uid, ticket, events);
+    }
+
+    /**
+     * Closes the changes without recording any, if they were not recorded.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            changeLog.release(uid, ticket);
+        }
+    }
+}
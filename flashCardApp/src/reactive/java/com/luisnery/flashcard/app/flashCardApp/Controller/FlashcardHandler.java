@@ -0,0 +1,489 @@
+package com.luisnery.flashcard.app.flashCardApp.Controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import com.luisnery.flashcard.app.flashCardApp.Events.LibraryEventHub;
+import com.luisnery.flashcard.app.flashCardApp.Events.LibraryEventListener;
+import com.luisnery.flashcard.app.flashCardApp.Events.LibraryEventPublisher;
+import com.luisnery.flashcard.app.flashCardApp.Firebase.AuthenticatedUser;
+import com.luisnery.flashcard.app.flashCardApp.Firebase.ReactiveFirebaseAuthenticator;
+import com.luisnery.flashcard.app.flashCardApp.Id.IdGenerator;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryChanges;
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryEvent;
+import com.luisnery.flashcard.app.flashCardApp.Model.User;
+import com.luisnery.flashcard.app.flashCardApp.Repository.ReactiveFlashcardStore;
+import com.luisnery.flashcard.app.flashCardApp.Repository.ReactiveUserRepository;
+import com.luisnery.flashcard.app.flashCardApp.Search.FlashcardSearchIndex;
+import com.luisnery.flashcard.app.flashCardApp.Sync.LibraryChangeLog;
+import com.luisnery.flashcard.app.flashCardApp.Sync.PendingChanges;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Handles the user and flashcard routes of the reactive variant of the API, routed by
+ * {@link ReactiveRoutes}. Paths, request bodies, status codes, ETags and If-Match preconditions
+ * are those of {@link UserController}, so clients work against either variant unchanged.
+ *
+ * No handler blocks an event loop thread: MongoDB is read through the reactive driver, and the
+ * blocking token verification and search index updates run on the bounded elastic scheduler.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(name = "flashcards.storage.mode", havingValue = "embedded", matchIfMissing = true)
+public class FlashcardHandler {
+
+    private static final ParameterizedTypeReference<Map<String, String>> TITLE_REQUEST =
+            new ParameterizedTypeReference<>() {};
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    private static final List<MediaType> BODY_TYPES = List.of(MediaType.APPLICATION_JSON,
+            SMILE); // Encodings of single bodies, the first one by default; WebFlux has no usable CBOR encoder
+    private static final List<MediaType> STREAM_TYPES = List.of(MediaType.APPLICATION_JSON,
+            MediaType.APPLICATION_NDJSON, SMILE); // Encodings of streamed flashcards
+    private static final int MAX_PAGE_SIZE = 1000; // Upper bound for requested page sizes
+
+    private final ReactiveUserRepository userRepository;
+    private final ReactiveFlashcardStore flashcardStore;
+    private final ReactiveFirebaseAuthenticator authenticator;
+    private final FlashcardSearchIndex searchIndex;
+    private final IdGenerator idGenerator;
+    private final LibraryEventHub eventHub;
+    private final LibraryEventPublisher eventPublisher;
+    private final LibraryChangeLog changeLog;
+
+    /**
+     * Creates the handler.
+     *
+     * @param userRepository the repository of user documents.
+     * @param flashcardStore the store of the sets and flashcards embedded in user documents.
+     * @param authenticator  the authenticator of Firebase ID tokens.
+     * @param searchIndex    the search index kept in step with flashcard changes.
+     * @param idGenerator    the generator of the IDs of sets sent with a new user.
+     * @param eventHub       the hub of the library event streams open on this instance.
+     * @param eventPublisher the publisher of library changes to the event streams.
+     * @param changeLog      the log of library changes synced by offline clients.
+     */
+    public FlashcardHandler(ReactiveUserRepository userRepository, ReactiveFlashcardStore flashcardStore,
+            ReactiveFirebaseAuthenticator authenticator, FlashcardSearchIndex searchIndex, IdGenerator idGenerator,
+            LibraryEventHub eventHub, LibraryEventPublisher eventPublisher, LibraryChangeLog changeLog) {
+        this.userRepository = userRepository;
+        this.flashcardStore = flashcardStore;
+        this.authenticator = authenticator;
+        this.searchIndex = searchIndex;
+        this.idGenerator = idGenerator;
+        this.eventHub = eventHub;
+        this.eventPublisher = eventPublisher;
+        this.changeLog = changeLog;
+    }
+
+    /**
+     * Creates a new user or retrieves the existing one with the authenticated Firebase UID.
+     *
+     * @param request the request, with the user data as body.
+     * @return a response with the created or existing user, or an HTTP 409 status.
+     */
+    public Mono<ServerResponse> createUser(ServerRequest request) {
+        return authenticated(request, principal -> request.bodyToMono(User.class)
+                .flatMap(user -> userRepository.findById(principal.getUid())
+                        .switchIfEmpty(Mono.defer(() -> {
+                            user.setId(principal.getUid());
+                            if (user.getFlashcardSets() == null) {
+                                return userRepository.save(user);
+                            }
+                            // The reactive variant only serves embedded storage, so the sets are saved in the user
+                            user.getFlashcardSets().forEach(idGenerator::assignIds);
+                            return changing(principal.getUid(), changes -> userRepository.save(user)
+                                    .flatMap(created -> offload(() -> {
+                                        List<LibraryEvent> events = new ArrayList<>();
+                                        for (FlashcardSet set : created.getFlashcardSets()) {
+                                            if (set.getFlashcards() != null) {
+                                                searchIndex.index(created.getId(), set.getId(), set.getFlashcards());
+                                            }
+                                            events.add(LibraryEvent.setCreated(set));
+                                        }
+                                        libraryChanged(changes, events);
+                                    }).thenReturn(created)));
+                        }))
+                        .onErrorResume(DuplicateKeyException.class,
+                                e -> userRepository.findById(principal.getUid()))) // Created by a concurrent request
+                .flatMap(user -> ServerResponse.ok().bodyValue(user))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.status(HttpStatus.CONFLICT).build())));
+    }
+
+    /**
+     * Retrieves all flashcard sets of the user, with an ETag derived from the sets' versions.
+     *
+     * @param request the request.
+     * @return a response with the sets, an HTTP 304 status if the client's copy is current, or an
+     *         HTTP 404 status if the user is not found.
+     */
+    public Mono<ServerResponse> getAllFlashcardSets(ServerRequest request) {
+        return authenticated(request, principal -> flashcardStore.findFlashcardSets(principal.getUid())
+                .flatMap(sets -> revalidated(request, libraryETag(sets), sets))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build())));
+    }
+
+    /**
+     * Retrieves a flashcard set with its version as ETag.
+     *
+     * @param request the request.
+     * @return a response with the set, an HTTP 304 status if the client's copy is current, or an
+     *         HTTP 404 status if the user or set is not found.
+     */
+    public Mono<ServerResponse> getFlashcardSet(ServerRequest request) {
+        String setId = request.pathVariable("setId");
+        return authenticated(request, principal -> flashcardStore.findFlashcardSet(principal.getUid(), setId)
+                .flatMap(set -> revalidated(request, Long.toString(set.getVersion()), set))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build())));
+    }
+
+    /**
+     * Streams the flashcards of a set as they are read from MongoDB, as a JSON array or, for clients
+     * accepting application/x-ndjson or application/x-jackson-smile, one document at a time.
+     *
+     * @param request the request.
+     * @return a response streaming the flashcards, or an HTTP 404 status if the user or set is not found.
+     */
+    public Mono<ServerResponse> streamFlashcards(ServerRequest request) {
+        String setId = request.pathVariable("setId");
+        MediaType contentType = negotiate(request, STREAM_TYPES);
+        return authenticated(request, principal -> flashcardStore.existsFlashcardSet(principal.getUid(), setId)
+                .flatMap(exists -> exists
+                        ? ServerResponse.ok().contentType(contentType)
+                                .body(flashcardStore.streamFlashcards(principal.getUid(), setId), Flashcard.class)
+                        : ServerResponse.notFound().build()));
+    }
+
+    /**
+     * Adds a new flashcard set to the user.
+     *
+     * @param request the request, with the set's title and flashcards as body.
+     * @return a response with the created set, or an HTTP 404 status if the user is not found.
+     */
+    public Mono<ServerResponse> createFlashcardSet(ServerRequest request) {
+        return authenticated(request, principal -> request.bodyToMono(FlashcardSet.class)
+                .flatMap(flashcardSet -> changing(principal.getUid(), changes -> {
+                    FlashcardSet newSet = new FlashcardSet();
+                    newSet.setTitle(flashcardSet.getTitle());
+                    newSet.setFlashcards(flashcardSet.getFlashcards());
+                    return flashcardStore.addFlashcardSet(principal.getUid(), newSet)
+                            .flatMap(added -> !added
+                                    ? ServerResponse.notFound().build() // User not found
+                                    : offload(() -> {
+                                        searchIndex.index(principal.getUid(), newSet.getId(), newSet.getFlashcards());
+                                        libraryChanged(changes, LibraryEvent.setCreated(newSet));
+                                    }).then(ServerResponse.ok().bodyValue(newSet)));
+                })));
+    }
+
+    /**
+     * Adds a new flashcard to a set, only if the set is unchanged when If-Match is given.
+     *
+     * @param request the request, with the flashcard as body.
+     * @return a response with the added flashcard, an HTTP 404 status if the user or set is not
+     *         found, or an HTTP 412 status if the set changed.
+     */
+    public Mono<ServerResponse> addFlashcard(ServerRequest request) {
+        String setId = request.pathVariable("setId");
+        return authenticated(request, principal -> request.bodyToMono(Flashcard.class)
+                .flatMap(flashcard -> changing(principal.getUid(), changes -> flashcardStore.addFlashcard(
+                                principal.getUid(), setId, flashcard, expectedVersion(request))
+                        .flatMap(added -> !added
+                                ? ServerResponse.notFound().build() // User or flashcard set not found
+                                : offload(() -> {
+                                    searchIndex.index(principal.getUid(), setId, List.of(flashcard));
+                                    libraryChanged(changes, LibraryEvent.cardAdded(setId, flashcard));
+                                }).then(ServerResponse.ok().bodyValue(flashcard))))));
+    }
+
+    /**
+     * Updates the title of a set, only if the set is unchanged when If-Match is given.
+     *
+     * @param request the request, with a map holding the new title as body.
+     * @return a response with the updated set, an HTTP 404 status if the user or set is not found
+     *         or no title is given, or an HTTP 412 status if the set changed.
+     */
+    public Mono<ServerResponse> updateFlashcardSetTitle(ServerRequest request) {
+        String setId = request.pathVariable("setId");
+        return authenticated(request, principal -> request.bodyToMono(TITLE_REQUEST)
+                .filter(body -> body.containsKey("title"))
+                .flatMap(body -> changing(principal.getUid(), changes -> flashcardStore.updateFlashcardSetTitle(
+                                principal.getUid(), setId, body.get("title"), expectedVersion(request))
+                        .flatMap(set -> offload(() -> libraryChanged(changes, LibraryEvent.setRenamed(set)))
+                                .then(withETag(request, set)))))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build())));
+    }
+
+    /**
+     * Updates the question and answer of a flashcard, only if the set is unchanged when If-Match is given.
+     *
+     * @param request the request, with the new question and answer as body.
+     * @return a response with the updated flashcard, an HTTP 404 status if the user, set or flashcard
+     *         is not found, or an HTTP 412 status if the set changed.
+     */
+    public Mono<ServerResponse> updateFlashcard(ServerRequest request) {
+        String setId = request.pathVariable("setId");
+        String flashcardId = request.pathVariable("flashcardId");
+        return authenticated(request, principal -> request.bodyToMono(Flashcard.class)
+                .flatMap(updated -> changing(principal.getUid(), changes -> flashcardStore.updateFlashcard(
+                                principal.getUid(), setId, flashcardId, updated.getQuestion(), updated.getAnswer(),
+                                expectedVersion(request))
+                        .flatMap(found -> {
+                            if (!found) {
+                                return ServerResponse.notFound().build(); // User, set or flashcard not found
+                            }
+                            Flashcard flashcard = new Flashcard(updated.getQuestion(), updated.getAnswer());
+                            flashcard.setId(flashcardId);
+                            return offload(() -> {
+                                searchIndex.index(principal.getUid(), setId, List.of(flashcard));
+                                libraryChanged(changes, LibraryEvent.cardUpdated(setId, flashcard));
+                            }).then(ServerResponse.ok().bodyValue(flashcard));
+                        }))));
+    }
+
+    /**
+     * Removes a flashcard from a set, only if the set is unchanged when If-Match is given.
+     *
+     * @param request the request.
+     * @return a response with the updated set, an HTTP 404 status if the user, set or flashcard is
+     *         not found, or an HTTP 412 status if the set changed.
+     */
+    public Mono<ServerResponse> removeFlashcard(ServerRequest request) {
+        String setId = request.pathVariable("setId");
+        String flashcardId = request.pathVariable("flashcardId");
+        return authenticated(request, principal -> changing(principal.getUid(), changes -> flashcardStore
+                        .removeFlashcard(principal.getUid(), setId, flashcardId, expectedVersion(request))
+                        .flatMap(set -> offload(() -> {
+                            searchIndex.remove(principal.getUid(), setId, flashcardId);
+                            libraryChanged(changes, LibraryEvent.cardRemoved(set, flashcardId));
+                        }).then(withETag(request, set))))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build())));
+    }
+
+    /**
+     * Deletes a set and its flashcards, only if the set is unchanged when If-Match is given.
+     *
+     * @param request the request.
+     * @return a response with no content, an HTTP 404 status if the user or set is not found, or an
+     *         HTTP 412 status if the set changed.
+     */
+    public Mono<ServerResponse> removeFlashcardSet(ServerRequest request) {
+        String setId = request.pathVariable("setId");
+        return authenticated(request, principal -> changing(principal.getUid(), changes -> flashcardStore
+                        .removeFlashcardSet(principal.getUid(), setId, expectedVersion(request))
+                        .flatMap(removed -> !removed
+                                ? ServerResponse.notFound().build() // User or flashcard set not found
+                                : offload(() -> {
+                                    searchIndex.removeSet(principal.getUid(), setId);
+                                    libraryChanged(changes, LibraryEvent.setRemoved(setId));
+                                }).then(ServerResponse.noContent().build()))));
+    }
+
+    /**
+     * Streams the changes made to the user's library, from any device, as Server-Sent Events.
+     * Idle streams receive a heartbeat comment, and the stream ends after the configured timeout or
+     * when the client falls too far behind, so the client reconnects and re-fetches its library.
+     *
+     * @param request the request.
+     * @return a response streaming the library events.
+     */
+    public Mono<ServerResponse> streamEvents(ServerRequest request) {
+        return authenticated(request, principal -> {
+            Flux<ServerSentEvent<LibraryEvent>> events = Flux.<LibraryEvent>create(sink -> {
+                LibraryEventHub.Subscription subscription = eventHub.subscribe(principal.getUid(),
+                        new LibraryEventListener() {
+                            @Override
+                            public void onEvent(LibraryEvent event) {
+                                sink.next(event);
+                            }
+
+                            @Override
+                            public void onDropped() {
+                                sink.complete();
+                            }
+                        });
+                sink.onDispose(subscription::close);
+            })
+                    .onBackpressureBuffer(eventHub.getMaxPending())
+                    .take(eventHub.getTimeout())
+                    .map(event -> event.getType() == LibraryEvent.Type.HEARTBEAT
+                            ? ServerSentEvent.<LibraryEvent>builder().comment("heartbeat").build()
+                            : ServerSentEvent.builder(event).build())
+                    .startWith(ServerSentEvent.<LibraryEvent>builder().comment("subscribed").build());
+            return ServerResponse.ok().contentType(MediaType.TEXT_EVENT_STREAM)
+                    .cacheControl(CacheControl.noStore()).body(events, ServerSentEvent.class);
+        });
+    }
+
+    /**
+     * Retrieves the changes made to the user's library after the since sequence number, or only
+     * the latest sequence number without since. The change log is read on the bounded elastic
+     * scheduler.
+     *
+     * @param request the request, with the since and limit query parameters.
+     * @return a response with the page of changes, an HTTP 400 status for an invalid sequence or
+     *         limit, or an HTTP 410 status with the latest sequence number if the changes are no
+     *         longer known and the library has to be downloaded again.
+     */
+    public Mono<ServerResponse> getLibraryChanges(ServerRequest request) {
+        return authenticated(request, principal -> {
+            Long since;
+            int limit;
+            try {
+                since = request.queryParam("since").map(Long::valueOf).orElse(null);
+                limit = request.queryParam("limit").map(Integer::valueOf).orElse(500);
+            } catch (NumberFormatException e) {
+                return ServerResponse.badRequest().build();
+            }
+            if ((since != null && since < 0) || limit < 1) {
+                return ServerResponse.badRequest().build();
+            }
+            return Mono.fromCallable(() -> changeLog.changesSince(principal.getUid(), since,
+                            Math.min(limit, MAX_PAGE_SIZE)))
+                    .flatMap(changes -> ServerResponse.ok().cacheControl(CacheControl.noStore()).bodyValue(changes))
+                    .switchIfEmpty(Mono.fromCallable(() -> changeLog.latestSequence(principal.getUid()))
+                            .flatMap(latest -> ServerResponse.status(HttpStatus.GONE) // Expired or lost changes
+                                    .cacheControl(CacheControl.noStore())
+                                    .bodyValue(new LibraryChanges(List.of(), latest, false))))
+                    .subscribeOn(Schedulers.boundedElastic());
+        });
+    }
+
+    /**
+     * Authenticates the request, then runs the handler with the authenticated user.
+     */
+    private Mono<ServerResponse> authenticated(ServerRequest request,
+            Function<AuthenticatedUser, Mono<ServerResponse>> handler) {
+        return authenticator.authenticate(request).flatMap(handler);
+    }
+
+    /**
+     * Runs a blocking task, such as a search index update, on the bounded elastic scheduler.
+     */
+    private static Mono<Void> offload(Runnable task) {
+        return Mono.fromRunnable(task).subscribeOn(Schedulers.boundedElastic()).then();
+    }
+
+    /**
+     * Opens the changes the request is about to make to the user's library, runs the handler with
+     * them, and closes them once the handler completed, failed or was cancelled. Opening and
+     * closing block, so they run on the bounded elastic scheduler.
+     */
+    private <T> Mono<T> changing(String uid, Function<PendingChanges, Mono<T>> handler) {
+        return Mono.usingWhen(Mono.fromCallable(() -> changeLog.begin(uid)).subscribeOn(Schedulers.boundedElastic()),
+                handler, changes -> offload(changes::close));
+    }
+
+    /**
+     * Records the change made by the request in the change log, then publishes it to the user's
+     * event streams. Blocking, so only called from offloaded tasks.
+     */
+    private void libraryChanged(PendingChanges changes, LibraryEvent event) {
+        eventPublisher.publish(changes.getUid(), changes.record(event));
+    }
+
+    /**
+     * Records the changes made by the request in the change log at once, then publishes them in
+     * order. Blocking, so only called from offloaded tasks.
+     */
+    private void libraryChanged(PendingChanges changes, List<LibraryEvent> events) {
+        changes.recordAll(events).forEach(event -> eventPublisher.publish(changes.getUid(), event));
+    }
+
+    private static Mono<ServerResponse> withETag(ServerRequest request, FlashcardSet set) {
+        return ServerResponse.ok().eTag(weak(Long.toString(set.getVersion())))
+                .cacheControl(CacheControl.noCache().cachePrivate()).varyBy(HttpHeaders.ACCEPT)
+                .contentType(negotiate(request, BODY_TYPES)).bodyValue(set);
+    }
+
+    /**
+     * Answers 304 when If-None-Match lists the ETag, otherwise 200 with the body and a weak ETag that
+     * clients must revalidate on every use, as UserController does.
+     */
+    private static Mono<ServerResponse> revalidated(ServerRequest request, String eTag, Object body) {
+        return request.checkNotModified(weak(eTag))
+                .flatMap(notModified -> ServerResponse.from(notModified).varyBy(HttpHeaders.ACCEPT).build())
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.ok().eTag(weak(eTag))
+                        .cacheControl(CacheControl.noCache().cachePrivate()).varyBy(HttpHeaders.ACCEPT)
+                        .contentType(negotiate(request, BODY_TYPES)).bodyValue(body)));
+    }
+
+    private static String weak(String eTag) {
+        return "W/\"" + eTag + "\"";
+    }
+
+    /**
+     * Picks the encoding of a response body from the Accept header. Functional endpoints write with
+     * the first encoder able to, so the choice has to be made here: the most preferred of the
+     * offered types, or the first offered type when the client accepts none of them.
+     */
+    private static MediaType negotiate(ServerRequest request, List<MediaType> offered) {
+        List<MediaType> accepted = new ArrayList<>(request.headers().accept());
+        MimeTypeUtils.sortBySpecificity(accepted);
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed()); // Stable, keeps specificity order
+        for (MediaType acceptable : accepted) {
+            for (MediaType type : offered) {
+                if (acceptable.includes(type) && acceptable.getQualityValue() > 0) {
+                    return type;
+                }
+            }
+        }
+        return offered.get(0);
+    }
+
+    /**
+     * Derives the ETag of a user's set list from the IDs and versions of the sets, as UserController does.
+     */
+    private static String libraryETag(List<FlashcardSet> sets) {
+        StringBuilder key = new StringBuilder();
+        sets.forEach(set -> key.append(set.getId()).append(':').append(set.getVersion()).append(','));
+        return DigestUtils.md5DigestAsHex(key.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads the set version expected by the If-Match header, with the rules of UserController: null
+     * without a header or for *, and a conflict for an ETag that cannot name a set version.
+     */
+    private static Long expectedVersion(ServerRequest request) {
+        String ifMatch = request.headers().firstHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2); // Same set version as the strong form
+        }
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            try {
+                return Long.parseLong(tag.substring(1, tag.length() - 1));
+            } catch (NumberFormatException e) {
+                // Not an ETag handed out by this API
+            }
+        }
+        throw new OptimisticLockingFailureException("If-Match " + ifMatch + " does not name a set version");
+    }
+}
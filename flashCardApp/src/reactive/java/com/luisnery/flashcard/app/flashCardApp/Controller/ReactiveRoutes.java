@@ -0,0 +1,74 @@
+package com.luisnery.flashcard.app.flashCardApp.Controller;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+/**
+ * Routes of the reactive variant of the API, active with spring.main.web-application-type=reactive.
+ * Serves the user and flashcard routes clients use most, with the paths of {@link UserController},
+ * on WebFlux and the reactive MongoDB driver. Only the embedded storage mode is supported.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(name = "flashcards.storage.mode", havingValue = "embedded", matchIfMissing = true)
+public class ReactiveRoutes {
+
+    /**
+     * Maps the routes to {@link FlashcardHandler}. A failed If-Match precondition is answered with 412,
+     * as by UserController.
+     *
+     * @param handler the handler of the routes.
+     * @return the router function.
+     */
+    @Bean
+    public RouterFunction<ServerResponse> flashcardRoutes(FlashcardHandler handler) {
+        return RouterFunctions.route()
+                .path("/api/users", users -> users
+                        .POST("/create", handler::createUser)
+                        .GET("/{userId}/flashcardSets", handler::getAllFlashcardSets)
+                        .GET("/{userId}/events", handler::streamEvents)
+                        .GET("/{userId}/changes", handler::getLibraryChanges)
+                        .POST("/{userId}/flashcardSets/create", handler::createFlashcardSet)
+                        .GET("/{userId}/flashcardSets/{setId}", handler::getFlashcardSet)
+                        .GET("/{userId}/flashcardSets/{setId}/flashcards", handler::streamFlashcards)
+                        .POST("/{userId}/flashcardSets/{setId}/addFlashcard", handler::addFlashcard)
+                        .PUT("/{userId}/flashcardSets/{setId}/updateTitle", handler::updateFlashcardSetTitle)
+                        .PUT("/{userId}/flashcardSets/{setId}/flashcards/{flashcardId}/updateQuestionAndAnswer",
+                                handler::updateFlashcard)
+                        .DELETE("/{userId}/flashcardSets/{setId}/flashcards/{flashcardId}/removeFlashcard",
+                                handler::removeFlashcard)
+                        .DELETE("/{userId}/flashcardSets/{setId}/removeFlashcardSet", handler::removeFlashcardSet))
+                .onError(OptimisticLockingFailureException.class,
+                        (e, request) -> ServerResponse.status(HttpStatus.PRECONDITION_FAILED).build())
+                .build();
+    }
+
+    /**
+     * Applies the CORS settings of the servlet variant to the reactive routes.
+     *
+     * @return the CORS filter.
+     */
+    @Bean
+    public CorsWebFilter corsWebFilter() {
+        CorsConfiguration cors = new CorsConfiguration();
+        cors.setAllowedOrigins(List.of("http://localhost:5173")); // The frontend's origin
+        cors.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        cors.addAllowedHeader("*");
+        cors.setAllowCredentials(true);
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", cors);
+        return new CorsWebFilter(source);
+    }
+}
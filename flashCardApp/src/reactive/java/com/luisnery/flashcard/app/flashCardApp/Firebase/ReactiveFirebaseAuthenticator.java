@@ -0,0 +1,57 @@
+package com.luisnery.flashcard.app.flashCardApp.Firebase;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.google.firebase.auth.FirebaseAuthException;
+
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Authenticates requests to the reactive variant of the API from the "Authorization: Bearer" header,
+ * the counterpart of {@link FirebaseAuthenticationResolver}.
+ *
+ * {@link FirebaseTokenVerifier} may block on fetching Google's public keys or checking revocation,
+ * so verification runs on the bounded elastic scheduler and never on an event loop thread.
+ * Requests with a missing, invalid, expired or revoked token fail with 401.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveFirebaseAuthenticator {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final FirebaseTokenVerifier tokenVerifier;
+
+    /**
+     * Creates the authenticator.
+     *
+     * @param tokenVerifier the verifier used to check Firebase ID tokens.
+     */
+    public ReactiveFirebaseAuthenticator(FirebaseTokenVerifier tokenVerifier) {
+        this.tokenVerifier = tokenVerifier;
+    }
+
+    /**
+     * Verifies the Firebase ID token of a request.
+     *
+     * @param request the request.
+     * @return the authenticated user, or a ResponseStatusException with status 401.
+     */
+    public Mono<AuthenticatedUser> authenticate(ServerRequest request) {
+        String header = request.headers().firstHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            return Mono.error(new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Missing Firebase ID token"));
+        }
+        String idToken = header.substring(BEARER_PREFIX.length());
+        return Mono.fromCallable(() -> new AuthenticatedUser(tokenVerifier.verify(idToken)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorMap(e -> e instanceof FirebaseAuthException || e instanceof IllegalArgumentException,
+                        e -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid Firebase ID token", e));
+    }
+}
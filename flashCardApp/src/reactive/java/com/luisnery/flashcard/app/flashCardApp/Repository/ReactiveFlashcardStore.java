@@ -0,0 +1,248 @@
+package com.luisnery.flashcard.app.flashCardApp.Repository;
+
+import static com.luisnery.flashcard.app.flashCardApp.Repository.UserRepositoryCustomImpl.SETS;
+import static com.luisnery.flashcard.app.flashCardApp.Repository.UserRepositoryCustomImpl.SET_CARDS;
+import static com.luisnery.flashcard.app.flashCardApp.Repository.UserRepositoryCustomImpl.UNWOUND_CARD;
+import static com.luisnery.flashcard.app.flashCardApp.Repository.UserRepositoryCustomImpl.USER_VERSION;
+import static com.luisnery.flashcard.app.flashCardApp.Repository.UserRepositoryCustomImpl.cardQuery;
+import static com.luisnery.flashcard.app.flashCardApp.Repository.UserRepositoryCustomImpl.firstSet;
+import static com.luisnery.flashcard.app.flashCardApp.Repository.UserRepositoryCustomImpl.setQuery;
+import static com.luisnery.flashcard.app.flashCardApp.Repository.UserRepositoryCustomImpl.setUpdate;
+import static com.luisnery.flashcard.app.flashCardApp.Repository.UserRepositoryCustomImpl.unwindFlashcards;
+import static com.luisnery.flashcard.app.flashCardApp.Repository.UserRepositoryCustomImpl.userQuery;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.luisnery.flashcard.app.flashCardApp.Id.IdGenerator;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+import com.luisnery.flashcard.app.flashCardApp.Model.User;
+import com.mongodb.client.result.UpdateResult;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking access to the sets and flashcards embedded in user documents, used by the
+ * reactive variant of the API.
+ *
+ * Issues the same queries and updates as {@link UserRepositoryCustomImpl} through the reactive
+ * streams driver, so both variants bump the same set and user versions and honour the same
+ * If-Match preconditions. Only the embedded storage mode is supported.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(name = "flashcards.storage.mode", havingValue = "embedded", matchIfMissing = true)
+public class ReactiveFlashcardStore {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+    private final IdGenerator idGenerator;
+
+    /**
+     * Creates the store.
+     *
+     * @param mongoTemplate the reactive template used for reads and updates.
+     * @param idGenerator   the generator of the IDs of new sets and flashcards.
+     */
+    public ReactiveFlashcardStore(ReactiveMongoTemplate mongoTemplate, IdGenerator idGenerator) {
+        this.mongoTemplate = mongoTemplate;
+        this.idGenerator = idGenerator;
+    }
+
+    /**
+     * Finds all flashcard sets of a user, including their flashcards.
+     *
+     * @param uid the user's ID.
+     * @return the sets, or an empty Mono if the user was not found.
+     */
+    public Mono<List<FlashcardSet>> findFlashcardSets(String uid) {
+        Query query = userQuery(uid);
+        query.fields().include(SETS);
+        return mongoTemplate.findOne(query, User.class)
+                .map(user -> user.getFlashcardSets() != null ? user.getFlashcardSets() : new ArrayList<>());
+    }
+
+    /**
+     * Finds a single flashcard set of a user, including its flashcards.
+     *
+     * @param uid   the user's ID.
+     * @param setId the ID of the flashcard set.
+     * @return the set, or an empty Mono if the user or set was not found.
+     */
+    public Mono<FlashcardSet> findFlashcardSet(String uid, String setId) {
+        Query query = setQuery(uid, setId, null);
+        query.fields().elemMatch(SETS, Criteria.where("_id").is(setId));
+        return mongoTemplate.findOne(query, User.class).flatMap(user -> Mono.justOrEmpty(firstSet(user)));
+    }
+
+    /**
+     * Checks whether a user has a flashcard set.
+     *
+     * @param uid   the user's ID.
+     * @param setId the ID of the flashcard set.
+     * @return true if the user and set exist.
+     */
+    public Mono<Boolean> existsFlashcardSet(String uid, String setId) {
+        return mongoTemplate.exists(setQuery(uid, setId, null), User.class);
+    }
+
+    /**
+     * Streams the flashcards of a set in order from an aggregation cursor, one document per
+     * flashcard, so a large set is never held in memory as a whole.
+     *
+     * @param uid   the user's ID.
+     * @param setId the ID of the flashcard set.
+     * @return the flashcards, none if the user or set was not found.
+     */
+    public Flux<Flashcard> streamFlashcards(String uid, String setId) {
+        List<AggregationOperation> stages = unwindFlashcards(uid, setId);
+        stages.add(Aggregation.replaceRoot(UNWOUND_CARD));
+        return mongoTemplate.aggregate(Aggregation.newAggregation(stages), User.class, Flashcard.class);
+    }
+
+    /**
+     * Appends a flashcard set to a user.
+     *
+     * @param uid          the user's ID.
+     * @param flashcardSet the set to add.
+     * @return true if the user exists and the set was added.
+     */
+    public Mono<Boolean> addFlashcardSet(String uid, FlashcardSet flashcardSet) {
+        idGenerator.assignIds(flashcardSet);
+        if (flashcardSet.getFlashcards() == null) {
+            flashcardSet.setFlashcards(new ArrayList<>()); // Later $push operations need an array
+        }
+        Update update = new Update().push(SETS, flashcardSet).inc(USER_VERSION, 1);
+        return mongoTemplate.updateFirst(userQuery(uid), update, User.class)
+                .map(result -> result.getMatchedCount() > 0);
+    }
+
+    /**
+     * Appends a flashcard to a set.
+     *
+     * @param uid             the user's ID.
+     * @param setId           the ID of the flashcard set.
+     * @param flashcard       the flashcard to add.
+     * @param expectedVersion the version the set must have, or null to add unconditionally.
+     * @return true if the set was found and the flashcard added, or an OptimisticLockingFailureException
+     *         if the set does not have the expected version.
+     */
+    public Mono<Boolean> addFlashcard(String uid, String setId, Flashcard flashcard, Long expectedVersion) {
+        idGenerator.assignId(flashcard);
+        Update update = setUpdate(setId).push(SET_CARDS, flashcard);
+        return mongoTemplate.updateFirst(setQuery(uid, setId, expectedVersion), update, User.class)
+                .flatMap(result -> matched(result, setQuery(uid, setId, null), expectedVersion));
+    }
+
+    /**
+     * Replaces the question and answer of a flashcard.
+     *
+     * @param uid             the user's ID.
+     * @param setId           the ID of the flashcard set.
+     * @param flashcardId     the ID of the flashcard.
+     * @param question        the new question.
+     * @param answer          the new answer.
+     * @param expectedVersion the version the set must have, or null to update unconditionally.
+     * @return true if the flashcard was found and updated, or an OptimisticLockingFailureException
+     *         if the set does not have the expected version.
+     */
+    public Mono<Boolean> updateFlashcard(String uid, String setId, String flashcardId, String question,
+            String answer, Long expectedVersion) {
+        Update update = setUpdate(setId)
+                .set(SET_CARDS + ".$[c].question", question)
+                .set(SET_CARDS + ".$[c].answer", answer)
+                .filterArray(Criteria.where("c._id").is(flashcardId));
+        Query query = cardQuery(uid, setId, flashcardId, expectedVersion, null);
+        return mongoTemplate.updateFirst(query, update, User.class)
+                .flatMap(result -> matched(result, cardQuery(uid, setId, flashcardId, null, null), expectedVersion));
+    }
+
+    /**
+     * Removes a flashcard from a set.
+     *
+     * @param uid             the user's ID.
+     * @param setId           the ID of the flashcard set.
+     * @param flashcardId     the ID of the flashcard.
+     * @param expectedVersion the version the set must have, or null to remove unconditionally.
+     * @return the updated set, an empty Mono if the user, set or flashcard was not found, or an
+     *         OptimisticLockingFailureException if the set does not have the expected version.
+     */
+    public Mono<FlashcardSet> removeFlashcard(String uid, String setId, String flashcardId, Long expectedVersion) {
+        Update update = setUpdate(setId).pull(SET_CARDS, new Document("_id", flashcardId));
+        return modifyAndReturnSet(cardQuery(uid, setId, flashcardId, expectedVersion, null), update, setId,
+                cardQuery(uid, setId, flashcardId, null, null), expectedVersion);
+    }
+
+    /**
+     * Replaces the title of a set.
+     *
+     * @param uid             the user's ID.
+     * @param setId           the ID of the flashcard set.
+     * @param title           the new title.
+     * @param expectedVersion the version the set must have, or null to update unconditionally.
+     * @return the updated set, an empty Mono if the user or set was not found, or an
+     *         OptimisticLockingFailureException if the set does not have the expected version.
+     */
+    public Mono<FlashcardSet> updateFlashcardSetTitle(String uid, String setId, String title,
+            Long expectedVersion) {
+        Update update = setUpdate(setId).set("flashcardSets.$[s].title", title);
+        return modifyAndReturnSet(setQuery(uid, setId, expectedVersion), update, setId,
+                setQuery(uid, setId, null), expectedVersion);
+    }
+
+    /**
+     * Removes a flashcard set and its flashcards.
+     *
+     * @param uid             the user's ID.
+     * @param setId           the ID of the flashcard set.
+     * @param expectedVersion the version the set must have, or null to remove unconditionally.
+     * @return true if the set was found and removed, or an OptimisticLockingFailureException if the
+     *         set does not have the expected version.
+     */
+    public Mono<Boolean> removeFlashcardSet(String uid, String setId, Long expectedVersion) {
+        Update update = new Update().pull(SETS, new Document("_id", setId)).inc(USER_VERSION, 1);
+        return mongoTemplate.updateFirst(setQuery(uid, setId, expectedVersion), update, User.class)
+                .flatMap(result -> matched(result, setQuery(uid, setId, null), expectedVersion));
+    }
+
+    /**
+     * Applies the update and emits only the affected set of the post-image, failing on a version conflict.
+     */
+    private Mono<FlashcardSet> modifyAndReturnSet(Query query, Update update, String setId, Query target,
+            Long expectedVersion) {
+        query.fields().elemMatch(SETS, Criteria.where("_id").is(setId));
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), User.class)
+                .flatMap(user -> Mono.justOrEmpty(firstSet(user)))
+                .switchIfEmpty(Mono.defer(() -> checkConflict(target, expectedVersion).then(Mono.empty())));
+    }
+
+    private Mono<Boolean> matched(UpdateResult result, Query target, Long expectedVersion) {
+        if (result.getMatchedCount() > 0) {
+            return Mono.just(true);
+        }
+        return checkConflict(target, expectedVersion).thenReturn(false);
+    }
+
+    private Mono<Void> checkConflict(Query target, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return Mono.empty();
+        }
+        return mongoTemplate.exists(target, User.class).flatMap(exists -> exists
+                ? Mono.error(new OptimisticLockingFailureException("Flashcard set does not have version " + expectedVersion))
+                : Mono.empty());
+    }
+}
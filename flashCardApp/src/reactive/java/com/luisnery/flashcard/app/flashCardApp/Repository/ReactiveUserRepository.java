@@ -0,0 +1,15 @@
+package com.luisnery.flashcard.app.flashCardApp.Repository;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.User;
+
+/**
+ * Non-blocking counterpart of {@link UserRepository}, used by the reactive variant of the API.
+ * Implemented by Spring Data MongoDB on top of the reactive streams driver.
+ *
+ * @see com.luisnery.flashcard.app.flashCardApp.Repository.ReactiveFlashcardStore
+ * @see com.luisnery.flashcard.app.flashCardApp.Model.User
+ */
+public interface ReactiveUserRepository extends ReactiveMongoRepository<User, String> {
+}
@@ -0,0 +1,39 @@
+package com.google.firebase.auth;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Creates decoded Firebase ID tokens for tests. FirebaseToken has no public constructor, so this
+ * factory lives in the SDK's package to call the one the SDK uses after checking a signature.
+ */
+public final class FirebaseTokens {
+
+    private FirebaseTokens() {
+    }
+
+    /**
+     * Creates a token of a user, issued now and valid for an hour.
+     *
+     * @param uid the user's ID.
+     * @return the decoded token.
+     */
+    public static FirebaseToken of(String uid) {
+        Instant now = Instant.now();
+        return of(uid, now, now.plus(Duration.ofHours(1)));
+    }
+
+    /**
+     * Creates a token of a user with the given issue and expiry times.
+     *
+     * @param uid       the user's ID.
+     * @param issuedAt  the "iat" claim.
+     * @param expiresAt the "exp" claim.
+     * @return the decoded token.
+     */
+    public static FirebaseToken of(String uid, Instant issuedAt, Instant expiresAt) {
+        return new FirebaseToken(Map.of("sub", uid, "iat", issuedAt.getEpochSecond(), "exp",
+                expiresAt.getEpochSecond()));
+    }
+}
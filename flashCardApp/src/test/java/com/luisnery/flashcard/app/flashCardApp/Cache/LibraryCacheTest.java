@@ -0,0 +1,67 @@
+package com.luisnery.flashcard.app.flashCardApp.Cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Checks that both cache backends refuse values loaded before an eviction of their key.
+ */
+class LibraryCacheTest {
+
+    private static final TypeReference<String> STRING = new TypeReference<>() {};
+
+    static Stream<LibraryCache> caches() {
+        return Stream.of(new LocalLibraryCache(100, Duration.ofMinutes(1)),
+                new InMemoryDistributedLibraryCache(new ObjectMapper(), 100, Duration.ofMinutes(1)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("caches")
+    void cachesValueLoadedWithoutEviction(LibraryCache cache) {
+        long generation = cache.generation("set:u1:s1");
+
+        assertTrue(cache.putIfUnchanged("set:u1:s1", "loaded", generation));
+        assertEquals("loaded", cache.get("set:u1:s1", STRING));
+    }
+
+    @ParameterizedTest
+    @MethodSource("caches")
+    void refusesValueLoadedBeforeEviction(LibraryCache cache) {
+        long generation = cache.generation("versions:u1");
+        cache.evict("versions:u1"); // A write committed while the value was loaded
+
+        assertFalse(cache.putIfUnchanged("versions:u1", "stale", generation));
+        assertNull(cache.get("versions:u1", STRING));
+    }
+
+    @ParameterizedTest
+    @MethodSource("caches")
+    void refusesValueLoadedBeforePrefixEviction(LibraryCache cache) {
+        long generation = cache.generation("set:u1:s1");
+        cache.evictByPrefix("set:u1:");
+
+        assertFalse(cache.putIfUnchanged("set:u1:s1", "stale", generation));
+        assertNull(cache.get("set:u1:s1", STRING));
+    }
+
+    @ParameterizedTest
+    @MethodSource("caches")
+    void evictionRemovesCachedValue(LibraryCache cache) {
+        cache.putIfUnchanged("sets:u1", "cached", cache.generation("sets:u1"));
+        cache.evict("sets:u1");
+
+        assertNull(cache.get("sets:u1", STRING));
+        assertTrue(cache.putIfUnchanged("sets:u1", "reloaded", cache.generation("sets:u1")));
+    }
+}
@@ -0,0 +1,68 @@
+package com.luisnery.flashcard.app.flashCardApp.Controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.luisnery.flashcard.app.flashCardApp.MongoApiTest;
+
+/**
+ * Checks that reads listing the client's ETag in If-None-Match are answered with 304 while the
+ * set or library is unchanged.
+ */
+class UserControllerConditionalReadTest extends MongoApiTest {
+
+    @Test
+    void currentSetIsNotModified() {
+        String setId = createSet("u1");
+        String eTag = call("u1", HttpMethod.GET, "/u1/flashcardSets/" + setId, null, JsonNode.class)
+                .getHeaders().getETag();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, getSet("u1", setId, eTag).getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, getSet("u1", setId, "\"x\", " + eTag).getStatusCode());
+        assertEquals(HttpStatus.NOT_MODIFIED, getSet("u1", setId, "*").getStatusCode());
+        assertEquals(HttpStatus.OK, getSet("u1", setId, "W/\"99\"").getStatusCode());
+    }
+
+    @Test
+    void changedLibraryGetsANewETag() {
+        createSet("u2");
+        ResponseEntity<JsonNode> sets = call("u2", HttpMethod.GET, "/u2/flashcardSets", null, JsonNode.class);
+        String eTag = sets.getHeaders().getETag();
+
+        assertEquals(HttpStatus.NOT_MODIFIED, getLibrary("u2", eTag).getStatusCode());
+
+        call("u2", HttpMethod.POST, "/u2/flashcardSets/create", Map.of("title", "French"), JsonNode.class);
+
+        ResponseEntity<JsonNode> changed = getLibrary("u2", eTag);
+        assertEquals(HttpStatus.OK, changed.getStatusCode());
+        assertNotEquals(eTag, changed.getHeaders().getETag());
+    }
+
+    private String createSet(String uid) {
+        Map<String, Object> user = Map.of("flashcardSets", List.of(Map.of("title", "Spanish")));
+        return call(uid, HttpMethod.POST, "/create", user, JsonNode.class).getBody()
+                .at("/flashcardSets/0/id").asText();
+    }
+
+    private ResponseEntity<JsonNode> getSet(String uid, String setId, String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        return call(uid, HttpMethod.GET, "/" + uid + "/flashcardSets/" + setId, null, headers, JsonNode.class);
+    }
+
+    private ResponseEntity<JsonNode> getLibrary(String uid, String ifNoneMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        return call(uid, HttpMethod.GET, "/" + uid + "/flashcardSets", null, headers, JsonNode.class);
+    }
+}
@@ -0,0 +1,68 @@
+package com.luisnery.flashcard.app.flashCardApp.Controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.luisnery.flashcard.app.flashCardApp.MongoApiTest;
+
+/**
+ * Checks that If-Match preconditions are matched against the version of the set.
+ */
+class UserControllerConditionalWriteTest extends MongoApiTest {
+
+    @Test
+    void updateWithTheReadETagSucceedsOnce() {
+        String setId = createSet("u1");
+        String eTag = call("u1", HttpMethod.GET, "/u1/flashcardSets/" + setId, null, JsonNode.class)
+                .getHeaders().getETag();
+
+        ResponseEntity<JsonNode> renamed = rename("u1", setId, "Castilian", eTag);
+        assertEquals(HttpStatus.OK, renamed.getStatusCode());
+        assertNotEquals(eTag, renamed.getHeaders().getETag());
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, rename("u1", setId, "Spanish", eTag).getStatusCode());
+        assertEquals(HttpStatus.OK, rename("u1", setId, "Spanish", renamed.getHeaders().getETag()).getStatusCode());
+    }
+
+    @Test
+    void ifMatchAnyOrStrongFormMatchesTheVersion() {
+        String setId = createSet("u2");
+
+        assertEquals(HttpStatus.OK, rename("u2", setId, "Castilian", "*").getStatusCode());
+        String strong = rename("u2", setId, "Spanish", null).getHeaders().getETag().substring(2); // Without W/
+        assertEquals(HttpStatus.OK, rename("u2", setId, "Castilian", strong).getStatusCode());
+    }
+
+    @Test
+    void malformedIfMatchFailsThePrecondition() {
+        String setId = createSet("u3");
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, rename("u3", setId, "Castilian", "abc").getStatusCode());
+        assertEquals(HttpStatus.PRECONDITION_FAILED, rename("u3", setId, "Castilian", "\"0\", \"1\"").getStatusCode());
+    }
+
+    private String createSet(String uid) {
+        Map<String, Object> user = Map.of("flashcardSets", List.of(Map.of("title", "Spanish")));
+        return call(uid, HttpMethod.POST, "/create", user, JsonNode.class).getBody()
+                .at("/flashcardSets/0/id").asText();
+    }
+
+    private ResponseEntity<JsonNode> rename(String uid, String setId, String title, String ifMatch) {
+        HttpHeaders headers = new HttpHeaders();
+        if (ifMatch != null) {
+            headers.set(HttpHeaders.IF_MATCH, ifMatch);
+        }
+        return call(uid, HttpMethod.PUT, "/" + uid + "/flashcardSets/" + setId + "/updateTitle",
+                Map.of("title", title), headers, JsonNode.class);
+    }
+}
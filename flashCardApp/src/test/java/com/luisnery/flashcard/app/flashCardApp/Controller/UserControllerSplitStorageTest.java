@@ -0,0 +1,127 @@
+package com.luisnery.flashcard.app.flashCardApp.Controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.TestPropertySource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.luisnery.flashcard.app.flashCardApp.MongoApiTest;
+
+/**
+ * Calls the user API with flashcard sets kept in their own collections.
+ */
+@TestPropertySource(properties = { "flashcards.storage.mode=split", "spring.data.mongodb.database=split" })
+class UserControllerSplitStorageTest extends MongoApiTest {
+
+    @Test
+    void createUserAddsInitialSetsThroughTheStore() {
+        Map<String, Object> user = Map.of("flashcardSets", List.of(Map.of("title", "Spanish", "flashcards",
+                List.of(Map.of("question", "hola", "answer", "hello")))));
+
+        ResponseEntity<JsonNode> created = call("u1", HttpMethod.POST, "/create", user, JsonNode.class);
+
+        assertEquals(HttpStatus.OK, created.getStatusCode());
+        String setId = created.getBody().at("/flashcardSets/0/id").asText();
+        assertNotNull(setId);
+
+        JsonNode sets = call("u1", HttpMethod.GET, "/u1/flashcardSets", null, JsonNode.class).getBody();
+        assertEquals(1, sets.size());
+        assertEquals(setId, sets.at("/0/id").asText());
+        assertEquals("Spanish", sets.at("/0/title").asText());
+
+        JsonNode cards = call("u1", HttpMethod.GET, "/u1/flashcardSets/" + setId + "/flashcards", null,
+                JsonNode.class).getBody();
+        assertEquals(1, cards.size());
+        assertEquals("hola", cards.at("/0/question").asText());
+
+        JsonNode changes = changesSince("u1", 0);
+        assertEquals("SET_CREATED", changes.at("/changes/0/type").asText());
+        assertEquals(setId, changes.at("/changes/0/setId").asText());
+    }
+
+    @Test
+    void deleteUserRecordsRemovedSets() {
+        Map<String, Object> user = Map.of("flashcardSets", List.of(Map.of("title", "Spanish")));
+        String setId = call("u2", HttpMethod.POST, "/create", user, JsonNode.class).getBody()
+                .at("/flashcardSets/0/id").asText();
+
+        assertEquals(HttpStatus.OK, call("u2", HttpMethod.DELETE, "/delete/u2", null, JsonNode.class).getStatusCode());
+
+        // The user's tokens are revoked, so the log is read directly
+        Query removed = Query.query(Criteria.where("ownerId").is("u2").and("type").is("SET_REMOVED"));
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        List<Document> entries;
+        do {
+            entries = mongoTemplate.find(removed, Document.class, "libraryChanges");
+        } while (entries.isEmpty() && System.nanoTime() < deadline);
+        assertEquals(1, entries.size());
+        assertEquals(setId, entries.get(0).getString("setId"));
+        assertEquals(2L, entries.get(0).getLong("sequence"));
+    }
+
+    @Test
+    void submittedReviewsAreAppliedAndRecorded() {
+        Map<String, Object> user = Map.of("flashcardSets", List.of(Map.of("title", "Spanish", "flashcards",
+                List.of(Map.of("question", "hola", "answer", "hello")))));
+        JsonNode set = call("u3", HttpMethod.POST, "/create", user, JsonNode.class).getBody().at("/flashcardSets/0");
+        String setId = set.at("/id").asText();
+        String flashcardId = set.at("/flashcards/0/id").asText();
+        List<Map<String, Object>> events = List.of(
+                Map.of("eventId", "e1", "setId", setId, "flashcardId", flashcardId, "grade", 4),
+                Map.of("eventId", "e1", "setId", setId, "flashcardId", flashcardId, "grade", 4)); // Resubmitted
+
+        ResponseEntity<JsonNode> submitted = call("u3", HttpMethod.POST, "/u3/reviews", events, JsonNode.class);
+
+        assertEquals(HttpStatus.ACCEPTED, submitted.getStatusCode());
+        assertEquals(2, submitted.getBody().get("accepted").asInt());
+
+        JsonNode changes = changesSince("u3", 1);
+        assertEquals("CARD_UPDATED", changes.at("/changes/0/type").asText());
+        assertEquals(1, changes.at("/changes/0/flashcard/review/repetitions").asInt()); // Applied once
+        assertEquals(0, mongoTemplate.getCollection("reviewEvents").countDocuments());
+    }
+
+    @Test
+    void batchReturnsTheVersionsTheSetsWereLeftWith() {
+        Map<String, Object> user = Map.of("flashcardSets", List.of(Map.of("title", "Spanish"), Map.of("title", "French")));
+        JsonNode sets = call("u4", HttpMethod.POST, "/create", user, JsonNode.class).getBody().at("/flashcardSets");
+        String spanish = sets.at("/0/id").asText();
+        String french = sets.at("/1/id").asText();
+        Map<String, Object> batch = Map.of("operations", List.of(
+                Map.of("type", "ADD", "setId", spanish, "question", "hola", "answer", "hello"),
+                Map.of("type", "RETITLE", "setId", french, "title", "Francais")));
+
+        ResponseEntity<JsonNode> applied = call("u4", HttpMethod.POST, "/u4/flashcardSets/batch", batch, JsonNode.class);
+
+        assertEquals(HttpStatus.OK, applied.getStatusCode());
+        JsonNode stored = call("u4", HttpMethod.GET, "/u4/flashcardSets", null, JsonNode.class).getBody();
+        assertEquals(stored.at("/0/version").asLong(), applied.getBody().at("/versions/" + spanish).asLong());
+        assertEquals(stored.at("/1/version").asLong(), applied.getBody().at("/versions/" + french).asLong());
+        assertEquals("Francais", stored.at("/1/title").asText());
+        assertEquals(false, applied.getBody().get("partial").asBoolean());
+    }
+
+    /**
+     * Gets the changes after a cursor, waiting for the change log entries inserted in the background.
+     */
+    private JsonNode changesSince(String uid, long since) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        JsonNode changes;
+        do {
+            changes = call(uid, HttpMethod.GET, "/" + uid + "/changes?since=" + since, null, JsonNode.class).getBody();
+        } while (changes.get("changes").isEmpty() && System.nanoTime() < deadline);
+        return changes;
+    }
+}
@@ -0,0 +1,83 @@
+package com.luisnery.flashcard.app.flashCardApp.Firebase;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.firebase.auth.AuthErrorCode;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseTokens;
+
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Checks the caching and revocation of verified tokens.
+ */
+class FirebaseTokenVerifierTest {
+
+    private final AtomicInteger decodes = new AtomicInteger();
+    private Instant issuedAt = Instant.now().minusSeconds(10);
+
+    // The raw token is the user's ID, so each user has one token at a time
+    private final FirebaseIdTokenDecoder decoder = (idToken, checkRevoked) -> {
+        decodes.incrementAndGet();
+        return FirebaseTokens.of(idToken, issuedAt, Instant.now().plus(Duration.ofHours(1)));
+    };
+
+    @Test
+    void tokenIsDecodedOnce() throws FirebaseAuthException {
+        FirebaseTokenVerifier verifier = verifier(false, Duration.ofMinutes(1));
+
+        assertEquals("u1", verifier.verify("u1").getUid());
+        assertEquals("u1", verifier.verify("u1").getUid());
+
+        assertEquals(1, decodes.get());
+        assertEquals(1, verifier.stats().hitCount());
+    }
+
+    @Test
+    void revokedUserTokensIssuedBeforeAreRejected() throws FirebaseAuthException {
+        FirebaseTokenVerifier verifier = verifier(false, Duration.ofMinutes(1));
+        verifier.verify("u1");
+        verifier.verify("u2");
+
+        verifier.revokeUser("u1");
+
+        FirebaseAuthException revoked = assertThrows(FirebaseAuthException.class, () -> verifier.verify("u1"));
+        assertEquals(AuthErrorCode.REVOKED_ID_TOKEN, revoked.getAuthErrorCode());
+        assertEquals("u2", verifier.verify("u2").getUid());
+        issuedAt = Instant.now().plusSeconds(1); // Signed in again
+        assertEquals("u1", verifier.verify("u1").getUid());
+    }
+
+    @Test
+    void checkingRevocationBoundsHowLongTokensAreCached() throws FirebaseAuthException, InterruptedException {
+        FirebaseTokenVerifier verifier = verifier(true, Duration.ofMillis(1));
+
+        verifier.verify("u1");
+        Thread.sleep(10);
+        verifier.verify("u1");
+
+        assertEquals(2, decodes.get()); // Firebase is asked again whether the token was revoked
+    }
+
+    @Test
+    void withoutRevocationCheckTokensAreCachedUntilExpiry() throws FirebaseAuthException, InterruptedException {
+        FirebaseTokenVerifier verifier = verifier(false, Duration.ofMillis(1));
+
+        verifier.verify("u1");
+        Thread.sleep(10);
+        verifier.verify("u1");
+
+        assertEquals(1, decodes.get());
+    }
+
+    private FirebaseTokenVerifier verifier(boolean checkRevoked, Duration revocationTtl) {
+        return new FirebaseTokenVerifier(decoder, ObservationRegistry.NOOP, 100, checkRevoked, revocationTtl);
+    }
+}
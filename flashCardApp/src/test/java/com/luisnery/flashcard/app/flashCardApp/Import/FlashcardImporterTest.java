@@ -0,0 +1,113 @@
+package com.luisnery.flashcard.app.flashCardApp.Import;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.luisnery.flashcard.app.flashCardApp.MongoApiTest;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardImportError;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardImportResult;
+
+/**
+ * Imports decks into a stored flashcard set and checks the rows written and rejected.
+ */
+class FlashcardImporterTest extends MongoApiTest {
+
+    @Autowired
+    private FlashcardImporter importer;
+
+    @Test
+    void csvRowsAreImportedAndInvalidOnesReported() throws IOException {
+        String setId = createSet("u1");
+        String csv = "question,answer\nhola,hello\nadios\n\"gracias, mucho\",thanks\nsi,\n";
+
+        FlashcardImportResult result = importer.importFlashcards("u1", setId, input(csv), ImportFormat.CSV)
+                .orElseThrow();
+
+        assertTrue(result.isComplete());
+        assertEquals(2, result.getImported());
+        assertEquals(2, result.getFailed());
+        assertEquals(List.of("3: Expected question and answer columns", "5: Missing answer"),
+                describe(result.getErrors()));
+        assertEquals(List.of("hola", "gracias, mucho"), questions("u1", setId));
+    }
+
+    @Test
+    void tsvColumnsAreReadUnquoted() throws IOException {
+        String setId = createSet("u2");
+
+        FlashcardImportResult result = importer.importFlashcards("u2", setId, input("\"hola\"\thello\n"),
+                ImportFormat.TSV).orElseThrow();
+
+        assertTrue(result.isComplete());
+        assertEquals(List.of("\"hola\""), questions("u2", setId));
+    }
+
+    @Test
+    void malformedJsonKeepsTheRowsReadBeforeTheError() throws IOException {
+        String setId = createSet("u3");
+        String json = "[{\"question\":\"hola\",\"answer\":\"hello\"}, 5, {\"question\":\"adios\"}, {\"question\":";
+
+        FlashcardImportResult result = importer.importFlashcards("u3", setId, input(json), ImportFormat.JSON)
+                .orElseThrow();
+
+        assertFalse(result.isComplete());
+        assertEquals(1, result.getImported());
+        assertEquals(3, result.getFailed());
+        List<String> errors = describe(result.getErrors());
+        assertEquals(List.of("2: Expected an object with question and answer", "3: Missing answer"),
+                errors.subList(0, 2));
+        assertTrue(errors.get(2).contains("Malformed input"));
+        assertEquals(List.of("hola"), questions("u3", setId));
+    }
+
+    @Test
+    void jsonThatIsNotAnArrayIsRejected() throws IOException {
+        String setId = createSet("u4");
+
+        FlashcardImportResult result = importer.importFlashcards("u4", setId, input("{\"question\":\"hola\"}"),
+                ImportFormat.JSON).orElseThrow();
+
+        assertFalse(result.isComplete());
+        assertEquals(0, result.getImported());
+        assertEquals(List.of("0: Expected a JSON array of flashcards"), describe(result.getErrors()));
+    }
+
+    @Test
+    void missingSetIsNotFound() throws IOException {
+        createSet("u5");
+
+        assertTrue(importer.importFlashcards("u5", "missing", input("hola,hello\n"), ImportFormat.CSV).isEmpty());
+    }
+
+    private String createSet(String uid) {
+        Map<String, Object> user = Map.of("flashcardSets", List.of(Map.of("title", "Spanish")));
+        return call(uid, HttpMethod.POST, "/create", user, JsonNode.class).getBody()
+                .at("/flashcardSets/0/id").asText();
+    }
+
+    private List<String> questions(String uid, String setId) {
+        JsonNode cards = call(uid, HttpMethod.GET, "/" + uid + "/flashcardSets/" + setId + "/flashcards", null,
+                JsonNode.class).getBody();
+        return cards.findValuesAsText("question");
+    }
+
+    private static List<String> describe(List<FlashcardImportError> errors) {
+        return errors.stream().map(error -> error.getRow() + ": " + error.getMessage()).toList();
+    }
+
+    private static ByteArrayInputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,65 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the parsing of field selections and the views built from them.
+ */
+class FlashcardSetFieldsTest {
+
+    @Test
+    void parsesSetAndFlashcardFields() {
+        FlashcardSetFields fields = FlashcardSetFields.parse(" id, title ,cards.question").orElseThrow();
+
+        assertTrue(fields.includes(FlashcardSetFields.ID));
+        assertTrue(fields.includes(FlashcardSetFields.TITLE));
+        assertFalse(fields.includes(FlashcardSetFields.CARD_COUNT));
+        assertTrue(fields.includesCards());
+        assertEquals(Set.of(FlashcardSetFields.QUESTION), fields.getCardFields());
+    }
+
+    @Test
+    void cardsSelectsEveryFlashcardField() {
+        FlashcardSetFields fields = FlashcardSetFields.parse("cards").orElseThrow();
+
+        assertEquals(Set.of("id", "question", "answer", "review"), fields.getCardFields());
+        assertFalse(fields.includes(FlashcardSetFields.ID));
+    }
+
+    @Test
+    void unknownFieldIsRejected() {
+        assertTrue(FlashcardSetFields.parse("id,owner").isEmpty());
+        assertTrue(FlashcardSetFields.parse("cards.hint").isEmpty());
+        assertTrue(FlashcardSetFields.parse("").isEmpty());
+    }
+
+    @Test
+    void viewHoldsOnlyTheSelectedFields() {
+        FlashcardSet set = new FlashcardSet("Spanish", new ArrayList<>());
+        set.setId("s1");
+        set.setVersion(4L);
+        Flashcard flashcard = new Flashcard("hola", "hello");
+        flashcard.setId("c1");
+        set.addFlashcard(flashcard);
+
+        FlashcardSetView view = FlashcardSetFields.parse("title,cardCount,cards.id,cards.answer").orElseThrow()
+                .select(set);
+
+        assertNull(view.getId());
+        assertEquals("Spanish", view.getTitle());
+        assertEquals(1, view.getCardCount());
+        assertEquals(4, view.getVersion()); // Always set, as the ETag is derived from it
+        assertEquals(List.of("c1"), view.getCards().stream().map(Flashcard::getId).toList());
+        assertNull(view.getCards().get(0).getQuestion());
+        assertEquals("hello", view.getCards().get(0).getAnswer());
+    }
+}
@@ -0,0 +1,40 @@
+package com.luisnery.flashcard.app.flashCardApp.Model;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the flashcard lookups of a set against changes made after the index was built.
+ */
+class FlashcardSetTest {
+
+    @Test
+    void findsFlashcardWhoseIdWasAssignedAfterIndexing() {
+        FlashcardSet set = new FlashcardSet("Spanish", new ArrayList<>());
+        Flashcard flashcard = new Flashcard("hola", "hello");
+        set.addFlashcard(flashcard);
+        assertNull(set.findCard("c1")); // Builds the index while the flashcard has no ID
+
+        flashcard.setId("c1");
+
+        assertSame(flashcard, set.findCard("c1"));
+    }
+
+    @Test
+    void findsFlashcardWhoseIdChangedAfterIndexing() {
+        FlashcardSet set = new FlashcardSet("Spanish", new ArrayList<>());
+        Flashcard flashcard = new Flashcard("hola", "hello");
+        flashcard.setId("c1");
+        set.addFlashcard(flashcard);
+        assertSame(flashcard, set.findCard("c1"));
+
+        flashcard.setId("c2");
+
+        assertNull(set.findCard("c1"));
+        assertSame(flashcard, set.findCard("c2"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.luisnery.flashcard.app.flashCardApp;
+
+import java.net.InetSocketAddress;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.google.firebase.auth.FirebaseTokens;
+import com.luisnery.flashcard.app.flashCardApp.Firebase.FirebaseIdTokenDecoder;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+/**
+ * Base of the tests calling the API over HTTP, against an in-process MongoDB that is emptied
+ * before each test. Requests are authenticated as the user named by the bearer token.
+ *
+ * Cached contexts stay up between test classes, with their background writers polling the
+ * database, so a subclass configuring another storage mode also sets spring.data.mongodb.database.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Import(MongoApiTest.StubFirebase.class)
+public abstract class MongoApiTest {
+
+    private static final MongoServer MONGO = new MongoServer(new MemoryBackend());
+    private static final InetSocketAddress MONGO_ADDRESS = MONGO.bind();
+
+    @Autowired
+    protected TestRestTemplate rest;
+
+    @Autowired
+    protected MongoTemplate mongoTemplate;
+
+    @DynamicPropertySource
+    static void mongo(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", () -> "mongodb://localhost:" + MONGO_ADDRESS.getPort() + "/test");
+    }
+
+    @BeforeEach
+    void emptyDatabase() {
+        for (String collection : mongoTemplate.getCollectionNames()) {
+            mongoTemplate.getCollection(collection).deleteMany(new org.bson.Document());
+        }
+    }
+
+    /**
+     * Sends a request as a user.
+     *
+     * @param uid          the user's ID, used as bearer token.
+     * @param method       the HTTP method.
+     * @param path         the path under /api/users.
+     * @param body         the JSON body, or null.
+     * @param responseType the type of the response body.
+     * @param <T>          the type of the response body.
+     * @return the response.
+     */
+    protected <T> ResponseEntity<T> call(String uid, HttpMethod method, String path, Object body,
+            Class<T> responseType) {
+        return call(uid, method, path, body, new HttpHeaders(), responseType);
+    }
+
+    /**
+     * Sends a request as a user with additional headers, such as preconditions.
+     *
+     * @param uid          the user's ID, used as bearer token.
+     * @param method       the HTTP method.
+     * @param path         the path under /api/users.
+     * @param body         the JSON body, or null.
+     * @param headers      the headers to send besides the authorization and content type.
+     * @param responseType the type of the response body.
+     * @param <T>          the type of the response body.
+     * @return the response.
+     */
+    protected <T> ResponseEntity<T> call(String uid, HttpMethod method, String path, Object body,
+            HttpHeaders headers, Class<T> responseType) {
+        headers.setBearerAuth(uid);
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        return rest.exchange("/api/users" + path, method, new HttpEntity<>(body, headers), responseType);
+    }
+
+    /**
+     * Decodes any bearer token as a valid token of the user it names.
+     */
+    @TestConfiguration
+    static class StubFirebase {
+
+        @Bean
+        @Primary
+        FirebaseIdTokenDecoder stubFirebaseIdTokenDecoder() {
+            return (idToken, checkRevoked) -> FirebaseTokens.of(idToken);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.luisnery.flashcard.app.flashCardApp.Observability;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.luisnery.flashcard.app.flashCardApp.MongoApiTest;
+
+/**
+ * Reads the cache statistics from the actuator endpoint.
+ */
+class CacheStatsEndpointTest extends MongoApiTest {
+
+    @Test
+    void reportsTheTokenAndLibraryCaches() {
+        ResponseEntity<JsonNode> tokens = rest.getForEntity("/actuator/cachestats/tokens", JsonNode.class);
+        ResponseEntity<JsonNode> library = rest.getForEntity("/actuator/cachestats/library", JsonNode.class);
+
+        assertEquals(HttpStatus.OK, tokens.getStatusCode());
+        assertTrue(tokens.getBody().has("hitRatio"));
+        assertEquals(HttpStatus.OK, library.getStatusCode());
+        assertTrue(library.getBody().has("size"));
+        assertEquals(HttpStatus.NOT_FOUND,
+                rest.getForEntity("/actuator/cachestats/other", JsonNode.class).getStatusCode());
+    }
+}
@@ -0,0 +1,94 @@
+package com.luisnery.flashcard.app.flashCardApp.Observability;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.mapping.event.AfterLoadEvent;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Checks the reply sizes taken from the command events and the flashcards counted per loaded set,
+ * against an in-process MongoDB.
+ */
+class PayloadMetricsTest {
+
+    private static MongoServer server;
+    private static String uri;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PayloadMetrics payloadMetrics;
+
+    @BeforeAll
+    static void startMongo() {
+        server = new MongoServer(new MemoryBackend());
+        uri = "mongodb://localhost:" + server.bind().getPort();
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        server.shutdown();
+    }
+
+    @BeforeEach
+    void createMetrics() {
+        meterRegistry = new SimpleMeterRegistry();
+        payloadMetrics = new PayloadMetrics(meterRegistry);
+    }
+
+    @Test
+    void recordsTheReplyBytesPerCommandAndCollection() {
+        Document user = new Document("_id", "u1").append("name", "x".repeat(1000));
+        try (MongoClient client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(uri))
+                .addCommandListener(payloadMetrics)
+                .build())) {
+            MongoCollection<Document> users = client.getDatabase("test").getCollection("users");
+            users.drop();
+            users.insertOne(user);
+            users.find().first();
+        }
+
+        DistributionSummary find = meterRegistry.find("flashcards.mongo.reply.size")
+                .tags("command", "find", "collection", "users").summary();
+        assertNotNull(find);
+        assertEquals(1, find.count());
+        int userBytes = new RawBsonDocument(user, MongoClientSettings.getDefaultCodecRegistry().get(Document.class))
+                .getByteBuffer().remaining();
+        assertTrue(find.totalAmount() > userBytes); // The document plus the cursor around it
+        assertNotNull(meterRegistry.find("flashcards.mongo.reply.size")
+                .tags("command", "insert", "collection", "users").summary());
+    }
+
+    @Test
+    void countsTheFlashcardsOfEachLoadedSet() {
+        Document user = new Document("_id", "u1").append("flashcardSets", List.of(
+                new Document("_id", "s1").append("flashcards", List.of(new Document(), new Document())),
+                new Document("_id", "s2"), // Projected without its flashcards
+                new Document("_id", "s3").append("flashcards", List.of())));
+
+        payloadMetrics.onAfterLoad(new AfterLoadEvent<>(user, Object.class, "users"));
+
+        DistributionSummary cards = meterRegistry.get("flashcards.set.cards").summary();
+        assertEquals(2, cards.count());
+        assertEquals(2, cards.totalAmount());
+    }
+}
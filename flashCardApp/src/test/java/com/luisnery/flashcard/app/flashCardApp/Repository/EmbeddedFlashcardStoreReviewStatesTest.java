@@ -0,0 +1,7 @@
+package com.luisnery.flashcard.app.flashCardApp.Repository;
+
+/**
+ * Writes review states to flashcards embedded in their user's document.
+ */
+class EmbeddedFlashcardStoreReviewStatesTest extends FlashcardStoreReviewStatesTest {
+}
@@ -0,0 +1,113 @@
+package com.luisnery.flashcard.app.flashCardApp.Repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import com.luisnery.flashcard.app.flashCardApp.Id.IdGenerator;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardBatchResult;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardOperation;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardOperationResult.Status;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+
+/**
+ * Checks how a flashcard batch is applied to the sets it was read with.
+ */
+class FlashcardBatchPlanTest {
+
+    private final AtomicInteger ids = new AtomicInteger();
+    private final IdGenerator idGenerator = () -> "new" + ids.incrementAndGet();
+
+    @Test
+    void operationsSeeTheSetsAsLeftByThePreviousOnes() {
+        FlashcardSet spanish = set("s1", 3, "c1");
+        List<FlashcardOperation> operations = List.of(
+                operation(FlashcardOperation.Type.ADD, "s1", null, "hola"),
+                operation(FlashcardOperation.Type.UPDATE, "s1", "new1", "adios"),
+                operation(FlashcardOperation.Type.REMOVE, "s1", "c1", null));
+
+        FlashcardBatchPlan plan = new FlashcardBatchPlan(List.of(spanish), operations, Map.of("s1", 3L), idGenerator);
+
+        assertTrue(plan.isComplete());
+        assertEquals(List.of(Status.APPLIED, Status.APPLIED, Status.APPLIED),
+                plan.getResults().stream().map(result -> result.getStatus()).toList());
+        assertEquals("new1", plan.getResults().get(0).getFlashcard().getId());
+        assertEquals("adios", plan.getResults().get(0).getFlashcard().getQuestion()); // Inserted as left by the batch
+        assertEquals("adios", plan.getResults().get(1).getFlashcard().getQuestion());
+        assertEquals(List.of("new1"), spanish.getFlashcards().stream().map(Flashcard::getId).toList());
+        assertEquals(List.of(spanish), new ArrayList<>(plan.getChangedSets()));
+    }
+
+    @Test
+    void missingFlashcardSkipsTheWholeBatch() {
+        List<FlashcardOperation> operations = List.of(
+                operation(FlashcardOperation.Type.ADD, "s1", null, "hola"),
+                operation(FlashcardOperation.Type.REMOVE, "s1", "c9", null),
+                operation(FlashcardOperation.Type.ADD, "s2", null, "oui"));
+
+        FlashcardBatchPlan plan = new FlashcardBatchPlan(List.of(set("s1", 0)), operations, Map.of(), idGenerator);
+
+        assertFalse(plan.isComplete());
+        assertEquals(List.of(Status.SKIPPED, Status.NOT_FOUND, Status.NOT_FOUND),
+                plan.getResults().stream().map(result -> result.getStatus()).toList());
+        assertTrue(plan.getChangedSets().isEmpty());
+        assertFalse(plan.toResult(Map.of()).isApplied());
+    }
+
+    @Test
+    void setWithAnotherVersionIsAConflict() {
+        assertThrows(OptimisticLockingFailureException.class, () -> new FlashcardBatchPlan(List.of(set("s1", 4)),
+                List.of(operation(FlashcardOperation.Type.ADD, "s1", null, "hola")), Map.of("s1", 3L), idGenerator));
+    }
+
+    @Test
+    void partialResultMarksTheFailedAndFollowingOperations() {
+        List<FlashcardOperation> operations = List.of(
+                operation(FlashcardOperation.Type.ADD, "s1", null, "hola"),
+                operation(FlashcardOperation.Type.ADD, "s1", null, "adios"),
+                operation(FlashcardOperation.Type.ADD, "s1", null, "gracias"));
+        FlashcardBatchPlan plan = new FlashcardBatchPlan(List.of(set("s1", 0)), operations, Map.of(), idGenerator);
+
+        FlashcardBatchResult result = plan.toPartialResult(1, "write failed", Map.of("s1", 2L));
+
+        assertFalse(result.isApplied());
+        assertTrue(result.isPartial());
+        assertEquals(List.of(Status.APPLIED, Status.FAILED, Status.SKIPPED),
+                result.getResults().stream().map(operation -> operation.getStatus()).toList());
+        assertEquals("write failed", result.getResults().get(1).getMessage());
+        assertEquals(Map.of("s1", 2L), result.getVersions());
+    }
+
+    private static FlashcardSet set(String id, long version, String... flashcardIds) {
+        FlashcardSet set = new FlashcardSet("Spanish", new ArrayList<>());
+        set.setId(id);
+        set.setVersion(version);
+        for (String flashcardId : flashcardIds) {
+            Flashcard flashcard = new Flashcard("question", "answer");
+            flashcard.setId(flashcardId);
+            set.addFlashcard(flashcard);
+        }
+        return set;
+    }
+
+    private static FlashcardOperation operation(FlashcardOperation.Type type, String setId, String flashcardId,
+            String question) {
+        FlashcardOperation operation = new FlashcardOperation();
+        operation.setType(type);
+        operation.setSetId(setId);
+        operation.setFlashcardId(flashcardId);
+        operation.setQuestion(question);
+        operation.setAnswer("answer");
+        return operation;
+    }
+}
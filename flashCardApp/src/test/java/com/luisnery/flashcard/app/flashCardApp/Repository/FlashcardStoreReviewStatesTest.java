@@ -0,0 +1,80 @@
+package com.luisnery.flashcard.app.flashCardApp.Repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.luisnery.flashcard.app.flashCardApp.MongoApiTest;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.ReviewState;
+
+/**
+ * Checks that writing review states only changes the versions of the sets whose flashcards were
+ * written, run against each storage mode by its subclasses.
+ */
+abstract class FlashcardStoreReviewStatesTest extends MongoApiTest {
+
+    private static final Instant REVIEWED_AT = Instant.parse("2026-01-01T10:00:00Z");
+
+    @Autowired
+    private FlashcardStore flashcardStore;
+
+    @Test
+    void conflictingReviewLeavesTheVersionUnchanged() {
+        JsonNode set = createUser("u1").at("/flashcardSets/0");
+        String setId = set.at("/id").asText();
+        Map<String, Long> before = flashcardStore.findFlashcardSetVersions("u1").orElseThrow();
+
+        Flashcard reviewed = reviewed("u1", setId, set.at("/flashcards/0/id").asText());
+        flashcardStore.updateReviewStates(List.of(reviewed), Map.of(reviewed.getId(), REVIEWED_AT)); // Never reviewed
+
+        assertEquals(before, flashcardStore.findFlashcardSetVersions("u1").orElseThrow());
+        assertNull(flashcardStore.findFlashcardsById("u1", List.of(reviewed.getId())).get(0).getReview());
+    }
+
+    @Test
+    void onlySetsWithWrittenReviewsChangeVersion() {
+        JsonNode sets = createUser("u2").at("/flashcardSets");
+        String spanish = sets.at("/0/id").asText();
+        String french = sets.at("/1/id").asText();
+        Map<String, Long> before = flashcardStore.findFlashcardSetVersions("u2").orElseThrow();
+
+        Flashcard applied = reviewed("u2", spanish, sets.at("/0/flashcards/0/id").asText());
+        Flashcard conflicting = reviewed("u2", french, sets.at("/1/flashcards/0/id").asText());
+        Map<String, Instant> expected = new HashMap<>();
+        expected.put(conflicting.getId(), REVIEWED_AT);
+        flashcardStore.updateReviewStates(List.of(applied, conflicting), expected);
+
+        Map<String, Long> after = flashcardStore.findFlashcardSetVersions("u2").orElseThrow();
+        assertEquals(before.get(spanish) + 1, after.get(spanish));
+        assertEquals(before.get(french), after.get(french));
+        assertNotNull(flashcardStore.findFlashcardsById("u2", List.of(applied.getId())).get(0).getReview());
+    }
+
+    private JsonNode createUser(String uid) {
+        Map<String, Object> user = Map.of("flashcardSets", List.of(
+                Map.of("title", "Spanish", "flashcards", List.of(Map.of("question", "hola", "answer", "hello"))),
+                Map.of("title", "French", "flashcards", List.of(Map.of("question", "oui", "answer", "yes")))));
+        return call(uid, HttpMethod.POST, "/create", user, JsonNode.class).getBody();
+    }
+
+    private static Flashcard reviewed(String uid, String setId, String flashcardId) {
+        Flashcard flashcard = new Flashcard();
+        flashcard.setId(flashcardId);
+        flashcard.setOwnerId(uid);
+        flashcard.setSetId(setId);
+        flashcard.setReview(new ReviewState(2.6, 1, 1, 0, REVIEWED_AT.plusSeconds(60),
+                REVIEWED_AT.plusSeconds(60 + 86400)));
+        return flashcard;
+    }
+}
@@ -0,0 +1,10 @@
+package com.luisnery.flashcard.app.flashCardApp.Repository;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Writes review states to flashcards kept in their own collection.
+ */
+@TestPropertySource(properties = { "flashcards.storage.mode=split", "spring.data.mongodb.database=split" })
+class SplitFlashcardStoreReviewStatesTest extends FlashcardStoreReviewStatesTest {
+}
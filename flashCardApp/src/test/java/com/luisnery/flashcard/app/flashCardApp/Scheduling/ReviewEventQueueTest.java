@@ -0,0 +1,118 @@
+package com.luisnery.flashcard.app.flashCardApp.Scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.ReviewEvent;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+/**
+ * Checks how review events are stored, claimed, retried and set aside, against an in-process MongoDB.
+ */
+class ReviewEventQueueTest {
+
+    private static final Duration LEASE = Duration.ofMinutes(1);
+
+    private static MongoServer server;
+    private static MongoClient client;
+
+    private MongoTemplate mongoTemplate;
+    private ReviewEventQueue queue;
+
+    @BeforeAll
+    static void startMongo() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create("mongodb://localhost:" + server.bind().getPort());
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        client.close();
+        server.shutdown();
+    }
+
+    @BeforeEach
+    void createQueue() {
+        mongoTemplate = new MongoTemplate(client, "test");
+        mongoTemplate.getDb().drop();
+        queue = new ReviewEventQueue(mongoTemplate, 3, Duration.ofSeconds(1), 2);
+    }
+
+    @Test
+    void acceptsLeadingEventsThatFit() {
+        assertEquals(2, queue.offer(List.of(event("u1", "e1"), event("u1", "e2"))));
+        assertEquals(1, queue.offer(List.of(event("u1", "e3"), event("u1", "e4"))));
+        assertEquals(0, queue.offer(List.of(event("u1", "e4"))));
+        assertEquals(3, queue.size());
+    }
+
+    @Test
+    void resubmittedEventIsStoredOnce() {
+        queue.offer(List.of(event("u1", "e1")));
+        queue.offer(List.of(event("u1", "e1"), event("u2", "e1"))); // Same ID, another user
+
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    void claimedEventsAreReservedUntilCompleted() {
+        queue.offer(List.of(event("u1", "e1"), event("u1", "e2")));
+
+        List<ReviewEvent> claimed = queue.claim(10, LEASE);
+        assertEquals(List.of("e1", "e2"), claimed.stream().map(ReviewEvent::getEventId).toList());
+        assertEquals("u1", claimed.get(0).getOwnerId());
+        assertEquals(0, queue.claim(10, LEASE).size());
+
+        queue.complete(claimed);
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void expiredLeaseIsClaimedAgain() {
+        queue.offer(List.of(event("u1", "e1")));
+        queue.claim(10, Duration.ofMillis(-1)); // The writer died
+
+        assertEquals(1, queue.claim(10, LEASE).size());
+    }
+
+    @Test
+    void retriedEventWaitsThenIsSetAside() {
+        queue.offer(List.of(event("u1", "e1")));
+
+        queue.retry(queue.claim(10, LEASE));
+        Document stored = mongoTemplate.findAll(Document.class, "reviewEvents").get(0);
+        assertTrue(stored.getDate("availableAt").toInstant().isAfter(Instant.now()));
+        assertEquals(0, queue.claim(10, LEASE).size());
+
+        mongoTemplate.getCollection("reviewEvents").updateOne(new Document(),
+                new Document("$set", new Document("availableAt", new Date())));
+        queue.retry(queue.claim(10, LEASE)); // Second and last attempt
+
+        assertEquals(0, queue.size());
+        List<Document> failed = mongoTemplate.findAll(Document.class, "reviewEventsFailed");
+        assertEquals(1, failed.size());
+        assertEquals(2, failed.get(0).getInteger("attempts"));
+    }
+
+    private static ReviewEvent event(String uid, String eventId) {
+        ReviewEvent event = new ReviewEvent(eventId, "s1", "c1", 4, Instant.now());
+        event.setOwnerId(uid);
+        return event;
+    }
+}
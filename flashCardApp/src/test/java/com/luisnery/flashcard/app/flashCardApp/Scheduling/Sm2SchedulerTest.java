@@ -0,0 +1,79 @@
+package com.luisnery.flashcard.app.flashCardApp.Scheduling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.ReviewState;
+
+/**
+ * Checks the intervals, ease and lapses computed by the SM-2 scheduler.
+ */
+class Sm2SchedulerTest {
+
+    private final Sm2Scheduler scheduler = new Sm2Scheduler();
+    private final Instant now = Instant.parse("2026-01-01T10:00:00.123456Z");
+
+    @Test
+    void recalledFlashcardIntervalsGrowWithTheEase() {
+        ReviewState first = scheduler.review(null, 5, now);
+        ReviewState second = scheduler.review(first, 5, now);
+        ReviewState third = scheduler.review(second, 4, now);
+
+        assertEquals(1, first.getIntervalDays());
+        assertEquals(2.6, first.getEase(), 1e-9);
+        assertEquals(6, second.getIntervalDays());
+        assertEquals(2.7, second.getEase(), 1e-9);
+        assertEquals(16, third.getIntervalDays()); // 6 days times 2.7
+        assertEquals(2.7, third.getEase(), 1e-9); // A grade of 4 keeps the ease
+        assertEquals(3, third.getRepetitions());
+        assertEquals(0, third.getLapses());
+    }
+
+    @Test
+    void forgottenFlashcardStartsOverAndCountsALapse() {
+        ReviewState recalled = scheduler.review(scheduler.review(null, 5, now), 5, now);
+
+        ReviewState forgotten = scheduler.review(recalled, 2, now);
+
+        assertEquals(1, forgotten.getIntervalDays());
+        assertEquals(0, forgotten.getRepetitions());
+        assertEquals(1, forgotten.getLapses());
+        assertEquals(2.38, forgotten.getEase(), 1e-9);
+        assertEquals(0, scheduler.review(null, 2, now).getLapses()); // Never recalled, so nothing lapsed
+    }
+
+    @Test
+    void easeNeverDropsBelowTheMinimum() {
+        ReviewState state = null;
+        for (int i = 0; i < 3; i++) {
+            state = scheduler.review(state, 0, now);
+        }
+
+        assertEquals(1.3, state.getEase(), 1e-9);
+    }
+
+    @Test
+    void reviewIsDueAfterTheIntervalAndKeepsTheRecentEvents() {
+        ReviewState current = scheduler.review(null, 5, now);
+        current.setRecentEventIds(List.of("e1"));
+
+        ReviewState next = scheduler.review(current, 5, now);
+
+        Instant reviewedAt = Instant.parse("2026-01-01T10:00:00.123Z"); // Truncated as MongoDB stores it
+        assertEquals(reviewedAt, next.getLastReviewedAt());
+        assertEquals(reviewedAt.plus(Duration.ofDays(6)), next.getDueAt());
+        assertEquals(List.of("e1"), next.getRecentEventIds());
+    }
+
+    @Test
+    void gradeOutOfRangeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> scheduler.review(null, -1, now));
+        assertThrows(IllegalArgumentException.class, () -> scheduler.review(null, 6, now));
+    }
+}
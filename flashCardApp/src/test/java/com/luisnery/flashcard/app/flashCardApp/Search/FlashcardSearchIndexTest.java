@@ -0,0 +1,96 @@
+package com.luisnery.flashcard.app.flashCardApp.Search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSearchEntry;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+/**
+ * Checks that search entries are kept apart by owner and set when flashcard IDs repeat, against
+ * an in-process MongoDB.
+ */
+class FlashcardSearchIndexTest {
+
+    private static MongoServer server;
+    private static MongoClient client;
+
+    private MongoTemplate mongoTemplate;
+    private FlashcardSearchIndex searchIndex;
+
+    @BeforeAll
+    static void startMongo() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create("mongodb://localhost:" + server.bind().getPort());
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        client.close();
+        server.shutdown();
+    }
+
+    @BeforeEach
+    void createIndex() {
+        mongoTemplate = new MongoTemplate(client, "test");
+        mongoTemplate.getDb().drop();
+        searchIndex = new FlashcardSearchIndex(mongoTemplate, "english");
+        searchIndex.createIndexes();
+    }
+
+    @Test
+    void sameFlashcardIdOfTwoOwnersIsIndexedForEach() {
+        searchIndex.index("a", "s1", List.of(flashcard("c1", "hola")));
+        searchIndex.index("b", "s2", List.of(flashcard("c1", "bonjour")));
+
+        assertEquals(List.of("a/s1/c1 hola", "b/s2/c1 bonjour"), entries());
+    }
+
+    @Test
+    void sameFlashcardIdInTwoSetsIsRemovedFromOneOnly() {
+        searchIndex.index("a", "s1", List.of(flashcard("c1", "hola")));
+        searchIndex.index("a", "s2", List.of(flashcard("c1", "adios")));
+
+        searchIndex.remove("a", "s1", "c1");
+
+        assertEquals(List.of("a/s2/c1 adios"), entries());
+    }
+
+    @Test
+    void reindexedFlashcardReplacesItsEntry() {
+        searchIndex.index("a", "s1", List.of(flashcard("c1", "hola"), flashcard("c2", "si")));
+        searchIndex.index("a", "s1", List.of(flashcard("c1", "adios")));
+
+        searchIndex.remove("a", "s1", List.of("c2"));
+
+        assertEquals(List.of("a/s1/c1 adios"), entries());
+    }
+
+    private List<String> entries() {
+        Query all = new Query().with(Sort.by("ownerId", "setId", "flashcardId"));
+        return mongoTemplate.find(all, FlashcardSearchEntry.class).stream()
+                .map(entry -> entry.getOwnerId() + "/" + entry.getSetId() + "/" + entry.getFlashcardId() + " "
+                        + entry.getQuestion())
+                .toList();
+    }
+
+    private static Flashcard flashcard(String id, String question) {
+        Flashcard flashcard = new Flashcard(question, "answer");
+        flashcard.setId(id);
+        return flashcard;
+    }
+}
@@ -0,0 +1,244 @@
+package com.luisnery.flashcard.app.flashCardApp.Sync;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryChanges;
+import com.luisnery.flashcard.app.flashCardApp.Model.LibraryEvent;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+/**
+ * Checks the numbering, paging and compaction of the change log, and how missing changes are
+ * detected, against an in-process MongoDB.
+ */
+class LibraryChangeLogTest {
+
+    private static final Duration SETTLE = Duration.ofSeconds(10);
+
+    private static MongoServer server;
+    private static MongoClient client;
+
+    private MongoTemplate mongoTemplate;
+    private ChangeLogWriter writer;
+
+    @BeforeAll
+    static void startMongo() {
+        server = new MongoServer(new MemoryBackend());
+        client = MongoClients.create("mongodb://localhost:" + server.bind().getPort());
+    }
+
+    @AfterAll
+    static void stopMongo() {
+        client.close();
+        server.shutdown();
+    }
+
+    @BeforeEach
+    void createLog() {
+        mongoTemplate = new MongoTemplate(client, "test");
+        mongoTemplate.getDb().drop();
+        writer = new ChangeLogWriter(mongoTemplate, 100);
+        writer.start();
+    }
+
+    @AfterEach
+    void stopWriter() {
+        if (writer.isRunning()) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void numbersRecordedChangesInOrder() {
+        LibraryChangeLog changeLog = changeLog(Duration.ofMinutes(5));
+
+        try (PendingChanges changes = changeLog.begin("u1")) {
+            changes.recordAll(List.of(LibraryEvent.setCreated(set("s1", "Spanish")), LibraryEvent.setRemoved("s2")));
+        }
+        LibraryEvent removed;
+        try (PendingChanges changes = changeLog.begin("u1")) {
+            removed = changes.record(LibraryEvent.setRemoved("s3"));
+        }
+        writer.stop(); // Inserts the queued entries
+
+        assertEquals(3, removed.getSequence());
+        assertEquals(3, changeLog.latestSequence("u1"));
+        LibraryChanges page = changeLog.changesSince("u1", 0L, 10);
+        assertEquals(List.of("s1", "s2", "s3"), page.getChanges().stream().map(LibraryEvent::getSetId).toList());
+        assertEquals(3, page.getNext());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void compactsChangesOfTheSameFlashcardAndSet() {
+        LibraryChangeLog changeLog = changeLog(Duration.ofMinutes(5));
+        Flashcard added = flashcard("c1", "hola");
+        Flashcard updated = flashcard("c1", "adios");
+
+        try (PendingChanges changes = changeLog.begin("u1")) {
+            changes.recordAll(List.of(LibraryEvent.setCreated(set("s1", "Spanish")),
+                    LibraryEvent.cardAdded("s1", added), LibraryEvent.cardUpdated("s1", updated),
+                    LibraryEvent.setCreated(set("s2", "French")), LibraryEvent.cardAdded("s2", flashcard("c2", "oui")),
+                    LibraryEvent.setRemoved("s2")));
+        }
+        writer.stop();
+
+        List<LibraryEvent> changes = changeLog.changesSince("u1", 0L, 10).getChanges();
+        assertEquals(3, changes.size());
+        assertEquals(LibraryEvent.Type.SET_CREATED, changes.get(0).getType());
+        assertEquals(LibraryEvent.Type.CARD_ADDED, changes.get(1).getType()); // Still new to the client
+        assertEquals("adios", changes.get(1).getFlashcard().getQuestion());
+        assertEquals(LibraryEvent.Type.SET_REMOVED, changes.get(2).getType());
+        assertEquals("s2", changes.get(2).getSetId());
+    }
+
+    @Test
+    void pagesStopAtTheLimit() {
+        LibraryChangeLog changeLog = changeLog(Duration.ofMinutes(5));
+
+        try (PendingChanges changes = changeLog.begin("u1")) {
+            changes.recordAll(List.of(LibraryEvent.setRemoved("s1"), LibraryEvent.setRemoved("s2"),
+                    LibraryEvent.setRemoved("s3")));
+        }
+        writer.stop();
+
+        LibraryChanges first = changeLog.changesSince("u1", 0L, 2);
+        assertEquals(2, first.getNext());
+        assertTrue(first.isHasMore());
+        LibraryChanges second = changeLog.changesSince("u1", first.getNext(), 2);
+        assertEquals(List.of("s3"), second.getChanges().stream().map(LibraryEvent::getSetId).toList());
+        assertFalse(second.isHasMore());
+    }
+
+    @Test
+    void pageEndsBeforeARecentGap() {
+        LibraryChangeLog changeLog = changeLog(Duration.ofMinutes(5));
+        counter("u1", 3, Instant.now());
+        entry("u1", 1, Instant.now());
+        entry("u1", 3, Instant.now()); // 2 may still be written
+
+        LibraryChanges page = changeLog.changesSince("u1", 0L, 10);
+
+        assertEquals(1, page.getChanges().size());
+        assertEquals(1, page.getNext());
+        assertFalse(page.isHasMore());
+        assertEquals(0, changeLog.changesSince("u1", 1L, 10).getChanges().size());
+    }
+
+    @Test
+    void gapOlderThanSettleIsLost() {
+        LibraryChangeLog changeLog = changeLog(Duration.ofMinutes(5));
+        Instant old = Instant.now().minus(SETTLE).minusSeconds(1);
+        counter("u1", 3, old);
+        entry("u1", 1, old);
+        entry("u1", 3, old);
+
+        LibraryChanges page = changeLog.changesSince("u1", 0L, 10);
+        assertEquals(1, page.getNext());
+        assertTrue(page.isHasMore()); // The client comes back right away and learns the change was lost
+        assertNull(changeLog.changesSince("u1", 1L, 10));
+    }
+
+    @Test
+    void cursorBeyondTheLatestChangeIsUnknown() {
+        LibraryChangeLog changeLog = changeLog(Duration.ofMinutes(5));
+        counter("u1", 2, Instant.now());
+
+        assertEquals(0, changeLog.changesSince("u1", 2L, 10).getChanges().size());
+        assertNull(changeLog.changesSince("u1", 5L, 10)); // From another database
+    }
+
+    @Test
+    void duplicateEntriesAreSkipped() {
+        LibraryChangeLog changeLog = changeLog(Duration.ofMinutes(5));
+        counter("u1", 2, Instant.now());
+        entry("u1", 1, Instant.now());
+        entry("u1", 1, Instant.now()); // Inserted again by a retry, without the unique index
+        entry("u1", 2, Instant.now());
+
+        LibraryChanges page = changeLog.changesSince("u1", 0L, 10);
+
+        assertEquals(2, page.getNext());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void closingWithoutRecordingLeavesNoGap() {
+        LibraryChangeLog changeLog = changeLog(Duration.ofMinutes(5));
+
+        try (PendingChanges changes = changeLog.begin("u1")) {
+            // The request failed before changing the library
+        }
+
+        assertEquals(0, changeLog.latestSequence("u1"));
+        assertEquals(0, changeLog.changesSince("u1", 0L, 10).getChanges().size());
+    }
+
+    @Test
+    void changeNeverRecordedBecomesAGap() {
+        LibraryChangeLog changeLog = changeLog(Duration.ofMinutes(5));
+        changeLog.begin("u1"); // Still being made
+        mongoTemplate.getCollection("librarySequences").updateOne(new Document("_id", "u1"),
+                new Document("$push", new Document("pending", new Document("_id", new ObjectId())
+                        .append("at", Date.from(Instant.now().minus(Duration.ofMinutes(6))))))); // The instance died
+
+        assertEquals(1, changeLog.latestSequence("u1"));
+        assertEquals(1, changeLog.latestSequence("u1")); // Replaced once
+        assertEquals(0, changeLog.changesSince("u1", 0L, 10).getChanges().size()); // Until settled
+        assertEquals(0, changeLog.changesSince("u1", 1L, 10).getChanges().size()); // Downloaded since
+        assertEquals(1, mongoTemplate.findById("u1", Document.class, "librarySequences")
+                .getList("pending", Document.class).size()); // The change still being made is kept
+    }
+
+    private LibraryChangeLog changeLog(Duration pendingTimeout) {
+        return new LibraryChangeLog(mongoTemplate, writer, Duration.ofDays(30), SETTLE, pendingTimeout);
+    }
+
+    private void counter(String uid, long sequence, Instant updatedAt) {
+        mongoTemplate.save(new Document("_id", uid).append("sequence", sequence)
+                .append("updatedAt", Date.from(updatedAt)), "librarySequences");
+    }
+
+    private void entry(String uid, long sequence, Instant createdAt) {
+        LibraryEvent entry = LibraryEvent.setRemoved("s" + sequence);
+        entry.setOwnerId(uid);
+        entry.setSequence(sequence);
+        entry.setCreatedAt(createdAt);
+        mongoTemplate.insert(entry, LibraryChangeLog.CHANGES);
+    }
+
+    private static FlashcardSet set(String id, String title) {
+        FlashcardSet set = new FlashcardSet();
+        set.setId(id);
+        set.setTitle(title);
+        return set;
+    }
+
+    private static Flashcard flashcard(String id, String question) {
+        Flashcard flashcard = new Flashcard(question, "answer");
+        flashcard.setId(id);
+        return flashcard;
+    }
+}
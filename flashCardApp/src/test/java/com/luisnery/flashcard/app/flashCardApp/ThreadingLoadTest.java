@@ -0,0 +1,200 @@
+package com.luisnery.flashcard.app.flashCardApp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import com.google.firebase.auth.FirebaseTokens;
+import com.luisnery.flashcard.app.flashCardApp.Firebase.FirebaseIdTokenDecoder;
+import com.luisnery.flashcard.app.flashCardApp.Id.IdGenerator;
+import com.luisnery.flashcard.app.flashCardApp.Id.TimeOrderedUuidGenerator;
+import com.luisnery.flashcard.app.flashCardApp.Model.Flashcard;
+import com.luisnery.flashcard.app.flashCardApp.Model.FlashcardSet;
+import com.luisnery.flashcard.app.flashCardApp.Model.User;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+
+/**
+ * Compares the throughput and p99 latency of Tomcat's platform thread pool with virtual threads
+ * (spring.threads.virtual.enabled=true) under many concurrent clients.
+ *
+ * The application runs against an in-process MongoDB, with the Firebase Admin SDK replaced by a
+ * local decoder that blocks for {@link #KEY_FETCH} on every token, standing in for a fetch of
+ * Google's public keys. Every request carries a new token, so none is answered from the token cache.
+ *
+ * Run with: mvn test -Dtest=ThreadingLoadTest -Dloadtest=true (add -Pjava21 on Java 21 to measure
+ * virtual threads, which older runtimes skip).
+ */
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class ThreadingLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ThreadingLoadTest.class);
+
+    private static final int USERS = 50; // Users seeded, each with one set
+    private static final int CARDS_PER_SET = 20;
+    private static final int CLIENTS = 400; // Concurrent clients, twice Tomcat's default pool size
+    private static final Duration KEY_FETCH = Duration.ofMillis(20); // Blocking time of each token decode
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(15);
+
+    private final AtomicLong tokenSequence = new AtomicLong();
+
+    @Test
+    void compareThreadingModes() throws Exception {
+        MongoServer mongoServer = new MongoServer(new MemoryBackend());
+        InetSocketAddress address = mongoServer.bind();
+        String mongoUri = "mongodb://localhost:" + address.getPort() + "/loadtest";
+        try (MongoClient client = MongoClients.create(mongoUri)) {
+            List<String[]> targets = seed(new MongoTemplate(client, "loadtest"));
+
+            report("platform", run(mongoUri, false, targets));
+            if (Runtime.version().feature() >= 21) {
+                report("virtual", run(mongoUri, true, targets));
+            } else {
+                log.info("virtual: skipped, virtual threads need Java 21 (run on it with -Pjava21)");
+            }
+        } finally {
+            mongoServer.shutdown();
+        }
+    }
+
+    /**
+     * Inserts the users and their sets, returning (uid, setId) pairs to request.
+     */
+    private static List<String[]> seed(MongoTemplate mongoTemplate) {
+        List<String[]> targets = new ArrayList<>();
+        IdGenerator ids = new TimeOrderedUuidGenerator();
+        for (int u = 0; u < USERS; u++) {
+            List<Flashcard> flashcards = new ArrayList<>();
+            for (int c = 0; c < CARDS_PER_SET; c++) {
+                flashcards.add(new Flashcard("Question " + c, "Answer " + c));
+            }
+            FlashcardSet set = new FlashcardSet("Set " + u, flashcards);
+            ids.assignIds(set); // Inserted directly, not through a store
+            User user = new User("load-user-" + u, "load-user-" + u + "@example.com", "Load user " + u);
+            user.setFlashcardSets(new ArrayList<>(List.of(set)));
+            mongoTemplate.insert(user);
+            targets.add(new String[] { user.getId(), set.getId() });
+        }
+        return targets;
+    }
+
+    private Result run(String mongoUri, boolean virtualThreads, List<String[]> targets) throws Exception {
+        FirebaseIdTokenDecoder decoder = (idToken, checkRevoked) -> {
+            sleep(KEY_FETCH);
+            return FirebaseTokens.of(idToken.substring(0, idToken.lastIndexOf('.')));
+        };
+        ConfigurableApplicationContext app = new SpringApplicationBuilder(FlashCardAppApiApplication.class)
+                .properties("server.port=0", "spring.data.mongodb.uri=" + mongoUri,
+                        "spring.threads.virtual.enabled=" + virtualThreads,
+                        "flashcards.cache.mode=none") // Every request reads MongoDB
+                .initializers(context -> ((GenericApplicationContext) context).registerBean(
+                        FirebaseIdTokenDecoder.class, () -> decoder, definition -> definition.setPrimary(true)))
+                .run();
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            String baseUrl = "http://localhost:" + app.getEnvironment().getProperty("local.server.port") + "/api/users/";
+            HttpClient http = HttpClient.newBuilder().executor(Executors.newCachedThreadPool()).build();
+            long warmupEnd = System.nanoTime() + WARMUP.toNanos();
+            long end = warmupEnd + MEASUREMENT.toNanos();
+
+            List<Future<long[]>> latencies = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                String[] target = targets.get(i % targets.size());
+                latencies.add(clients.submit(() -> load(http, baseUrl, target, warmupEnd, end)));
+            }
+            List<long[]> measured = new ArrayList<>();
+            for (Future<long[]> future : latencies) {
+                measured.add(future.get());
+            }
+            return new Result(measured);
+        } finally {
+            clients.shutdownNow();
+            app.close();
+        }
+    }
+
+    /**
+     * Sends requests back to back until the end, returning the latencies measured after the warmup
+     * in nanoseconds.
+     */
+    private long[] load(HttpClient http, String baseUrl, String[] target, long warmupEnd, long end) throws Exception {
+        long[] latencies = new long[1024];
+        int count = 0;
+        URI uri = URI.create(baseUrl + target[0] + "/flashcardSets/" + target[1] + "/withCards"
+                + "?fields=title,cards.id,cards.question,cards.answer"); // What FlashcardSetPage reads
+        while (System.nanoTime() < end) {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Authorization", "Bearer " + target[0] + "." + tokenSequence.incrementAndGet())
+                    .build();
+            long start = System.nanoTime();
+            HttpResponse<Void> response = http.send(request, HttpResponse.BodyHandlers.discarding());
+            long latency = System.nanoTime() - start;
+            assertEquals(200, response.statusCode());
+            if (start >= warmupEnd) {
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = latency;
+            }
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    private static void report(String mode, Result result) {
+        log.info("{}: {} requests, {} requests/s, p50 {} ms, p99 {} ms", mode, result.requests(),
+                Math.round(result.requests() / (double) MEASUREMENT.toSeconds()),
+                String.format("%.1f", result.percentile(0.50) / 1e6), String.format("%.1f", result.percentile(0.99) / 1e6));
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The latencies measured by all clients.
+     */
+    private static class Result {
+        private final long[] latencies;
+
+        Result(List<long[]> measured) {
+            this.latencies = measured.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        }
+
+        long requests() {
+            return latencies.length;
+        }
+
+        long percentile(double percentile) {
+            return latencies.length == 0 ? 0 : latencies[(int) Math.ceil(percentile * latencies.length) - 1];
+        }
+    }
+}
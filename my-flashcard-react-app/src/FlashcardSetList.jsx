@@ -18,9 +18,9 @@ const FlashcardSetList = () => {
     // Function to fetch flashcard sets from the backend API
     const fetchFlashcardSets = async (token) => {
       try {
-        // Make GET request to fetch flashcard sets with the token for authentication
+        // Make GET request to fetch flashcard set summaries (id, title, card count) with the token for authentication
         const response = await axios.get(
-          `http://localhost:8080/api/users/${token}/flashcardSets`,
+          `http://localhost:8080/api/users/${token}/flashcardSets/summaries`,
           {
             headers: { Authorization: `Bearer ${token}` }, // Include token in headers for authorization
           }
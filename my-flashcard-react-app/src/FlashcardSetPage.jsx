@@ -35,21 +35,20 @@ const FlashcardSetPage = () => {
     // Executes side effects on component render and updates based on dependencies like `setId` or `sortAlphabetically`.
 
     const fetchFlashcardsAndTitle = async (userIdToken) => { 
-      // Fetches the flashcard set title and its associated flashcards from the server.
+      // Fetches the flashcard set title and its associated flashcards from the server in one request,
+      // reading only the fields this page shows.
       try { 
-        const setTitleResponse = await axios.get( 
-          `http://localhost:8080/api/users/${userIdToken}/flashcardSets/${setId}`, 
-          { headers: { Authorization: `Bearer ${userIdToken}` } } 
+        const setResponse = await axios.get( 
+          `http://localhost:8080/api/users/${userIdToken}/flashcardSets/${setId}/withCards`, 
+          { 
+            params: { fields: 'title,cards.id,cards.question,cards.answer' }, 
+            headers: { Authorization: `Bearer ${userIdToken}` } 
+          } 
         ); 
-        setFlashcardSetTitle(setTitleResponse.data.title); 
-        setUpdatedTitle(setTitleResponse.data.title); 
+        setFlashcardSetTitle(setResponse.data.title); 
+        setUpdatedTitle(setResponse.data.title); 
 
-        const flashcardsResponse = await axios.get( 
-          `http://localhost:8080/api/users/${userIdToken}/flashcardSets/${setId}/flashcards`, 
-          { headers: { Authorization: `Bearer ${userIdToken}` } } 
-        ); 
-
-        let flashcardsData = flashcardsResponse.data; 
+        let flashcardsData = setResponse.data.cards; 
         if (sortAlphabetically) { 
           // Optional sorting of flashcards by their question field.
           flashcardsData = flashcardsData.sort((a, b) => 
@@ -84,6 +84,25 @@ const FlashcardTestPage = () => {
     });
     setScore(calculatedScore); // Update the score state.
     setIsTestComplete(true); // Mark the test as completed.
+    recordReviews(); // Schedule the next review of every answered flashcard.
+  };
+
+  // Record each answer as a spaced-repetition review (grade 5 if correct, 1 if not), all in one request.
+  const recordReviews = async () => {
+    const events = flashcards.map((flashcard, index) => ({
+      eventId: crypto.randomUUID(), // Idempotency key, makes retrying the request safe.
+      setId,
+      flashcardId: flashcard.id,
+      grade: answers[index] === flashcard.answer ? 5 : 1,
+    }));
+    try {
+      const userIdToken = await auth.currentUser.getIdToken(); // Get the authenticated user's token.
+      await axios.post(`http://localhost:8080/api/users/${userIdToken}/reviews`, events, {
+        headers: { Authorization: `Bearer ${userIdToken}` }, // Include the user ID token in the request header.
+      });
+    } catch (err) {
+      console.error('Failed to record reviews:', err); // The score is still shown if recording fails.
+    }
   };
 
   if (loading) return <div>Loading...</div>; // Show a loading indicator while fetching data.